@@ -19,6 +19,7 @@
 package org.jasig.ssp.dao;
 
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.UUID;
 
@@ -30,7 +31,6 @@ import org.jasig.ssp.model.AuditPerson;
 import org.jasig.ssp.model.RestrictedPersonAssocAuditable;
 import org.jasig.ssp.model.reference.ConfidentialityLevel;
 import org.jasig.ssp.security.SspUser;
-import org.jasig.ssp.service.ObjectNotFoundException;
 import org.jasig.ssp.service.reference.ConfidentialityLevelService;
 import org.jasig.ssp.util.hibernate.BatchProcessor;
 import org.jasig.ssp.util.sort.PagingWrapper;
@@ -58,23 +58,19 @@ public abstract class AbstractRestrictedPersonAssocAuditableCrudDao<T extends Re
 			final SspUser requestor,
 			final Criteria criteria) {
 
-		final Collection<ConfidentialityLevel> levels = confidentialityLevelService
-				.filterConfidentialityLevelsFromGrantedAuthorities(requestor
+		Collection<UUID> levelIds = confidentialityLevelService
+				.confidentialityLevelIdsFromGrantedAuthorities(requestor
 						.getAuthorities());
 
-		if (levels.isEmpty()) {
-			try {
-				levels.add(confidentialityLevelService.get(ConfidentialityLevel.CONFIDENTIALITYLEVEL_EVERYONE));
-			} catch (ObjectNotFoundException e) {
-				LOGGER.error(e.getLocalizedMessage());
-			}
+		if (levelIds.isEmpty()) {
+			levelIds = Collections.singletonList(ConfidentialityLevel.CONFIDENTIALITYLEVEL_EVERYONE);
 		}
 		criteria.add(Restrictions.or(
-				Restrictions.in("confidentialityLevel", levels),
+				Restrictions.in("confidentialityLevel.id", levelIds),
 				Restrictions.eq("createdBy", new AuditPerson(requestor.getPerson()
 						.getId()))));
 		LOGGER.debug("Number of Confidentiality Levels for user {}",
-				levels.size());
+				levelIds.size());
 	}
 
 	@Override
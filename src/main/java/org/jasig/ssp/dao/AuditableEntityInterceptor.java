@@ -20,8 +20,10 @@ package org.jasig.ssp.dao;
 
 import java.io.Serializable;
 import java.util.Date;
+import java.util.UUID;
 
 import org.hibernate.EmptyInterceptor;
+import org.hibernate.proxy.HibernateProxy;
 import org.hibernate.type.Type;
 import org.jasig.ssp.model.AbstractAuditable;
 import org.jasig.ssp.model.AuditPerson;
@@ -126,7 +128,7 @@ public class AuditableEntityInterceptor extends EmptyInterceptor implements // N
 			return false;
 		}
 
-		final Person current = currentUser();
+		final UUID currentId = idOf(currentUser());
 		final Date now = new Date();
 
 		for (int i = 0; i < propertyNames.length; i++) {
@@ -137,7 +139,7 @@ public class AuditableEntityInterceptor extends EmptyInterceptor implements // N
 			}
 
 			if ("createdBy".equals(property) && (state[i] == null)) {
-				state[i] = new AuditPerson(current.getId());
+				state[i] = new AuditPerson(currentId);
 				continue;
 			}
 
@@ -152,7 +154,7 @@ public class AuditableEntityInterceptor extends EmptyInterceptor implements // N
 			}
 
 			if ("modifiedBy".equals(property)) {
-				state[i] = new AuditPerson(current.getId());
+				state[i] = new AuditPerson(currentId);
 				continue;
 			}
 		}
@@ -175,6 +177,19 @@ public class AuditableEntityInterceptor extends EmptyInterceptor implements // N
 		return user.getPerson();
 	}
 
+	/**
+	 * The current user is often an uninitialized proxy (see
+	 * {@link SspUser#restorePerson(Person)}); read its id without loading it,
+	 * which would otherwise mean a query in the middle of a flush.
+	 */
+	private UUID idOf(final Person person) {
+		if (person instanceof HibernateProxy) {
+			return (UUID) ((HibernateProxy) person)
+					.getHibernateLazyInitializer().getIdentifier();
+		}
+		return person.getId();
+	}
+
 	/**
 	 * Set the Spring container context to use for looking up the
 	 * SecurityService for use by {@link #currentUser()}.
@@ -0,0 +1,46 @@
+/**
+ * Licensed to Apereo under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work
+ * for additional information regarding copyright ownership.
+ * Apereo licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License.  You may obtain a
+ * copy of the License at the following location:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jasig.ssp.dao;
+
+import org.jasig.ssp.model.MessageContent;
+import org.springframework.stereotype.Repository;
+
+/**
+ * DAO for the {@link MessageContent} model
+ */
+@Repository
+public class MessageContentDao extends AbstractAuditableCrudDao<MessageContent> implements
+		AuditableCrudDao<MessageContent> {
+
+	public MessageContentDao() {
+		super(MessageContent.class);
+	}
+
+	/**
+	 * Look up shared content by {@link MessageContent#getContentHash()}.
+	 *
+	 * @param contentHash
+	 * @return {@code null} if no such content has been stored yet
+	 */
+	public MessageContent getByContentHash(String contentHash) {
+		return (MessageContent) createHqlQuery("from MessageContent where contentHash = :contentHash")
+				.setString("contentHash", contentHash)
+				.uniqueResult();
+	}
+}
@@ -18,15 +18,23 @@
  */
 package org.jasig.ssp.dao;
 
-import java.util.Calendar;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Date;
 import java.util.List;
+import java.util.UUID;
 
 import org.hibernate.Criteria;
+import org.hibernate.Query;
 import org.hibernate.criterion.Restrictions;
+import org.hibernate.type.StandardBasicTypes;
+import org.jasig.ssp.model.ArchivedMessage;
 import org.jasig.ssp.model.Message;
+import org.jasig.ssp.model.MessageDigestCategory;
+import org.jasig.ssp.model.ObjectStatus;
 import org.jasig.ssp.service.impl.MessageServiceImpl;
 import org.jasig.ssp.service.reference.ConfigService;
+import org.jasig.ssp.util.collections.Pair;
 import org.jasig.ssp.util.sort.PagingWrapper;
 import org.jasig.ssp.util.sort.SortDirection;
 import org.jasig.ssp.util.sort.SortingAndPaging;
@@ -70,6 +78,113 @@ public class MessageDao extends AbstractAuditableCrudDao<Message> implements
 				.list();
 	}
 
+	/**
+	 * Return active messages that have not been sent and have not used up their delivery retries, ordered by
+	 * ({@code createdDate}, {@code id}) and starting strictly after the given key. Intended for walking the queue
+	 * a batch at a time, passing in the last message from the previous batch, so each batch is a range read on
+	 * the queue index rather than a count plus an offset scan.
+	 *
+	 * @param afterCreatedDate {@code createdDate} of the last message already seen, {@code null} to start at the
+	 *                         head of the queue
+	 * @param afterId {@code id} of the last message already seen. Ignored if {@code afterCreatedDate} is
+	 *                {@code null}
+	 * @param heldForDigest messages in these categories are left out, see {@link #digestRecipientsDue}. May be
+	 *                      {@code null} or empty.
+	 * @param batchSize
+	 * @return
+	 */
+	@SuppressWarnings(UNCHECKED)
+	public List<Message> queuedAfter(Date afterCreatedDate, UUID afterId,
+									 Collection<MessageDigestCategory> heldForDigest, int batchSize) {
+		final int retryConfig = configService.getByNameExceptionOrDefaultAsInt("mail_delivery_retry_limit");
+		final StringBuilder hql = new StringBuilder("from Message where sentDate is null")
+				.append(" and objectStatus = :objectStatus")
+				.append(" and (retryCount is null or retryCount < :retryLimit)");
+		if ( afterCreatedDate != null ) {
+			hql.append(" and (createdDate > :afterCreatedDate or (createdDate = :afterCreatedDate and id > :afterId))");
+		}
+		final boolean holdForDigest = heldForDigest != null && !(heldForDigest.isEmpty());
+		if ( holdForDigest ) {
+			hql.append(" and (digestCategory is null or digestCategory not in (:digestCategories))");
+		}
+		hql.append(" order by createdDate, id");
+		final Query query = createHqlQuery(hql.toString())
+				.setParameter("objectStatus", ObjectStatus.ACTIVE)
+				.setInteger("retryLimit", retryConfig)
+				.setMaxResults(batchSize);
+		if ( afterCreatedDate != null ) {
+			query.setTimestamp("afterCreatedDate", afterCreatedDate)
+					.setParameter("afterId", afterId);
+		}
+		if ( holdForDigest ) {
+			query.setParameterList("digestCategories", names(heldForDigest), StandardBasicTypes.STRING);
+		}
+		return query.list();
+	}
+
+	/**
+	 * Recipient addresses with queued messages in any of the given digest categories, the oldest of which was
+	 * created at or before {@code windowStart}, i.e. recipients whose digest is due.
+	 *
+	 * @param digestCategories
+	 * @param windowStart
+	 * @param maxResults
+	 * @return
+	 */
+	@SuppressWarnings(UNCHECKED)
+	public List<String> digestRecipientsDue(Collection<MessageDigestCategory> digestCategories, Date windowStart,
+											int maxResults) {
+		final int retryConfig = configService.getByNameExceptionOrDefaultAsInt("mail_delivery_retry_limit");
+		return createHqlQuery("select recipientEmailAddress from Message where sentDate is null" +
+				" and objectStatus = :objectStatus and (retryCount is null or retryCount < :retryLimit)" +
+				" and digestCategory in (:digestCategories)" +
+				" group by recipientEmailAddress having min(createdDate) <= :windowStart" +
+				" order by min(createdDate)")
+				.setParameter("objectStatus", ObjectStatus.ACTIVE)
+				.setInteger("retryLimit", retryConfig)
+				.setParameterList("digestCategories", names(digestCategories), StandardBasicTypes.STRING)
+				.setTimestamp("windowStart", windowStart)
+				.setMaxResults(maxResults)
+				.list();
+	}
+
+	/**
+	 * All queued messages in any of the given digest categories bound for the given recipient, oldest first.
+	 *
+	 * @param recipientEmailAddress
+	 * @param digestCategories
+	 * @return
+	 */
+	@SuppressWarnings(UNCHECKED)
+	public List<Message> queuedForDigest(String recipientEmailAddress,
+										 Collection<MessageDigestCategory> digestCategories) {
+		final int retryConfig = configService.getByNameExceptionOrDefaultAsInt("mail_delivery_retry_limit");
+		return createHqlQuery("from Message where sentDate is null" +
+				" and objectStatus = :objectStatus and (retryCount is null or retryCount < :retryLimit)" +
+				" and digestCategory in (:digestCategories) and recipientEmailAddress = :recipientEmailAddress" +
+				" order by createdDate, id")
+				.setParameter("objectStatus", ObjectStatus.ACTIVE)
+				.setInteger("retryLimit", retryConfig)
+				.setParameterList("digestCategories", names(digestCategories), StandardBasicTypes.STRING)
+				.setString("recipientEmailAddress", recipientEmailAddress)
+				.list();
+	}
+
+	private List<String> names(Collection<MessageDigestCategory> digestCategories) {
+		final List<String> names = new ArrayList<String>(digestCategories.size());
+		for ( MessageDigestCategory digestCategory : digestCategories ) {
+			names.add(digestCategory.name());
+		}
+		return names;
+	}
+
+	/**
+	 * Offset-paged version of {@link #queuedAfter(Date, UUID, Collection, int)}. Runs a count query and an offset scan for
+	 * every page, so prefer {@link #queuedAfter(Date, UUID, Collection, int)} for walking a large queue.
+	 *
+	 * @param sAndP
+	 * @return
+	 */
 	public PagingWrapper<Message> queued(SortingAndPaging sAndP) {
 		int retryConfig = configService.getByNameExceptionOrDefaultAsInt("mail_delivery_retry_limit");
 		// will let the caller decide on object status filtering, but since
@@ -89,22 +204,75 @@ public class MessageDao extends AbstractAuditableCrudDao<Message> implements
 		return processCriteriaWithStatusSortingAndPaging(criteria, sAndP);
 	}
 
-	public int archiveAndPruneMessages(Integer messageAgeInDays) {
-		Calendar date = Calendar.getInstance();
-		date.add(Calendar.DAY_OF_MONTH, messageAgeInDays * -1);
+	/**
+	 * Return the ({@code createdDate}, {@code id}) keys of messages created before the given cutoff and no longer
+	 * referenced by a {@link org.jasig.ssp.model.TaskMessageEnqueue}, ordered by key and starting strictly after
+	 * the given key. Intended for archiving the message table a bounded chunk at a time, see
+	 * {@link #archiveAndPruneMessages(Collection)}.
+	 *
+	 * @param cutoff only messages created strictly before this date are returned
+	 * @param afterCreatedDate {@code createdDate} of the last message already seen, {@code null} to start at the
+	 *                         oldest message
+	 * @param afterId {@code id} of the last message already seen. Ignored if {@code afterCreatedDate} is
+	 *                {@code null}
+	 * @param chunkSize
+	 * @return
+	 */
+	@SuppressWarnings(UNCHECKED)
+	public List<Pair<Date,UUID>> archivableAfter(Date cutoff, Date afterCreatedDate, UUID afterId, int chunkSize) {
+		// 'not exists' rather than 'not in' so the database can plan it as an anti-join probing
+		// task_message_enqueue by message_id instead of materializing every enqueued message id
+		final StringBuilder hql = new StringBuilder("select msg.createdDate, msg.id from Message msg")
+				.append(" where msg.createdDate < :cutoff")
+				.append(" and not exists (select tme.id from TaskMessageEnqueue tme where tme.message.id = msg.id)");
+		if ( afterCreatedDate != null ) {
+			hql.append(" and (msg.createdDate > :afterCreatedDate or (msg.createdDate = :afterCreatedDate and msg.id > :afterId))");
+		}
+		hql.append(" order by msg.createdDate, msg.id");
+		final Query query = createHqlQuery(hql.toString())
+				.setTimestamp("cutoff", cutoff)
+				.setMaxResults(chunkSize);
+		if ( afterCreatedDate != null ) {
+			query.setTimestamp("afterCreatedDate", afterCreatedDate)
+					.setParameter("afterId", afterId);
+		}
+		final List<Object[]> rows = query.list();
+		final List<Pair<Date,UUID>> keys = new ArrayList<Pair<Date,UUID>>(rows.size());
+		for ( Object[] row : rows ) {
+			keys.add(new Pair<Date,UUID>((Date)row[0], (UUID)row[1]));
+		}
+		return keys;
+	}
+
+	/**
+	 * Copy the given messages to {@link ArchivedMessage} and delete them from the message table. Messages that have
+	 * since been picked up by a {@link org.jasig.ssp.model.TaskMessageEnqueue} are left alone. Callers are expected
+	 * to keep {@code messageIds} small (see {@link #archivableAfter(Date, Date, UUID, int)}) and to commit after
+	 * each call so no single transaction holds locks on a large part of the message table.
+	 *
+	 * @param messageIds
+	 * @return the number of messages archived and deleted
+	 * @throws IllegalStateException if the number of messages archived and deleted differ, in which case the
+	 *   caller's transaction must be rolled back
+	 */
+	public int archiveAndPruneMessages(Collection<UUID> messageIds) {
+		if ( messageIds == null || messageIds.isEmpty() ) {
+			return 0;
+		}
 		String hql = "INSERT INTO ArchivedMessage(id,createdDate, createdBy,modifiedDate, modifiedBy, objectStatus,subject,  body,  sender, recipient,  recipientEmailAddress,  "
-				+ "carbonCopy,	 sentToAddresses,  sentCcAddresses,	 sentBccAddresses,  sentFromAddress, sentReplyToAddress,  sentDate) "  + 
+				+ "carbonCopy,	 sentToAddresses,  sentCcAddresses,	 sentBccAddresses,  sentFromAddress, sentReplyToAddress,  sentDate, content) "  + 
 	             "SELECT id,createdDate, createdBy,modifiedDate, modifiedBy,objectStatus,subject,  body,  sender, recipient,  recipientEmailAddress,  "
-				+ "carbonCopy,	 sentToAddresses,  sentCcAddresses,	 sentBccAddresses,  sentFromAddress, sentReplyToAddress,  sentDate FROM Message msg"
-				+ " Where createdDate < :date and id not in (select message.id from TaskMessageEnqueue)";
+				+ "carbonCopy,	 sentToAddresses,  sentCcAddresses,	 sentBccAddresses,  sentFromAddress, sentReplyToAddress,  sentDate, content FROM Message msg"
+				+ " Where msg.id in (:ids) and not exists (select tme.id from TaskMessageEnqueue tme where tme.message.id = msg.id)";
 		
-		int executedInsert = createHqlQuery(hql).setDate("date", date.getTime()).executeUpdate();
-		String deleteHql = "delete from Message where createdDate < :date and id not in (select message.id from TaskMessageEnqueue)";
-		int executedDelete = createHqlQuery(deleteHql).setDate("date", date.getTime()).executeUpdate();
+		int executedInsert = createHqlQuery(hql).setParameterList("ids", messageIds).executeUpdate();
+		// only delete what actually made it into the archive
+		String deleteHql = "delete from Message where id in (select am.id from ArchivedMessage am where am.id in (:ids))";
+		int executedDelete = createHqlQuery(deleteHql).setParameterList("ids", messageIds).executeUpdate();
 		if(executedInsert != executedDelete)
 		{
-			throw new RuntimeException("Number of messages being archived and deleted are not equal, so transaction is being rolled back");
+			throw new IllegalStateException("Number of messages being archived and deleted are not equal, so transaction is being rolled back");
 		}
 		return executedInsert;
 	}
-}
\ No newline at end of file
+}
@@ -0,0 +1,153 @@
+/**
+ * Licensed to Apereo under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work
+ * for additional information regarding copyright ownership.
+ * Apereo licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License.  You may obtain a
+ * copy of the License at the following location:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jasig.ssp.dao;
+
+import java.util.Date;
+
+import org.hibernate.Query;
+import org.hibernate.Session;
+import org.hibernate.type.StandardBasicTypes;
+import org.jasig.ssp.model.ObjectStatus;
+import org.jasig.ssp.model.ScheduledTaskLease;
+import org.jasig.ssp.util.sort.PagingWrapper;
+import org.jasig.ssp.util.sort.SortingAndPaging;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Lease rows are claimed, renewed and given up with conditional bulk updates
+ * rather than read-modify-write so the database arbitrates between nodes
+ * racing for the same task. Each method returns the number of rows updated,
+ * i.e. 1 if the caller now holds (or no longer holds) the lease, otherwise 0.
+ */
+@Repository
+public class ScheduledTaskLeaseDao extends AbstractDao<ScheduledTaskLease> {
+
+	private static final String ACQUIRE =
+			"update ScheduledTaskLease set leaseHolder = :holder,"
+			+ " leaseExpires = :expires, acquiredDate = :now,"
+			+ " scheduledFor = :scheduledFor, completedDate = null"
+			+ " where taskName = :taskName"
+			+ " and (leaseExpires is null or leaseExpires < :now)";
+
+	// a cron run is only taken if no node has started it yet, or if the node
+	// that started it died (or gave up) before completing it
+	private static final String ACQUIRE_SCHEDULED_RUN = ACQUIRE
+			+ " and (scheduledFor is null or scheduledFor < :scheduledFor"
+			+ " or (scheduledFor = :scheduledFor and completedDate is null))";
+
+	private static final String RENEW =
+			"update ScheduledTaskLease set leaseExpires = :expires"
+			+ " where taskName = :taskName and leaseHolder = :holder"
+			+ " and leaseExpires >= :now";
+
+	private static final String RELEASE =
+			"update ScheduledTaskLease set leaseHolder = null,"
+			+ " leaseExpires = null, completedDate = :completedDate"
+			+ " where taskName = :taskName and leaseHolder = :holder";
+
+	protected ScheduledTaskLeaseDao() {
+		super(ScheduledTaskLease.class);
+	}
+
+	@Override
+	public PagingWrapper<ScheduledTaskLease> getAll(final ObjectStatus status) {
+		throw new UnsupportedOperationException("Not implemented.");
+	}
+
+	@Override
+	public PagingWrapper<ScheduledTaskLease> getAll(
+			final SortingAndPaging sAndP) {
+		throw new UnsupportedOperationException("Not implemented.");
+	}
+
+	public ScheduledTaskLease get(final String taskName) {
+		return (ScheduledTaskLease) sessionFactory.getCurrentSession().get(
+				ScheduledTaskLease.class, taskName);
+	}
+
+	/**
+	 * Inserts a new, unheld lease row. Flushes immediately so a concurrent
+	 * insert by another node surfaces here as a constraint violation.
+	 */
+	public ScheduledTaskLease create(final String taskName) {
+		final Session currentSession = sessionFactory.getCurrentSession();
+		final ScheduledTaskLease lease = new ScheduledTaskLease(taskName);
+		currentSession.save(lease);
+		currentSession.flush();
+		return lease;
+	}
+
+	/**
+	 * Claims the lease if it is unheld or has expired.
+	 * 
+	 * @param scheduledFor
+	 *            Fire time of the cron run (or start of the period slot of
+	 *            the periodic run) being claimed, which must not already have
+	 *            been completed by any node. {@code null} if runs aren't told
+	 *            apart.
+	 */
+	public int acquire(final String taskName, final String holder,
+			final Date now, final Date expires, final Date scheduledFor) {
+		final Query query = sessionFactory.getCurrentSession()
+				.createQuery(scheduledFor == null ? ACQUIRE
+						: ACQUIRE_SCHEDULED_RUN)
+				.setString("taskName", taskName)
+				.setString("holder", holder)
+				.setTimestamp("now", now)
+				.setTimestamp("expires", expires);
+		if (scheduledFor == null) {
+			query.setParameter("scheduledFor", null,
+					StandardBasicTypes.TIMESTAMP);
+		} else {
+			query.setTimestamp("scheduledFor", scheduledFor);
+		}
+		return query.executeUpdate();
+	}
+
+	/**
+	 * Pushes out the expiry of a lease the given holder still holds. Fails
+	 * if the lease already expired, since another node may have taken it.
+	 */
+	public int renew(final String taskName, final String holder,
+			final Date now, final Date expires) {
+		return sessionFactory.getCurrentSession()
+				.createQuery(RENEW)
+				.setString("taskName", taskName)
+				.setString("holder", holder)
+				.setTimestamp("now", now)
+				.setTimestamp("expires", expires)
+				.executeUpdate();
+	}
+
+	/**
+	 * @param completedDate
+	 *            When the leased run finished, or {@code null} if it was cut
+	 *            short and may be picked up by another node
+	 */
+	public int release(final String taskName, final String holder,
+			final Date completedDate) {
+		return sessionFactory.getCurrentSession()
+				.createQuery(RELEASE)
+				.setString("taskName", taskName)
+				.setString("holder", holder)
+				.setParameter("completedDate", completedDate,
+						StandardBasicTypes.TIMESTAMP)
+				.executeUpdate();
+	}
+}
@@ -0,0 +1,110 @@
+/**
+ * Licensed to Apereo under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work
+ * for additional information regarding copyright ownership.
+ * Apereo licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License.  You may obtain a
+ * copy of the License at the following location:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jasig.ssp.dao;
+
+import java.util.Date;
+import java.util.List;
+
+import org.hibernate.Query;
+import org.jasig.ssp.model.ObjectStatus;
+import org.jasig.ssp.model.ScheduledTaskRun;
+import org.jasig.ssp.util.sort.PagingWrapper;
+import org.jasig.ssp.util.sort.SortingAndPaging;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Run history is append-only and can grow large for frequent tasks, so
+ * lookups are always bounded by task name and/or row count rather than
+ * going through the generic {@code getAll()} methods.
+ */
+@Repository
+public class ScheduledTaskRunDao extends AbstractDao<ScheduledTaskRun> {
+
+	protected ScheduledTaskRunDao() {
+		super(ScheduledTaskRun.class);
+	}
+
+	@Override
+	public PagingWrapper<ScheduledTaskRun> getAll(final ObjectStatus status) {
+		throw new UnsupportedOperationException("Not implemented.");
+	}
+
+	@Override
+	public PagingWrapper<ScheduledTaskRun> getAll(
+			final SortingAndPaging sAndP) {
+		throw new UnsupportedOperationException("Not implemented.");
+	}
+
+	public ScheduledTaskRun create(final ScheduledTaskRun run) {
+		sessionFactory.getCurrentSession().save(run);
+		return run;
+	}
+
+	/**
+	 * Most recent runs first.
+	 * 
+	 * @param taskName
+	 *            Task to look up, or {@code null} for all tasks
+	 * @param since
+	 *            Only runs started at or after this time, or {@code null} for
+	 *            no lower bound
+	 * @param maxResults
+	 *            Maximum number of runs to return
+	 */
+	@SuppressWarnings(UNCHECKED)
+	public List<ScheduledTaskRun> getRecent(final String taskName,
+			final Date since, final int maxResults) {
+		final StringBuilder hql = new StringBuilder("from ScheduledTaskRun where 1 = 1");
+		if (taskName != null) {
+			hql.append(" and taskName = :taskName");
+		}
+		if (since != null) {
+			hql.append(" and startDate >= :since");
+		}
+		hql.append(" order by startDate desc");
+		final Query query = createHqlQuery(hql.toString());
+		if (taskName != null) {
+			query.setString("taskName", taskName);
+		}
+		if (since != null) {
+			query.setTimestamp("since", since);
+		}
+		return query.setMaxResults(maxResults).list();
+	}
+
+	/**
+	 * @return Names of every task with at least one recorded run
+	 */
+	@SuppressWarnings(UNCHECKED)
+	public List<String> getTaskNames() {
+		return createHqlQuery(
+				"select distinct taskName from ScheduledTaskRun order by taskName")
+				.list();
+	}
+
+	/**
+	 * @return Number of runs deleted
+	 */
+	public int deleteStartedBefore(final Date cutoff) {
+		return createHqlQuery(
+				"delete from ScheduledTaskRun where startDate < :cutoff")
+				.setTimestamp("cutoff", cutoff)
+				.executeUpdate();
+	}
+}
@@ -18,9 +18,21 @@
  */
 package org.jasig.ssp.dao.jobqueue;
 
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.SQLException;
+import java.util.Date;
 import java.util.List;
+import java.util.UUID;
 
+import com.google.common.collect.Lists;
 import org.hibernate.Criteria;
+import org.hibernate.LockOptions;
+import org.hibernate.dialect.Dialect;
+import org.hibernate.dialect.PostgreSQLDialect;
+import org.hibernate.dialect.SQLServerDialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.jdbc.ReturningWork;
 import org.hibernate.criterion.Restrictions;
 import org.jasig.ssp.dao.AbstractAuditableCrudDao;
 import org.jasig.ssp.dao.AuditableCrudDao;
@@ -30,6 +42,7 @@ import org.jasig.ssp.model.jobqueue.WorkflowStatus;
 import org.jasig.ssp.util.sort.PagingWrapper;
 import org.jasig.ssp.util.sort.SortDirection;
 import org.jasig.ssp.util.sort.SortingAndPaging;
+import org.jasig.ssp.util.uuid.UUIDCustomType;
 import org.springframework.stereotype.Repository;
 
 /**
@@ -47,19 +60,143 @@ public class JobDao extends AbstractAuditableCrudDao<Job> implements
 		super(Job.class);
 	}
 
+	/**
+	 * Where clause shared by all variants of the claim query. A {@link Job} is claimable if it is queued, or if it
+	 * was claimed by some process whose lease has since lapsed, e.g. because that process crashed or was shut
+	 * down mid-execution. Claims made before leases existed have no lease at all, so those are treated as
+	 * abandoned as soon as they're seen by a different process, just as they always were.
+	 */
+	private static final String CLAIMABLE_SQL = "workflow_stopped_date is null" +
+			" and (workflow_status = :queued" +
+				" or ((workflow_status = :scheduling or workflow_status = :executing)" +
+					" and (lease_expires_date < :now" +
+						" or (lease_expires_date is null and scheduled_by_process <> :processId))))";
+
+	private static final String CLAIMABLE_HQL = "workflowStoppedDate is null" +
+			" and (workflowStatus = :queued" +
+				" or ((workflowStatus = :scheduling or workflowStatus = :executing)" +
+					" and (leaseExpiresDate < :now" +
+						" or (leaseExpiresDate is null and scheduledByProcess != :processId))))";
+
+	private volatile Boolean postgresSkipLockedSupported;
+
+	/**
+	 * Selects up to {@code maxResults} claimable {@link Job}s, oldest first, and locks their rows until the current
+	 * transaction ends. On PostgreSQL and SQL Server rows already locked by another transaction (i.e. being
+	 * claimed by another node) are skipped rather than waited on, so concurrent claimers each get a disjoint set
+	 * of {@link Job}s. Callers are expected to mark the returned {@link Job}s as claimed before committing.
+	 *
+	 * @param maxResults
+	 * @param processId identifies the claiming process
+	 * @return
+	 */
 	@SuppressWarnings("unchecked")
 	public List<Job> getNextQueuedJobsForExecution(int maxResults, String processId) {
-		 return sessionFactory
-			.getCurrentSession()
-			// This really only happens to work b/c we only support single-node deployments.
-			.createQuery(
-					"from Job where workflowStoppedDate is null" +
-						" and ((workflowStatus = :queued)" +
-							" or ((workflowStatus = :scheduling or workflowStatus = :executing) and scheduledByProcess != :processId)" +
-						")" +
-						" order by createdDate")
-			.setMaxResults(maxResults).setString("queued", WorkflowStatus.QUEUED.toString()).setString("scheduling", WorkflowStatus.SCHEDULING.toString()).setString("executing", WorkflowStatus.EXECUTING.toString())
-			.setString("processId", processId)
-			.list();
+		final Date now = new Date();
+		final Dialect dialect = ((SessionFactoryImplementor) sessionFactory).getDialect();
+		final String claimSql;
+		if ( dialect instanceof PostgreSQLDialect ) {
+			claimSql = "select id from job_queue where " + CLAIMABLE_SQL +
+					" order by created_date limit :maxResults" +
+					(isPostgresSkipLockedSupported() ? " for update skip locked" : " for update");
+		} else if ( dialect instanceof SQLServerDialect ) {
+			claimSql = "select top (:maxResults) id from job_queue with (updlock, readpast, rowlock) where " +
+					CLAIMABLE_SQL + " order by created_date";
+		} else {
+			return createHqlQuery("from Job where " + CLAIMABLE_HQL + " order by createdDate")
+					.setMaxResults(maxResults)
+					.setString("queued", WorkflowStatus.QUEUED.toString())
+					.setString("scheduling", WorkflowStatus.SCHEDULING.toString())
+					.setString("executing", WorkflowStatus.EXECUTING.toString())
+					.setTimestamp("now", now)
+					.setString("processId", processId)
+					.setLockOptions(LockOptions.UPGRADE)
+					.list();
+		}
+
+		final List<UUID> ids = sessionFactory.getCurrentSession()
+				.createSQLQuery(claimSql)
+				.addScalar("id", new UUIDCustomType())
+				.setInteger("maxResults", maxResults)
+				.setString("queued", WorkflowStatus.QUEUED.toString())
+				.setString("scheduling", WorkflowStatus.SCHEDULING.toString())
+				.setString("executing", WorkflowStatus.EXECUTING.toString())
+				.setTimestamp("now", now)
+				.setString("processId", processId)
+				.list();
+		if ( ids.isEmpty() ) {
+			return Lists.newArrayList();
+		}
+		return createHqlQuery("from Job where id in (:ids) order by createdDate")
+				.setParameterList("ids", ids)
+				.list();
+	}
+
+	/**
+	 * Pushes the given {@link Job}'s lease expiry out to {@code leaseExpires}, but only if the {@link Job} is still
+	 * claimed by {@code processId} and hasn't stopped. Written as a bulk update rather than a {@link Job} save so it
+	 * can't clobber (or be clobbered by) concurrent changes to the rest of the record.
+	 *
+	 * @param jobId
+	 * @param processId the process which believes it holds the lease
+	 * @param leaseExpires
+	 * @return {@code false} if the lease was not renewed, i.e. {@code processId} no longer holds it
+	 */
+	public boolean renewLease(UUID jobId, String processId, Date leaseExpires) {
+		return createHqlQuery("update Job set leaseExpiresDate = :leaseExpires" +
+				" where id = :id and scheduledByProcess = :processId and workflowStoppedDate is null" +
+				" and (workflowStatus = :scheduling or workflowStatus = :executing)")
+				.setTimestamp("leaseExpires", leaseExpires)
+				.setParameter("id", jobId)
+				.setString("processId", processId)
+				.setString("scheduling", WorkflowStatus.SCHEDULING.toString())
+				.setString("executing", WorkflowStatus.EXECUTING.toString())
+				.executeUpdate() > 0;
+	}
+
+	/**
+	 * Unconditionally sets the given {@link Job}'s lease expiry. For use when the caller already holds the
+	 * {@link Job}'s row lock, e.g. immediately after {@link #getNextQueuedJobsForExecution(int, String)}.
+	 * Otherwise prefer {@link #renewLease(UUID, String, Date)}.
+	 *
+	 * @param jobId
+	 * @param leaseExpires
+	 */
+	public void setLeaseExpiresDate(UUID jobId, Date leaseExpires) {
+		createHqlQuery("update Job set leaseExpiresDate = :leaseExpires where id = :id")
+				.setTimestamp("leaseExpires", leaseExpires)
+				.setParameter("id", jobId)
+				.executeUpdate();
+	}
+
+	/**
+	 * {@code SKIP LOCKED} arrived in PostgreSQL 9.5. Older servers just block on rows another node is claiming,
+	 * which is still correct, only slower.
+	 */
+	private boolean isPostgresSkipLockedSupported() {
+		if ( postgresSkipLockedSupported == null ) {
+			postgresSkipLockedSupported = sessionFactory.getCurrentSession().doReturningWork(new ReturningWork<Boolean>() {
+				@Override
+				public Boolean execute(Connection connection) throws SQLException {
+					final DatabaseMetaData metaData = connection.getMetaData();
+					final int major = metaData.getDatabaseMajorVersion();
+					return major > 9 || (major == 9 && metaData.getDatabaseMinorVersion() >= 5);
+				}
+			});
+		}
+		return postgresSkipLockedSupported;
+	}
+
+	/**
+	 * Re-reads the given {@link Job}'s row from the database, holding a pessimistic write lock on it until the
+	 * current transaction ends. Any un-flushed changes to the in-memory {@link Job} are discarded. Used to serialize
+	 * read-modify-write cycles against {@code executionState} when several threads are working the same job.
+	 *
+	 * @param job
+	 * @return the refreshed {@link Job}, i.e. the same instance that was passed in
+	 */
+	public Job refreshForUpdate(Job job) {
+		sessionFactory.getCurrentSession().refresh(job, LockOptions.UPGRADE);
+		return job;
 	}
-}
\ No newline at end of file
+}
@@ -0,0 +1,98 @@
+/**
+ * Licensed to Apereo under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work
+ * for additional information regarding copyright ownership.
+ * Apereo licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License.  You may obtain a
+ * copy of the License at the following location:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jasig.ssp.dao.jobqueue;
+
+import java.util.List;
+import java.util.UUID;
+
+import org.jasig.ssp.dao.AbstractAuditableCrudDao;
+import org.jasig.ssp.dao.AuditableCrudDao;
+import org.jasig.ssp.model.jobqueue.JobPersonQueueEntry;
+import org.jasig.ssp.model.jobqueue.JobPersonQueueType;
+import org.springframework.stereotype.Repository;
+
+/**
+ * DAO for the {@link JobPersonQueueEntry} model
+ */
+@Repository
+public class JobPersonQueueEntryDao extends AbstractAuditableCrudDao<JobPersonQueueEntry> implements
+		AuditableCrudDao<JobPersonQueueEntry> {
+
+	public JobPersonQueueEntryDao() {
+		super(JobPersonQueueEntry.class);
+	}
+
+	/**
+	 * Oldest entry in the given queue.
+	 *
+	 * @param jobId
+	 * @param jobPartition
+	 * @param queueType
+	 * @return {@code null} if the queue is empty
+	 */
+	public JobPersonQueueEntry getFirst(UUID jobId, int jobPartition, JobPersonQueueType queueType) {
+		return (JobPersonQueueEntry) createHqlQuery("from JobPersonQueueEntry where job.id = :jobId" +
+				" and jobPartition = :jobPartition and queueType = :queueType order by createdDate, id")
+				.setParameter("jobId", jobId)
+				.setInteger("jobPartition", jobPartition)
+				.setString("queueType", queueType.name())
+				.setMaxResults(1)
+				.uniqueResult();
+	}
+
+	/**
+	 * All entries in the given queue across all of the {@code Job}'s partitions, oldest first.
+	 *
+	 * @param jobId
+	 * @param queueType
+	 * @return
+	 */
+	@SuppressWarnings(UNCHECKED)
+	public List<JobPersonQueueEntry> getAllForJob(UUID jobId, JobPersonQueueType queueType) {
+		return createHqlQuery("from JobPersonQueueEntry where job.id = :jobId and queueType = :queueType" +
+				" order by jobPartition, createdDate, id")
+				.setParameter("jobId", jobId)
+				.setString("queueType", queueType.name())
+				.list();
+	}
+
+	/**
+	 * Deletes all of the {@code Job}'s entries, in every queue and partition.
+	 *
+	 * @param jobId
+	 * @return the number of entries deleted
+	 */
+	public int deleteAllForJob(UUID jobId) {
+		return createHqlQuery("delete from JobPersonQueueEntry where job.id = :jobId")
+				.setParameter("jobId", jobId)
+				.executeUpdate();
+	}
+
+	/**
+	 * Deletes the entry with the given ID, if it still exists.
+	 *
+	 * @param id
+	 * @return {@code false} if there was no such entry
+	 */
+	public boolean deleteById(UUID id) {
+		return createHqlQuery("delete from JobPersonQueueEntry where id = :id")
+				.setParameter("id", id)
+				.executeUpdate() > 0;
+	}
+}
@@ -91,6 +91,9 @@ public class ChallengeDao extends AbstractReferenceAuditableCrudDao<Challenge>
 	 * <p>
 	 * Also filters out inactive Challenges, and those that are not marked to
 	 * show in the SelfHelpSearch.
+	 * <p>
+	 * Self-help search no longer goes through this method; see
+	 * {@link org.jasig.ssp.service.reference.impl.ChallengeSearchIndex}.
 	 * 
 	 * @param query
 	 *            Text string to compare with a SQL LIKE clause on the
@@ -125,6 +128,25 @@ public class ChallengeDao extends AbstractReferenceAuditableCrudDao<Challenge>
 				.setParameter("objectStatus", ObjectStatus.ACTIVE).list();
 	}
 
+	/**
+	 * Retrieves every Challenge, regardless of status, with its
+	 * ChallengeChallengeReferrals and their ChallengeReferrals fetched in the
+	 * same query. Intended for (re)building the in-memory challenge search
+	 * index, which needs all of that text and status at once.
+	 *
+	 * @return All Challenges with their referral associations initialized
+	 */
+	@SuppressWarnings(UNCHECKED)
+	public List<Challenge> getAllForSearchIndex() {
+		return sessionFactory
+				.getCurrentSession()
+				.createQuery(
+						"select distinct c from Challenge c "
+								+ "left join fetch c.challengeChallengeReferrals ccr "
+								+ "left join fetch ccr.challengeReferral")
+				.list();
+	}
+
 	@SuppressWarnings(UNCHECKED)
 	public List<Challenge> searchByQueryNoSelfHelpGuide(final String query) {
 		final String beginningHql = "select distinct c from Challenge c inner join c.challengeChallengeReferrals ccr where c.objectStatus = :objectStatus and c.showInSelfHelpSearch = true "; // NOPMD
@@ -0,0 +1,67 @@
+/**
+ * Licensed to Apereo under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work
+ * for additional information regarding copyright ownership.
+ * Apereo licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License.  You may obtain a
+ * copy of the License at the following location:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jasig.ssp.dao.reference;
+
+import java.util.Date;
+
+import org.hibernate.SessionFactory;
+import org.jasig.ssp.model.reference.ReferenceDataVersion;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Versions reference tables by their latest audit dates and row counts,
+ * which the audit interceptor keeps current on every create, update and
+ * soft delete. The count catches hard deletes.
+ */
+@Repository
+public class ReferenceDataVersionDao {
+
+	@Autowired
+	protected transient SessionFactory sessionFactory;
+
+	/**
+	 * @param persistentClasses
+	 *            Auditable entity classes the data being versioned is read
+	 *            from
+	 */
+	public ReferenceDataVersion getVersion(final Class<?>... persistentClasses) {
+		long lastModified = 0;
+		final StringBuilder tag = new StringBuilder();
+		for (final Class<?> persistentClass : persistentClasses) {
+			final Object[] row = (Object[]) sessionFactory
+					.getCurrentSession()
+					.createQuery(
+							"select max(e.modifiedDate), max(e.createdDate), count(e) from "
+									+ persistentClass.getName() + " e")
+					.uniqueResult();
+			final long tableLastModified = Math.max(millis(row[0]), millis(row[1]));
+			lastModified = Math.max(lastModified, tableLastModified);
+			tag.append(Long.toHexString(tableLastModified)).append('.')
+					.append(Long.toHexString((Long) row[2])).append('.');
+		}
+		return new ReferenceDataVersion(lastModified == 0 ? null : new Date(
+				lastModified), Integer.toHexString(tag.toString().hashCode())
+				+ Long.toHexString(lastModified));
+	}
+
+	private long millis(final Object date) {
+		return date == null ? 0 : ((Date) date).getTime();
+	}
+}
@@ -23,6 +23,7 @@ import java.util.UUID;
 
 import javax.persistence.Column;
 import javax.persistence.Entity;
+import javax.persistence.FetchType;
 import javax.persistence.Inheritance;
 import javax.persistence.InheritanceType;
 import javax.persistence.JoinColumn;
@@ -74,9 +75,16 @@ final public class ArchivedMessage
 	@Column(nullable = false, length = 250)
 	private String subject;
 
-	@Column(nullable = false, columnDefinition = "text")
+	/**
+	 * Null if the body is kept in shared {@link #content} instead
+	 */
+	@Column(nullable = true, columnDefinition = "text")
 	private String body;
 
+	@ManyToOne(fetch = FetchType.LAZY)
+	@JoinColumn(name = "content_id", nullable = true)
+	private MessageContent content;
+
 	@ManyToOne
 	@JoinColumn(name = "sender_id", nullable = false)
 	private Person sender;
@@ -204,12 +212,32 @@ final public class ArchivedMessage
 		this.recipientEmailAddress = recipientEmailAddress;
 	}
 
+	/**
+	 * The body, whether it is stored on this message or in shared {@link #getContent() content}.
+	 *
+	 * @return
+	 */
 	public String getBody() {
-		return body;
+		return body == null && content != null ? content.getBody() : body;
 	}
 
 	public void setBody(@NotNull final String body) {
 		this.body = body;
+		this.content = null;
+	}
+
+	public MessageContent getContent() {
+		return content;
+	}
+
+	/**
+	 * Use the given shared content as this message's body in place of a copy of its own.
+	 *
+	 * @param content
+	 */
+	public void setContent(final MessageContent content) {
+		this.content = content;
+		this.body = content == null ? body : null;
 	}
 
 	public Date getSentDate() {
@@ -22,6 +22,9 @@ import java.util.Date;
 
 import javax.persistence.Column;
 import javax.persistence.Entity;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
+import javax.persistence.FetchType;
 import javax.persistence.Inheritance;
 import javax.persistence.InheritanceType;
 import javax.persistence.JoinColumn;
@@ -44,9 +47,16 @@ final public class Message
 	@Column(nullable = false, length = 250)
 	private String subject;
 
-	@Column(nullable = false, columnDefinition = "text")
+	/**
+	 * Null if the body is kept in shared {@link #content} instead
+	 */
+	@Column(nullable = true, columnDefinition = "text")
 	private String body;
 
+	@ManyToOne(fetch = FetchType.LAZY)
+	@JoinColumn(name = "content_id", nullable = true)
+	private MessageContent content;
+
 	@ManyToOne
 	@JoinColumn(name = "sender_id", nullable = false)
 	private Person sender;
@@ -81,6 +91,15 @@ final public class Message
 	private Date sentDate;
 
 	private Integer retryCount;
+
+	/**
+	 * If set, and digests are enabled for this category, the message is held
+	 * and sent as part of a digest rather than on its own.
+	 */
+	@Enumerated(EnumType.STRING)
+	@Column(length = 50, nullable = true)
+	private MessageDigestCategory digestCategory;
+
 	/**
 	 * Empty constructor
 	 */
@@ -175,12 +194,32 @@ final public class Message
 		this.recipientEmailAddress = recipientEmailAddress;
 	}
 
+	/**
+	 * The body, whether it is stored on this message or in shared {@link #getContent() content}.
+	 *
+	 * @return
+	 */
 	public String getBody() {
-		return body;
+		return body == null && content != null ? content.getBody() : body;
 	}
 
 	public void setBody(@NotNull final String body) {
 		this.body = body;
+		this.content = null;
+	}
+
+	public MessageContent getContent() {
+		return content;
+	}
+
+	/**
+	 * Use the given shared content as this message's body in place of a copy of its own.
+	 *
+	 * @param content
+	 */
+	public void setContent(final MessageContent content) {
+		this.content = content;
+		this.body = content == null ? body : null;
 	}
 
 	public Date getSentDate() {
@@ -271,4 +310,12 @@ final public class Message
 	public void setRetryCount(Integer retryCount) {
 		this.retryCount = retryCount;
 	}
+
+	public MessageDigestCategory getDigestCategory() {
+		return digestCategory;
+	}
+
+	public void setDigestCategory(MessageDigestCategory digestCategory) {
+		this.digestCategory = digestCategory;
+	}
 }
\ No newline at end of file
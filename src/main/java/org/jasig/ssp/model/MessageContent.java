@@ -0,0 +1,129 @@
+/**
+ * Licensed to Apereo under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work
+ * for additional information regarding copyright ownership.
+ * Apereo licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License.  You may obtain a
+ * copy of the License at the following location:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jasig.ssp.model;
+
+import java.io.UnsupportedEncodingException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Inheritance;
+import javax.persistence.InheritanceType;
+import javax.persistence.Table;
+import javax.validation.constraints.NotNull;
+
+/**
+ * {@link Message} body shared by any number of {@link Message}s, deduplicated by a hash of the body text. Lets bulk
+ * email write one copy of a large body rather than one per recipient.
+ */
+@Entity
+@Inheritance(strategy = InheritanceType.TABLE_PER_CLASS)
+@Table(name = "message_content")
+final public class MessageContent
+		extends AbstractAuditable
+		implements Auditable {
+
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * Hex-encoded SHA-256 of {@link #body}, see {@link #hashOf(String)}
+	 */
+	@NotNull
+	@Column(nullable = false, updatable = false, length = 64, unique = true)
+	private String contentHash;
+
+	@NotNull
+	@Column(nullable = false, updatable = false, columnDefinition = "text")
+	private String body;
+
+	public MessageContent() {
+		super();
+	}
+
+	public MessageContent(@NotNull final String body) {
+		super();
+		setObjectStatus(ObjectStatus.ACTIVE);
+		this.body = body;
+		this.contentHash = hashOf(body);
+	}
+
+	/**
+	 * Value for {@link #getContentHash()} for the given body
+	 *
+	 * @param body
+	 * @return
+	 */
+	public static String hashOf(@NotNull final String body) {
+		final MessageDigest md;
+		try {
+			md = MessageDigest.getInstance("SHA-256");
+		} catch ( NoSuchAlgorithmException e ) {
+			// required of every JRE
+			throw new IllegalStateException(e);
+		}
+		final byte[] mdbytes;
+		try {
+			mdbytes = md.digest(body.getBytes("UTF-8"));
+		} catch ( UnsupportedEncodingException e ) {
+			// required of every JRE
+			throw new IllegalStateException(e);
+		}
+		final StringBuilder sb = new StringBuilder(mdbytes.length * 2);
+		for ( byte b : mdbytes ) {
+			sb.append(Integer.toString((b & 0xff) + 0x100, 16).substring(1));
+		}
+		return sb.toString();
+	}
+
+	public String getContentHash() {
+		return contentHash;
+	}
+
+	public void setContentHash(final String contentHash) {
+		this.contentHash = contentHash;
+	}
+
+	public String getBody() {
+		return body;
+	}
+
+	public void setBody(final String body) {
+		this.body = body;
+	}
+
+	@Override
+	protected int hashPrime() {
+		return 433;
+	}
+
+	@Override
+	public int hashCode() { // NOPMD
+		int result = hashPrime();
+
+		// AbstractAuditable properties
+		result *= hashField("id", getId());
+		result *= hashField("objectStatus", getObjectStatus());
+
+		// MessageContent
+		result *= hashField("contentHash", contentHash);
+
+		return result;
+	}
+}
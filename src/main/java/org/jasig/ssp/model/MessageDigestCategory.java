@@ -0,0 +1,34 @@
+/**
+ * Licensed to Apereo under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work
+ * for additional information regarding copyright ownership.
+ * Apereo licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License.  You may obtain a
+ * copy of the License at the following location:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jasig.ssp.model;
+
+/**
+ * Kinds of routine notification {@link Message}s which can be held and
+ * coalesced into a single digest per recipient rather than sent one by one.
+ * Which ones actually are is controlled by the {@code mail_digest_categories}
+ * config.
+ */
+public enum MessageDigestCategory {
+	/** Reminder to a coach of early alerts awaiting a response */
+	EARLY_ALERT_RESPONSE_DUE_REMINDER,
+	/** Reminder of an upcoming action plan task */
+	TASK_REMINDER,
+	/** Copy of a new early alert sent to a campus routing recipient */
+	EARLY_ALERT_ROUTING
+}
@@ -0,0 +1,143 @@
+/**
+ * Licensed to Apereo under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work
+ * for additional information regarding copyright ownership.
+ * Apereo licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License.  You may obtain a
+ * copy of the License at the following location:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jasig.ssp.model;
+
+import java.util.Date;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import javax.persistence.Temporal;
+import javax.persistence.TemporalType;
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Size;
+
+/**
+ * Cluster-wide claim on a scheduled task. Whichever app node holds an
+ * unexpired lease on a task is the only one that may run it; the holder
+ * renews the lease while the task runs and gives it up when done.
+ * <p>
+ * Rows are only ever changed by conditional bulk updates (see
+ * {@link org.jasig.ssp.dao.ScheduledTaskLeaseDao}) so two nodes can never
+ * both believe they hold the same lease.
+ */
+@Entity
+@Table(name = "scheduled_task_lease")
+public class ScheduledTaskLease {
+
+	@Id
+	@Column(name = "task_name", nullable = false, length = 100)
+	@NotNull
+	@Size(max = 100)
+	private String taskName;
+
+	/**
+	 * Node currently holding the lease, null if nobody is.
+	 */
+	@Column(name = "lease_holder", nullable = true, length = 255)
+	@Size(max = 255)
+	private String leaseHolder;
+
+	@Temporal(TemporalType.TIMESTAMP)
+	@Column(name = "lease_expires", nullable = true)
+	private Date leaseExpires;
+
+	@Temporal(TemporalType.TIMESTAMP)
+	@Column(name = "acquired_date", nullable = true)
+	private Date acquiredDate;
+
+	/**
+	 * Fire time of the cron-scheduled run the lease was last taken for, or the
+	 * start of the period slot for periodic tasks. Null for tasks which have
+	 * no notion of a run "instance", e.g. run-once tasks.
+	 */
+	@Temporal(TemporalType.TIMESTAMP)
+	@Column(name = "scheduled_for", nullable = true)
+	private Date scheduledFor;
+
+	/**
+	 * Set when the run the lease was taken for finishes. Stays null if the
+	 * holder died mid-run so another node knows to pick the run up.
+	 */
+	@Temporal(TemporalType.TIMESTAMP)
+	@Column(name = "completed_date", nullable = true)
+	private Date completedDate;
+
+	public ScheduledTaskLease() {
+		super();
+	}
+
+	public ScheduledTaskLease(final String taskName) {
+		super();
+		this.taskName = taskName;
+	}
+
+	public String getTaskName() {
+		return taskName;
+	}
+
+	public void setTaskName(final String taskName) {
+		this.taskName = taskName;
+	}
+
+	public String getLeaseHolder() {
+		return leaseHolder;
+	}
+
+	public void setLeaseHolder(final String leaseHolder) {
+		this.leaseHolder = leaseHolder;
+	}
+
+	public Date getLeaseExpires() {
+		return leaseExpires == null ? null : new Date(leaseExpires.getTime());
+	}
+
+	public void setLeaseExpires(final Date leaseExpires) {
+		this.leaseExpires = leaseExpires == null ? null : new Date(
+				leaseExpires.getTime());
+	}
+
+	public Date getAcquiredDate() {
+		return acquiredDate == null ? null : new Date(acquiredDate.getTime());
+	}
+
+	public void setAcquiredDate(final Date acquiredDate) {
+		this.acquiredDate = acquiredDate == null ? null : new Date(
+				acquiredDate.getTime());
+	}
+
+	public Date getScheduledFor() {
+		return scheduledFor == null ? null : new Date(scheduledFor.getTime());
+	}
+
+	public void setScheduledFor(final Date scheduledFor) {
+		this.scheduledFor = scheduledFor == null ? null : new Date(
+				scheduledFor.getTime());
+	}
+
+	public Date getCompletedDate() {
+		return completedDate == null ? null : new Date(completedDate.getTime());
+	}
+
+	public void setCompletedDate(final Date completedDate) {
+		this.completedDate = completedDate == null ? null : new Date(
+				completedDate.getTime());
+	}
+}
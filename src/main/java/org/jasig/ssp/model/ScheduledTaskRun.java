@@ -0,0 +1,181 @@
+/**
+ * Licensed to Apereo under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work
+ * for additional information regarding copyright ownership.
+ * Apereo licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License.  You may obtain a
+ * copy of the License at the following location:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jasig.ssp.model;
+
+import java.util.Date;
+import java.util.UUID;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
+import javax.persistence.GeneratedValue;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import javax.persistence.Temporal;
+import javax.persistence.TemporalType;
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Size;
+
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.annotations.Type;
+
+/**
+ * One finished execution of a named scheduled task: when and where it ran,
+ * how long it took, how much work it got through and how it ended. Rows are
+ * written once and never updated, and are pruned after a configurable number
+ * of days (see {@link org.jasig.ssp.service.ScheduledTaskRunService}).
+ */
+@Entity
+@Table(name = "scheduled_task_run")
+public class ScheduledTaskRun {
+
+	@Id
+	@Type(type = "uuid-custom")
+	@GeneratedValue(generator = "uuid")
+	@GenericGenerator(name = "uuid", strategy = "uuid2", parameters = { @Parameter(name = "uuid_gen_strategy_class", value = "org.hibernate.id.uuid.CustomVersionOneStrategy") })
+	private UUID id;
+
+	@Column(name = "task_name", nullable = false, length = 100)
+	@NotNull
+	@Size(max = 100)
+	private String taskName;
+
+	/**
+	 * App node the run executed on, see
+	 * {@link org.jasig.ssp.service.ScheduledTaskLeaseService#getNodeId()}
+	 */
+	@Column(name = "node", nullable = true, length = 255)
+	@Size(max = 255)
+	private String node;
+
+	@Temporal(TemporalType.TIMESTAMP)
+	@Column(name = "start_date", nullable = false)
+	@NotNull
+	private Date startDate;
+
+	@Temporal(TemporalType.TIMESTAMP)
+	@Column(name = "end_date", nullable = false)
+	@NotNull
+	private Date endDate;
+
+	@Column(name = "duration_millis", nullable = false)
+	private long durationMillis;
+
+	/**
+	 * Null if the task doesn't report how much work it did.
+	 */
+	@Column(name = "items_processed", nullable = true)
+	private Long itemsProcessed;
+
+	/**
+	 * Items or batches the task reported as having errored. A run can
+	 * complete with failures, e.g. a message send that skips bad addresses.
+	 */
+	@Column(name = "failures", nullable = false)
+	private long failures;
+
+	/**
+	 * One of {@link ScheduledTaskStatus#COMPLETED},
+	 * {@link ScheduledTaskStatus#FAILED} (the task threw) or
+	 * {@link ScheduledTaskStatus#INTERRUPTED}.
+	 */
+	@Enumerated(EnumType.STRING)
+	@Column(name = "outcome", nullable = false, length = 20)
+	@NotNull
+	private ScheduledTaskStatus outcome;
+
+	public ScheduledTaskRun() {
+		super();
+	}
+
+	public UUID getId() {
+		return id;
+	}
+
+	public void setId(final UUID id) {
+		this.id = id;
+	}
+
+	public String getTaskName() {
+		return taskName;
+	}
+
+	public void setTaskName(final String taskName) {
+		this.taskName = taskName;
+	}
+
+	public String getNode() {
+		return node;
+	}
+
+	public void setNode(final String node) {
+		this.node = node;
+	}
+
+	public Date getStartDate() {
+		return startDate == null ? null : new Date(startDate.getTime());
+	}
+
+	public void setStartDate(final Date startDate) {
+		this.startDate = startDate == null ? null : new Date(
+				startDate.getTime());
+	}
+
+	public Date getEndDate() {
+		return endDate == null ? null : new Date(endDate.getTime());
+	}
+
+	public void setEndDate(final Date endDate) {
+		this.endDate = endDate == null ? null : new Date(endDate.getTime());
+	}
+
+	public long getDurationMillis() {
+		return durationMillis;
+	}
+
+	public void setDurationMillis(final long durationMillis) {
+		this.durationMillis = durationMillis;
+	}
+
+	public Long getItemsProcessed() {
+		return itemsProcessed;
+	}
+
+	public void setItemsProcessed(final Long itemsProcessed) {
+		this.itemsProcessed = itemsProcessed;
+	}
+
+	public long getFailures() {
+		return failures;
+	}
+
+	public void setFailures(final long failures) {
+		this.failures = failures;
+	}
+
+	public ScheduledTaskStatus getOutcome() {
+		return outcome;
+	}
+
+	public void setOutcome(final ScheduledTaskStatus outcome) {
+		this.outcome = outcome;
+	}
+}
@@ -88,6 +88,15 @@ public class Job extends AbstractAuditable {
 	@Column(nullable = true)
 	private Date workflowStoppedDate;	
 
+	/**
+	 * When the process named by {@code scheduledByProcess} loses its claim on this job unless it renews it first.
+	 * Only ever written by bulk updates in {@link org.jasig.ssp.dao.jobqueue.JobDao} so saving a stale
+	 * {@code Job} can't roll back a more recent renewal.
+	 */
+	@Temporal(TemporalType.TIMESTAMP)
+	@Column(nullable = true, insertable = false, updatable = false)
+	private Date leaseExpiresDate;
+
 	@Override
 	protected int hashPrime() {
 		return 13;
@@ -166,6 +175,14 @@ public class Job extends AbstractAuditable {
 		this.workflowStoppedDate = workflowStoppedDate;
 	}
 
+	public Date getLeaseExpiresDate() {
+		return leaseExpiresDate;
+	}
+
+	public void setLeaseExpiresDate(Date leaseExpiresDate) {
+		this.leaseExpiresDate = leaseExpiresDate;
+	}
+
 	public static long getSerialversionuid() {
 		return serialVersionUID;
 	}
@@ -0,0 +1,149 @@
+/**
+ * Licensed to Apereo under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work
+ * for additional information regarding copyright ownership.
+ * Apereo licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License.  You may obtain a
+ * copy of the License at the following location:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jasig.ssp.model.jobqueue;
+
+import java.util.UUID;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
+import javax.persistence.FetchType;
+import javax.persistence.Inheritance;
+import javax.persistence.InheritanceType;
+import javax.persistence.JoinColumn;
+import javax.persistence.ManyToOne;
+import javax.persistence.Table;
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Size;
+
+import org.hibernate.annotations.Type;
+import org.jasig.ssp.model.AbstractAuditable;
+
+/**
+ * A single {@code Person} waiting in one of a {@link Job}'s retry or dead letter queues. Kept out of the
+ * {@link Job}'s serialized execution state so that state stays the same size no matter how many persons fail.
+ */
+@Entity
+@Inheritance(strategy = InheritanceType.TABLE_PER_CLASS)
+@Table(name = "job_person_queue_entry")
+public class JobPersonQueueEntry extends AbstractAuditable {
+
+	private static final long serialVersionUID = 1L;
+
+	@NotNull
+	@ManyToOne(fetch = FetchType.LAZY)
+	@JoinColumn(name = "job_id", updatable = false, nullable = false)
+	private Job job;
+
+	/**
+	 * Partition of the {@link Job} which owns this entry. Always 0 for {@link Job}s which aren't partitioned.
+	 */
+	@Column(nullable = false, updatable = false)
+	private int jobPartition;
+
+	@NotNull
+	@Enumerated(EnumType.STRING)
+	@Column(nullable = false, updatable = false)
+	private JobPersonQueueType queueType;
+
+	@Column(nullable = true, updatable = false)
+	@Type(type = "uuid-custom")
+	private UUID personId;
+
+	@Size(max = 50)
+	@Column(nullable = true, updatable = false)
+	private String schoolId;
+
+	public JobPersonQueueEntry() {
+		super();
+	}
+
+	public JobPersonQueueEntry(Job job, int jobPartition, JobPersonQueueType queueType, UUID personId,
+							   String schoolId) {
+		super();
+		this.job = job;
+		this.jobPartition = jobPartition;
+		this.queueType = queueType;
+		this.personId = personId;
+		this.schoolId = schoolId;
+	}
+
+	public Job getJob() {
+		return job;
+	}
+
+	public void setJob(Job job) {
+		this.job = job;
+	}
+
+	public int getJobPartition() {
+		return jobPartition;
+	}
+
+	public void setJobPartition(int jobPartition) {
+		this.jobPartition = jobPartition;
+	}
+
+	public JobPersonQueueType getQueueType() {
+		return queueType;
+	}
+
+	public void setQueueType(JobPersonQueueType queueType) {
+		this.queueType = queueType;
+	}
+
+	public UUID getPersonId() {
+		return personId;
+	}
+
+	public void setPersonId(UUID personId) {
+		this.personId = personId;
+	}
+
+	public String getSchoolId() {
+		return schoolId;
+	}
+
+	public void setSchoolId(String schoolId) {
+		this.schoolId = schoolId;
+	}
+
+	@Override
+	protected int hashPrime() {
+		return 439;
+	}
+
+	@Override
+	final public int hashCode() { // NOPMD
+		int result = hashPrime();
+
+		// AbstractAuditable properties
+		result *= hashField("id", getId());
+		result *= hashField("objectStatus", getObjectStatus());
+
+		// JobPersonQueueEntry
+		result *= hashField("jobPartition", jobPartition);
+		result *= hashField("queueType", queueType == null ? null : queueType.name());
+		result *= hashField("personId", personId);
+		result *= hashField("schoolId", schoolId);
+
+		return result;
+	}
+}
@@ -92,6 +92,9 @@ public class MessageTemplate
     public static final UUID EMAIL_JOURNAL_ENTRY_ID = UUID.
     		fromString("65bb389e-8c4f-4a7e-adc2-0938b1e66abe");
 
+	public static final UUID MESSAGE_DIGEST_ID = UUID.
+			fromString("0c6d8a71-4a2e-4f0b-9d3e-7f1c2b5e8a94");
+
 	@NotNull
 	@Column(name = "subject", nullable = false, length = 250)
 	private String subject;
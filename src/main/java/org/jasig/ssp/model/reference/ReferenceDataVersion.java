@@ -0,0 +1,54 @@
+/**
+ * Licensed to Apereo under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work
+ * for additional information regarding copyright ownership.
+ * Apereo licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License.  You may obtain a
+ * copy of the License at the following location:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jasig.ssp.model.reference;
+
+import java.util.Date;
+
+/**
+ * Cheap stand-in for the contents of one or more reference tables: changes
+ * whenever a row in any of them is created, modified, (soft) deleted or hard
+ * deleted. Used to answer conditional GETs without loading the rows.
+ */
+public class ReferenceDataVersion {
+
+	private final Date lastModified;
+
+	private final String tag;
+
+	public ReferenceDataVersion(final Date lastModified, final String tag) {
+		this.lastModified = lastModified == null ? null : new Date(
+				lastModified.getTime());
+		this.tag = tag;
+	}
+
+	/**
+	 * @return Latest created or modified date across the tables, null if
+	 *         they're all empty
+	 */
+	public Date getLastModified() {
+		return lastModified == null ? null : new Date(lastModified.getTime());
+	}
+
+	/**
+	 * @return Opaque version string, suitable for use as an ETag value
+	 */
+	public String getTag() {
+		return tag;
+	}
+}
@@ -21,8 +21,6 @@ package org.jasig.ssp.portlet.ssp;
 import java.util.HashMap;
 import java.util.Map;
 
-import org.jasig.ssp.service.ServerService;
-import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.ModelMap;
@@ -40,21 +38,11 @@ public final class SspPortletController {
 	@Value("#{configProperties.ssp_set_develop_mode_on}")
 	private boolean developModeOn = false;
 	
-	@Autowired
-	private ServerService serverService;
-	
 	@RenderMapping
 	public ModelAndView show(){
 		Map<String,Object> model = new HashMap<String,Object>();
 		model.put("useMinified", sspMainUseMinifiedJs);
 		model.put("developModeOn", developModeOn);
-		
-		try{
-			String build = "/versioned/" + serverService.getVersionProfile().get("buildDate").toString();
-			model.put("cachebust", build);
-		}catch(Exception exp){
-			
-		}
 		return new ModelAndView("ssp-main", "model", model);
 	}
 
@@ -0,0 +1,92 @@
+/**
+ * Licensed to Apereo under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work
+ * for additional information regarding copyright ownership.
+ * Apereo licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License.  You may obtain a
+ * copy of the License at the following location:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jasig.ssp.security;
+
+import java.util.UUID;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PostConstruct;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.google.common.collect.MapMaker;
+
+/**
+ * Decides whether the person id an {@link SspUser} remembered from an
+ * earlier request can still stand in for looking the person up by username
+ * again. A snapshot is good for a limited time, and not at all once the
+ * person record has been saved since it was taken.
+ *
+ * <p>Changes are only seen on the node that made them, so on a cluster a
+ * snapshot can be stale for at most its lifetime. Changes only need to be
+ * remembered that long, too.</p>
+ */
+@Component
+public class PersonSnapshotInvalidator {
+
+	@Value("#{configProperties.current_person_snapshot_seconds}")
+	private int snapshotSeconds = 1800;
+
+	private volatile ConcurrentMap<UUID, Long> changes = newChangeMap(snapshotSeconds);
+
+	@PostConstruct
+	public void init() {
+		changes = newChangeMap(snapshotSeconds);
+	}
+
+	public void setSnapshotSeconds(final int snapshotSeconds) {
+		this.snapshotSeconds = snapshotSeconds;
+		changes = newChangeMap(snapshotSeconds);
+	}
+
+	private static ConcurrentMap<UUID, Long> newChangeMap(final int seconds) {
+		// a change older than a snapshot's lifetime can no longer matter
+		return new MapMaker()
+				.expireAfterWrite(Math.max(seconds, 1), TimeUnit.SECONDS)
+				.makeMap();
+	}
+
+	/**
+	 * Record that a person's record has changed, so existing snapshots of it
+	 * are no longer trusted.
+	 */
+	public void invalidate(final UUID personId) {
+		if (personId == null) {
+			return;
+		}
+		changes.put(personId, System.currentTimeMillis());
+	}
+
+	/**
+	 * @param takenAt
+	 *            When the snapshot was taken, in epoch millis
+	 * @return true if a snapshot of the given person taken at the given time
+	 *         can still be used
+	 */
+	public boolean isValid(final UUID personId, final long takenAt) {
+		final long now = System.currentTimeMillis();
+		if (personId == null || now - takenAt >= snapshotSeconds * 1000L) {
+			return false;
+		}
+		final Long changedAt = changes.get(personId);
+		return changedAt == null || changedAt < takenAt;
+	}
+}
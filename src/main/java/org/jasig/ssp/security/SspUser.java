@@ -69,6 +69,12 @@ public class SspUser extends User implements Serializable {
 
 	private String emailAddress;
 
+	// Snapshot of the last Person set here, kept with the session so later
+	// requests can skip the username lookup. See PersonSnapshotInvalidator.
+	private UUID personId;
+
+	private long personSnapshotTakenAt;
+
 	// Currently cannot be static b/c might have an arbitrary number of
 	// SspUser's running around in the current thread, each with a different
 	// identity. This is also the reason we can't use Spring's
@@ -103,6 +109,32 @@ public class SspUser extends User implements Serializable {
 	public void setPerson(final Person person) {
 		this.person.set(person);
 		addToCleanupQueue(this);
+		if (person != null && person.getId() != null) {
+			personId = person.getId();
+			personSnapshotTakenAt = System.currentTimeMillis();
+		}
+	}
+
+	/**
+	 * Sets the current thread's {@link Person} for the id snapshotted by an
+	 * earlier {@link #setPerson(Person)}, typically as an uninitialized
+	 * proxy, without refreshing the snapshot.
+	 */
+	public void restorePerson(final Person person) {
+		this.person.set(person);
+		addToCleanupQueue(this);
+	}
+
+	/**
+	 * @return Id of the last {@link Person} set on this user, on this or any
+	 *         earlier request
+	 */
+	public UUID getPersonId() {
+		return personId;
+	}
+
+	public long getPersonSnapshotTakenAt() {
+		return personSnapshotTakenAt;
 	}
 
 	/**
@@ -22,6 +22,7 @@ import javax.mail.SendFailedException;
 import javax.validation.constraints.NotNull;
 
 import org.jasig.ssp.model.Message;
+import org.jasig.ssp.model.MessageDigestCategory;
 import org.jasig.ssp.model.Person;
 import org.jasig.ssp.model.SubjectAndBody;
 import org.jasig.ssp.util.CallableExecutor;
@@ -70,6 +71,21 @@ public interface MessageService {
 			throws ObjectNotFoundException, SendFailedException,
 			ValidationException;
 
+	/**
+	 * Same as {@link #createMessage(Person, String, SubjectAndBody)}, but the
+	 * message may be held and coalesced into a digest with others in the same
+	 * category bound for the same recipient, if digests are enabled for that
+	 * category (see the {@code mail_digest_categories} config).
+	 *
+	 * @param digestCategory
+	 *            may be null, in which case the message is never held
+	 */
+	Message createMessage(@NotNull Person to, String emailCC,
+			@NotNull SubjectAndBody subjAndBody,
+			MessageDigestCategory digestCategory)
+			throws ObjectNotFoundException, SendFailedException,
+			ValidationException;
+
 	/**
 	 * Create and save an email message to the queue to send.
 	 * 
@@ -90,6 +106,35 @@ public interface MessageService {
 			@NotNull SubjectAndBody subjAndBody)
 			throws ObjectNotFoundException;
 
+	/**
+	 * Same as {@link #createMessage(String, String, SubjectAndBody)}, but the
+	 * message may be held for a digest, see
+	 * {@link #createMessage(Person, String, SubjectAndBody, MessageDigestCategory)}
+	 *
+	 * @param digestCategory
+	 *            may be null, in which case the message is never held
+	 */
+	Message createMessage(@NotNull String to, String emailCC,
+			@NotNull SubjectAndBody subjAndBody,
+			MessageDigestCategory digestCategory)
+			throws ObjectNotFoundException;
+
+	/**
+	 * Same as {@link #createMessage(String, String, SubjectAndBody)} but the body is stored once in a
+	 * {@link org.jasig.ssp.model.MessageContent} shared by every message with an identical body, rather than being
+	 * copied into each message. Intended for bulk email, where thousands of messages carry the same body.
+	 *
+	 * @param to
+	 * @param emailCC
+	 * @param subjAndBody
+	 * @return Generated message, already saved to queue
+	 * @throws ObjectNotFoundException
+	 *             If the current user or administrator could not be loaded.
+	 */
+	Message createMessageWithSharedContent(@NotNull String to, String emailCC,
+			@NotNull SubjectAndBody subjAndBody)
+			throws ObjectNotFoundException;
+
 	/**
 	 * Create a new {@link Message} entity but do not persist it.
 	 *
@@ -133,7 +178,12 @@ public interface MessageService {
 	boolean sendMessage(Message message) throws SendFailedException,
 			ObjectNotFoundException, UnsupportedEncodingException;
 
-
+	/**
+	 * Move messages older than the {@code mail_age_in_days_limit} config to the message archive, a bounded chunk
+	 * at a time. Each chunk is committed in its own transaction, so callers should not already be in one.
+	 *
+	 * @return the number of messages archived and deleted
+	 */
 	int archiveAndPruneMessages();
 
 }
\ No newline at end of file
@@ -41,6 +41,16 @@ public interface PersonAttributesService {
 
 	PersonAttributesResult getAttributes(String username, PortletRequest portletRequest)
 			throws ObjectNotFoundException;
+
+	/**
+	 * Looks up several people at once, in as few directory round trips as
+	 * the directory allows.
+	 * 
+	 * @return attributes keyed by username, with no entry for usernames that
+	 *         weren't found
+	 */
+	Map<String, PersonAttributesResult> getAttributesForUsernames(
+			Collection<String> usernames);
 	
 	List<Map<String, Object>> searchForUsers(Map<String,String> query);
 
@@ -0,0 +1,79 @@
+/**
+ * Licensed to Apereo under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work
+ * for additional information regarding copyright ownership.
+ * Apereo licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License.  You may obtain a
+ * copy of the License at the following location:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jasig.ssp.service;
+
+import java.util.Date;
+
+/**
+ * Database-backed leases that keep clustered app nodes from running the same
+ * scheduled task at the same time. Each method runs in its own transaction
+ * so a lease is visible to other nodes as soon as it is taken.
+ */
+public interface ScheduledTaskLeaseService {
+
+	/**
+	 * @return Identifies this app node as a lease holder
+	 */
+	String getNodeId();
+
+	/**
+	 * @return How long a lease lasts without being renewed
+	 */
+	long getLeaseDurationMillis();
+
+	/**
+	 * Tries to take the lease on the given task for this node.
+	 * 
+	 * @param taskName
+	 *            Task to lease
+	 * @param scheduledFor
+	 *            Fire time of the cron-scheduled run being claimed, or start
+	 *            of the period slot for periodic tasks. Refused if any node
+	 *            already completed that run. {@code null} if runs aren't
+	 *            told apart.
+	 * @return true if this node now holds the lease
+	 */
+	boolean tryAcquire(String taskName, Date scheduledFor);
+
+	/**
+	 * Extends this node's lease on the given task.
+	 * 
+	 * @return false if the lease was lost, in which case the task should stop
+	 *         as soon as it can
+	 */
+	boolean renew(String taskName);
+
+	/**
+	 * Gives up this node's lease on the given task.
+	 * 
+	 * @param completed
+	 *            false if the run was cut short, so another node may take
+	 *            over the same cron-scheduled run
+	 */
+	void release(String taskName, boolean completed);
+
+	/**
+	 * For a cron-scheduled run that another node started but hasn't finished,
+	 * the time its lease runs out, i.e. the earliest this node could take the
+	 * run over should that node have died.
+	 * 
+	 * @return null if there is no such unfinished run to wait on
+	 */
+	Date takeoverTime(String taskName, Date scheduledFor);
+}
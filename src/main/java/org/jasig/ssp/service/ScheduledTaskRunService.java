@@ -0,0 +1,102 @@
+/**
+ * Licensed to Apereo under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work
+ * for additional information regarding copyright ownership.
+ * Apereo licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License.  You may obtain a
+ * copy of the License at the following location:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jasig.ssp.service;
+
+import java.util.Date;
+import java.util.List;
+
+import org.jasig.ssp.model.ScheduledTaskRun;
+import org.jasig.ssp.model.ScheduledTaskStatus;
+import org.jasig.ssp.transferobject.ScheduledTaskRunSummaryTO;
+
+/**
+ * Records a {@link ScheduledTaskRun} for each execution of a named scheduled
+ * task and summarizes that history.
+ * <p>
+ * Runs are tracked per thread: {@link #beginRun(String)} and
+ * {@link #endRun(ScheduledTaskStatus)} bracket the task (see
+ * {@link org.jasig.ssp.service.impl.ScheduledTaskWrapperServiceImpl}), and
+ * anything executing on that thread in between can report its progress via
+ * {@link #itemsProcessed(long)} and {@link #itemsFailed(long)}. Runs may
+ * nest, in which case progress is credited to the innermost one.
+ */
+public interface ScheduledTaskRunService {
+
+	void beginRun(String taskName);
+
+	/**
+	 * Like {@link #beginRun(String)}, but for frequent polling tasks. The
+	 * run is only saved if it processed or failed any items, or didn't
+	 * complete, so idle polls don't fill the history.
+	 */
+	void beginQuietRun(String taskName);
+
+	/**
+	 * Finishes the innermost run begun on this thread and saves it in its
+	 * own transaction. Failure to save is logged rather than thrown so it
+	 * never affects the task itself.
+	 * 
+	 * @return The saved run, or {@code null} if no run was in progress, it
+	 *         was an idle quiet run, or it couldn't be saved
+	 */
+	ScheduledTaskRun endRun(ScheduledTaskStatus outcome);
+
+	/**
+	 * Credits work to the run in progress on this thread, if any.
+	 */
+	void itemsProcessed(long count);
+
+	/**
+	 * Counts errored items (or batches) against the run in progress on this
+	 * thread, if any.
+	 */
+	void itemsFailed(long count);
+
+	/**
+	 * @param taskName
+	 *            Task to look up, or {@code null} for all tasks
+	 * @param since
+	 *            Only runs started at or after this time, or {@code null}
+	 * @param maxResults
+	 *            Maximum number of runs to return, most recent first
+	 */
+	List<ScheduledTaskRun> getHistory(String taskName, Date since,
+			int maxResults);
+
+	/**
+	 * Duration percentiles, outcome counts and throughput over the given
+	 * task's most recent runs.
+	 * 
+	 * @param sampleSize
+	 *            How many of the most recent runs to summarize
+	 */
+	ScheduledTaskRunSummaryTO summarize(String taskName, int sampleSize);
+
+	/**
+	 * {@link #summarize(String, int)} for every task with recorded runs.
+	 */
+	List<ScheduledTaskRunSummaryTO> summarizeAll(int sampleSize);
+
+	/**
+	 * Deletes runs older than the configured retention period.
+	 * 
+	 * @return Number of runs deleted
+	 */
+	int pruneHistory();
+}
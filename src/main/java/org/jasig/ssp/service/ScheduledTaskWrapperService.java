@@ -53,6 +53,8 @@ public interface ScheduledTaskWrapperService {
 
 	void pruneMessageQueue();
 
+	void pruneTaskRunHistory();
+
 	void scheduledQueuedJobs();
 
 	void execBatchedTaskWithName(String taskName, BatchedTask batchedTask, boolean isStatusedTask, UUID runAs);
@@ -19,29 +19,69 @@
 package org.jasig.ssp.service;
 
 import java.io.StringWriter;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 import org.apache.velocity.Template;
 import org.apache.velocity.VelocityContext;
 import org.apache.velocity.app.VelocityEngine;
+import org.apache.velocity.context.Context;
 import org.apache.velocity.exception.MethodInvocationException;
 import org.apache.velocity.exception.ParseErrorException;
 import org.apache.velocity.exception.ResourceNotFoundException;
 import org.apache.velocity.runtime.resource.loader.StringResourceLoader;
+import org.jasig.ssp.util.collections.Pair;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 /**
  * Exposes the velocity template engine to the application.
  * <p>
- * Caches Templates by the templateId.
+ * Caches parsed Templates by templateId in a bounded LRU, so rendering an
+ * already-seen template is a merge only. Template ids are expected to change
+ * whenever the template text does (see
+ * {@link org.jasig.ssp.model.reference.MessageTemplate#bodyTemplateId()}),
+ * but a cached Template is re-parsed anyway if it was parsed from different
+ * text.
  */
 @Service
 public class VelocityTemplateService {
 
+	private static final Logger LOGGER = LoggerFactory
+			.getLogger(VelocityTemplateService.class);
+
+	public static final int DEFAULT_TEMPLATE_CACHE_SIZE = 200;
+
 	@Autowired
 	private transient VelocityEngine velocityEngine;
 
+	@Value("#{configProperties.velocity_template_cache_size}")
+	private int templateCacheSize = DEFAULT_TEMPLATE_CACHE_SIZE;
+
+	/** templateId -> (template text, parsed template), in access order */
+	private final Map<String, Pair<String, Template>> templates = Collections
+			.synchronizedMap(new LinkedHashMap<String, Pair<String, Template>>(
+					16, 0.75f, true) {
+				private static final long serialVersionUID = 1L;
+
+				@Override
+				protected boolean removeEldestEntry(
+						final Map.Entry<String, Pair<String, Template>> eldest) {
+					return size() > templateCacheSize;
+				}
+			});
+
+	/**
+	 * Guards the global {@link StringResourceLoader} repository, which is
+	 * only used transiently while parsing.
+	 */
+	private final Object parseLock = new Object();
+
 	/**
 	 * 
 	 * @param templateText
@@ -64,9 +104,34 @@ public class VelocityTemplateService {
 			final Map<String, Object> parameters)
 			throws ResourceNotFoundException, ParseErrorException,
 			MethodInvocationException {
+		return generateContentFromTemplate(templateText, templateId,
+				parameters, null);
+	}
+
+	/**
+	 * Same as {@link #generateContentFromTemplate(String, String, Map)} but
+	 * falls back to {@code sharedContext} for any variable not in
+	 * {@code parameters}. Lets callers build values common to many renders
+	 * (e.g. institution config) once rather than per render. The shared
+	 * context is only read, never written, so can be used from many threads.
+	 * 
+	 * @param templateText
+	 * @param templateId
+	 * @param parameters
+	 * @param sharedContext
+	 *            - may be null
+	 * @return content
+	 */
+	public String generateContentFromTemplate(final String templateText,
+			final String templateId,
+			final Map<String, Object> parameters,
+			final Context sharedContext)
+			throws ResourceNotFoundException, ParseErrorException,
+			MethodInvocationException {
 
 		// fill the velocity context with the parameters
-		final VelocityContext context = new VelocityContext();
+		final VelocityContext context = sharedContext == null ? new VelocityContext()
+				: new VelocityContext(sharedContext);
 		for (final Map.Entry<String, Object> entry : parameters.entrySet()) {
 			context.put(entry.getKey(), entry.getValue());
 		}
@@ -82,21 +147,56 @@ public class VelocityTemplateService {
 	}
 
 	/**
-	 * Get the template from the Velocity Template Repository. If the Template
-	 * is not in the repository, then add it to the repository. Some processing
-	 * occurs on the template, so if we can reuse the id, we save ourselves the
-	 * additional processing, as well as remove a potential memory leak.
+	 * Drop every cached Template whose id starts with the given prefix, e.g.
+	 * all versions of a {@link org.jasig.ssp.model.reference.MessageTemplate}
+	 * when it is edited.
+	 * 
+	 * @param templateIdPrefix
+	 */
+	public void evict(final String templateIdPrefix) {
+		synchronized (templates) {
+			final Iterator<String> ids = templates.keySet().iterator();
+			while (ids.hasNext()) {
+				if (ids.next().startsWith(templateIdPrefix)) {
+					ids.remove();
+				}
+			}
+		}
+	}
+
+	/**
+	 * Get the parsed template from the cache, parsing and caching it if it
+	 * isn't there or was parsed from different text.
 	 */
-	private Template getTemplate(final String templateId,
-			final String templateText) {
-		Template template = null;
-		try {
-			template = velocityEngine.getTemplate(templateId);
-		} catch (final ResourceNotFoundException e) {
+	Template getTemplate(final String templateId, final String templateText) {
+		final Pair<String, Template> cached = templates.get(templateId);
+		if (cached != null && cached.getFirst().equals(templateText)) {
+			return cached.getSecond();
+		}
+		final Template template;
+		synchronized (parseLock) {
+			// resource only lives in the loader's repository long enough to
+			// be parsed, so old template versions don't pile up in there
 			StringResourceLoader.getRepository().putStringResource(templateId,
 					templateText);
-			template = velocityEngine.getTemplate(templateId);
+			try {
+				template = velocityEngine.getTemplate(templateId);
+			} finally {
+				StringResourceLoader.getRepository().removeStringResource(
+						templateId);
+			}
 		}
+		LOGGER.debug("Parsed and cached template {}", templateId);
+		templates.put(templateId, new Pair<String, Template>(templateText,
+				template));
 		return template;
 	}
+
+	protected void setVelocityEngine(final VelocityEngine velocityEngine) {
+		this.velocityEngine = velocityEngine;
+	}
+
+	protected void setTemplateCacheSize(final int templateCacheSize) {
+		this.templateCacheSize = templateCacheSize;
+	}
 }
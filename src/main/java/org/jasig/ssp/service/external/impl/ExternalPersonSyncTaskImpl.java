@@ -29,6 +29,7 @@ import org.jasig.ssp.model.Person;
 import org.jasig.ssp.model.external.ExternalPerson;
 import org.jasig.ssp.service.PersonSearchService;
 import org.jasig.ssp.service.PersonService;
+import org.jasig.ssp.service.ScheduledTaskRunService;
 import org.jasig.ssp.service.external.ExternalPersonService;
 import org.jasig.ssp.service.external.ExternalPersonSyncTask;
 import org.jasig.ssp.service.reference.ConfigService;
@@ -78,6 +79,9 @@ public class ExternalPersonSyncTaskImpl implements ExternalPersonSyncTask {
 	@Autowired
 	private WithTransaction withTransaction;
 
+	@Autowired
+	private transient ScheduledTaskRunService taskRunService;
+
 	private transient long nextPersonIndex = 0;
 
 	// intentionally not transactional... this is the main loop, each iteration
@@ -141,6 +145,7 @@ public class ExternalPersonSyncTaskImpl implements ExternalPersonSyncTask {
 
 				if ( processedOfTotal == null ) {
 					if ( error != null ) {
+						taskRunService.itemsFailed(1);
 						LOGGER.error("Abandoning external person sync at"
 								+ " position [{}] and batch [{}] because of a"
 								+ " processing error. Will resume at that"
@@ -161,6 +166,7 @@ public class ExternalPersonSyncTaskImpl implements ExternalPersonSyncTask {
 
 				nextPersonIndex += processedOfTotal.getFirst();
 				recordsProcessed += processedOfTotal.getFirst();
+				taskRunService.itemsProcessed(processedOfTotal.getFirst());
 
 				LOGGER.info("Processed [{}] of [{}] candidate person records"
 						+ " as of batch [{}] of [{}]. Total records processed [{}].",
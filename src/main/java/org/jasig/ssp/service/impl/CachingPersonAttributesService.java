@@ -0,0 +1,203 @@
+/**
+ * Licensed to Apereo under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work
+ * for additional information regarding copyright ownership.
+ * Apereo licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License.  You may obtain a
+ * copy of the License at the following location:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jasig.ssp.service.impl;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PostConstruct;
+import javax.portlet.PortletRequest;
+
+import org.jasig.ssp.security.PersonAttributesResult;
+import org.jasig.ssp.service.ObjectNotFoundException;
+import org.jasig.ssp.service.PersonAttributesService;
+import org.springframework.beans.factory.annotation.Value;
+
+import com.google.common.collect.MapMaker;
+
+/**
+ * Caches the directory lookups of another {@link PersonAttributesService}
+ * for a while, including lookups that found nobody, so that repeated logins,
+ * account creation attempts and searches for the same people don't go back
+ * to the portal or LDAP every time.
+ *
+ * <p>A person that isn't found is always reported with an
+ * {@link ObjectNotFoundException}, even if the wrapped service would have
+ * returned {@code null}. Attributes taken from a portlet request and the
+ * coach and SSO lookups are not cached.</p>
+ */
+public class CachingPersonAttributesService implements PersonAttributesService {
+
+	public static final int DEFAULT_CACHE_SECONDS = 300;
+
+	public static final int DEFAULT_NEGATIVE_CACHE_SECONDS = 60;
+
+	public static final int DEFAULT_CACHE_MAX_ENTRIES = 10000;
+
+	private final PersonAttributesService delegate;
+
+	@Value("#{configProperties.person_attributes_cache_seconds}")
+	private int cacheSeconds = DEFAULT_CACHE_SECONDS;
+
+	@Value("#{configProperties.person_attributes_negative_cache_seconds}")
+	private int negativeCacheSeconds = DEFAULT_NEGATIVE_CACHE_SECONDS;
+
+	@Value("#{configProperties.person_attributes_cache_max_entries}")
+	private int cacheMaxEntries = DEFAULT_CACHE_MAX_ENTRIES;
+
+	private ConcurrentMap<String, PersonAttributesResult> found;
+
+	private ConcurrentMap<String, Boolean> notFound;
+
+	private ConcurrentMap<Map<String, String>, List<Map<String, Object>>> searches;
+
+	public CachingPersonAttributesService(final PersonAttributesService delegate) {
+		this.delegate = delegate;
+	}
+
+	@PostConstruct
+	public void init() {
+		found = newCache(cacheSeconds);
+		notFound = newCache(negativeCacheSeconds);
+		searches = newCache(cacheSeconds);
+	}
+
+	private <K, V> ConcurrentMap<K, V> newCache(final int seconds) {
+		// zero-sized caches hold nothing, which keeps lookups uniform
+		return new MapMaker()
+				.maximumSize(seconds > 0 ? Math.max(cacheMaxEntries, 0) : 0)
+				.expireAfterWrite(Math.max(seconds, 1), TimeUnit.SECONDS)
+				.makeMap();
+	}
+
+	@Override
+	public PersonAttributesResult getAttributes(final String username)
+			throws ObjectNotFoundException {
+		final PersonAttributesResult cached = found.get(username);
+		if (cached != null) {
+			return copy(cached);
+		}
+		if (notFound.containsKey(username)) {
+			throw notFoundException(username);
+		}
+
+		PersonAttributesResult attributes;
+		try {
+			attributes = delegate.getAttributes(username);
+		} catch (final ObjectNotFoundException e) {
+			notFound.put(username, Boolean.TRUE);
+			throw e;
+		}
+		if (attributes == null) {
+			notFound.put(username, Boolean.TRUE);
+			throw notFoundException(username);
+		}
+		found.put(username, copy(attributes));
+		return attributes;
+	}
+
+	@Override
+	public PersonAttributesResult getAttributes(final String username,
+			final PortletRequest portletRequest) throws ObjectNotFoundException {
+		return delegate.getAttributes(username, portletRequest);
+	}
+
+	@Override
+	public Map<String, PersonAttributesResult> getAttributesForUsernames(
+			final Collection<String> usernames) {
+		final Map<String, PersonAttributesResult> rslt =
+				new LinkedHashMap<String, PersonAttributesResult>();
+		final List<String> uncached = new ArrayList<String>();
+		for (final String username : usernames) {
+			final PersonAttributesResult cached = found.get(username);
+			if (cached != null) {
+				rslt.put(username, copy(cached));
+			} else if (!(notFound.containsKey(username))) {
+				uncached.add(username);
+			}
+		}
+		if (uncached.isEmpty()) {
+			return rslt;
+		}
+
+		final Map<String, PersonAttributesResult> looked = delegate
+				.getAttributesForUsernames(uncached);
+		for (final String username : uncached) {
+			final PersonAttributesResult attributes = looked.get(username);
+			if (attributes == null) {
+				notFound.put(username, Boolean.TRUE);
+			} else {
+				found.put(username, copy(attributes));
+				rslt.put(username, attributes);
+			}
+		}
+		return rslt;
+	}
+
+	@Override
+	public List<Map<String, Object>> searchForUsers(
+			final Map<String, String> query) {
+		final Map<String, String> key = new HashMap<String, String>(query);
+		final List<Map<String, Object>> cached = searches.get(key);
+		if (cached != null) {
+			return new ArrayList<Map<String, Object>>(cached);
+		}
+		final List<Map<String, Object>> people = delegate.searchForUsers(query);
+		if (people != null) {
+			searches.put(key, new ArrayList<Map<String, Object>>(people));
+		}
+		return people;
+	}
+
+	@Override
+	public List<Map<String, Object>> searchForSsoUsers(final String attribute,
+			final String value) {
+		return delegate.searchForSsoUsers(attribute, value);
+	}
+
+	@Override
+	public Collection<String> getCoaches() {
+		return delegate.getCoaches();
+	}
+
+	private PersonAttributesResult copy(final PersonAttributesResult from) {
+		return new PersonAttributesResult(from.getSchoolId(),
+				from.getFirstName(), from.getLastName(),
+				from.getPrimaryEmailAddress(), from.getPhone());
+	}
+
+	private ObjectNotFoundException notFoundException(final String username) {
+		return new ObjectNotFoundException(
+				"The specified person is unrecognized", username);
+	}
+
+	public void setCacheSeconds(final int cacheSeconds) {
+		this.cacheSeconds = cacheSeconds;
+	}
+
+	public void setNegativeCacheSeconds(final int negativeCacheSeconds) {
+		this.negativeCacheSeconds = negativeCacheSeconds;
+	}
+}
@@ -41,6 +41,7 @@ import org.jasig.ssp.model.EarlyAlert;
 import org.jasig.ssp.model.EarlyAlertRouting;
 import org.jasig.ssp.model.EarlyAlertSearchResult;
 import org.jasig.ssp.model.Message;
+import org.jasig.ssp.model.MessageDigestCategory;
 import org.jasig.ssp.model.ObjectStatus;
 import org.jasig.ssp.model.Person;
 import org.jasig.ssp.model.PersonProgramStatus;
@@ -500,7 +501,8 @@ public class EarlyAlertServiceImpl extends // NOPMD
 				if ((to != null)
 						&& !StringUtils.isEmpty(to.getPrimaryEmailAddress())) {
 					final Message message = messageService
-							.createMessage(to, null, subjAndBody);
+							.createMessage(to, null, subjAndBody,
+									MessageDigestCategory.EARLY_ALERT_ROUTING);
 					LOGGER.info(
 							"Message {} for EarlyAlert {} also routed to {}",
 							new Object[] { message, earlyAlert, to }); // NOPMD
@@ -511,7 +513,8 @@ public class EarlyAlertServiceImpl extends // NOPMD
 						&& !StringUtils.isEmpty(route.getGroupEmail())) {
 					final Message message = messageService
 							.createMessage(route.getGroupEmail(), null,
-									subjAndBody);
+									subjAndBody,
+									MessageDigestCategory.EARLY_ALERT_ROUTING);
 					LOGGER.info(
 							"Message {} for EarlyAlert {} also routed to {}",
 							new Object[] { message, earlyAlert, // NOPMD
@@ -924,7 +927,8 @@ public class EarlyAlertServiceImpl extends // NOPMD
 			
 			SubjectAndBody subjAndBody = messageTemplateService.createEarlyAlertResponseRequiredToCoachMessage(messageParams);
 			try{
-				messageService.createMessage(coaches.get(coachId), null, subjAndBody);
+				messageService.createMessage(coaches.get(coachId), null, subjAndBody,
+						MessageDigestCategory.EARLY_ALERT_RESPONSE_DUE_REMINDER);
 			}catch(Exception exp){
 				LOGGER.error("Unable to send reminder emails to coach: " + coaches.get(coachId).getFullName() + "\n", exp);
 			}
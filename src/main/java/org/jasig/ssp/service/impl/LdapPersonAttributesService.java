@@ -20,6 +20,7 @@ package org.jasig.ssp.service.impl;
 
 import java.util.Collection;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 
 import javax.naming.NamingException;
@@ -38,11 +39,22 @@ import org.springframework.ldap.core.AttributesMapper;
 import org.springframework.ldap.core.ContextMapper;
 import org.springframework.ldap.core.DirContextAdapter;
 import org.springframework.ldap.core.LdapTemplate;
+import org.springframework.ldap.filter.AndFilter;
+import org.springframework.ldap.filter.EqualsFilter;
+import org.springframework.ldap.filter.OrFilter;
 
+import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 
 public class LdapPersonAttributesService implements PersonAttributesService {
 
+	/**
+	 * Usernames per search in {@link #getAttributesForUsernames(Collection)},
+	 * to keep the filter a sane size.
+	 */
+	private static final int USERNAMES_PER_SEARCH = 100;
+
 	@Autowired
 	private transient LdapTemplate ldapTemplate;
 
@@ -70,16 +82,7 @@ public class LdapPersonAttributesService implements PersonAttributesService {
 					@Override
 					public PersonAttributesResult mapFromAttributes(
 							final Attributes attrs) throws NamingException {
-
-						final PersonAttributesResult result = new PersonAttributesResult();
-						result.setFirstName(extractProperty(attrs, "cn"));
-						result.setLastName(extractProperty(attrs, "sn"));
-						result.setPrimaryEmailAddress(extractProperty(attrs,
-								"mail"));
-						result.setSchoolId(username);
-						result.setPhone(extractProperty(attrs,
-								"telephonenumber"));
-						return result;
+						return attributesResult(username, attrs);
 					}
 				});
 
@@ -90,6 +93,54 @@ public class LdapPersonAttributesService implements PersonAttributesService {
 		}
 	}
 
+	@Override
+	public Map<String, PersonAttributesResult> getAttributesForUsernames(
+			final Collection<String> usernames) {
+		final Map<String, PersonAttributesResult> rslt = Maps.newLinkedHashMap();
+		for (final List<String> batch : Iterables.partition(usernames,
+				USERNAMES_PER_SEARCH)) {
+			// uid matching is case-insensitive, so map what comes back to
+			// the username as it was asked for
+			final Map<String, String> requested = Maps.newHashMap();
+			final OrFilter anyUid = new OrFilter();
+			for (final String username : batch) {
+				requested.put(username.toLowerCase(Locale.ENGLISH), username);
+				anyUid.or(new EqualsFilter("uid", username));
+			}
+			final AndFilter filter = new AndFilter();
+			filter.and(new EqualsFilter("objectclass", "person")).and(anyUid);
+
+			ldapTemplate.search("ou=users", filter.encode(),
+					new AttributesMapper() {
+						@Override
+						public Object mapFromAttributes(final Attributes attrs)
+								throws NamingException {
+							final String uid = extractProperty(attrs, "uid");
+							final String username = uid == null ? null
+									: requested.get(uid.toLowerCase(Locale.ENGLISH));
+							if (username != null) {
+								rslt.put(username, attributesResult(username, attrs));
+							}
+							return null;
+						}
+					});
+		}
+		return rslt;
+	}
+
+	private PersonAttributesResult attributesResult(final String username,
+			final Attributes attrs) {
+		final PersonAttributesResult result = new PersonAttributesResult();
+		result.setFirstName(extractProperty(attrs, "cn"));
+		result.setLastName(extractProperty(attrs, "sn"));
+		result.setPrimaryEmailAddress(extractProperty(attrs,
+				"mail"));
+		result.setSchoolId(username);
+		result.setPhone(extractProperty(attrs,
+				"telephonenumber"));
+		return result;
+	}
+
 	private String extractProperty(final Attributes attrs, final String property) {
 		final Attribute attrib = attrs.get(property);
 		if (null == attrib) {
@@ -45,6 +45,7 @@ import org.jasig.ssp.service.MapStatusReportService;
 import org.jasig.ssp.service.MessageService;
 import org.jasig.ssp.service.ObjectNotFoundException;
 import org.jasig.ssp.service.PlanService;
+import org.jasig.ssp.service.ScheduledTaskRunService;
 import org.jasig.ssp.service.external.ExternalStudentTranscriptCourseService;
 import org.jasig.ssp.service.external.MapStatusReportCalcTask;
 import org.jasig.ssp.service.external.TermService;
@@ -90,6 +91,9 @@ public class MapStatusReportCalcTaskImpl implements MapStatusReportCalcTask {
 	
 	@Autowired 
 	private MessageService messageService;
+
+	@Autowired
+	private transient ScheduledTaskRunService taskRunService;
 	
 	@Autowired
 	protected transient MessageTemplateService  messageTemplateService;
@@ -171,6 +175,7 @@ public class MapStatusReportCalcTaskImpl implements MapStatusReportCalcTask {
 				}
 			}
 			
+			taskRunService.itemsProcessed(1);
 			LOGGER.info("FINISHED MAP STATUS REPORT CALCULATION FOR: " + planIdPersonIdPair.getSchoolId());
 		}
 		summary.setEndTime(Calendar.getInstance());
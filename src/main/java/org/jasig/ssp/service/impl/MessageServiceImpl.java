@@ -18,25 +18,31 @@
  */
 package org.jasig.ssp.service.impl; // NOPMD
 
+import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
 
 import org.apache.commons.lang.StringUtils;
 import org.apache.commons.validator.EmailValidator;
+import org.jasig.ssp.dao.MessageContentDao;
 import org.jasig.ssp.dao.MessageDao;
 import org.jasig.ssp.model.AuditPerson;
 import org.jasig.ssp.model.Message;
+import org.jasig.ssp.model.MessageContent;
+import org.jasig.ssp.model.MessageDigestCategory;
 import org.jasig.ssp.model.ObjectStatus;
 import org.jasig.ssp.model.Person;
 import org.jasig.ssp.model.SubjectAndBody;
 import org.jasig.ssp.service.MessageService;
 import org.jasig.ssp.service.ObjectNotFoundException;
 import org.jasig.ssp.service.PersonService;
+import org.jasig.ssp.service.ScheduledTaskRunService;
 import org.jasig.ssp.service.SecurityService;
 import org.jasig.ssp.service.reference.ConfigService;
+import org.jasig.ssp.service.reference.MessageTemplateService;
+import org.jasig.ssp.transferobject.MessageTO;
 import org.jasig.ssp.util.CallableExecutor;
 import org.jasig.ssp.util.collections.Pair;
 import org.jasig.ssp.util.sort.PagingWrapper;
-import org.jasig.ssp.util.sort.SortingAndPaging;
 import org.jasig.ssp.util.transaction.WithTransaction;
 import org.jasig.ssp.web.api.validation.ValidationException;
 import org.slf4j.Logger;
@@ -58,14 +64,21 @@ import javax.validation.constraints.NotNull;
 
 import java.io.UnsupportedEncodingException;
 import java.util.ArrayList;
+import java.util.Calendar;
 import java.util.Collection;
 import java.util.Date;
+import java.util.EnumSet;
+import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.StringTokenizer;
 import java.util.UUID;
 import java.util.concurrent.Callable;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 /**
  * Message service implementation for sending e-mails (messages) to various
@@ -78,12 +91,20 @@ public class MessageServiceImpl implements MessageService {
 
 	private static final long INTER_QUEUE_BATCH_SLEEP = 200;
 
+	private static final int DIGEST_BATCH_SIZE = 100;
+
+	private static final Pattern HTML_BODY_CONTENT = Pattern.compile(
+			"(?is)^\\s*(?:<!doctype[^>]*>\\s*)?<html[^>]*>.*?<body[^>]*>(.*)</body>\\s*</html>\\s*$");
+
 	@Autowired
 	private transient JavaMailSender javaMailSender;
 
 	@Autowired
 	private transient MessageDao messageDao;
 
+	@Autowired
+	private transient MessageContentDao messageContentDao;
+
 	@Autowired
 	private transient PersonService personService;
 
@@ -96,12 +117,27 @@ public class MessageServiceImpl implements MessageService {
 	@Autowired
 	private transient WithTransaction withTransaction;
 
+	@Autowired
+	private transient MessageTemplateService messageTemplateService;
+
+	@Autowired
+	private transient ScheduledTaskRunService taskRunService;
+
 	private static final Logger LOGGER = LoggerFactory
 			.getLogger(MessageServiceImpl.class);
 
 	@Value("#{contextProperties.applicationMode}")
 	private transient String applicationMode;
 
+	@Value("#{configProperties.message_archive_chunk_size}")
+	private int archiveChunkSize = 500;
+
+	@Value("#{configProperties.message_archive_chunk_pause_millis}")
+	private long archiveChunkPauseMillis = 250;
+
+	@Value("#{configProperties.mail_send_retry_wait_millis}")
+	private long sendRetryWaitMillis = 20 * 1000L;
+
 
 
 	/**
@@ -172,6 +208,16 @@ public class MessageServiceImpl implements MessageService {
 			final String emailCC, final SubjectAndBody subjAndBody)
 			throws ObjectNotFoundException, SendFailedException,
 			ValidationException {
+		return createMessage(to, emailCC, subjAndBody, null);
+	}
+
+	@Override
+	@Transactional(readOnly = false)
+	public Message createMessage(@NotNull final Person to,
+			final String emailCC, final SubjectAndBody subjAndBody,
+			final MessageDigestCategory digestCategory)
+			throws ObjectNotFoundException, SendFailedException,
+			ValidationException {
 
 		if (to == null) {
 			throw new ValidationException("Recipient missing.");
@@ -193,7 +239,10 @@ public class MessageServiceImpl implements MessageService {
 		final Message message = createMessage(subjAndBody);
 
 		message.setRecipient(to);
+		// digests are grouped by address, so held messages need one just like String-addressed ones
+		message.setRecipientEmailAddress(toAddress);
 		message.setCarbonCopy(emailCC);
+		message.setDigestCategory(digestCategory);
 
 		return messageDao.save(message);
 	}
@@ -204,15 +253,68 @@ public class MessageServiceImpl implements MessageService {
 			final String emailCC,
 			@NotNull final SubjectAndBody subjAndBody)
 			throws ObjectNotFoundException {
+		return createMessage(to, emailCC, subjAndBody, null);
+	}
+
+	@Override
+	@Transactional(readOnly = false)
+	public Message createMessage(@NotNull final String to,
+			final String emailCC,
+			@NotNull final SubjectAndBody subjAndBody,
+			final MessageDigestCategory digestCategory)
+			throws ObjectNotFoundException {
+
+		final Message message = createMessage(subjAndBody);
+
+		message.setRecipientEmailAddress(to);
+		message.setCarbonCopy(emailCC);
+		message.setDigestCategory(digestCategory);
+
+		return messageDao.save(message);
+	}
+
+	@Override
+	@Transactional(readOnly = false)
+	public Message createMessageWithSharedContent(@NotNull final String to,
+			final String emailCC,
+			@NotNull final SubjectAndBody subjAndBody)
+			throws ObjectNotFoundException {
 
 		final Message message = createMessage(subjAndBody);
 
 		message.setRecipientEmailAddress(to);
 		message.setCarbonCopy(emailCC);
+		message.setContent(getOrCreateContent(subjAndBody.getBody()));
 
 		return messageDao.save(message);
 	}
 
+	private MessageContent getOrCreateContent(final String body) {
+		final String contentHash = MessageContent.hashOf(body);
+		final MessageContent existing = messageContentDao.getByContentHash(contentHash);
+		if ( existing != null ) {
+			return existing;
+		}
+		// Insert in its own transaction so concurrent bulk jobs (or partitions of one job) sending the same body
+		// see it right away and a unique key collision doesn't roll back the caller's batch. Worst case the
+		// caller's transaction fails later and leaves behind an unreferenced content row, which is harmless.
+		try {
+			withTransaction.withNewTransactionAndUncheckedExceptions(new Callable<MessageContent>() {
+				@Override
+				public MessageContent call() throws Exception {
+					return messageContentDao.save(new MessageContent(body));
+				}
+			});
+		} catch ( RuntimeException e ) {
+			LOGGER.debug("Failed to store message content {}, assuming it was stored concurrently", contentHash, e);
+		}
+		final MessageContent created = messageContentDao.getByContentHash(contentHash);
+		if ( created == null ) {
+			throw new IllegalStateException("Unable to store message content " + contentHash);
+		}
+		return created;
+	}
+
 	@Override
 	public Message createMessageNoSave(@NotNull final String to,
 								 final String emailCC,
@@ -241,11 +343,9 @@ public class MessageServiceImpl implements MessageService {
 			LOGGER.info("Abandoning sendQueuedMessages because of thread interruption");
 		}
 
-		int startRow = 0;
-		final AtomicReference<SortingAndPaging> sap =
-				new AtomicReference<SortingAndPaging>();
-		sap.set(new SortingAndPaging(ObjectStatus.ACTIVE, startRow, QUEUE_BATCH_SIZE,
-				null, null, null));
+		// walk the queue by (createdDate, id) key rather than by row offset so each batch is a range read
+		// on the queue index, no matter how far into the queue we are or how big the message table is
+		final AtomicReference<Pair<Date,UUID>> lastKey = new AtomicReference<Pair<Date,UUID>>();
 		// process each batch in its own transaction... don't want to hold
 		// a single transaction open while processing what is effectively
 		// an unbounded number of messages.
@@ -256,18 +356,17 @@ public class MessageServiceImpl implements MessageService {
 				break;
 			}
 
-			LOGGER.info("Before message queue processing transaction at start row {}",
-					sap.get().getFirstResult());
+			LOGGER.info("Before message queue processing transaction after key {}", lastKey.get());
 			Pair<PagingWrapper<Message>, Collection<Throwable>> rslt = null;
 
 			try {
 				if ( batchExec == null ) {
-					rslt = sendQueuedMessageBatchInTransaction(sap.get());
+					rslt = sendQueuedMessageBatchInTransaction(lastKey.get());
 				} else {
 					rslt = batchExec.exec(new Callable<Pair<PagingWrapper<Message>, Collection<Throwable>>>() {
 						@Override
 						public Pair<PagingWrapper<Message>, Collection<Throwable>> call() throws Exception {
-							return sendQueuedMessageBatchInTransaction(sap.get());
+							return sendQueuedMessageBatchInTransaction(lastKey.get());
 						}
 					});
 				}
@@ -284,11 +383,14 @@ public class MessageServiceImpl implements MessageService {
 
 			PagingWrapper<Message> msgsHandled = rslt.getFirst();
 			int msgHandledCnt = msgsHandled.getRows() == null ? 0 : msgsHandled.getRows().size();
+			Collection<Throwable> errors = rslt.getSecond();
+			taskRunService.itemsProcessed(msgHandledCnt);
+			taskRunService.itemsFailed(errors == null ? 0 : errors.size());
 			if ( msgHandledCnt == 0 || msgHandledCnt < QUEUE_BATCH_SIZE ) {
-				LOGGER.info("Stop message queue processing. Transaction at"
-						+ " start row {} processed fewer messages ({}) than"
+				LOGGER.info("Stop message queue processing. Transaction after"
+						+ " key {} processed fewer messages ({}) than"
 						+ " allowed batch size {}.",
-						new Object[] { startRow, msgHandledCnt, QUEUE_BATCH_SIZE });
+						new Object[] { lastKey.get(), msgHandledCnt, QUEUE_BATCH_SIZE });
 				break;
 			}
 
@@ -297,54 +399,189 @@ public class MessageServiceImpl implements MessageService {
 			// full batch. Grabbing a full batch avoids slowdown when enough
 			// errors accumulate to dramatically reduce the number of
 			// *potentially* valid messages in the previous batch.
-			Collection<Throwable> errors = rslt.getSecond();
 			if ( errors != null && !(errors.isEmpty())) {
-				startRow += msgsHandled.getRows().size();
-				sap.set(new SortingAndPaging(ObjectStatus.ACTIVE, startRow,
-						QUEUE_BATCH_SIZE,
-						null, null, null));
+				final Message last = Iterables.getLast(msgsHandled.getRows());
+				lastKey.set(new Pair<Date,UUID>(last.getCreatedDate(), last.getId()));
 				LOGGER.info("Need to advance past message queue processing errors."
-						+ " Transaction at start row {} processed all {}"
+						+ " Resuming after key {}. Previous transaction processed all {}"
 						+ " messages in a max batch size of {}, but were"
 						+ " errors.",
-						new Object[] { startRow, msgHandledCnt, QUEUE_BATCH_SIZE });
+						new Object[] { lastKey.get(), msgHandledCnt, QUEUE_BATCH_SIZE });
 				// lets not get into an excessively tight email loop
 				maybePauseBetweenQueueBatches();
 			} else {
-				LOGGER.info("Stop message queue processing. Transaction at"
-						+ " start row {} processed all {} messages in a max"
+				LOGGER.info("Stop message queue processing. Transaction after"
+						+ " key {} processed all {} messages in a max"
 						+ " batch size of {}, but were zero errors. Waiting for"
 						+ " next scheduled execution before processing"
 						+ " additional messages.",
-						new Object[] { startRow, msgHandledCnt, QUEUE_BATCH_SIZE });
+						new Object[] { lastKey.get(), msgHandledCnt, QUEUE_BATCH_SIZE });
 				break;
 			}
 		}
 
+		if ( !(Thread.currentThread().isInterrupted()) ) {
+			sendDueDigests();
+		}
+
 		LOGGER.info("END : sendQueuedMessages()");
 	}
 
-	private Pair<PagingWrapper<Message>, Collection<Throwable>> sendQueuedMessageBatchInTransaction(final SortingAndPaging sap) {
+	/**
+	 * Categories configured in {@code mail_digest_categories}. Empty if digests are disabled.
+	 */
+	private Set<MessageDigestCategory> getDigestCategories() {
+		final Set<MessageDigestCategory> categories = EnumSet.noneOf(MessageDigestCategory.class);
+		for ( String name : configService.getByNameEmpty("mail_digest_categories").split(",") ) {
+			if ( StringUtils.isBlank(name) ) {
+				continue;
+			}
+			try {
+				categories.add(MessageDigestCategory.valueOf(name.trim().toUpperCase()));
+			} catch ( IllegalArgumentException e ) {
+				LOGGER.warn("Ignoring unrecognized mail_digest_categories entry [{}]", name);
+			}
+		}
+		return categories;
+	}
+
+	/**
+	 * Coalesce held messages into one digest per recipient, for recipients whose oldest held message has waited
+	 * at least {@code mail_digest_window_minutes}. Like queue batches, each recipient's digest is built and sent
+	 * in its own transaction so one bad address doesn't hold up everyone else's.
+	 */
+	private void sendDueDigests() {
+		final Set<MessageDigestCategory> categories = getDigestCategories();
+		if ( categories.isEmpty() ) {
+			return;
+		}
+		final int windowMinutes = configService.getByNameExceptionOrDefaultAsInt("mail_digest_window_minutes");
+		final Date windowStart = new Date(System.currentTimeMillis() - windowMinutes * 60L * 1000L);
+		final List<String> recipients = withTransaction.withTransactionAndUncheckedExceptions(
+				new Callable<List<String>>() {
+					@Override
+					public List<String> call() throws Exception {
+						return messageDao.digestRecipientsDue(categories, windowStart, DIGEST_BATCH_SIZE);
+					}
+				});
+		LOGGER.info("{} message digests due for categories {}", recipients.size(), categories);
+		for ( final String recipient : recipients ) {
+			if ( Thread.currentThread().isInterrupted() ) {
+				LOGGER.info("Abandoning sendDueDigests because of thread interruption");
+				break;
+			}
+			try {
+				withTransaction.withTransactionAndUncheckedExceptions(new Callable<Void>() {
+					@Override
+					public Void call() throws Exception {
+						sendDigest(recipient, categories);
+						return null;
+					}
+				});
+			} catch ( RuntimeException e ) {
+				LOGGER.error("Could not send message digest to [" + recipient + "]", e);
+			}
+		}
+	}
+
+	private void sendDigest(String recipient, Set<MessageDigestCategory> categories)
+			throws ObjectNotFoundException, SendFailedException, UnsupportedEncodingException {
+		final List<Message> held = messageDao.queuedForDigest(recipient, categories);
+		if ( held.isEmpty() ) {
+			return;
+		}
+		if ( held.size() == 1 ) {
+			// nothing to coalesce. A failure counts against its retry limit like any other queued message.
+			try {
+				sendMessage(held.get(0));
+			} catch ( SendFailedException e ) {
+				LOGGER.error("Could not send held message to [" + recipient + "]", e);
+			}
+			return;
+		}
+
+		final List<MessageTO> messageTOs = Lists.newArrayListWithCapacity(held.size());
+		for ( Message message : held ) {
+			final MessageTO messageTO = new MessageTO(message);
+			messageTO.setBody(bodyFragment(message.getBody()));
+			messageTOs.add(messageTO);
+		}
+		final Map<String, Object> templateParameters = new HashMap<String, Object>();
+		templateParameters.put("messages", messageTOs);
+		templateParameters.put("recipient", held.get(0).getRecipient());
+		templateParameters.put("recipientEmailAddress", recipient);
+		final SubjectAndBody subjAndBody = messageTemplateService.createMessageDigestMessage(templateParameters);
+
+		// digests are sent by the system, not by whoever triggered any one of the held messages
+		final Person sender = personService.get(Person.SYSTEM_ADMINISTRATOR_ID);
+		final Message digest = new Message(subjAndBody);
+		digest.setSender(sender);
+		digest.setCreatedBy(new AuditPerson(sender.getId()));
+		digest.setRecipient(held.get(0).getRecipient());
+		digest.setRecipientEmailAddress(recipient);
+		messageDao.save(digest);
+		LOGGER.info("Coalesced {} messages to [{}] into digest {}",
+				new Object[] { held.size(), recipient, digest.getId() });
+
+		try {
+			sendMessage(digest);
+		} catch ( SendFailedException e ) {
+			// The held messages stay queued and are coalesced again next time, so the digest itself is retired
+			// rather than left for the queue to retry on its own. The failure counts against each held message's
+			// retry limit, which keeps a digest that can never be delivered from holding them forever.
+			LOGGER.error("Could not send message digest " + digest.getId() + " to [" + recipient + "]", e);
+			digest.setObjectStatus(ObjectStatus.INACTIVE);
+			messageDao.save(digest);
+			for ( Message message : held ) {
+				message.setRetryCount(message.getRetryCount() == null ? 1 : message.getRetryCount() + 1);
+				messageDao.save(message);
+			}
+			return;
+		}
+
+		// held messages are delivered by way of the digest, so only now are they done
+		for ( Message message : held ) {
+			message.setSentDate(digest.getSentDate());
+			messageDao.save(message);
+		}
+	}
+
+	/**
+	 * Strip any enclosing html/body tags so the body can be embedded in a digest
+	 */
+	private String bodyFragment(String body) {
+		if ( body == null ) {
+			return null;
+		}
+		final Matcher matcher = HTML_BODY_CONTENT.matcher(body);
+		return matcher.matches() ? matcher.group(1) : body;
+	}
+
+	private Pair<PagingWrapper<Message>, Collection<Throwable>> sendQueuedMessageBatchInTransaction(final Pair<Date,UUID> afterKey) {
 		return withTransaction.withTransactionAndUncheckedExceptions(
 				new Callable<Pair<PagingWrapper<Message>, Collection<Throwable>>>() {
 					@Override
 					public Pair<PagingWrapper<Message>, Collection<Throwable>> call()
 							throws Exception {
-						return sendQueuedMessageBatch(sap);
+						return sendQueuedMessageBatch(afterKey);
 					}
 				});
 	}
 
 	private Pair<PagingWrapper<Message>, Collection<Throwable>>
-	sendQueuedMessageBatch(SortingAndPaging sap) throws UnsupportedEncodingException {
+	sendQueuedMessageBatch(Pair<Date,UUID> afterKey) throws UnsupportedEncodingException {
 		LinkedList<Throwable> errors = Lists.newLinkedList();
-		LOGGER.info("Looking for queued message batch at start row {}, batch size {}",
-				sap.getFirstResult(), sap.getMaxResults());
-		final PagingWrapper<Message> messages = messageDao.queued(sap);
-		LOGGER.info("Start processing {} queued messages in batchstart"
-				+ " row {}, max batch size {}",
-				new Object[] { messages.getRows() == null ? 0 : messages.getRows().size(),
-						sap.getFirstResult(), sap.getMaxResults() });
+		LOGGER.info("Looking for queued message batch after key {}, batch size {}",
+				afterKey, QUEUE_BATCH_SIZE);
+		// messages in digest categories are left for sendDueDigests()
+		final Set<MessageDigestCategory> heldForDigest = getDigestCategories();
+		final List<Message> queued = afterKey == null ? messageDao.queuedAfter(null, null, heldForDigest, QUEUE_BATCH_SIZE)
+				: messageDao.queuedAfter(afterKey.getFirst(), afterKey.getSecond(), heldForDigest, QUEUE_BATCH_SIZE);
+		// no total count, that's the whole point of keyset paging
+		final PagingWrapper<Message> messages = new PagingWrapper<Message>(queued);
+		LOGGER.info("Start processing {} queued messages in batch after"
+				+ " key {}, max batch size {}",
+				new Object[] { queued.size(), afterKey, QUEUE_BATCH_SIZE });
 		for (final Message message : messages ) {
 			if ( Thread.currentThread().isInterrupted() ) {
 				LOGGER.info("Abandoning sendQueuedMessageBatch because of thread interruption");
@@ -536,7 +773,7 @@ public class MessageServiceImpl implements MessageService {
 			} catch (final MailSendException e) {
 				try {
 					LOGGER.warn("Send failed, going to wait and try again");
-					Thread.sleep(20 * 1000L);
+					Thread.sleep(sendRetryWaitMillis);
 					javaMailSender.send(mimeMessage);
 				} catch (final InterruptedException e1) {
 					LOGGER.error("Thread error", e1);
@@ -549,6 +786,10 @@ public class MessageServiceImpl implements MessageService {
 			LOGGER.warn("_ : JavaMailSender was not called; message was marked sent but was not actually sent.  To enable mail, update the configuration of the app.");
 		}
 	}
+
+	protected void setSendRetryWaitMillis(final long sendRetryWaitMillis) {
+		this.sendRetryWaitMillis = sendRetryWaitMillis;
+	}
 	
 	private InternetAddress[] getEmailAddresses(List<String> emailAddressses, String type, UUID messageId){
 		List<InternetAddress> validAddresses = new ArrayList<InternetAddress>();
@@ -647,6 +888,66 @@ public class MessageServiceImpl implements MessageService {
 		{
 			LOGGER.error("Config value 'mail_age_in_days_limit' cannot be parsed into an integer");
 		}
-		return messageDao.archiveAndPruneMessages(messageAgeInDays);
+		final Calendar cutoff = Calendar.getInstance();
+		cutoff.add(Calendar.DAY_OF_MONTH, messageAgeInDays * -1);
+
+		LOGGER.info("BEGIN : archiveAndPruneMessages() for messages created before {}", cutoff.getTime());
+
+		// each chunk commits on its own so the archive never holds locks on more than archiveChunkSize
+		// message rows at a time. Archived rows are deleted as we go, so an interrupted or failed run
+		// simply picks up where it left off the next time it is scheduled.
+		int archived = 0;
+		Pair<Date,UUID> lastKey = null;
+		while (true) {
+			if ( Thread.currentThread().isInterrupted() ) {
+				LOGGER.info("Abandoning archiveAndPruneMessages because of thread interruption");
+				break;
+			}
+
+			final Pair<Date,UUID> afterKey = lastKey;
+			final Pair<Integer, List<Pair<Date,UUID>>> rslt = withTransaction.withNewTransactionAndUncheckedExceptions(
+					new Callable<Pair<Integer, List<Pair<Date,UUID>>>>() {
+						@Override
+						public Pair<Integer, List<Pair<Date,UUID>>> call() throws Exception {
+							return archiveAndPruneMessageChunk(cutoff.getTime(), afterKey);
+						}
+					});
+			archived += rslt.getFirst();
+			final List<Pair<Date,UUID>> chunk = rslt.getSecond();
+
+			if ( chunk.size() < archiveChunkSize ) {
+				break;
+			}
+			lastKey = Iterables.getLast(chunk);
+			maybePauseBetweenArchiveChunks();
+		}
+
+		LOGGER.info("END : archiveAndPruneMessages(). {} messages archived and deleted", archived);
+		return archived;
+	}
+
+	private Pair<Integer, List<Pair<Date,UUID>>> archiveAndPruneMessageChunk(Date cutoff, Pair<Date,UUID> afterKey) {
+		final List<Pair<Date,UUID>> chunk = afterKey == null
+				? messageDao.archivableAfter(cutoff, null, null, archiveChunkSize)
+				: messageDao.archivableAfter(cutoff, afterKey.getFirst(), afterKey.getSecond(), archiveChunkSize);
+		final List<UUID> ids = Lists.newArrayListWithCapacity(chunk.size());
+		for ( Pair<Date,UUID> key : chunk ) {
+			ids.add(key.getSecond());
+		}
+		final int archived = messageDao.archiveAndPruneMessages(ids);
+		LOGGER.debug("Archived {} of {} messages in chunk after key {}",
+				new Object[] { archived, ids.size(), afterKey });
+		return new Pair<Integer, List<Pair<Date,UUID>>>(archived, chunk);
+	}
+
+	private void maybePauseBetweenArchiveChunks() {
+		if ( archiveChunkPauseMillis > 0 ) {
+			try {
+				Thread.sleep(archiveChunkPauseMillis);
+			} catch ( InterruptedException e ) {
+				// reassert, loop will see it and stop
+				Thread.currentThread().interrupt();
+			}
+		}
 	}
-}
\ No newline at end of file
+}
@@ -84,6 +84,7 @@ public class PersonEmailServiceImpl implements PersonEmailService {
 	private static final String BULK_MESSAGES_BATCH_SIZE_CONFIG_NAME = "mail_bulk_message_batch_size";
 	private static final String BULK_MESSAGES_MAX_DLQ_SIZE_CONFIG_NAME = "mail_bulk_message_max_dlq_size";
 	private static final String BULK_MESSAGES_FAIL_ON_DLQ_OVERFLOW_CONFIG_NAME = "mail_bulk_message_fail_on_dlq_overflow";
+	private static final String BULK_MESSAGES_PARTITION_COUNT_CONFIG_NAME = "mail_bulk_message_partition_count";
 
 	// Careful when changing these messages; might be code looking at them to figure out what happened when
 	// a ValidationException occurs
@@ -282,9 +283,13 @@ public class PersonEmailServiceImpl implements PersonEmailService {
 		final EmailAddress addresses = emailRequest.getValidDeliveryAddresses(true);
 		final String body = formatEmailBody(emailRequest);
 		final SubjectAndBody subjectAndBody = new SubjectAndBody(emailRequest.getEmailSubject(), body);
-		return andSend ?
-				messageService.createMessage(addresses.getTo(), addresses.getCc(), subjectAndBody) :
-				messageService.createMessageNoSave(addresses.getTo(), addresses.getCc(), subjectAndBody);
+		if ( !(andSend) ) {
+			return messageService.createMessageNoSave(addresses.getTo(), addresses.getCc(), subjectAndBody);
+		}
+		// every recipient of a bulk email gets the same body, so store it once rather than once per recipient
+		return originalRequestVolume == EmailVolume.BULK ?
+				messageService.createMessageWithSharedContent(addresses.getTo(), addresses.getCc(), subjectAndBody) :
+				messageService.createMessage(addresses.getTo(), addresses.getCc(), subjectAndBody);
 	}
 
 	private String formatEmailBody(EmailStudentRequestForm emailRequest) {
@@ -492,6 +497,25 @@ public class PersonEmailServiceImpl implements PersonEmailService {
 			protected String getFailOnSlqOverflowConfigName() {
 				return BULK_MESSAGES_FAIL_ON_DLQ_OVERFLOW_CONFIG_NAME;
 			}
+
+			@Override
+			protected String getPartitionCountConfigName() {
+				return BULK_MESSAGES_PARTITION_COUNT_CONFIG_NAME;
+			}
+
+			@Override
+			protected void clearAggregate(BulkEmailJobExecutionState executionState) {
+				super.clearAggregate(executionState);
+				executionState.emailSentCount = 0;
+				executionState.journalEntriesCreatedCount = 0;
+			}
+
+			@Override
+			protected void accumulatePartitionState(BulkEmailJobExecutionState aggregate, BulkEmailJobExecutionState partitionState) {
+				super.accumulatePartitionState(aggregate, partitionState);
+				aggregate.emailSentCount += partitionState.emailSentCount;
+				aggregate.journalEntriesCreatedCount += partitionState.journalEntriesCreatedCount;
+			}
 		};
 
 		this.jobService.registerJobExecutor(this.bulkEmailJobExecutor);
@@ -86,6 +86,7 @@ public class PersonProgramStatusServiceImpl extends
 	private static final String BULK_PROGRAM_STATUS_CHANGE_BATCH_SIZE_CONFIG_NAME = "program_status_bulk_change_batch_size";
 	private static final String BULK_PROGRAM_STATUS_CHANGE_MAX_DLQ_SIZE_CONFIG_NAME = "program_status_bulk_change_max_dlq_size";
 	private static final String BULK_PROGRAM_STATUS_CHANGE_FAIL_ON_DLQ_OVERFLOW_CONFIG_NAME = "program_status_bulk_change_fail_on_dlq_overflow";
+	private static final String BULK_PROGRAM_STATUS_CHANGE_PARTITION_COUNT_CONFIG_NAME = "program_status_bulk_change_partition_count";
 	private static final String PERSON_PROGRAM_STATUS_ID_CREATED_FIELD_NAME = "personProgramStatusId";
 
 	@Autowired
@@ -431,6 +432,23 @@ public class PersonProgramStatusServiceImpl extends
 			protected String getFailOnSlqOverflowConfigName() {
 				return BULK_PROGRAM_STATUS_CHANGE_FAIL_ON_DLQ_OVERFLOW_CONFIG_NAME;
 			}
+
+			@Override
+			protected String getPartitionCountConfigName() {
+				return BULK_PROGRAM_STATUS_CHANGE_PARTITION_COUNT_CONFIG_NAME;
+			}
+
+			@Override
+			protected void clearAggregate(BulkProgramStatusChangeJobExecutionState executionState) {
+				super.clearAggregate(executionState);
+				executionState.personsSkippedCount = 0;
+			}
+
+			@Override
+			protected void accumulatePartitionState(BulkProgramStatusChangeJobExecutionState aggregate, BulkProgramStatusChangeJobExecutionState partitionState) {
+				super.accumulatePartitionState(aggregate, partitionState);
+				aggregate.personsSkippedCount += partitionState.personsSkippedCount;
+			}
 		};
 		this.jobService.registerJobExecutor(this.bulkJobExecutor);
 	}
@@ -28,6 +28,7 @@ import org.jasig.ssp.model.ObjectStatus;
 import org.jasig.ssp.model.Person;
 import org.jasig.ssp.model.external.ExternalPerson;
 import org.jasig.ssp.security.PersonAttributesResult;
+import org.jasig.ssp.security.PersonSnapshotInvalidator;
 import org.jasig.ssp.security.exception.UnableToCreateAccountException;
 import org.jasig.ssp.service.ObjectNotFoundException;
 import org.jasig.ssp.service.PersonAttributesService;
@@ -96,6 +97,9 @@ public class PersonServiceImpl implements PersonService {
 	@Autowired
 	private transient WithTransaction withTransaction;
 
+	@Autowired
+	private transient PersonSnapshotInvalidator personSnapshotInvalidator;
+
 	/**
 	 * If <code>true</code>, each individual coach synchronized by
 	 * {@link #syncCoaches()} will be written in its own transaction. If false,
@@ -501,7 +505,10 @@ public class PersonServiceImpl implements PersonService {
 	 */
 	@Override
 	public Person save(final Person obj) throws ObjectNotFoundException {
-		return dao.save(obj);
+		final Person saved = dao.save(obj);
+		// sessions holding this person as their current user look it up again
+		personSnapshotInvalidator.invalidate(obj.getId());
+		return saved;
 	}
 
 	@Override
@@ -529,6 +536,11 @@ public class PersonServiceImpl implements PersonService {
 		this.dao = dao;
 	}
 
+	protected void setPersonSnapshotInvalidator(
+			final PersonSnapshotInvalidator personSnapshotInvalidator) {
+		this.personSnapshotInvalidator = personSnapshotInvalidator;
+	}
+
 	@Override
 	public List<Person> peopleFromListOfIds(final List<UUID> personIds,
 			final SortingAndPaging sAndP) {
@@ -18,12 +18,10 @@
  */
 package org.jasig.ssp.service.impl;
 
-import java.util.concurrent.Callable;
-
 import org.jasig.ssp.service.MessageService;
 import org.jasig.ssp.service.PruneMessageQueueTask;
+import org.jasig.ssp.service.ScheduledTaskRunService;
 import org.jasig.ssp.util.CallableExecutor;
-import org.jasig.ssp.util.transaction.WithTransaction;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -37,28 +35,26 @@ public class PruneMessageQueueTaskImpl implements PruneMessageQueueTask {
 	
 	@Autowired
 	private MessageService messageService;
-	
+
 	@Autowired
-	private transient WithTransaction withTransaction;
+	private transient ScheduledTaskRunService taskRunService;
 
 	@Override
 	public void exec(CallableExecutor<Void> batchExecutor) {
 
 		if ( Thread.currentThread().isInterrupted() ) {
 			LOGGER.info("Abandoning message archive and pruning because of thread interruption");
+			return;
 		}
 
 		try { 
-			Integer result = withTransaction.withNewTransaction(new Callable<Integer>() {
-
-				@Override
-				public Integer call() throws Exception {
-					return messageService.archiveAndPruneMessages();
-				}
-			});
+			// archives in chunks, each in its own transaction, so must not be wrapped in one here
+			Integer result = messageService.archiveAndPruneMessages();
 			LOGGER.info("{} Messages archived and deleted",result);
+			taskRunService.itemsProcessed(result);
 		} catch (Exception e) {
 			LOGGER.error("Error while archiving and pruning message table: {}", e);
+			taskRunService.itemsFailed(1);
 		}
 	}
 
@@ -20,6 +20,7 @@ package org.jasig.ssp.service.impl;
 
 import org.jasig.ssp.service.PersonSearchService;
 import org.jasig.ssp.service.RefreshDirectoryPersonTask;
+import org.jasig.ssp.service.ScheduledTaskRunService;
 import org.jasig.ssp.service.external.BatchedTask;
 import org.jasig.ssp.util.CallableExecutor;
 import org.slf4j.Logger;
@@ -35,6 +36,9 @@ public class RefreshPersonDirectoryImpl implements BatchedTask<Void>,
 	
 	@Autowired
 	PersonSearchService personSearchService;
+
+	@Autowired
+	private transient ScheduledTaskRunService taskRunService;
 	
 	@Override
 	public void exec(CallableExecutor<Void> batchExecutor) {
@@ -42,7 +46,8 @@ public class RefreshPersonDirectoryImpl implements BatchedTask<Void>,
 		try{
 			personSearchService.refreshDirectoryPerson();
 		}catch(Exception exp){
-			
+			// still swallowed, but shows up in the task's run history
+			taskRunService.itemsFailed(1);
 		}finally{
 			
 		}
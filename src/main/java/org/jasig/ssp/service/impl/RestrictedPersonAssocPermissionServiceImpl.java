@@ -19,6 +19,7 @@
 package org.jasig.ssp.service.impl;
 
 import java.util.Collection;
+import java.util.UUID;
 
 import org.jasig.ssp.model.RestrictedPersonAssocAuditable;
 import org.jasig.ssp.model.reference.ConfidentialityLevel;
@@ -60,10 +61,11 @@ public class RestrictedPersonAssocPermissionServiceImpl implements
 		final Collection<GrantedAuthority> permissions = requestor
 				.getAuthorities();
 
-		final Collection<ConfidentialityLevel> grantedLevels = confidentialityLevelService
-				.filterConfidentialityLevelsFromGrantedAuthorities(permissions);
+		final Collection<UUID> grantedLevelIds = confidentialityLevelService
+				.confidentialityLevelIdsFromGrantedAuthorities(permissions);
 
-		if (grantedLevels.contains(model.getConfidentialityLevel())
+		final ConfidentialityLevel level = model.getConfidentialityLevel();
+		if ((level != null && grantedLevelIds.contains(level.getId()))
 				|| (model.getCreatedBy().equals(
 						requestor.getPerson()))) {
 			return true;
@@ -0,0 +1,164 @@
+/**
+ * Licensed to Apereo under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work
+ * for additional information regarding copyright ownership.
+ * Apereo licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License.  You may obtain a
+ * copy of the License at the following location:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jasig.ssp.service.impl;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.Date;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+
+import org.jasig.ssp.dao.ScheduledTaskLeaseDao;
+import org.jasig.ssp.model.ScheduledTaskLease;
+import org.jasig.ssp.service.ScheduledTaskLeaseService;
+import org.jasig.ssp.util.transaction.WithTransaction;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+@Service
+public class ScheduledTaskLeaseServiceImpl implements ScheduledTaskLeaseService {
+
+	private static final Logger LOGGER = LoggerFactory
+			.getLogger(ScheduledTaskLeaseServiceImpl.class);
+
+	@Autowired
+	private transient ScheduledTaskLeaseDao dao;
+
+	@Autowired
+	private transient WithTransaction withTransaction;
+
+	@Value("#{configProperties.scheduled_task_lease_millis}")
+	private long leaseDurationMillis = 2 * 60 * 1000L;
+
+	private final String nodeId = newNodeId();
+
+	private static String newNodeId() {
+		String host;
+		try {
+			host = InetAddress.getLocalHost().getHostName();
+		} catch (final UnknownHostException e) {
+			host = "unknown-host";
+		}
+		// random part so two app instances on one host are told apart
+		return host + "/" + UUID.randomUUID();
+	}
+
+	@Override
+	public String getNodeId() {
+		return nodeId;
+	}
+
+	@Override
+	public long getLeaseDurationMillis() {
+		return leaseDurationMillis;
+	}
+
+	@Override
+	public boolean tryAcquire(final String taskName, final Date scheduledFor) {
+		ensureLeaseExists(taskName);
+		final boolean acquired = withTransaction.withNewTransactionAndUncheckedExceptions(
+				new Callable<Boolean>() {
+					@Override
+					public Boolean call() throws Exception {
+						final Date now = new Date();
+						return dao.acquire(taskName, nodeId, now,
+								new Date(now.getTime() + leaseDurationMillis),
+								scheduledFor) == 1;
+					}
+				});
+		LOGGER.debug("Node [{}] {} lease on task [{}] scheduled for [{}]",
+				new Object[] { nodeId, acquired ? "acquired" : "did not acquire",
+						taskName, scheduledFor });
+		return acquired;
+	}
+
+	private void ensureLeaseExists(final String taskName) {
+		final ScheduledTaskLease existing = withTransaction.withNewTransactionAndUncheckedExceptionsReadOnly(
+				new Callable<ScheduledTaskLease>() {
+					@Override
+					public ScheduledTaskLease call() throws Exception {
+						return dao.get(taskName);
+					}
+				});
+		if ( existing != null ) {
+			return;
+		}
+		try {
+			withTransaction.withNewTransactionAndUncheckedExceptions(new Callable<ScheduledTaskLease>() {
+				@Override
+				public ScheduledTaskLease call() throws Exception {
+					return dao.create(taskName);
+				}
+			});
+		} catch ( RuntimeException e ) {
+			// if it really is missing, acquiring it will just fail
+			LOGGER.debug("Failed to create lease on task [{}], assuming another node created it concurrently",
+					taskName, e);
+		}
+	}
+
+	@Override
+	public boolean renew(final String taskName) {
+		return withTransaction.withNewTransactionAndUncheckedExceptions(
+				new Callable<Boolean>() {
+					@Override
+					public Boolean call() throws Exception {
+						final Date now = new Date();
+						return dao.renew(taskName, nodeId, now,
+								new Date(now.getTime() + leaseDurationMillis)) == 1;
+					}
+				});
+	}
+
+	@Override
+	public void release(final String taskName, final boolean completed) {
+		final int released = withTransaction.withNewTransactionAndUncheckedExceptions(
+				new Callable<Integer>() {
+					@Override
+					public Integer call() throws Exception {
+						return dao.release(taskName, nodeId, completed ? new Date() : null);
+					}
+				});
+		if ( released == 0 ) {
+			LOGGER.warn("Node [{}] no longer held the lease on task [{}] when releasing it", nodeId, taskName);
+		}
+	}
+
+	@Override
+	public Date takeoverTime(final String taskName, final Date scheduledFor) {
+		if ( scheduledFor == null ) {
+			return null;
+		}
+		final ScheduledTaskLease lease = withTransaction.withNewTransactionAndUncheckedExceptionsReadOnly(
+				new Callable<ScheduledTaskLease>() {
+					@Override
+					public ScheduledTaskLease call() throws Exception {
+						return dao.get(taskName);
+					}
+				});
+		if ( lease == null || lease.getLeaseExpires() == null || lease.getCompletedDate() != null
+				|| !(scheduledFor.equals(lease.getScheduledFor())) ) {
+			return null;
+		}
+		return lease.getLeaseExpires();
+	}
+}
@@ -0,0 +1,277 @@
+/**
+ * Licensed to Apereo under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work
+ * for additional information regarding copyright ownership.
+ * Apereo licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License.  You may obtain a
+ * copy of the License at the following location:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jasig.ssp.service.impl;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+import org.jasig.ssp.dao.ScheduledTaskRunDao;
+import org.jasig.ssp.model.ScheduledTaskRun;
+import org.jasig.ssp.model.ScheduledTaskStatus;
+import org.jasig.ssp.service.ScheduledTaskLeaseService;
+import org.jasig.ssp.service.ScheduledTaskRunService;
+import org.jasig.ssp.transferobject.ScheduledTaskRunSummaryTO;
+import org.jasig.ssp.util.transaction.WithTransaction;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.google.common.collect.Lists;
+
+@Service
+public class ScheduledTaskRunServiceImpl implements ScheduledTaskRunService {
+
+	private static final Logger LOGGER = LoggerFactory
+			.getLogger(ScheduledTaskRunServiceImpl.class);
+
+	// keeps a careless admin API call from pulling back the whole table
+	private static final int MAX_RESULTS_LIMIT = 10000;
+
+	private static final long DAY_IN_MILLIS = 24 * 60 * 60 * 1000L;
+
+	@Autowired
+	private transient ScheduledTaskRunDao dao;
+
+	@Autowired
+	private transient ScheduledTaskLeaseService leaseService;
+
+	@Autowired
+	private transient WithTransaction withTransaction;
+
+	@Value("#{configProperties.scheduled_task_run_history_days}")
+	private int historyDays = 30;
+
+	private final ThreadLocal<Deque<RunInProgress>> runsInProgress =
+			new ThreadLocal<Deque<RunInProgress>>() {
+				@Override
+				protected Deque<RunInProgress> initialValue() {
+					return new ArrayDeque<RunInProgress>();
+				}
+			};
+
+	private static class RunInProgress {
+		private final String taskName;
+		private final boolean quiet;
+		private final Date startDate = new Date();
+		private final long startNanos = System.nanoTime();
+		private Long itemsProcessed;
+		private long failures;
+
+		private RunInProgress(final String taskName, final boolean quiet) {
+			this.taskName = taskName;
+			this.quiet = quiet;
+		}
+
+		private boolean isIdle(final ScheduledTaskStatus outcome) {
+			return outcome == ScheduledTaskStatus.COMPLETED && failures == 0
+					&& (itemsProcessed == null || itemsProcessed == 0);
+		}
+	}
+
+	@Override
+	public void beginRun(final String taskName) {
+		runsInProgress.get().push(new RunInProgress(taskName, false));
+	}
+
+	@Override
+	public void beginQuietRun(final String taskName) {
+		runsInProgress.get().push(new RunInProgress(taskName, true));
+	}
+
+	@Override
+	public ScheduledTaskRun endRun(final ScheduledTaskStatus outcome) {
+		final Deque<RunInProgress> runs = runsInProgress.get();
+		final RunInProgress inProgress = runs.poll();
+		if ( runs.isEmpty() ) {
+			runsInProgress.remove();
+		}
+		if ( inProgress == null ) {
+			LOGGER.warn("Asked to end a scheduled task run but none was in progress on this thread");
+			return null;
+		}
+		if ( inProgress.quiet && inProgress.isIdle(outcome) ) {
+			return null;
+		}
+
+		final ScheduledTaskRun run = new ScheduledTaskRun();
+		run.setTaskName(inProgress.taskName);
+		run.setNode(leaseService.getNodeId());
+		run.setStartDate(inProgress.startDate);
+		run.setDurationMillis(TimeUnit.NANOSECONDS.toMillis(
+				System.nanoTime() - inProgress.startNanos));
+		run.setEndDate(new Date(inProgress.startDate.getTime() + run.getDurationMillis()));
+		run.setItemsProcessed(inProgress.itemsProcessed);
+		run.setFailures(inProgress.failures);
+		run.setOutcome(outcome);
+
+		try {
+			return withTransaction.withNewTransactionAndUncheckedExceptions(new Callable<ScheduledTaskRun>() {
+				@Override
+				public ScheduledTaskRun call() throws Exception {
+					return dao.create(run);
+				}
+			});
+		} catch ( RuntimeException e ) {
+			LOGGER.warn("Failed to record run of scheduled task [{}]", inProgress.taskName, e);
+			return null;
+		}
+	}
+
+	@Override
+	public void itemsProcessed(final long count) {
+		final RunInProgress run = runsInProgress.get().peek();
+		if ( run != null ) {
+			run.itemsProcessed = run.itemsProcessed == null ? count : run.itemsProcessed + count;
+		}
+	}
+
+	@Override
+	public void itemsFailed(final long count) {
+		final RunInProgress run = runsInProgress.get().peek();
+		if ( run != null ) {
+			run.failures += count;
+		}
+	}
+
+	@Override
+	public List<ScheduledTaskRun> getHistory(final String taskName,
+			final Date since, final int maxResults) {
+		return withTransaction.withNewTransactionAndUncheckedExceptionsReadOnly(
+				new Callable<List<ScheduledTaskRun>>() {
+					@Override
+					public List<ScheduledTaskRun> call() throws Exception {
+						return dao.getRecent(taskName, since,
+								Math.min(maxResults, MAX_RESULTS_LIMIT));
+					}
+				});
+	}
+
+	@Override
+	public ScheduledTaskRunSummaryTO summarize(final String taskName,
+			final int sampleSize) {
+		return summarize(taskName, getHistory(taskName, null, sampleSize));
+	}
+
+	@Override
+	public List<ScheduledTaskRunSummaryTO> summarizeAll(final int sampleSize) {
+		final List<String> taskNames = withTransaction.withNewTransactionAndUncheckedExceptionsReadOnly(
+				new Callable<List<String>>() {
+					@Override
+					public List<String> call() throws Exception {
+						return dao.getTaskNames();
+					}
+				});
+		final List<ScheduledTaskRunSummaryTO> summaries = Lists.newArrayListWithCapacity(taskNames.size());
+		for ( String taskName : taskNames ) {
+			summaries.add(summarize(taskName, sampleSize));
+		}
+		return summaries;
+	}
+
+	@Override
+	public int pruneHistory() {
+		if ( historyDays <= 0 ) {
+			LOGGER.debug("Scheduled task run history retention disabled, not pruning");
+			return 0;
+		}
+		final Date cutoff = new Date(System.currentTimeMillis() - historyDays * DAY_IN_MILLIS);
+		final int deleted = withTransaction.withNewTransactionAndUncheckedExceptions(
+				new Callable<Integer>() {
+					@Override
+					public Integer call() throws Exception {
+						return dao.deleteStartedBefore(cutoff);
+					}
+				});
+		LOGGER.info("Pruned {} scheduled task runs started before {}", deleted, cutoff);
+		itemsProcessed(deleted);
+		return deleted;
+	}
+
+	/**
+	 * @param runs
+	 *            Most recent first, as returned by
+	 *            {@link #getHistory(String, Date, int)}
+	 */
+	protected static ScheduledTaskRunSummaryTO summarize(final String taskName,
+			final List<ScheduledTaskRun> runs) {
+		final ScheduledTaskRunSummaryTO summary = new ScheduledTaskRunSummaryTO(taskName);
+		if ( runs.isEmpty() ) {
+			return summary;
+		}
+		final long[] durations = new long[runs.size()];
+		long totalDuration = 0;
+		long itemsProcessed = 0;
+		long itemsDuration = 0;
+		boolean anyItems = false;
+		int i = 0;
+		for ( ScheduledTaskRun run : runs ) {
+			durations[i++] = run.getDurationMillis();
+			totalDuration += run.getDurationMillis();
+			summary.setFailures(summary.getFailures() + run.getFailures());
+			if ( run.getItemsProcessed() != null ) {
+				anyItems = true;
+				itemsProcessed += run.getItemsProcessed();
+				itemsDuration += run.getDurationMillis();
+			}
+			if ( run.getOutcome() == ScheduledTaskStatus.COMPLETED ) {
+				summary.setCompleted(summary.getCompleted() + 1);
+			} else if ( run.getOutcome() == ScheduledTaskStatus.FAILED ) {
+				summary.setFailed(summary.getFailed() + 1);
+			} else if ( run.getOutcome() == ScheduledTaskStatus.INTERRUPTED ) {
+				summary.setInterrupted(summary.getInterrupted() + 1);
+			}
+		}
+		Arrays.sort(durations);
+
+		final ScheduledTaskRun last = runs.get(0);
+		summary.setRuns(runs.size());
+		summary.setLastStartDate(last.getStartDate());
+		summary.setLastDurationMillis(last.getDurationMillis());
+		summary.setMeanDurationMillis(totalDuration / runs.size());
+		summary.setP50DurationMillis(percentile(durations, 50));
+		summary.setP90DurationMillis(percentile(durations, 90));
+		summary.setP99DurationMillis(percentile(durations, 99));
+		summary.setMaxDurationMillis(durations[durations.length - 1]);
+		summary.setItemsProcessed(itemsProcessed);
+		if ( anyItems ) {
+			// a run that finished inside a millisecond still did its items
+			summary.setItemsPerSecond(itemsProcessed * 1000.0d / Math.max(itemsDuration, 1L));
+		}
+		return summary;
+	}
+
+	/**
+	 * Nearest-rank percentile, i.e. the smallest value at least
+	 * {@code percentile}% of the values are less than or equal to.
+	 * 
+	 * @param sorted
+	 *            Ascending, not empty
+	 */
+	protected static long percentile(final long[] sorted, final int percentile) {
+		final int rank = (int) Math.ceil(percentile / 100.0d * sorted.length);
+		return sorted[Math.max(rank, 1) - 1];
+	}
+}
@@ -26,6 +26,7 @@ import org.hibernate.SessionFactory;
 import org.jasig.portal.api.permissions.Assignment;
 import org.jasig.portal.api.permissions.PermissionsService;
 import org.jasig.ssp.model.Person;
+import org.jasig.ssp.model.ScheduledTaskStatus;
 import org.jasig.ssp.security.SspUser;
 import org.jasig.ssp.security.uportal.UPortalSecurityFilter;
 import org.jasig.ssp.service.EarlyAlertService;
@@ -35,6 +36,8 @@ import org.jasig.ssp.service.PruneMessageQueueTask;
 import org.jasig.ssp.service.RefreshDirectoryPersonBlueTask;
 import org.jasig.ssp.service.RefreshDirectoryPersonTask;
 import org.jasig.ssp.service.ScheduledApplicationTaskStatusService;
+import org.jasig.ssp.service.ScheduledTaskRunService;
+import org.jasig.ssp.service.ScheduledTaskLeaseService;
 import org.jasig.ssp.service.ScheduledTaskWrapperService;
 import org.jasig.ssp.service.SecurityService;
 import org.jasig.ssp.service.SendQueuedMessagesTask;
@@ -43,6 +46,7 @@ import org.jasig.ssp.service.external.BatchedTask;
 import org.jasig.ssp.service.external.ExternalPersonSyncTask;
 import org.jasig.ssp.service.external.MapStatusReportCalcTask;
 import org.jasig.ssp.service.jobqueue.JobService;
+import org.jasig.ssp.service.reference.ConfigChangedEvent;
 import org.jasig.ssp.service.reference.ConfigService;
 import org.jasig.ssp.service.security.oauth.OAuth1NonceServiceMaintenance;
 import org.jasig.ssp.util.CallableExecutor;
@@ -53,15 +57,20 @@ import org.slf4j.LoggerFactory;
 import org.slf4j.MDC;
 import org.springframework.beans.factory.InitializingBean;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.ApplicationListener;
 import org.springframework.core.NestedRuntimeException;
+import org.springframework.core.task.TaskRejectedException;
 import org.springframework.orm.hibernate4.SessionFactoryUtils;
 import org.springframework.orm.hibernate4.SessionHolder;
 import org.springframework.scheduling.TaskScheduler;
 import org.springframework.scheduling.Trigger;
 import org.springframework.scheduling.TriggerContext;
 import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ConcurrentTaskScheduler;
+import org.springframework.scheduling.support.CronSequenceGenerator;
 import org.springframework.scheduling.support.CronTrigger;
 import org.springframework.scheduling.support.PeriodicTrigger;
 import org.springframework.security.access.intercept.RunAsUserToken;
@@ -77,16 +86,22 @@ import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import javax.annotation.PreDestroy;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Set;
+import java.util.TimeZone;
 import java.util.UUID;
 import java.util.concurrent.Callable;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.regex.Matcher;
@@ -94,7 +109,8 @@ import java.util.regex.Pattern;
 
 @Service
 public class ScheduledTaskWrapperServiceImpl
-		implements ScheduledTaskWrapperService, InitializingBean {
+		implements ScheduledTaskWrapperService, InitializingBean,
+		ApplicationListener<ConfigChangedEvent> {
 
 	private static final Logger LOGGER = LoggerFactory
 			.getLogger(ScheduledTaskWrapperServiceImpl.class);
@@ -110,14 +126,17 @@ public class ScheduledTaskWrapperServiceImpl
 	public static final String SEND_TASK_REMINDERS_TASK_NAME = "send-task-reminders";
 	public static final String SEND_EARLY_ALERT_REMINDERS_TASK_NAME = "send-early-alert-reminders";
     public static final String OAUTH1_CULL_NONCE_TABLE_TASK_NAME = "cull-oauth1-nonces";
+	public static final String TASK_RUN_HISTORY_PRUNING_TASK_NAME = "prune-task-run-history";
 
 	private static final String EVERY_DAY_10_PM = "0 0 22 * * *";
 	private static final String EVERY_DAY_1_AM = "0 0 1 * * *";
 	private static final String EVERY_DAY_3_AM = "0 0 3 * * *";
 	private static final String EVERY_DAY_4_AM = "0 0 4 * * *";
 	private static final String EVERY_15_SECONDS_WITH_30_SECOND_DELAY = "15000/30000";
-	private static final String FIFTEEN_MINUTES_IN_MILLIS = 15 * 60 * 1000 + "";
+	private static final String ONE_HOUR_IN_MILLIS = 60 * 60 * 1000 + "";
 	private static final String NEVER = "0 0 0 31 12 *";
+	private static final long SEND_MESSAGES_PERIOD_MILLIS = 150000;
+	private static final long SYNC_COACHES_PERIOD_MILLIS = 300000;
 
 	// Not a fan of the underscores but matches convention for existing
 	// ConfigService records, and will probably be convenient for our IDs here
@@ -136,7 +155,7 @@ public class ScheduledTaskWrapperServiceImpl
 
 	private static final String SCHEDULER_CONFIG_POLL_TASK_ID = "task_scheduler_config_poll";
 	private static final String SCHEDULER_CONFIG_POLL_TASK_TRIGGER_CONFIG_NAME = "task_scheduler_config_poll_trigger";
-	private static final String SCHEDULER_CONFIG_POLL_TASK_DEFAULT_TRIGGER = FIFTEEN_MINUTES_IN_MILLIS;
+	private static final String SCHEDULER_CONFIG_POLL_TASK_DEFAULT_TRIGGER = ONE_HOUR_IN_MILLIS;
 	
 	private static final String MAP_STATUS_REPORT_CALC_TASK_ID = "task_map_plan_status_calc";
 	private static final String MAP_STATUS_REPORT_CALC_TASK_TRIGGER_CONFIG_NAME = "task_scheduler_map_plan_status_calculation_trigger";
@@ -150,6 +169,10 @@ public class ScheduledTaskWrapperServiceImpl
 	private static final String MESSAGE_QUEUE_PRUNING_TASK_NAME = "task_message_queue_pruning_trigger";
 	private static final String MESSAGE_QUEUE_PRUNING_TASK_DEFAULT_TRIGGER = EVERY_DAY_10_PM;
 	
+	private static final String TASK_RUN_HISTORY_PRUNING_TASK_ID = "task_scheduled_task_run_history_pruning";
+	private static final String TASK_RUN_HISTORY_PRUNING_TASK_TRIGGER_CONFIG_NAME = "task_scheduled_task_run_history_pruning_trigger";
+	private static final String TASK_RUN_HISTORY_PRUNING_TASK_DEFAULT_TRIGGER = EVERY_DAY_10_PM;
+
 	private static final String EARLY_ALERT_TASK_ID = "task_early_alert_scheduled_tasks";
 	private static final String EARLY_ALERT_TASK_TRIGGER_CONFIG_NAME = "task_scheduler_early_alert_trigger";
 	private static final String EARLY_ALERT_TASK_DEFAULT_TRIGGER = EVERY_DAY_4_AM;
@@ -159,6 +182,10 @@ public class ScheduledTaskWrapperServiceImpl
     private static final String OAUTH1_CULL_NONCE_TASK_ID = "task_oauth1_nonce_cull";
     private static final String OAUTH1_CULL_NONCE_TASK_TRIGGER_CONFIG_NAME = "task_scheduler_oauth_nonce_cull_trigger";
     private static final String OAUTH1_CULL_NONCE_TASK_DEFAULT_TRIGGER = EVERY_DAY_4_AM;
+
+	// Polls too frequent to keep a run history row for every idle tick
+	private static final Set<String> QUIET_RUN_TASK_NAMES =
+			Collections.singleton(BULK_JOB_QUEUE_TASK_NAME);
 	
 	// see assumptions about grouping in tryExpressionAsPeriodicTrigger()
 	private static final Pattern PERIODIC_TRIGGER_WITH_INITIAL_DELAY_PATTERN = Pattern.compile("^(\\d+)/(\\d+)$");
@@ -190,6 +217,12 @@ public class ScheduledTaskWrapperServiceImpl
 	@Autowired
 	private transient ScheduledApplicationTaskStatusService taskStatusService;
 
+	@Autowired
+	private transient ScheduledTaskRunService taskRunService;
+
+	@Autowired
+	private transient ScheduledTaskLeaseService leaseService;
+
 	@Autowired
 	private transient SecurityService securityService;
 
@@ -205,6 +238,12 @@ public class ScheduledTaskWrapperServiceImpl
 	@Autowired
 	private transient TaskScheduler taskScheduler;
 
+	@Autowired(required = false)
+	@Qualifier("sspBatchScheduledExecutor")
+	private transient ScheduledExecutorService batchScheduledExecutor;
+
+	private transient TaskScheduler batchTaskScheduler;
+
 	@Autowired
 	private transient ConfigService configService;
 
@@ -225,6 +264,20 @@ public class ScheduledTaskWrapperServiceImpl
 
 	private HashMap<String, Task> tasks;
 
+	private ScheduledExecutorService leaseRenewalExecutor;
+
+	// last batch pool hand off from each @Scheduled method, see handOffToBatch()
+	private final AtomicReference<ScheduledFuture<?>> pendingCoachSync =
+			new AtomicReference<ScheduledFuture<?>>();
+
+	private final AtomicReference<ScheduledFuture<?>> pendingTaskReminders =
+			new AtomicReference<ScheduledFuture<?>>();
+
+	// how long after a dead node's lease runs out before taking over its run
+	private static final long LEASE_TAKEOVER_GRACE_MILLIS = 5000L;
+
+	private static final long MAX_CRON_FIRE_TIME_LOOK_BACK_MILLIS = 24 * 60 * 60 * 1000L;
+
 	@Override
 	public void afterPropertiesSet() {
 		initTasks();
@@ -297,6 +350,15 @@ public class ScheduledTaskWrapperServiceImpl
 				},
 				MESSAGE_QUEUE_PRUNING_TASK_DEFAULT_TRIGGER,
 				MESSAGE_QUEUE_PRUNING_TASK_NAME));			
+		this.tasks.put(TASK_RUN_HISTORY_PRUNING_TASK_ID, new Task(TASK_RUN_HISTORY_PRUNING_TASK_ID,
+				new Runnable() {
+					@Override
+					public void run() {
+						pruneTaskRunHistory();
+					}
+				},
+				TASK_RUN_HISTORY_PRUNING_TASK_DEFAULT_TRIGGER,
+				TASK_RUN_HISTORY_PRUNING_TASK_TRIGGER_CONFIG_NAME));
 		this.tasks.put(SCHEDULER_CONFIG_POLL_TASK_ID, new Task(SCHEDULER_CONFIG_POLL_TASK_ID,
 				new Runnable() {
 					@Override
@@ -330,6 +392,17 @@ public class ScheduledTaskWrapperServiceImpl
 		// likely to be refused when using java.util.concurrent schedulers
 		// under the covers.
 		this.tasks.get(SCHEDULER_CONFIG_POLL_TASK_ID).mayInterrupt = false;
+		// Every node needs to poll for its own schedule changes
+		this.tasks.get(SCHEDULER_CONFIG_POLL_TASK_ID).leased = false;
+		// Jobs are claimed per node with skip-locked reads, so nodes can
+		// dispatch in parallel. A lease would only add three transactions to
+		// every tick and serialize them.
+		this.tasks.get(BULK_JOB_QUEUE_TASK_ID).leased = false;
+
+		// Short, frequent tasks whose delays users notice. Everything else
+		// is long batch work and goes to the batch pool.
+		this.tasks.get(SCHEDULER_CONFIG_POLL_TASK_ID).batch = false;
+		this.tasks.get(BULK_JOB_QUEUE_TASK_ID).batch = false;
 	}
 
 	public synchronized void updateTasks() {
@@ -352,6 +425,59 @@ public class ScheduledTaskWrapperServiceImpl
 		}
 	}
 
+	/**
+	 * Applies a saved trigger config change right away instead of waiting for
+	 * the config poll, which now only exists to pick up changes made on other
+	 * nodes or directly in the database. The reschedule itself is handed off
+	 * to the scheduler so the request that saved the config doesn't wait on
+	 * {@link #updateTasks()} holding this object's lock.
+	 */
+	@Override
+	public void onApplicationEvent(final ConfigChangedEvent event) {
+		final Task task = findTaskByTriggerConfigName(event.getConfigName());
+		if ( task == null ) {
+			return;
+		}
+		LOGGER.info("Trigger config [{}] for task [{}] changed, rescheduling",
+				event.getConfigName(), task.id);
+		try {
+			taskScheduler.schedule(new Runnable() {
+				@Override
+				public void run() {
+					updateTask(task.id);
+				}
+			}, new Date());
+		} catch ( TaskRejectedException e ) {
+			LOGGER.warn("Unable to reschedule task [{}] after its trigger"
+					+ " config changed. Change will be picked up by the next"
+					+ " config poll.", task.id, e);
+		}
+	}
+
+	protected synchronized Task findTaskByTriggerConfigName(String configName) {
+		if ( configName == null || tasks == null ) {
+			return null;
+		}
+		for ( Task task : tasks.values() ) {
+			if ( configName.equals(task.triggerExpressionConfigName) ) {
+				return task;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * {@link #updateTasks()} for just one task.
+	 */
+	protected synchronized void updateTask(String taskId) {
+		final Task task = tasks.get(taskId);
+		if ( task == null ) {
+			return;
+		}
+		mergeLatestTriggerConfig(task);
+		maybeReschedule(task);
+	}
+
 	/**
 	 * Really just a pass through to {@link #updateTasks()} but allows for
 	 * extra hooks (esp logging) before that background job does its work
@@ -478,11 +604,31 @@ public class ScheduledTaskWrapperServiceImpl
 		}
 		LOGGER.info("Scheduling task [{}] with trigger expression [{}]",
 				task.id, triggerAndExpression.getFirst());
-		task.execution = taskScheduler.schedule(task.runnable, triggerAndExpression.getSecond());
+		final Trigger trigger = triggerAndExpression.getSecond();
+		final Runnable runnable = task.leased ? withLease(task, triggerAndExpression) : task.runnable;
+		task.execution = (task.batch ? getBatchTaskScheduler() : taskScheduler).schedule(runnable, trigger);
 		task.executingTriggerExpression = triggerAndExpression.getFirst();
 		task.executingTrigger = triggerAndExpression.getSecond();
 	}
 
+	private Runnable withLease(Task task, Pair<String,Trigger> triggerAndExpression) {
+		final Trigger trigger = triggerAndExpression.getSecond();
+		if ( trigger instanceof CronTrigger ) {
+			return withLease(task.id, task.runnable, triggerAndExpression.getFirst());
+		}
+		if ( trigger instanceof PeriodicTrigger ) {
+			// PeriodicTrigger doesn't expose its period, so get it back out
+			// of the expression it was parsed from
+			final String expression = triggerAndExpression.getFirst();
+			final Matcher matcher = PERIODIC_TRIGGER_WITH_INITIAL_DELAY_PATTERN.matcher(expression);
+			final long period = Long.parseLong(matcher.matches() ? matcher.group(1) : expression);
+			if ( period > 0 ) {
+				return withPeriodicLease(task.id, task.runnable, period);
+			}
+		}
+		return withLease(task.id, task.runnable, null);
+	}
+
 	protected Pair<String,Trigger> configuredOrDefaultTrigger(Task task) {
 		if ( task.configuredTrigger == null || task.configuredTrigger instanceof BadConfigTrigger ) {
 			return new Pair<String,Trigger>(task.defaultTriggerExpression, task.defaultTrigger);
@@ -760,6 +906,198 @@ public class ScheduledTaskWrapperServiceImpl
 		return withSudo(work, null);
 	}
 
+	/**
+	 * Wraps the given {@code Runnable} such that it only runs on whichever
+	 * clustered app node gets the {@link ScheduledTaskLeaseService lease} on
+	 * the task. Every other node skips the execution.
+	 *
+	 * <p>For cron-scheduled tasks each firing is a distinct run: all nodes
+	 * fire at the same time, and once any node has completed that run it is
+	 * not repeated elsewhere, even by a node whose clock is a little behind.
+	 * If the node running it dies, its lease stops being renewed and another
+	 * node takes the run over once the lease expires. See
+	 * {@link #withPeriodicLease(String, Runnable, long)} for periodic
+	 * tasks.</p>
+	 *
+	 * @param cronExpression the task's cron expression, {@code null} if runs
+	 *                       aren't told apart, e.g. for run-once tasks. Those
+	 *                       only never overlap.
+	 */
+	protected Runnable withLease(final String taskName, final Runnable work, final String cronExpression) {
+		return new Runnable() {
+			@Override
+			public void run() {
+				runLeased(taskName, work, cronExpression == null ? null : cronFireTime(cronExpression));
+			}
+		};
+	}
+
+	/**
+	 * Like {@link #withLease(String, Runnable, String)}, for a task that runs
+	 * every {@code periodMillis}. Nodes' periodic firings aren't lined up,
+	 * so time is cut into period-long slots instead, and each slot counts as
+	 * one run of the task. Whichever node fires first in a slot runs it, the
+	 * others skip it. A run cut short can still be picked up by a node firing
+	 * later in the same slot, but isn't actively taken over, the next slot's
+	 * run comes soon enough.
+	 */
+	protected Runnable withPeriodicLease(final String taskName, final Runnable work, final long periodMillis) {
+		return new Runnable() {
+			@Override
+			public void run() {
+				runLeased(taskName, work, periodSlot(periodMillis), false);
+			}
+		};
+	}
+
+	/**
+	 * Start of the period-long slot the current time falls in.
+	 */
+	protected Date periodSlot(long periodMillis) {
+		final long now = System.currentTimeMillis();
+		return new Date(now - (now % periodMillis));
+	}
+
+	protected void runLeased(final String taskName, final Runnable work, final Date scheduledFor) {
+		runLeased(taskName, work, scheduledFor, true);
+	}
+
+	/**
+	 * @param takeOver whether to check back on a run another node holds, in
+	 *                 case that node dies before finishing it
+	 */
+	protected void runLeased(final String taskName, final Runnable work, final Date scheduledFor,
+							 final boolean takeOver) {
+		try {
+			if ( !(leaseService.tryAcquire(taskName, scheduledFor)) ) {
+				LOGGER.info("Skipping task [{}] scheduled for [{}] because another node holds its lease",
+						taskName, scheduledFor);
+				if ( takeOver ) {
+					maybeScheduleTakeover(taskName, work, scheduledFor);
+				}
+				return;
+			}
+		} catch ( RuntimeException e ) {
+			LOGGER.error("Skipping task [{}] because its lease could not be acquired", taskName, e);
+			return;
+		}
+
+		final Thread worker = Thread.currentThread();
+		final long renewalPeriod = Math.max(1000L, leaseService.getLeaseDurationMillis() / 3);
+		final ScheduledFuture<?> renewal = getLeaseRenewalExecutor().scheduleAtFixedRate(new Runnable() {
+			private boolean lost;
+			@Override
+			public void run() {
+				if ( lost ) {
+					return;
+				}
+				try {
+					if ( !(leaseService.renew(taskName)) ) {
+						lost = true;
+						LOGGER.error("Lost lease on task [{}], interrupting it", taskName);
+						worker.interrupt();
+					}
+				} catch ( RuntimeException e ) {
+					LOGGER.warn("Failed to renew lease on task [{}], will retry", taskName, e);
+				}
+			}
+		}, renewalPeriod, renewalPeriod, TimeUnit.MILLISECONDS);
+
+		try {
+			work.run();
+		} finally {
+			renewal.cancel(false);
+			// an interrupted run (shutdown, cancellation, lost lease) was cut
+			// short, so leave it for another node to pick up. A run that
+			// failed outright counts as done, no point failing on every node.
+			final boolean completed = !(Thread.currentThread().isInterrupted());
+			try {
+				leaseService.release(taskName, completed);
+			} catch ( RuntimeException e ) {
+				LOGGER.error("Failed to release lease on task [{}]. It will expire on its own.", taskName, e);
+			}
+		}
+	}
+
+	/**
+	 * If another node is in the middle of the given cron run, check back when
+	 * its lease would run out, so the run isn't lost if that node dies.
+	 */
+	protected void maybeScheduleTakeover(final String taskName, final Runnable work, final Date scheduledFor) {
+		final Date takeoverTime = leaseService.takeoverTime(taskName, scheduledFor);
+		if ( takeoverTime == null ) {
+			return;
+		}
+		// only cron-scheduled runs are taken over, and those are all batch work
+		getBatchTaskScheduler().schedule(new Runnable() {
+			@Override
+			public void run() {
+				runLeased(taskName, work, scheduledFor);
+			}
+		}, new Date(takeoverTime.getTime() + LEASE_TAKEOVER_GRACE_MILLIS));
+	}
+
+	/**
+	 * The cron fire time the current execution belongs to, i.e. the latest
+	 * one at or before now. Looks back a lease duration at first, further if
+	 * need be since a batch task may have waited a while for a thread.
+	 * {@code null} if there was no fire time in the last day.
+	 */
+	protected Date cronFireTime(String cronExpression) {
+		final CronSequenceGenerator cron = new CronSequenceGenerator(cronExpression, TimeZone.getDefault());
+		final Date now = new Date();
+		for ( long lookBack = Math.max(1000L, leaseService.getLeaseDurationMillis());
+			  lookBack <= MAX_CRON_FIRE_TIME_LOOK_BACK_MILLIS; lookBack *= 2 ) {
+			Date fireTime = cron.next(new Date(now.getTime() - lookBack));
+			if ( fireTime.after(now) ) {
+				continue;
+			}
+			for ( Date following = cron.next(fireTime); !(following.after(now)); following = cron.next(following) ) {
+				fireTime = following;
+			}
+			return fireTime;
+		}
+		return null;
+	}
+
+	/**
+	 * Scheduler for long batch tasks, kept apart from the main
+	 * {@link TaskScheduler} so they can't hold up short, frequent ones. Falls
+	 * back to the main scheduler if no batch pool is configured, e.g. in
+	 * test contexts.
+	 */
+	protected synchronized TaskScheduler getBatchTaskScheduler() {
+		if ( batchTaskScheduler == null ) {
+			batchTaskScheduler = batchScheduledExecutor == null
+					? taskScheduler
+					: new ConcurrentTaskScheduler(batchScheduledExecutor);
+		}
+		return batchTaskScheduler;
+	}
+
+	private synchronized ScheduledExecutorService getLeaseRenewalExecutor() {
+		if ( leaseRenewalExecutor == null ) {
+			// not the shared TaskScheduler, renewals mustn't queue up behind
+			// the very tasks that hold the leases
+			leaseRenewalExecutor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+				@Override
+				public Thread newThread(Runnable r) {
+					final Thread thread = new Thread(r, "scheduled-task-lease-renewal");
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+		}
+		return leaseRenewalExecutor;
+	}
+
+	@PreDestroy
+	public synchronized void shutdownLeaseRenewal() {
+		if ( leaseRenewalExecutor != null ) {
+			leaseRenewalExecutor.shutdownNow();
+		}
+	}
+
 	/**
 	 * Wraps the given {@code Runnable} with the  sort of cleanup you'd normally
 	 * depend on after a HTTP request. In particular, this is necessary to
@@ -832,13 +1170,25 @@ public class ScheduledTaskWrapperServiceImpl
 				if ( isStatusedTask ) {
 					taskStatusService.beginTask(taskName);
 				}
+				if ( QUIET_RUN_TASK_NAMES.contains(taskName) ) {
+					taskRunService.beginQuietRun(taskName);
+				} else {
+					taskRunService.beginRun(taskName);
+				}
+				boolean finished = false;
 				try {
 					final String newThreadName = currentThreadName == null ? taskName : currentThreadName + ":" + taskName;
 					Thread.currentThread().setName(newThreadName);
 					final String newMdcEntry = currentMdcEntry == null ? taskName : currentMdcEntry + ":" + taskName;
 					MDC.put(TASK_NAME_MDC_KEY, newMdcEntry);
 					work.run();
+					finished = true;
 				}finally {
+					// record while the thread still carries the task name so
+					// any logging from the insert is attributed to the task
+					taskRunService.endRun(!(finished) ? ScheduledTaskStatus.FAILED
+							: Thread.currentThread().isInterrupted() ? ScheduledTaskStatus.INTERRUPTED
+							: ScheduledTaskStatus.COMPLETED);
 					if ( currentMdcEntry == null ) {
 						MDC.remove(TASK_NAME_MDC_KEY);
 					} else {
@@ -944,16 +1294,52 @@ public class ScheduledTaskWrapperServiceImpl
 	}
 
 	@Override
-	@Scheduled(fixedDelay = 150000)
+	@Scheduled(fixedDelay = SEND_MESSAGES_PERIOD_MILLIS)
 	// run 2.5 minutes after the end of the last invocation
 	public void sendMessages() {
-		execBatchedTaskWithName(SEND_MESSAGES_TASK_NAME, sendQueuedMessagesTask);
+		withPeriodicLease(SEND_MESSAGES_TASK_NAME, new Runnable() {
+			@Override
+			public void run() {
+				execBatchedTaskWithName(SEND_MESSAGES_TASK_NAME, sendQueuedMessagesTask);
+			}
+		}, SEND_MESSAGES_PERIOD_MILLIS).run();
 	}
 
 	@Override
-	@Scheduled(fixedDelay = 300000)
+	@Scheduled(fixedDelay = SYNC_COACHES_PERIOD_MILLIS)
 	// run every 5 minutes
 	public void syncCoaches() {
+		// @Scheduled fires on the main scheduler, so hand off to the batch
+		// pool. The lease keeps other nodes from syncing in the same period.
+		handOffToBatch(SYNC_COACHES_TASK_NAME, pendingCoachSync,
+				withPeriodicLease(SYNC_COACHES_TASK_NAME, new Runnable() {
+			@Override
+			public void run() {
+				syncCoachesWithTaskContext();
+			}
+		}, SYNC_COACHES_PERIOD_MILLIS));
+	}
+
+	/**
+	 * Queues the given work on the batch pool unless the previous hand off
+	 * from the same {@code @Scheduled} method hasn't finished yet. While the
+	 * pool is busy with long nightly tasks, firings would otherwise pile up
+	 * and then run back to back, which is what {@code fixedDelay} used to
+	 * prevent.
+	 */
+	private void handOffToBatch(final String taskName,
+			final AtomicReference<ScheduledFuture<?>> pending, final Runnable work) {
+		synchronized ( pending ) {
+			final ScheduledFuture<?> previous = pending.get();
+			if ( previous != null && !(previous.isDone()) ) {
+				LOGGER.info("Skipping {} run, the previous one is still queued or running", taskName);
+				return;
+			}
+			pending.set(getBatchTaskScheduler().schedule(work, new Date()));
+		}
+	}
+
+	private void syncCoachesWithTaskContext() {
 		execWithTaskContext(SYNC_COACHES_TASK_NAME, new Runnable() {
 			@Override
 			public void run() {
@@ -963,6 +1349,7 @@ public class ScheduledTaskWrapperServiceImpl
 				}
 				LOGGER.info("Scheduled coach sync starting.");
 				PagingWrapper<Person> localCoaches = personService.syncCoaches();
+				taskRunService.itemsProcessed(localCoaches.getResults());
 				LOGGER.info("Scheduled coach sync complete. Local coach count [{}]",
 						localCoaches.getResults());
 			}
@@ -970,13 +1357,27 @@ public class ScheduledTaskWrapperServiceImpl
 	}
 	
 	@Override
-	@Scheduled(cron = "0 0 1 * * *")
+	@Scheduled(cron = EVERY_DAY_1_AM)
 	// run at 1 am every day
 	public void sendTaskReminders() {
-		execWithTaskContext(SEND_TASK_REMINDERS_TASK_NAME, new Runnable() {
+		// see syncCoaches(). Works out which run this is before the hand
+		// off, no telling how long it waits for a batch thread.
+		final Date scheduledFor = cronFireTime(EVERY_DAY_1_AM);
+		final Runnable work = new Runnable() {
+			@Override
+			public void run() {
+				execWithTaskContext(SEND_TASK_REMINDERS_TASK_NAME, new Runnable() {
+					@Override
+					public void run() {
+						taskService.sendAllTaskReminderNotifications();
+					}
+				});
+			}
+		};
+		handOffToBatch(SEND_TASK_REMINDERS_TASK_NAME, pendingTaskReminders, new Runnable() {
 			@Override
 			public void run() {
-				taskService.sendAllTaskReminderNotifications();
+				runLeased(SEND_TASK_REMINDERS_TASK_NAME, work, scheduledFor);
 			}
 		});
 	}
@@ -1023,6 +1424,16 @@ public class ScheduledTaskWrapperServiceImpl
 	public void pruneMessageQueue() {
 		execBatchedTaskWithName(MESSAGE_QUEUE_PRUNING_TASK_NAME,pruneMessageQueueTask );
 	}
+	@Override
+	public void pruneTaskRunHistory() {
+		execWithTaskContext(TASK_RUN_HISTORY_PRUNING_TASK_NAME, new Runnable() {
+			@Override
+			public void run() {
+				taskRunService.pruneHistory();
+			}
+		});
+	}
+
 	@Override
 	public void sendEarlyAlertReminders() {
 		execWithTaskContext(SEND_EARLY_ALERT_REMINDERS_TASK_NAME, new Runnable() {
@@ -1063,6 +1474,10 @@ public class ScheduledTaskWrapperServiceImpl
 
 		public boolean mayInterrupt = true;
 
+		public boolean leased = true;
+
+		public boolean batch = true;
+
 
 		public Task(String id, Runnable task, String defaultTriggerExpression,
 					String triggerExpressionConfigName) {
@@ -20,6 +20,7 @@ package org.jasig.ssp.service.impl;
 
 import org.hibernate.SessionFactory;
 import org.jasig.ssp.model.Person;
+import org.jasig.ssp.security.PersonSnapshotInvalidator;
 import org.jasig.ssp.security.SspUser;
 import org.jasig.ssp.security.SspUserDetailsService;
 import org.jasig.ssp.service.ObjectNotFoundException;
@@ -70,6 +71,9 @@ public class SecurityServiceImpl implements SecurityService {
 	@Autowired
 	private transient ConfidentialityLevelService confidentialityLevelService;
 
+	@Autowired
+	private transient PersonSnapshotInvalidator personSnapshotInvalidator;
+
 	@Override
 	public SspUser anonymousUser() {
 
@@ -218,6 +222,14 @@ public class SecurityServiceImpl implements SecurityService {
 			return null;
 		}
 
+		if (sspUser.getPerson() == null
+				&& personSnapshotInvalidator.isValid(sspUser.getPersonId(),
+						sspUser.getPersonSnapshotTakenAt())) {
+			// a proxy, so the person row is only read if something needs
+			// more than its id
+			sspUser.restorePerson(personService.load(sspUser.getPersonId()));
+		}
+
 		if (sspUser.getPerson() == null) {
 			try {
 				sspUser.setPerson(personService.personFromUsername(sspUser
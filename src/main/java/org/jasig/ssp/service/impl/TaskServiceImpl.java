@@ -35,6 +35,7 @@ import org.jasig.ssp.dao.TaskDao;
 import org.jasig.ssp.factory.TaskTOFactory;
 import org.jasig.ssp.model.Goal;
 import org.jasig.ssp.model.Message;
+import org.jasig.ssp.model.MessageDigestCategory;
 import org.jasig.ssp.model.ObjectStatus;
 import org.jasig.ssp.model.Person;
 import org.jasig.ssp.model.Strength;
@@ -459,7 +460,7 @@ public class TaskServiceImpl
 		}
 
 		Message message = messageService.createMessage(task.getPerson(), null,
-				subjAndBody);
+				subjAndBody, MessageDigestCategory.TASK_REMINDER);
 		
 		taskMessageSentService.save(new TaskMessageEnqueue(task, message, daysBefore));
 
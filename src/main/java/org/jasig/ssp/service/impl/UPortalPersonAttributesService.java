@@ -46,6 +46,7 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -96,6 +97,8 @@ public class UPortalPersonAttributesService
 
 	private ServletContext servletContext;
 
+	private CrossContextRestApiInvoker restApiInvoker = new PatchedSimpleCrossContextRestApiInvoker();
+
 	@SuppressWarnings("unchecked")
 	protected Map<String, String> getCoachesQuery() {
 		return configService
@@ -113,7 +116,6 @@ public class UPortalPersonAttributesService
 		final Map<String, String[]> params = new HashMap<String, String[]>();
 		params.put(PARAM_USERNAME, new String[] { username });
 
-		final CrossContextRestApiInvoker rest = new PatchedSimpleCrossContextRestApiInvoker();
 		final HttpServletRequest req = requestForCrossContextGet();
 		final HttpServletResponse res = responseForCrossContextGet();
 		final Object origWebAsyncManager = req.getAttribute(WebAsyncUtils.WEB_ASYNC_MANAGER_ATTRIBUTE);
@@ -121,7 +123,7 @@ public class UPortalPersonAttributesService
 
 		RestResponse rr;
 		try {
-			rr = rest.invoke(req, res, REST_URI_PERSON, params);
+			rr = restApiInvoker.invoke(req, res, REST_URI_PERSON, params);
 		} finally {
 			req.setAttribute(WebAsyncUtils.WEB_ASYNC_MANAGER_ATTRIBUTE, origWebAsyncManager);
 		}
@@ -167,6 +169,25 @@ public class UPortalPersonAttributesService
 		return convertAttributesSingleValued(userInfo);
 	}
 
+	/**
+	 * The portal's people API has no multi-person lookup, so this is one
+	 * request per username.
+	 */
+	@Override
+	public Map<String, PersonAttributesResult> getAttributesForUsernames(
+			final Collection<String> usernames) {
+		final Map<String, PersonAttributesResult> rslt =
+				new LinkedHashMap<String, PersonAttributesResult>();
+		for (final String username : usernames) {
+			try {
+				rslt.put(username, getAttributes(username));
+			} catch (final ObjectNotFoundException e) {
+				LOGGER.debug("No attributes for user '{}'", username);
+			}
+		}
+		return rslt;
+	}
+
 	@SuppressWarnings("unchecked")
 	@Override
 	public List<Map<String, Object>> searchForUsers(final Map<String, String> query) {
@@ -193,7 +214,6 @@ public class UPortalPersonAttributesService
 		// Add serchTerms[] to the params
 		params.put(PARAM_SEARCH_TERMS, searchTerms.toArray(new String[0]));
 
-		final CrossContextRestApiInvoker rest = new PatchedSimpleCrossContextRestApiInvoker();
 		final HttpServletRequest req = requestForCrossContextGet();
 		final HttpServletResponse res = responseForCrossContextGet();
 		final Object origWebAsyncManager = req.getAttribute(WebAsyncUtils.WEB_ASYNC_MANAGER_ATTRIBUTE);
@@ -201,7 +221,7 @@ public class UPortalPersonAttributesService
 
 		RestResponse rr;
 		try {
-			rr = rest.invoke(req, res, url, params);
+			rr = restApiInvoker.invoke(req, res, url, params);
 		} finally {
 			req.setAttribute(WebAsyncUtils.WEB_ASYNC_MANAGER_ATTRIBUTE, origWebAsyncManager);
 		}
@@ -330,4 +350,13 @@ public class UPortalPersonAttributesService
 		this.servletContext = servletContext;
 	}
 
+	public void setRestApiInvoker(CrossContextRestApiInvoker restApiInvoker) {
+		this.restApiInvoker = restApiInvoker;
+	}
+
+	public void setRequestAndResponseAccessFilter(
+			RequestAndResponseAccessFilter requestAndResponseAccessFilter) {
+		this.requestAndResponseAccessFilter = requestAndResponseAccessFilter;
+	}
+
 }
\ No newline at end of file
@@ -86,6 +86,7 @@ public class WatchStudentServiceImpl
 	private static final String BULK_WATCH_CHANGE_BATCH_SIZE_CONFIG_NAME = "watch_bulk_change_batch_size";
 	private static final String BULK_WATCH_CHANGE_MAX_DLQ_SIZE_CONFIG_NAME = "watch_bulk_change_max_dlq_size";
 	private static final String BULK_WATCH_CHANGE_FAIL_ON_DLQ_OVERFLOW_CONFIG_NAME = "watch_bulk_change_fail_on_dlq_overflow";
+	private static final String BULK_WATCH_CHANGE_PARTITION_COUNT_CONFIG_NAME = "watch_bulk_change_partition_count";
 	// could be created or deleted watch IDs
 	private static final String WATCH_ID_FIELD_NAME = "watchId";
 
@@ -328,6 +329,23 @@ public class WatchStudentServiceImpl
 			protected String getFailOnSlqOverflowConfigName() {
 				return BULK_WATCH_CHANGE_FAIL_ON_DLQ_OVERFLOW_CONFIG_NAME;
 			}
+
+			@Override
+			protected String getPartitionCountConfigName() {
+				return BULK_WATCH_CHANGE_PARTITION_COUNT_CONFIG_NAME;
+			}
+
+			@Override
+			protected void clearAggregate(BulkWatchChangeJobExecutionState executionState) {
+				super.clearAggregate(executionState);
+				executionState.personsSkippedCount = 0;
+			}
+
+			@Override
+			protected void accumulatePartitionState(BulkWatchChangeJobExecutionState aggregate, BulkWatchChangeJobExecutionState partitionState) {
+				super.accumulatePartitionState(aggregate, partitionState);
+				aggregate.personsSkippedCount += partitionState.personsSkippedCount;
+			}
 		};
 		this.jobService.registerJobExecutor(this.bulkJobExecutor);
 	}
@@ -51,6 +51,7 @@ public abstract class AbstractJobExecutor<P,T> implements JobExecutor<P> {
 	private static final String INVALID_JOB_EXEC_CONFIG_MSG = "Invalid job execution configuration.  ID: {0}";
 	private static final String MISSING_TRANSACTION_TEMPLATE_MSG = "Missing TransactionTemplate";
 	private static final String NO_SUCH_JOB_CONFIG_MSG = "Job not found. ID: {0}";
+	private static final String NO_SUCH_PARTITION_MSG = "Job partition not found. Partition: {0} ID: {1}";
 	private static final String UNEXPECTED_EXECUTION_EXCEPTION_STATUS_MSG = "Job execution exited abnormally with an unexpected status: {0}. ID: {1}";
 	private static final String UNHANDLED_EXECUTION_EXCEPTION_STATUS_MSG = "Job execution exited with a system failure. ID: {0}";
 	private static final String JOB_DESERIALIZATION_ERROR_MSG = "Job {0} could not be deserialized. ID: {1}";
@@ -97,7 +98,7 @@ public abstract class AbstractJobExecutor<P,T> implements JobExecutor<P> {
 	}
 
 	/**
-	 * Finds and executes the given {@link Job} transactionally in {@link #executeInTransaction(java.util.UUID)}.
+	 * Finds and executes the given {@link Job} transactionally in {@link #executeInTransaction(java.util.UUID, Integer)}.
 	 * Expects that method to raise exceptions if the transaction should be rolled back. In the case of a
 	 * {@link org.jasig.ssp.service.jobqueue.JobExecutionException}, the {@link JobExecutionResult} is unpacked. If that object's and
 	 * {@link JobExecutionStatus} indicates the job should be retried, {@link executionState} is written in
@@ -112,6 +113,35 @@ public abstract class AbstractJobExecutor<P,T> implements JobExecutor<P> {
 	 */
 	@Override
 	public JobExecutionResult<JobWorkflowStatusDescription> execute(final UUID jobId) {
+		return execute(jobId, null);
+	}
+
+	/**
+	 * Same as {@link #execute(java.util.UUID)} but the deserialized execution state is narrowed to the given
+	 * partition by {@link #selectPartitionState(Object, int, java.util.UUID)} before being handed to
+	 * {@link #executeJobDeserialized(Object, Object, java.util.UUID)}.
+	 *
+	 * @param jobId
+	 * @param partition
+	 * @return
+	 */
+	@Override
+	public JobExecutionResult<JobWorkflowStatusDescription> execute(final UUID jobId, final int partition) {
+		return execute(jobId, Integer.valueOf(partition));
+	}
+
+	/**
+	 * Default implementation for executors which do not split their work, i.e. always a single partition.
+	 *
+	 * @param jobId
+	 * @return
+	 */
+	@Override
+	public int preparePartitions(UUID jobId) {
+		return 1;
+	}
+
+	private JobExecutionResult<JobWorkflowStatusDescription> execute(final UUID jobId, final Integer partition) {
 		final TransactionTemplate txnTemplate = getTransactionTemplate();
 		if ( txnTemplate == null ) {
 			return newWorkflowResultWithErrorMessage(JobExecutionStatus.ERROR, INVALID_JOB_EXEC_CONFIG_MSG, MISSING_TRANSACTION_TEMPLATE_MSG);
@@ -128,7 +158,7 @@ public abstract class AbstractJobExecutor<P,T> implements JobExecutor<P> {
 			txnTemplate.execute(new TransactionCallbackWithoutResult() {
 				@Override
 				protected void doInTransactionWithoutResult(TransactionStatus status) {
-					rsltHolder.set(executeInTransaction(jobId));
+					rsltHolder.set(executeInTransaction(jobId, partition));
 				}
 			});
 			return toNonExceptionalWorkflowResult(rsltHolder.get(), jobId);
@@ -187,7 +217,7 @@ public abstract class AbstractJobExecutor<P,T> implements JobExecutor<P> {
 	}
 
 	/**
-	 * Calls {@link #executeJob(org.jasig.ssp.model.jobqueue.Job)} and
+	 * Calls {@link #executeJob(org.jasig.ssp.model.jobqueue.Job, Integer)} and
 	 * {@link #afterExecuteJob(org.jasig.ssp.model.jobqueue.Job, org.jasig.ssp.service.jobqueue.JobExecutionResult)}
 	 * in a transaction opened by the caller. Ensures exceptions thrown by those methods are converted to
 	 * {@link JobExecutionException}.
@@ -200,10 +230,10 @@ public abstract class AbstractJobExecutor<P,T> implements JobExecutor<P> {
 	 * @return
 	 * @throws JobExecutionException
 	 */
-	protected JobExecutionResult<T> executeInTransaction(UUID jobId) throws JobExecutionException {
+	protected JobExecutionResult<T> executeInTransaction(UUID jobId, Integer partition) throws JobExecutionException {
 		final Job job = findJobOrFail(jobId);
 		try {
-			JobExecutionResult<T> resultWithState = executeJob(job);
+			JobExecutionResult<T> resultWithState = executeJob(job, partition);
 			return afterExecuteJob(job, resultWithState);
 		} catch ( JobExecutionException e ) {
 			throw e;
@@ -222,12 +252,16 @@ public abstract class AbstractJobExecutor<P,T> implements JobExecutor<P> {
 	}
 
 	/**
-	 * Deserializes the job spec and state and passes them to {@link #executeJobDeserialized(Object, Object)}
+	 * Deserializes the job spec and state and passes them to {@link #executeJobDeserialized(Object, Object, java.util.UUID)}.
+	 * If a {@code partition} is specified, the state is first narrowed to that partition's state via
+	 * {@link #selectPartitionState(Object, int, java.util.UUID)}.
+	 *
 	 * @param job
+	 * @param partition the partition to execute, {@code null} to execute the {@link Job} as a whole
 	 * @return
 	 * @throws JobExecutionException
 	 */
-	protected JobExecutionResult<T> executeJob(Job job) throws JobExecutionException {
+	protected JobExecutionResult<T> executeJob(Job job, Integer partition) throws JobExecutionException {
 		final String executionSpecStr = job.getExecutionSpec();
 		final String executionStateStr = job.getExecutionState();
 		final P executionSpec;
@@ -236,15 +270,49 @@ public abstract class AbstractJobExecutor<P,T> implements JobExecutor<P> {
 		} catch ( RuntimeIoException e ) {
 			throw new JobExecutionBookkeepingException(MessageFormat.format(JOB_DESERIALIZATION_ERROR_MSG, "spec", job.getId()), e);
 		}
-		final T executionState;
+		T executionState;
 		try {
 			executionState = executionStateStr == null ? null : deserializeJobState(executionStateStr);
 		} catch ( RuntimeIoException e ) {
 			throw new JobExecutionBookkeepingException(MessageFormat.format(JOB_DESERIALIZATION_ERROR_MSG, "state", job.getId()), e);
 		}
+		if ( partition != null ) {
+			executionState = selectPartitionState(executionState, partition, job.getId());
+		}
 		return executeJobDeserialized(executionSpec, executionState, job.getId());
 	}
 
+	/**
+	 * Narrows the given {@link Job}-level execution state to the state for a single partition. The default
+	 * implementation only knows about a single partition (0), which is the {@link Job}-level state itself.
+	 *
+	 * @param executionState
+	 * @param partition
+	 * @param jobId
+	 * @return
+	 * @throws JobExecutionException if the partition is not known
+	 */
+	protected T selectPartitionState(T executionState, int partition, UUID jobId) throws JobExecutionException {
+		if ( partition != 0 ) {
+			throw new JobExecutionBookkeepingException(MessageFormat.format(NO_SUCH_PARTITION_MSG, partition, jobId));
+		}
+		return executionState;
+	}
+
+	/**
+	 * Called just before the given state is written to the given {@link Job}, in the same transaction. Gives
+	 * executors which run partitions of the same {@link Job} concurrently a chance to re-read and lock the
+	 * stored state and fold the given (partial) state into it. The default implementation just returns the
+	 * given state.
+	 *
+	 * @param job
+	 * @param executionState
+	 * @return the state to actually write
+	 */
+	protected T mergeJobState(Job job, T executionState) {
+		return executionState;
+	}
+
 	/**
 	 * Responsible for translating non-success/retry statuses to exceptions.
 	 *
@@ -279,7 +347,7 @@ public abstract class AbstractJobExecutor<P,T> implements JobExecutor<P> {
 
 	protected void saveJobState(Job job, JobExecutionResult<T> resultWithState) {
 		try {
-			jobService.updateExecutionState(serializeJobState(resultWithState.getDetail()), job);
+			jobService.updateExecutionState(serializeJobState(mergeJobState(job, resultWithState.getDetail())), job);
 		} catch ( RuntimeIoException e ) {
 			throw new JobExecutionBookkeepingException(MessageFormat.format(JOB_SERIALIZATION_ERROR_MSG, "state", job.getId()), e);
 		} catch ( Exception e ) {
@@ -345,7 +413,7 @@ public abstract class AbstractJobExecutor<P,T> implements JobExecutor<P> {
 	/**
 	 * Translate the result of {@link #execute(java.util.UUID)} into a workflow state representation suitable for
 	 * storing on the current {@code Job} and where the {@link #execute(java.util.UUID)} call returned internally from
-	 * {@link #executeInTransaction(java.util.UUID)} without the latter throwing an {@link Exception}. I.e. the
+	 * {@link #executeInTransaction(java.util.UUID, Integer)} without the latter throwing an {@link Exception}. I.e. the
 	 * actual work of executing the {@code Job} itself indicated that the {@link Job} is either done or requires
 	 * additional work, but is not in some sort of failure/error state. Could use this to externalize progress
 	 * information at the workflow level, for example.
@@ -23,6 +23,9 @@ import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import org.codehaus.jackson.map.ObjectMapper;
 import org.jasig.ssp.factory.PersonSearchRequestTOFactory;
+import org.jasig.ssp.model.jobqueue.Job;
+import org.jasig.ssp.model.jobqueue.JobPersonQueueEntry;
+import org.jasig.ssp.model.jobqueue.JobPersonQueueType;
 import org.jasig.ssp.model.PersonSearchRequest;
 import org.jasig.ssp.model.PersonSearchResult2;
 import org.jasig.ssp.service.ObjectNotFoundException;
@@ -34,12 +37,15 @@ import org.jasig.ssp.util.sort.PagingWrapper;
 import org.jasig.ssp.util.sort.SortingAndPaging;
 import org.jasig.ssp.web.api.validation.ValidationException;
 import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallbackWithoutResult;
 
 import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * Class purpose described in method Javadoc for:
@@ -83,20 +89,57 @@ public abstract class AbstractPersonSearchBasedJobExecutor<P extends HasPersonSe
 			if ( executionState == null ) {
 				// Nested calls to ensure we don't persist a not-fully-confgured execution state
 				executionState = configureNewExecutionState(newJobExecutionState());
+				if ( executionState.partitions != null ) {
+					// store the partition layout before any partition does real work so concurrent
+					// partitions always have a Job-level state to merge into
+					return new JobExecutionResult<T>(JobExecutionStatus.PARTIAL, executionState, null);
+				}
+			}
+
+			if ( executionState.partitions != null ) {
+				// Job-level call against a partitioned job. Normally the partitions have all been driven to
+				// completion concurrently via execute(jobId, partition) and this just confirms it. But if not,
+				// work through the unfinished ones serially, one unit of work per call.
+				final T incompletePartition = firstIncompletePartition(executionState);
+				if ( incompletePartition == null ) {
+					logCompletion(executionState, jobId);
+					return new JobExecutionResult<T>(JobExecutionStatus.DONE, executionState, null);
+				}
+				executionState = incompletePartition;
 			}
 
-			if ( executionState.allPagesProcessed && executionState.retryQueue.isEmpty() ) {
-				logCompletion(executionState, jobId);
+			if ( executionState.retryQueue != null || executionState.dlq != null ) {
+				migrateLegacyQueues(executionState, jobId);
+				return new JobExecutionResult<T>(JobExecutionStatus.PARTIAL, executionState, null);
+			}
+
+			if ( isComplete(executionState) ) {
+				if ( executionState.partition == null ) {
+					logCompletion(executionState, jobId);
+				} else {
+					logProgress("Processing complete for partition [{}] in Job [{}].",
+							new Object[] { executionState.partition, jobId });
+				}
 				return new JobExecutionResult<T>(JobExecutionStatus.DONE, executionState, null);
 			}
 
 			// process retry queue first so it doesn't grow indefinitely and we hit fail threshholds as early
 			// as possible
-			if ( !(executionState.retryQueue.isEmpty()) ) {
-				logProgress("Processing retry queue (size: [{}]) in Job [{}]. ", new Object[] { executionState.retryQueue.size(), jobId });
+			if ( executionState.retryQueueSize > 0 ) {
+				logProgress("Processing retry queue (size: [{}]) in Job [{}]. ", new Object[] { executionState.retryQueueSize, jobId });
 				// retry queue gets processed one element per transaction to try to weed out bad apples that failed
 				// larger batches
-				final ImmutablePersonIdentifiersTO personIds = executionState.retryQueue.remove(0);
+				final JobPersonQueueEntry retry = getJobService().getFirstPersonQueueEntry(jobId,
+						queuePartition(executionState), JobPersonQueueType.RETRY);
+				if ( retry == null ) {
+					getCurrentLogger().warn("Job [{}] retry queue size was [{}] but no retry queue entries were found",
+							jobId, executionState.retryQueueSize);
+					executionState.retryQueueSize = 0;
+					return new JobExecutionResult<T>(JobExecutionStatus.PARTIAL, executionState, null);
+				}
+				executionState.removeFromRetryQueue(retry.getId());
+				final ImmutablePersonIdentifiersTO personIds =
+						new ImmutablePersonIdentifiersTO(retry.getPersonId(), retry.getSchoolId());
 				try {
 					logProgress("Retry for person IDs [{}] in Job [{}].", new Object[] { personIds, jobId });
 					final Map<String, ?> results = executeRetryForSinglePerson(personIds, executionSpec, executionState, jobId);
@@ -106,7 +149,7 @@ public abstract class AbstractPersonSearchBasedJobExecutor<P extends HasPersonSe
 					return new JobExecutionResult<T>(JobExecutionStatus.PARTIAL, executionState, null);
 				} catch ( Exception e ) {
 					recordUnsuccessfulRetry(personIds, e, executionSpec, executionState, jobId);
-					if ( executionState.dlq.size() >= executionState.maxDlqLength ) {
+					if ( executionState.dlqSize >= executionState.maxDlqLength ) {
 						executionState.dlqOverflowed = true;
 						if ( executionState.failOnDlqOverflow ) {
 							final RuntimeException ee = new RuntimeException("Processing error in retry queue for person IDs ["
@@ -122,10 +165,10 @@ public abstract class AbstractPersonSearchBasedJobExecutor<P extends HasPersonSe
 							return new JobExecutionResult<T>(JobExecutionStatus.FAILED_PARTIAL, executionState, e);
 						}
 					} else {
-						executionState.dlq.add(personIds);
+						executionState.addToDlq(personIds);
 						logProgress("Processing error in retry queue. Added person IDs [{}] to DLQ " +
 								"(size: [{}]) in Job [{}].",
-								new Object[]{personIds, executionState.dlq.size(), jobId});
+								new Object[]{personIds, executionState.dlqSize, jobId});
 						return new JobExecutionResult<T>(JobExecutionStatus.FAILED_PARTIAL, executionState, e);
 					}
 				}
@@ -135,13 +178,14 @@ public abstract class AbstractPersonSearchBasedJobExecutor<P extends HasPersonSe
 				final PersonSearchRequest criteria = personSearchRequestFactory.from(executionSpec.getCoreSpec().getCriteria());
 				final SortingAndPaging origSortAndPage = criteria.getSortAndPage();
 				final SortingAndPaging nextSortAndPage;
-				int page = 1;
+				// partitions take every partitionCount-th page, starting at their own offset
+				int page = executionState.partition == null ? 1 : executionState.partition + 1;
 				if ( executionState.prevPage != null ) {
-					page = executionState.prevPage + 1;
+					page = executionState.prevPage + executionState.partitionCount;
 				}
 
-				logProgress("Processing result page [{}] (max page size: [{}]) in Job [{}].",
-						new Object[]{page, executionState.pageSize, jobId});
+				logProgress("Processing result page [{}] (max page size: [{}], partition: [{}]) in Job [{}].",
+						new Object[]{page, executionState.pageSize, executionState.partition, jobId});
 
 				nextSortAndPage = new SortingAndPaging(origSortAndPage.getStatus(), (page - 1) * executionState.pageSize,
 						executionState.pageSize, origSortAndPage.getSortFields(), origSortAndPage.getDefaultSortProperty(),
@@ -184,10 +228,10 @@ public abstract class AbstractPersonSearchBasedJobExecutor<P extends HasPersonSe
 									executeForSinglePerson(targetPersonIdentifier, executionSpec, executionState, jobId));
 						}
 					} catch ( Exception e ) {
-						executionState.retryQueue.addAll(targetPersonIdentifiers);
+						executionState.addToRetryQueue(targetPersonIdentifiers);
 						logProgress("Processing error for person IDs [{}] on page [{}] (max page size: [{}]) in Job [{}]. " +
 								"Added this page to the retry queue (size: [{}])",
-								new Object[] { targetPersonIdentifier, page, executionState.pageSize, jobId, executionState.retryQueue.size() }); // exception itself logged elsewhere
+								new Object[] { targetPersonIdentifier, page, executionState.pageSize, jobId, executionState.retryQueueSize }); // exception itself logged elsewhere
 						return new JobExecutionResult<T>(JobExecutionStatus.FAILED_PARTIAL, executionState, e);
 					} finally {
 						executionState.prevPage = page;
@@ -211,6 +255,58 @@ public abstract class AbstractPersonSearchBasedJobExecutor<P extends HasPersonSe
 		}
 	}
 
+	/**
+	 * Moves queue entries from a state serialized before queues had their own table into that table.
+	 *
+	 * @param executionState
+	 * @param jobId
+	 */
+	@SuppressWarnings("deprecation")
+	private void migrateLegacyQueues(T executionState, UUID jobId) {
+		logProgress("Moving retry queue (size: [{}]) and DLQ (size: [{}]) out of execution state in Job [{}].",
+				new Object[] { executionState.retryQueue == null ? 0 : executionState.retryQueue.size(),
+						executionState.dlq == null ? 0 : executionState.dlq.size(), jobId });
+		if ( executionState.retryQueue != null && !(executionState.retryQueue.isEmpty()) ) {
+			executionState.addToRetryQueue(executionState.retryQueue);
+		}
+		if ( executionState.dlq != null ) {
+			for ( ImmutablePersonIdentifiersTO personIds : executionState.dlq ) {
+				executionState.addToDlq(personIds);
+			}
+		}
+		executionState.retryQueue = null;
+		executionState.dlq = null;
+	}
+
+	/**
+	 * Writes queue changes accumulated in the given state to the queue table. Called from
+	 * {@link #mergeJobState(org.jasig.ssp.model.jobqueue.Job, BasePersonSearchBasedJobExecutionState)}, i.e. in the
+	 * transaction which writes the state itself, so queue contents and queue sizes can't disagree.
+	 *
+	 * @param executionState
+	 * @param jobId
+	 */
+	protected void writePendingQueueChanges(T executionState, UUID jobId) {
+		final int partition = queuePartition(executionState);
+		if ( executionState.pendingRetryQueueRemoval != null ) {
+			getJobService().removePersonQueueEntry(executionState.pendingRetryQueueRemoval);
+		}
+		if ( executionState.pendingRetryQueueAdditions != null && !(executionState.pendingRetryQueueAdditions.isEmpty()) ) {
+			getJobService().addPersonQueueEntries(jobId, partition, JobPersonQueueType.RETRY,
+					executionState.pendingRetryQueueAdditions);
+		}
+		if ( executionState.pendingDlqAdditions != null && !(executionState.pendingDlqAdditions.isEmpty()) ) {
+			getJobService().addPersonQueueEntries(jobId, partition, JobPersonQueueType.DEAD_LETTER,
+					executionState.pendingDlqAdditions);
+		}
+		// so a state that's saved twice doesn't write twice
+		executionState.clearPendingQueueChanges();
+	}
+
+	private int queuePartition(T executionState) {
+		return executionState.partition == null ? 0 : executionState.partition;
+	}
+
 	/**
 	 * Logs 'progress' message at a consistent level (debug by default), and allowing subclasses to override/extend
 	 * messages via {@link #decorateProgressLogMessage(String)}.
@@ -283,15 +379,194 @@ public abstract class AbstractPersonSearchBasedJobExecutor<P extends HasPersonSe
 		executionState.maxDlqLength = configService.getByNameExceptionOrDefaultAsInt(getDlqSizeConfigName());
 		executionState.failOnDlqOverflow =
 				Boolean.parseBoolean(configService.getByNameNullOrDefaultValue(getFailOnSlqOverflowConfigName()));
+		final String partitionCountConfigName = getPartitionCountConfigName();
+		final int partitionCount = partitionCountConfigName == null ? 1
+				: configService.getByNameExceptionOrDefaultAsInt(partitionCountConfigName);
+		if ( partitionCount > 1 ) {
+			executionState.partitionCount = partitionCount;
+			executionState.partitions = Lists.newArrayListWithCapacity(partitionCount);
+			// split the dlq allowance so the job as a whole still can't track more than maxDlqLength failures
+			final int partitionMaxDlqLength = (executionState.maxDlqLength + partitionCount - 1) / partitionCount;
+			for ( int i = 0; i < partitionCount; i++ ) {
+				final T partitionState = newJobExecutionState();
+				partitionState.pageSize = executionState.pageSize;
+				partitionState.maxDlqLength = partitionMaxDlqLength;
+				partitionState.failOnDlqOverflow = executionState.failOnDlqOverflow;
+				partitionState.partitionCount = partitionCount;
+				partitionState.partition = i;
+				executionState.partitions.add(partitionState);
+			}
+		}
 		return executionState;
 	}
 
+	/**
+	 * Initializes and stores the {@code Job}'s execution state if that hasn't happened yet, so the partition
+	 * layout is fixed before any partition executes.
+	 *
+	 * @param jobId
+	 * @return
+	 */
+	@Override
+	public int preparePartitions(final UUID jobId) {
+		final AtomicReference<T> stateHolder = new AtomicReference<T>();
+		getTransactionTemplate().execute(new TransactionCallbackWithoutResult() {
+			@Override
+			protected void doInTransactionWithoutResult(TransactionStatus status) {
+				final Job job = findJobOrFail(jobId);
+				T executionState = job.getExecutionState() == null ? null : deserializeJobState(job.getExecutionState());
+				if ( executionState == null ) {
+					executionState = configureNewExecutionState(newJobExecutionState());
+					saveJobState(job, new JobExecutionResult<T>(JobExecutionStatus.PARTIAL, executionState, null));
+				}
+				stateHolder.set(executionState);
+			}
+		});
+		final T executionState = stateHolder.get();
+		return executionState.partitions == null ? 1 : executionState.partitions.size();
+	}
+
+	@Override
+	protected T selectPartitionState(T executionState, int partition, UUID jobId) throws JobExecutionException {
+		if ( executionState == null ) {
+			throw new JobExecutionBookkeepingException("Partitioned execution requested before execution state was "
+					+ "initialized. Partition: [" + partition + "] Job: [" + jobId + "]");
+		}
+		if ( executionState.partitions == null ) {
+			return super.selectPartitionState(executionState, partition, jobId);
+		}
+		if ( partition < 0 || partition >= executionState.partitions.size() ) {
+			throw new JobExecutionBookkeepingException("Job partition not found. Partition: [" + partition
+					+ "] Job: [" + jobId + "]");
+		}
+		return partitionState(executionState, partition);
+	}
+
+	/**
+	 * Writes any pending retry/dead letter queue changes in the given state. Then, if the given state belongs to a
+	 * partitioned {@code Job}, locks and re-reads the stored {@code Job}-level state,
+	 * swaps in the given partition's state (if it is a partition's state) and recalculates the {@code Job}-level
+	 * aggregates. The lock is only held for the remainder of the current (per-batch) transaction, so concurrent
+	 * partitions only serialize on the state write, not on the work itself.
+	 *
+	 * @param job
+	 * @param executionState
+	 * @return
+	 */
+	@Override
+	protected T mergeJobState(Job job, T executionState) {
+		if ( executionState != null && executionState.hasPendingQueueChanges() ) {
+			writePendingQueueChanges(executionState, job.getId());
+		}
+		if ( executionState == null || (executionState.partition == null && executionState.partitions == null) ) {
+			return executionState;
+		}
+		getJobService().refreshForUpdate(job);
+		final T storedState = job.getExecutionState() == null ? null : deserializeJobState(job.getExecutionState());
+		final T mergedState;
+		if ( storedState == null || storedState.partitions == null ) {
+			if ( executionState.partition != null ) {
+				throw new JobExecutionBookkeepingException("Stored execution state has no partition layout to merge "
+						+ "partition [" + executionState.partition + "] into. Job: [" + job.getId() + "]");
+			}
+			// first write of a brand new partitioned state
+			mergedState = executionState;
+		} else {
+			mergedState = storedState;
+			if ( executionState.partition != null ) {
+				mergedState.partitions.set(executionState.partition, executionState);
+			}
+		}
+		aggregatePartitionStates(mergedState);
+		return mergedState;
+	}
+
+	/**
+	 * Recalculates {@code Job}-level counters, {@code dlqSize} and completion flags from the given state's partitions.
+	 *
+	 * @param executionState
+	 */
+	protected void aggregatePartitionStates(T executionState) {
+		clearAggregate(executionState);
+		for ( int i = 0; i < executionState.partitions.size(); i++ ) {
+			accumulatePartitionState(executionState, partitionState(executionState, i));
+		}
+	}
+
+	/**
+	 * Resets the {@code Job}-level aggregates before they are recalculated from the partitions. Subclasses which
+	 * track additional counters should extend this and
+	 * {@link #accumulatePartitionState(BasePersonSearchBasedJobExecutionState, BasePersonSearchBasedJobExecutionState)}
+	 * together.
+	 *
+	 * @param executionState
+	 */
+	@SuppressWarnings("deprecation")
+	protected void clearAggregate(T executionState) {
+		executionState.personsSucceededCount = 0;
+		executionState.personsFailedCount = 0;
+		executionState.dlqSize = 0;
+		// pre-queue-table aggregate, superseded by dlqSize and the partitions' queue entries
+		executionState.dlq = null;
+		executionState.retryQueue = null;
+		executionState.dlqOverflowed = false;
+		executionState.allPagesProcessed = true;
+	}
+
+	/**
+	 * Folds a single partition's state into the {@code Job}-level aggregate.
+	 *
+	 * @param aggregate
+	 * @param partitionState
+	 */
+	protected void accumulatePartitionState(T aggregate, T partitionState) {
+		aggregate.personsSucceededCount += partitionState.personsSucceededCount;
+		aggregate.personsFailedCount += partitionState.personsFailedCount;
+		aggregate.dlqSize += partitionState.dlqSize;
+		aggregate.dlqOverflowed = aggregate.dlqOverflowed || partitionState.dlqOverflowed;
+		aggregate.allPagesProcessed = aggregate.allPagesProcessed && isComplete(partitionState);
+	}
+
+	@SuppressWarnings("deprecation")
+	protected boolean isComplete(T executionState) {
+		return executionState.allPagesProcessed && executionState.retryQueueSize <= 0
+				&& (executionState.retryQueue == null || executionState.retryQueue.isEmpty());
+	}
+
+	private T firstIncompletePartition(T executionState) {
+		for ( int i = 0; i < executionState.partitions.size(); i++ ) {
+			final T partitionState = partitionState(executionState, i);
+			if ( !(isComplete(partitionState)) ) {
+				return partitionState;
+			}
+		}
+		return null;
+	}
+
+	@SuppressWarnings("unchecked")
+	private T partitionState(T executionState, int partition) {
+		// always created via newJobExecutionState() and deserialized by concrete type, so this cast is safe
+		return (T) executionState.partitions.get(partition);
+	}
+
 	protected abstract String getPageSizeConfigName();
 
 	protected abstract String getDlqSizeConfigName();
 
 	protected abstract String getFailOnSlqOverflowConfigName();
 
+	/**
+	 * Name of the config controlling how many partitions a new {@code Job}'s work is split into. Partitions take
+	 * turns through the search result pages, i.e. partition {@code n} of {@code N} processes pages {@code n+1},
+	 * {@code n+1+N}, {@code n+1+2N}, etc, and can run concurrently. {@code null} (the default) means the work is
+	 * never partitioned.
+	 *
+	 * @return
+	 */
+	protected String getPartitionCountConfigName() {
+		return null;
+	}
+
 	public PersonSearchRequestTOFactory getPersonSearchRequestFactory() {
 		return personSearchRequestFactory;
 	}
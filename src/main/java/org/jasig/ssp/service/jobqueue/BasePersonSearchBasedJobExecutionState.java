@@ -19,24 +19,119 @@
 package org.jasig.ssp.service.jobqueue;
 
 import com.google.common.collect.Lists;
+import org.codehaus.jackson.annotate.JsonIgnore;
+import org.codehaus.jackson.annotate.JsonTypeInfo;
+import org.codehaus.jackson.map.annotate.JsonSerialize;
 import org.jasig.ssp.transferobject.ImmutablePersonIdentifiersTO;
 
 import java.io.Serializable;
 import java.util.List;
+import java.util.UUID;
 
 /**
  * Simple base 'pea' for representing {@code Job} execution state that contains the minimum fields required to
  * support the execution template in {@link AbstractPersonSearchBasedJobExecutor}
+ *
+ * <p>The retry queue and dead letter queue entries themselves live in
+ * {@link org.jasig.ssp.model.jobqueue.JobPersonQueueEntry} records, so this state only carries their sizes and stays
+ * small no matter how many persons fail. Changes to those queues made while executing are accumulated in the
+ * (unserialized) {@code pending*} fields and written by
+ * {@link AbstractPersonSearchBasedJobExecutor#mergeJobState(org.jasig.ssp.model.jobqueue.Job, BasePersonSearchBasedJobExecutionState)}
+ * in the same transaction as the state itself, which might not be the transaction the work was performed in. Once
+ * the {@code Job} stops, its queue entries are deleted and the dead letters are reported in its
+ * {@link JobWorkflowStatusDescription} instead.</p>
+ *
+ * <p>When a job is split into partitions, the {@code Job}-level instance holds one instance of the same type per
+ * partition in {@link #partitions}. Each of those tracks its own paging, retry queue and dead letter queue, and the
+ * {@code Job}-level counters, {@link #dlqSize} and {@link #allPagesProcessed} become an aggregate of the partitions.
+ * See {@link AbstractPersonSearchBasedJobExecutor#accumulatePartitionState(BasePersonSearchBasedJobExecutionState, BasePersonSearchBasedJobExecutionState)}.</p>
  */
 public class BasePersonSearchBasedJobExecutionState implements Serializable {
 	public Integer prevPage;
 	public int pageSize = 25;
 	public boolean allPagesProcessed;
-	public List<ImmutablePersonIdentifiersTO> retryQueue = Lists.newArrayListWithExpectedSize(100);
-	public List<ImmutablePersonIdentifiersTO> dlq = Lists.newArrayListWithExpectedSize(10);
+	public int retryQueueSize;
+	public int dlqSize;
 	public int maxDlqLength = 100;
 	public boolean failOnDlqOverflow;
 	public boolean dlqOverflowed;
 	public int personsFailedCount;
 	public int personsSucceededCount;
+	public int partitionCount = 1;
+	public Integer partition;
+	@JsonTypeInfo(use = JsonTypeInfo.Id.CLASS)
+	public List<BasePersonSearchBasedJobExecutionState> partitions;
+
+	/**
+	 * Retry queue as stored before queues moved to their own table. Only ever read, so in-flight jobs can be
+	 * migrated; drained into the table on the next execution.
+	 */
+	@Deprecated
+	@JsonSerialize(include = JsonSerialize.Inclusion.NON_NULL)
+	public List<ImmutablePersonIdentifiersTO> retryQueue;
+
+	/**
+	 * Dead letter queue as stored before queues moved to their own table. See {@link #retryQueue}.
+	 */
+	@Deprecated
+	@JsonSerialize(include = JsonSerialize.Inclusion.NON_NULL)
+	public List<ImmutablePersonIdentifiersTO> dlq;
+
+	@JsonIgnore
+	public transient UUID pendingRetryQueueRemoval;
+	@JsonIgnore
+	public transient List<ImmutablePersonIdentifiersTO> pendingRetryQueueAdditions;
+	@JsonIgnore
+	public transient List<ImmutablePersonIdentifiersTO> pendingDlqAdditions;
+
+	/**
+	 * Queue a retry for the given persons once this state is saved.
+	 *
+	 * @param personIds
+	 */
+	public void addToRetryQueue(List<ImmutablePersonIdentifiersTO> personIds) {
+		if ( pendingRetryQueueAdditions == null ) {
+			pendingRetryQueueAdditions = Lists.newArrayListWithCapacity(personIds.size());
+		}
+		pendingRetryQueueAdditions.addAll(personIds);
+		retryQueueSize += personIds.size();
+	}
+
+	/**
+	 * Remove the given entry from the retry queue once this state is saved.
+	 *
+	 * @param entryId
+	 */
+	public void removeFromRetryQueue(UUID entryId) {
+		pendingRetryQueueRemoval = entryId;
+		retryQueueSize = Math.max(0, retryQueueSize - 1);
+	}
+
+	/**
+	 * Dead-letter the given person once this state is saved.
+	 *
+	 * @param personIds
+	 */
+	public void addToDlq(ImmutablePersonIdentifiersTO personIds) {
+		if ( pendingDlqAdditions == null ) {
+			pendingDlqAdditions = Lists.newArrayListWithExpectedSize(1);
+		}
+		pendingDlqAdditions.add(personIds);
+		dlqSize++;
+	}
+
+	/**
+	 * @return {@code true} if there are queue changes not yet written
+	 */
+	public boolean hasPendingQueueChanges() {
+		return pendingRetryQueueRemoval != null
+				|| (pendingRetryQueueAdditions != null && !(pendingRetryQueueAdditions.isEmpty()))
+				|| (pendingDlqAdditions != null && !(pendingDlqAdditions.isEmpty()));
+	}
+
+	public void clearPendingQueueChanges() {
+		pendingRetryQueueRemoval = null;
+		pendingRetryQueueAdditions = null;
+		pendingDlqAdditions = null;
+	}
 }
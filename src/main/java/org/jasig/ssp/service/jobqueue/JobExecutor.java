@@ -51,6 +51,30 @@ public interface JobExecutor<P> {
 	 */
 	JobExecutionResult<JobWorkflowStatusDescription> execute(UUID jobId);
 
+	/**
+	 * Make sure the {@link Job} with the given ID has an initialized {@code executionState} and report how many
+	 * partitions its work has been split into. Each partition can then be driven concurrently via
+	 * {@link #execute(java.util.UUID, int)}. Implementations that do not support partitioning should return 1.
+	 * Like {@link #execute(java.util.UUID)}, implementations manage their own transactions.
+	 *
+	 * @param jobId
+	 * @return the number of partitions, always at least 1
+	 */
+	int preparePartitions(UUID jobId);
+
+	/**
+	 * Same as {@link #execute(java.util.UUID)} but limited to the work assigned to a single partition, numbered
+	 * from 0 up to (but excluding) the value returned by {@link #preparePartitions(java.util.UUID)}. Different
+	 * partitions of the same {@link Job} may be executed concurrently, but any one partition must only be executed
+	 * by one thread at a time. A {@link JobExecutionStatus#DONE} result means that partition is done, not
+	 * necessarily the {@link Job} as a whole; {@link #execute(java.util.UUID)} reports the latter.
+	 *
+	 * @param jobId
+	 * @param partition
+	 * @return
+	 */
+	JobExecutionResult<JobWorkflowStatusDescription> execute(UUID jobId, int partition);
+
 	/**
 	 * Create and enqueue a new {@link Job} using this executor as the {@code executionComponentName}. Creation is
 	 * often indirected through the executor in this way b/c the executor knows how to de/serialize the
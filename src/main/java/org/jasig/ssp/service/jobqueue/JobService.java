@@ -22,8 +22,11 @@ import java.util.List;
 import java.util.UUID;
 
 import org.jasig.ssp.model.jobqueue.Job;
+import org.jasig.ssp.model.jobqueue.JobPersonQueueEntry;
+import org.jasig.ssp.model.jobqueue.JobPersonQueueType;
 import org.jasig.ssp.service.AuditableCrudService;
 import org.jasig.ssp.service.ObjectNotFoundException;
+import org.jasig.ssp.transferobject.ImmutablePersonIdentifiersTO;
 import org.jasig.ssp.web.api.validation.ValidationException;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -76,6 +79,16 @@ public interface JobService {
 	 */
 	void scheduleQueuedJobs();
 
+	/**
+	 * Ask for {@link #scheduleQueuedJobs()} to run as soon as possible on a background thread instead of waiting
+	 * for its next periodic execution. Does not block. Multiple requests arriving while scheduling is already in
+	 * progress are coalesced into (at most) one additional scheduling pass.
+	 *
+	 * <p>Called automatically once a transaction that {@link #queue(java.util.UUID, java.util.UUID, String, String, String)}s
+	 * a new {@link Job} commits, and whenever a {@link Job} terminates and so frees up execution capacity.</p>
+	 */
+	void requestDispatch();
+
 	/**
 	 * Create and enqueue a new {@link Job}
 	 *
@@ -92,16 +105,18 @@ public interface JobService {
 			   String executionSpec, String executionState) throws ValidationException;
 
 	/**
-	 * Transition the given job to {@link WorkflowStatus#EXECUTING}.
+	 * Transition the given job to {@link WorkflowStatus#EXECUTING}, renewing the current process's lease on it.
 	 *
 	 * @param jobId
-	 * @return
+	 * @return {@code null} if the current process no longer holds the {@link Job}'s lease, i.e. some other
+	 *   process has reclaimed it
 	 * @throws ObjectNotFoundException if the {@link Job} is not on file
 	 */
 	Job markExecuting(UUID jobId) throws ObjectNotFoundException;
 
 	/**
-	 * Transition the job to a workflow-terminated state described by the given {@link JobExecutionResult}
+	 * Transition the job to a workflow-terminated state described by the given {@link JobExecutionResult}. No-op
+	 * if the current process no longer holds the {@link Job}'s lease.
 	 *
 	 * @param jobId
 	 * @param result
@@ -110,6 +125,17 @@ public interface JobService {
 	 */
 	Job markTerminated(UUID jobId, JobExecutionResult<JobWorkflowStatusDescription> result)  throws ObjectNotFoundException;
 
+	/**
+	 * Extend the current process's lease on the given {@link Job}. Claimed {@link Job}s whose leases lapse are
+	 * assumed to have been abandoned (e.g. their process crashed) and become eligible for
+	 * {@link #scheduleQueuedJobs()} in any process, so executing {@link Job}s must be renewed periodically.
+	 *
+	 * @param jobId
+	 * @return {@code false} if the lease could not be renewed because the current process no longer holds it, in
+	 *   which case the caller should stop working the {@link Job}
+	 */
+	boolean renewLease(UUID jobId);
+
 	/**
 	 * Transition the given {@link Job} to the given serialized {@code executionState}. Typically used to
 	 * store incremental, batched progress against the total work requested, sometimes in a different transaction
@@ -121,6 +147,48 @@ public interface JobService {
 	 */
 	Job updateExecutionState(String execState, Job job);
 
+	/**
+	 * Reload the given {@link Job} from the database and lock its record until the current transaction completes.
+	 * Lets concurrent executions of the same {@link Job} (e.g. partitions of a single bulk job) merge their own
+	 * {@code executionState} into the latest stored state without overwriting each other's progress. Must be called
+	 * from within an existing transaction.
+	 *
+	 * @param job
+	 * @return
+	 */
+	Job refreshForUpdate(Job job);
+
+	/**
+	 * Append the given persons to one of a {@link Job}'s per-person queues. Must be called from within an
+	 * existing transaction.
+	 *
+	 * @param jobId
+	 * @param jobPartition the partition which owns the queue, 0 if the {@link Job} isn't partitioned
+	 * @param queueType
+	 * @param personIds
+	 */
+	void addPersonQueueEntries(UUID jobId, int jobPartition, JobPersonQueueType queueType,
+							   List<ImmutablePersonIdentifiersTO> personIds);
+
+	/**
+	 * Oldest entry in one of a {@link Job}'s per-person queues.
+	 *
+	 * @param jobId
+	 * @param jobPartition the partition which owns the queue, 0 if the {@link Job} isn't partitioned
+	 * @param queueType
+	 * @return {@code null} if the queue is empty
+	 */
+	JobPersonQueueEntry getFirstPersonQueueEntry(UUID jobId, int jobPartition, JobPersonQueueType queueType);
+
+	/**
+	 * Remove an entry from whichever per-person queue it is in. Must be called from within an existing
+	 * transaction.
+	 *
+	 * @param entryId
+	 * @return {@code false} if the entry was already gone
+	 */
+	boolean removePersonQueueEntry(UUID entryId);
+
 	/**
 	 * Look up a {@link Job} by its PK.
 	 *
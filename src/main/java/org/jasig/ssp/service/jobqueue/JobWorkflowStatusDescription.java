@@ -20,6 +20,9 @@ package org.jasig.ssp.service.jobqueue;
 
 import java.util.List;
 
+import org.codehaus.jackson.map.annotate.JsonSerialize;
+import org.jasig.ssp.transferobject.ImmutablePersonIdentifiersTO;
+
 /**
  * Standard representation of {@link Job} <em>workflow</em> progress in terms of "messages". That is, this qualifies
  * and provides details for {@link Job#getWorkflowStatus()} in the form of free-form strings. Over the long-term, it
@@ -29,10 +32,14 @@ import java.util.List;
  * <p>Workflow status is typically updated in a different transaction than is execution state and may or may not be
  * updated for each execution of a batched {@code Job}, so {@code Job}s should not use instances of this object for
  * keeping their own progress state.</p>
+ *
+ * <p>Once a {@code Job} stops, {@link #getDeadLetteredPersons()} lists the persons left in its dead letter queue, if
+ * any, since the queue itself is deleted at that point.</p>
  */
 public class JobWorkflowStatusDescription {
 	private String completionMessage;
 	private List<String> problemMessages;
+	private List<ImmutablePersonIdentifiersTO> deadLetteredPersons;
 
 	public JobWorkflowStatusDescription() {
 		this(null,null);
@@ -59,6 +66,15 @@ public class JobWorkflowStatusDescription {
 		this.problemMessages = problemMessages;
 	}
 
+	@JsonSerialize(include = JsonSerialize.Inclusion.NON_NULL)
+	public List<ImmutablePersonIdentifiersTO> getDeadLetteredPersons() {
+		return deadLetteredPersons;
+	}
+
+	public void setDeadLetteredPersons(List<ImmutablePersonIdentifiersTO> deadLetteredPersons) {
+		this.deadLetteredPersons = deadLetteredPersons;
+	}
+
 	@Override
 	public boolean equals(Object o) {
 		if (this == o) return true;
@@ -70,6 +86,8 @@ public class JobWorkflowStatusDescription {
 			return false;
 		if (problemMessages != null ? !problemMessages.equals(that.problemMessages) : that.problemMessages != null)
 			return false;
+		if (deadLetteredPersons != null ? !deadLetteredPersons.equals(that.deadLetteredPersons) : that.deadLetteredPersons != null)
+			return false;
 
 		return true;
 	}
@@ -78,6 +96,7 @@ public class JobWorkflowStatusDescription {
 	public int hashCode() {
 		int result = completionMessage != null ? completionMessage.hashCode() : 0;
 		result = 31 * result + (problemMessages != null ? problemMessages.hashCode() : 0);
+		result = 31 * result + (deadLetteredPersons != null ? deadLetteredPersons.hashCode() : 0);
 		return result;
 	}
 
@@ -86,6 +105,7 @@ public class JobWorkflowStatusDescription {
 		return "JobWorkflowStatusDescription{" +
 				"completionMessage='" + completionMessage + '\'' +
 				", problemMessages=" + problemMessages +
+				", deadLetteredPersons=" + deadLetteredPersons +
 				'}';
 	}
 }
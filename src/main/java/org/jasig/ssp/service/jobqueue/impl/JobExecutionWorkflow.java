@@ -32,9 +32,19 @@ import org.jasig.ssp.util.CallableExecutor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.TaskScheduler;
+
 import java.text.MessageFormat;
+import java.util.Date;
+import java.util.List;
 import java.util.UUID;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicReference;
 
 /**
@@ -53,8 +63,31 @@ public class JobExecutionWorkflow implements Runnable {
 	private final UUID jobId;
 	private final ScheduledTaskWrapperService taskHelper;
 	private final JobService jobService;
+	private final TaskExecutor partitionExecutor;
+	private final TaskScheduler leaseRenewalScheduler;
+	private final long leaseRenewalIntervalMillis;
+	private final AtomicBoolean leaseLost = new AtomicBoolean(false);
 
 	public JobExecutionWorkflow(UUID jobId, ScheduledTaskWrapperService taskHelper, JobService jobService) {
+		this(jobId, taskHelper, jobService, null);
+	}
+
+	public JobExecutionWorkflow(UUID jobId, ScheduledTaskWrapperService taskHelper, JobService jobService,
+								TaskExecutor partitionExecutor) {
+		this(jobId, taskHelper, jobService, partitionExecutor, null, 0);
+	}
+
+	/**
+	 * @param partitionExecutor where to run all but the first partition of a partitioned {@link Job}. If
+	 *                          {@code null}, partitions are worked serially on the calling thread.
+	 * @param leaseRenewalScheduler where to run periodic {@link JobService#renewLease(UUID)} calls while the
+	 *                              {@link Job} executes. If {@code null}, the lease is never renewed, so
+	 *                              long-running {@link Job}s may be reclaimed by other processes.
+	 * @param leaseRenewalIntervalMillis how often to renew the lease
+	 */
+	public JobExecutionWorkflow(UUID jobId, ScheduledTaskWrapperService taskHelper, JobService jobService,
+								TaskExecutor partitionExecutor, TaskScheduler leaseRenewalScheduler,
+								long leaseRenewalIntervalMillis) {
 		if ( jobId == null ) {
 			throw new IllegalArgumentException("Must specify a job ID");
 		}
@@ -67,6 +100,9 @@ public class JobExecutionWorkflow implements Runnable {
 		this.jobId = jobId;
 		this.taskHelper = taskHelper;
 		this.jobService = jobService;
+		this.partitionExecutor = partitionExecutor;
+		this.leaseRenewalScheduler = leaseRenewalScheduler;
+		this.leaseRenewalIntervalMillis = leaseRenewalIntervalMillis;
 	}
 
 	@Override
@@ -78,6 +114,7 @@ public class JobExecutionWorkflow implements Runnable {
 		}
 
 		JobExecutionResult<JobWorkflowStatusDescription> workResult = null;
+		final ScheduledFuture<?> leaseRenewal = startLeaseRenewal();
 		try {
 			workResult = doWork(job);
 		} catch ( Exception e ) {
@@ -86,9 +123,47 @@ public class JobExecutionWorkflow implements Runnable {
 			final String msg = MessageFormat.format(JOB_EXECUTION_SYSTEM_ERROR_MSG, jobId);
 			workResult = new JobExecutionResult<JobWorkflowStatusDescription>(JobExecutionStatus.ERROR,
 					new JobWorkflowStatusDescription(null, Lists.newArrayList(msg)));
+		} finally {
+			if ( leaseRenewal != null ) {
+				leaseRenewal.cancel(false);
+			}
+		}
+
+		if ( leaseLost.get() ) {
+			// whoever reclaimed the job owns its workflow now
+			LOGGER.warn("Lease on job {} lost during execution, leaving its workflow status to its new owner", jobId);
+		} else {
+			markTerminated(workResult);
 		}
 
-		markTerminated(workResult);
+		// this job's thread(s) are about to free up, so don't make queued jobs wait for the next periodic dispatch
+		jobService.requestDispatch();
+	}
+
+	private ScheduledFuture<?> startLeaseRenewal() {
+		if ( leaseRenewalScheduler == null || leaseRenewalIntervalMillis <= 0 ) {
+			return null;
+		}
+		try {
+			return leaseRenewalScheduler.scheduleAtFixedRate(new Runnable() {
+				@Override
+				public void run() {
+					try {
+						if ( !(jobService.renewLease(jobId)) ) {
+							LOGGER.warn("Lease on job {} has been reclaimed by another process, abandoning execution", jobId);
+							leaseLost.set(true);
+						}
+					} catch ( Exception e ) {
+						// lease is long enough to survive a missed renewal or two
+						LOGGER.warn("Failed to renew lease on job {}, will try again", jobId, e);
+					}
+				}
+			}, new Date(System.currentTimeMillis() + leaseRenewalIntervalMillis), leaseRenewalIntervalMillis);
+		} catch ( TaskRejectedException e ) {
+			LOGGER.warn("Could not schedule lease renewal for job {}, other processes may reclaim it if it runs long",
+					jobId, e);
+			return null;
+		}
 	}
 
 	protected JobExecutionResult<JobWorkflowStatusDescription> doWork(final Job job) {
@@ -100,6 +175,136 @@ public class JobExecutionWorkflow implements Runnable {
 					new JobWorkflowStatusDescription(null, Lists.newArrayList(msg)));
 		}
 
+		final int partitionCount = partitionExecutor == null ? 1 : preparePartitions(job, jobExecutor);
+		if ( partitionCount <= 1 ) {
+			return doWork(job, jobExecutor, null, null);
+		}
+
+		LOGGER.debug("Executing job [{}] in [{}] partitions", job.getId(), partitionCount);
+		final AtomicBoolean abandon = new AtomicBoolean(false);
+		final List<FutureTask<JobExecutionResult<JobWorkflowStatusDescription>>> partitionTasks =
+				Lists.newArrayListWithCapacity(partitionCount - 1);
+		for ( int i = 1; i < partitionCount; i++ ) {
+			final Integer partition = i;
+			final FutureTask<JobExecutionResult<JobWorkflowStatusDescription>> partitionTask =
+					new FutureTask<JobExecutionResult<JobWorkflowStatusDescription>>(new Callable<JobExecutionResult<JobWorkflowStatusDescription>>() {
+				@Override
+				public JobExecutionResult<JobWorkflowStatusDescription> call() throws Exception {
+					return doWork(job, jobExecutor, partition, abandon);
+				}
+			});
+			partitionTasks.add(partitionTask);
+			try {
+				partitionExecutor.execute(partitionTask);
+			} catch ( TaskRejectedException e ) {
+				// will be run on this thread below
+				LOGGER.debug("Partition [{}] of job [{}] rejected by executor, will run it inline", partition, job.getId());
+			}
+		}
+
+		final List<JobExecutionResult<JobWorkflowStatusDescription>> partitionResults =
+				Lists.newArrayListWithCapacity(partitionCount);
+		partitionResults.add(doWork(job, jobExecutor, 0, abandon));
+
+		// Partitions still waiting for a pool thread are run here instead of waiting on them. That way a busy
+		// (or saturated) pool can't leave this job, which is itself holding a pool thread, waiting forever.
+		// FutureTask.run() is a no-op for tasks another thread has already started.
+		for ( FutureTask<JobExecutionResult<JobWorkflowStatusDescription>> partitionTask : partitionTasks ) {
+			partitionTask.run();
+		}
+		for ( FutureTask<JobExecutionResult<JobWorkflowStatusDescription>> partitionTask : partitionTasks ) {
+			try {
+				partitionResults.add(partitionTask.get());
+			} catch ( InterruptedException e ) {
+				abandon.set(true);
+				Thread.currentThread().interrupt(); // reassert
+				partitionResults.add(newInterruptedExecLoopResult(job));
+			} catch ( ExecutionException e ) {
+				LOGGER.error("Exception escaped partition of job {}. This is a programmer error.", jobId, e.getCause());
+				final String msg = MessageFormat.format(JOB_EXECUTION_SYSTEM_ERROR_MSG, jobId);
+				partitionResults.add(new JobExecutionResult<JobWorkflowStatusDescription>(JobExecutionStatus.ERROR,
+						new JobWorkflowStatusDescription(null, Lists.newArrayList(msg))));
+			}
+		}
+
+		final JobExecutionResult<JobWorkflowStatusDescription> partitionsResult = mergePartitionResults(partitionResults);
+		if ( partitionsResult.getStatus() != JobExecutionStatus.DONE ) {
+			return partitionsResult;
+		}
+		// all partitions done, so a Job-level execution will just confirm completion (or mop up if some
+		// partition somehow wasn't finished after all)
+		return doWork(job, jobExecutor, null, null);
+	}
+
+	/**
+	 * Most severe of the given partition results, where severity is
+	 * {@code ERROR > FAILED > INTERRUPTED > anything else}. Partitions which stopped early because a sibling
+	 * partition terminated report {@code INTERRUPTED}, so this picks the sibling's result instead.
+	 */
+	private JobExecutionResult<JobWorkflowStatusDescription> mergePartitionResults(List<JobExecutionResult<JobWorkflowStatusDescription>> partitionResults) {
+		JobExecutionResult<JobWorkflowStatusDescription> merged = null;
+		for ( JobExecutionResult<JobWorkflowStatusDescription> partitionResult : partitionResults ) {
+			if ( merged == null || severity(partitionResult.getStatus()) > severity(merged.getStatus()) ) {
+				merged = partitionResult;
+			}
+		}
+		return merged;
+	}
+
+	private int severity(JobExecutionStatus status) {
+		if ( status == null ) {
+			return 4;
+		}
+		switch ( status ) {
+			case ERROR:
+				return 3;
+			case FAILED:
+				return 2;
+			case INTERRUPTED:
+				return 1;
+			default:
+				return 0;
+		}
+	}
+
+	private int preparePartitions(final Job job, final JobExecutor jobExecutor) {
+		final AtomicReference<Integer> resultHolder = new AtomicReference<Integer>(1);
+		taskHelper.execBatchedTaskWithName(JOB_EXECUTION_TASK_NAME, new BatchedTask<Integer>() {
+			@Override
+			public void exec(CallableExecutor<Integer> batchExecutor) {
+				try {
+					resultHolder.set(batchExecutor.exec(new Callable<Integer>() {
+						@Override
+						public Integer call() throws Exception {
+							return jobExecutor.preparePartitions(job.getId());
+						}
+					}));
+				} catch ( RuntimeException e ) {
+					throw e;
+				} catch ( Exception e ) {
+					throw new RuntimeException(e);
+				}
+			}
+
+			@Override
+			public Class<Integer> getBatchExecReturnType() {
+				return Integer.class;
+			}
+		}, false, job.getRunAs().getId());
+		return resultHolder.get();
+	}
+
+	/**
+	 * Repeatedly executes the given {@link Job}, or just one of its partitions, until the {@link JobExecutor}
+	 * reports something other than partial completion.
+	 *
+	 * @param partition {@code null} to execute the {@link Job} as a whole
+	 * @param abandon if not {@code null}, checked between executions and set when this loop terminates with
+	 *                anything other than {@link JobExecutionStatus#DONE}, i.e. a way to stop sibling partitions
+	 *                once the {@link Job} as a whole can no longer succeed
+	 */
+	private JobExecutionResult<JobWorkflowStatusDescription> doWork(final Job job, final JobExecutor jobExecutor,
+																	final Integer partition, final AtomicBoolean abandon) {
 		final AtomicReference<JobExecutionResult<JobWorkflowStatusDescription>> resultHolder =
 			new AtomicReference<JobExecutionResult<JobWorkflowStatusDescription>>();
 
@@ -117,27 +322,47 @@ public class JobExecutionWorkflow implements Runnable {
 				// and/or accumulate warnings. See similar comments in AbstractJobExecutor.execute()
 				while (true) {
 					try {
+						if ( leaseLost.get() ) {
+							LOGGER.debug("Abandoning incremental execution loop for job [{}] partition [{}] because " +
+									"its lease was lost", job.getId(), partition);
+							resultHolder.set(newInterruptedExecLoopResult(job));
+							break;
+						}
+						if ( abandon != null && abandon.get() ) {
+							LOGGER.debug("Abandoning incremental execution loop for job [{}] partition [{}] because " +
+									"another partition terminated", job.getId(), partition);
+							resultHolder.set(newInterruptedExecLoopResult(job));
+							break;
+						}
 						if ( Thread.currentThread().isInterrupted() ) {
-							LOGGER.debug("Interrupting incremental execution loop for job [{}]", job.getId());
+							LOGGER.debug("Interrupting incremental execution loop for job [{}] partition [{}]", job.getId(), partition);
 							throw new InterruptedException();
 						}
 						final JobExecutionResult<JobWorkflowStatusDescription> result = batchExecutor.exec(new Callable<JobExecutionResult<JobWorkflowStatusDescription>>() {
 							@Override
 							public JobExecutionResult<JobWorkflowStatusDescription> call() throws Exception {
-								return jobExecutor.execute(job.getId());
+								return partition == null ? jobExecutor.execute(job.getId())
+										: jobExecutor.execute(job.getId(), partition);
 							}
 						});
 						if ( result.getStatus() != JobExecutionStatus.PARTIAL && result.getStatus() != JobExecutionStatus.FAILED_PARTIAL ) {
+							if ( abandon != null && result.getStatus() != JobExecutionStatus.DONE ) {
+								abandon.set(true);
+							}
 							resultHolder.set(result);
 							break;
 						} else {
-							LOGGER.debug("Continuing incremental execution of job [{}]", job.getId());
+							LOGGER.debug("Continuing incremental execution of job [{}] partition [{}]", job.getId(), partition);
 							Thread.sleep(POLITE_SLEEP_MILLIS);
 							continue;
 						}
 					} catch (InterruptedException e) {
 						resultHolder.set(newInterruptedExecLoopResult(job));
+						if ( abandon != null ) {
+							abandon.set(true);
+						}
 						Thread.currentThread().interrupt(); // reassert
+						break;
 					} catch ( RuntimeException e ) {
 						throw e;
 					} catch ( Exception e ) {
@@ -146,11 +371,6 @@ public class JobExecutionWorkflow implements Runnable {
 				}
 			}
 
-			private JobExecutionResult<JobWorkflowStatusDescription> newInterruptedExecLoopResult(Job job) {
-				return new JobExecutionResult<>(JobExecutionStatus.INTERRUPTED,
-						new JobWorkflowStatusDescription(null, Lists.newArrayList(MessageFormat.format(JOB_EXECUTION_LOOP_INTERRUPTED_MSG, job.getId()))));
-			}
-
 			@Override
 			public Class<JobExecutionResult<JobWorkflowStatusDescription>> getBatchExecReturnType() {
 				return (Class<JobExecutionResult<JobWorkflowStatusDescription>>) new JobExecutionResult<JobWorkflowStatusDescription>(null,null).getClass();
@@ -160,6 +380,11 @@ public class JobExecutionWorkflow implements Runnable {
 		return resultHolder.get();
 	}
 
+	private JobExecutionResult<JobWorkflowStatusDescription> newInterruptedExecLoopResult(Job job) {
+		return new JobExecutionResult<>(JobExecutionStatus.INTERRUPTED,
+				new JobWorkflowStatusDescription(null, Lists.newArrayList(MessageFormat.format(JOB_EXECUTION_LOOP_INTERRUPTED_MSG, job.getId()))));
+	}
+
 	protected Job markExecuting() {
 		final AtomicReference<Job> jobHolder = new AtomicReference<Job>();
 		taskHelper.execWithTaskContext(JOB_EXECUTION_TASK_NAME, new Runnable() {
@@ -23,23 +23,31 @@ import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
 
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import org.apache.commons.lang.StringUtils;
 import org.codehaus.jackson.map.ObjectMapper;
 import org.jasig.ssp.dao.jobqueue.JobDao;
+import org.jasig.ssp.dao.jobqueue.JobPersonQueueEntryDao;
 import org.jasig.ssp.model.Person;
 import org.jasig.ssp.model.jobqueue.Job;
+import org.jasig.ssp.model.jobqueue.JobPersonQueueEntry;
+import org.jasig.ssp.model.jobqueue.JobPersonQueueType;
 import org.jasig.ssp.model.jobqueue.WorkflowStatus;
 import org.jasig.ssp.service.ObjectNotFoundException;
 import org.jasig.ssp.service.PersonService;
+import org.jasig.ssp.service.ScheduledTaskRunService;
 import org.jasig.ssp.service.ScheduledTaskWrapperService;
 import org.jasig.ssp.service.impl.ScheduledTaskWrapperServiceImpl;
 import org.jasig.ssp.service.jobqueue.JobExecutionResult;
 import org.jasig.ssp.service.jobqueue.JobExecutor;
 import org.jasig.ssp.service.jobqueue.JobService;
 import org.jasig.ssp.service.jobqueue.JobWorkflowStatusDescription;
+import org.jasig.ssp.transferobject.ImmutablePersonIdentifiersTO;
 import org.jasig.ssp.util.collections.Pair;
 import org.jasig.ssp.util.transaction.WithTransaction;
 import org.jasig.ssp.web.api.validation.ValidationException;
@@ -52,9 +60,12 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.ApplicationContext;
 import org.springframework.context.ApplicationContextAware;
 import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.TaskScheduler;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 @Service
 public class JobServiceImpl implements JobService, ApplicationContextAware, BeanNameAware {
@@ -69,9 +80,15 @@ public class JobServiceImpl implements JobService, ApplicationContextAware, Bean
 	@Value("#{configProperties.system_id}")
 	private  String systemId = "";
 
+	@Value("#{configProperties.bulk_job_queue_lease_millis}")
+	private long leaseMillis = 300000;
+
 	@Autowired
 	private transient JobDao dao;
 
+	@Autowired
+	private transient JobPersonQueueEntryDao personQueueEntryDao;
+
 	@Autowired
 	private transient PersonService personService;
 
@@ -84,7 +101,15 @@ public class JobServiceImpl implements JobService, ApplicationContextAware, Bean
 	@Autowired
 	protected transient ScheduledTaskWrapperService scheduledTaskWrapperService;
 
+	@Autowired
+	private transient ScheduledTaskRunService taskRunService;
+
+	@Autowired
+	protected transient TaskScheduler taskScheduler;
+
 	private Map<String,JobExecutor> jobExecutorRegistry = Maps.newConcurrentMap();
+	private final ReentrantLock dispatchLock = new ReentrantLock();
+	private final AtomicBoolean dispatchRequested = new AtomicBoolean(false);
 	private ApplicationContext applicationContext;
 	private String beanName;
 
@@ -130,19 +155,97 @@ public class JobServiceImpl implements JobService, ApplicationContextAware, Bean
 		job.setWorkflowStatus(WorkflowStatus.QUEUED);
 		job.setExecutionSpec(executionSpec);
 		job.setExecutionState(executionState);
-		return dao.save(job);
+		final Job savedJob = dao.save(job);
+		requestDispatchAfterCommit();
+		return savedJob;
 	}
 
+	private void requestDispatchAfterCommit() {
+		if ( TransactionSynchronizationManager.isSynchronizationActive() ) {
+			// job isn't visible to the dispatcher's transaction until ours commits
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+				@Override
+				public void afterCommit() {
+					requestDispatch();
+				}
+			});
+		} else {
+			requestDispatch();
+		}
+	}
 
+	@Override
+	public void requestDispatch() {
+		dispatchRequested.set(true);
+		if ( dispatchLock.isLocked() ) {
+			// in-flight scheduling pass will notice the flag and go around again
+			return;
+		}
+		try {
+			taskScheduler.schedule(new Runnable() {
+				@Override
+				public void run() {
+					scheduledTaskWrapperService.scheduledQueuedJobs();
+				}
+			}, new Date());
+		} catch ( TaskRejectedException e ) {
+			// periodic scheduling will get to it
+			LOGGER.info("Immediate job dispatch rejected, queued jobs will wait for the next periodic dispatch", e);
+		}
+	}
 
+	/**
+	 * Claims and submits as many queued jobs as there is free capacity in {@link #taskExecutor}, repeating while
+	 * claims come back full or while new dispatch requests arrive, until capacity runs out. Passes are serialized
+	 * since overlapping claims would select the same jobs.
+	 */
 	@Override
 	public void scheduleQueuedJobs() {
-		final List<JobExecutionWorkflow> jobExecutionWorkflows = Lists.newArrayListWithExpectedSize(10);
+		dispatchLock.lock();
+		try {
+			int claimSize;
+			int claimed;
+			long dispatched = 0;
+			do {
+				if ( Thread.currentThread().isInterrupted() ) {
+					LOGGER.info("Abandoning job scheduling because of thread interruption");
+					return;
+				}
+				dispatchRequested.set(false);
+				claimSize = getFreeExecutionCapacity();
+				claimed = claimSize > 0 ? scheduleQueuedJobs(claimSize) : 0;
+				dispatched += claimed;
+			} while ( claimSize > 0 && (claimed >= claimSize || dispatchRequested.get()) );
+			// lets the scheduled dispatcher's run history skip idle ticks
+			taskRunService.itemsProcessed(dispatched);
+		} finally {
+			dispatchLock.unlock();
+		}
+		if ( dispatchRequested.get() ) {
+			// raced with the loop's last check
+			requestDispatch();
+		}
+	}
+
+	/**
+	 * Number of additional jobs {@link #taskExecutor} could start right now without queueing, i.e. its core pool
+	 * size less busy threads and already-queued work (which includes partitions of jobs already executing).
+	 *
+	 * @return
+	 */
+	protected int getFreeExecutionCapacity() {
+		final ThreadPoolExecutor pool = taskExecutor.getThreadPoolExecutor();
+		final int capacity = Math.max(pool.getCorePoolSize(), pool.getPoolSize());
+		return Math.max(0, capacity - pool.getActiveCount() - pool.getQueue().size());
+	}
+
+	private int scheduleQueuedJobs(final int maxJobs) {
+		final List<JobExecutionWorkflow> jobExecutionWorkflows = Lists.newArrayListWithExpectedSize(maxJobs);
 
 		withTransaction.withTransactionAndUncheckedExceptions(new Callable<Object>() {
 			@Override
 			public Object call() throws Exception {
-				final List<Job> jobs = dao.getNextQueuedJobsForExecution(10,getProcessIdentifier());
+				final List<Job> jobs = dao.getNextQueuedJobsForExecution(maxJobs,getProcessIdentifier());
 				for ( Job job : jobs ) {
 					if ( Thread.currentThread().isInterrupted() ) {
 						LOGGER.info("Abandoning job scheduling because of thread interruption");
@@ -152,7 +255,10 @@ public class JobServiceImpl implements JobService, ApplicationContextAware, Bean
 					}
 					jobExecutionWorkflows.add(new JobExecutionWorkflow(job.getId(),
 							(ScheduledTaskWrapperServiceImpl)scheduledTaskWrapperService, // yes, sucks
-							applicationContext.getBean(beanName, JobService.class))); // make sure we get the proxied version
+							applicationContext.getBean(beanName, JobService.class), // make sure we get the proxied version
+							taskExecutor, // partitions of the job share the same pool
+							taskScheduler,
+							getLeaseRenewalIntervalMillis()));
 					markScheduling(job);
 				}
 				return null;
@@ -186,9 +292,8 @@ public class JobServiceImpl implements JobService, ApplicationContextAware, Bean
 				});
 			} catch ( Exception e ) {
 				// nothing much to be done. hopefully this is just b/c we're in the
-				// middle of a shutdown, in which case a restart will effectively
-				// requeue the job b/c the process ID will change so the scheduling
-				// will appear to have been abandoned
+				// middle of a shutdown. either way the job's lease will lapse and
+				// some node will reclaim it
 				LOGGER.error("Could not requeue job {}", requeue.getJobId(), e);
 			}
 		}
@@ -207,12 +312,13 @@ public class JobServiceImpl implements JobService, ApplicationContextAware, Bean
 				});
 			} catch ( Exception e ) {
 				// nothing much to be done. hopefully this is just b/c we're in the
-				// middle of a shutdown, in which case a restart will effectively
-				// requeue the job b/c the process ID will change so the scheduling
-				// will appear to have been abandoned
+				// middle of a shutdown. either way the job's lease will lapse and
+				// some node will reclaim it
 				LOGGER.error("Could not mark job as errored out {}", jobId, e);
 			}
 		}
+
+		return jobExecutionWorkflows.size() - requeues.size() - errors.size();
 	}
 
 	private Job markQueued(Job job) {
@@ -228,7 +334,28 @@ public class JobServiceImpl implements JobService, ApplicationContextAware, Bean
 		job.setSchedulingStartedDate(new Date());
 		job.setScheduledByProcess(getProcessIdentifier());
 		job.setExecutionStartedDate(null);
-		return dao.save(job);
+		final Job savedJob = dao.save(job);
+		// row is still locked by the claim query so no need to check who holds the lease
+		dao.setLeaseExpiresDate(job.getId(), newLeaseExpiresDate());
+		return savedJob;
+	}
+
+	private Date newLeaseExpiresDate() {
+		return new Date(System.currentTimeMillis() + leaseMillis);
+	}
+
+	/**
+	 * How often a {@link JobExecutionWorkflow} should call {@link #renewLease(UUID)}. A third of the lease length,
+	 * so a single slow or failed renewal doesn't cost the lease.
+	 *
+	 * @return
+	 */
+	protected long getLeaseRenewalIntervalMillis() {
+		return Math.max(1, leaseMillis / 3);
+	}
+
+	private boolean isClaimedByThisProcess(Job job) {
+		return getProcessIdentifier().equals(job.getScheduledByProcess());
 	}
 
 	private Job markErrored(Job job, Exception e) {
@@ -238,24 +365,52 @@ public class JobServiceImpl implements JobService, ApplicationContextAware, Bean
 	private Job markErrored(Job job, JobWorkflowStatusDescription d) {
 		job.setWorkflowStatus(WorkflowStatus.ERROR);
 		job.setWorkflowStoppedDate(new Date());
-		serializeWorkflowStatusDescriptionOnto(d, job);
+		serializeWorkflowStatusDescriptionOnto(releasePersonQueues(job, d), job);
 		return dao.save(job);
 	}
 
 	private Job markFailed(Job job, JobWorkflowStatusDescription d) {
 		job.setWorkflowStatus(WorkflowStatus.FAILURE);
 		job.setWorkflowStoppedDate(new Date());
-		serializeWorkflowStatusDescriptionOnto(d, job);
+		serializeWorkflowStatusDescriptionOnto(releasePersonQueues(job, d), job);
 		return dao.save(job);
 	}
 
 	private Job markCompleted(Job job, JobWorkflowStatusDescription d) {
 		job.setWorkflowStatus(WorkflowStatus.COMPLETED);
 		job.setWorkflowStoppedDate(new Date());
-		serializeWorkflowStatusDescriptionOnto(d, job);
+		serializeWorkflowStatusDescriptionOnto(releasePersonQueues(job, d), job);
 		return dao.save(job);
 	}
 
+	/**
+	 * Deletes the stopped {@link Job}'s per-person queue entries, which are only needed while it executes. Any dead
+	 * letters are copied into its workflow status description first so they stay visible. That list is bounded by
+	 * the {@code Job}'s max DLQ length.
+	 *
+	 * @param job
+	 * @param d
+	 * @return the description to store, possibly a new one if {@code d} was {@code null}
+	 */
+	private JobWorkflowStatusDescription releasePersonQueues(Job job, JobWorkflowStatusDescription d) {
+		final List<JobPersonQueueEntry> deadLetters =
+				personQueueEntryDao.getAllForJob(job.getId(), JobPersonQueueType.DEAD_LETTER);
+		if ( !(deadLetters.isEmpty()) ) {
+			final List<ImmutablePersonIdentifiersTO> deadLetteredPersons =
+					Lists.newArrayListWithCapacity(deadLetters.size());
+			for ( JobPersonQueueEntry deadLetter : deadLetters ) {
+				deadLetteredPersons.add(new ImmutablePersonIdentifiersTO(deadLetter.getPersonId(),
+						deadLetter.getSchoolId()));
+			}
+			if ( d == null ) {
+				d = new JobWorkflowStatusDescription();
+			}
+			d.setDeadLetteredPersons(deadLetteredPersons);
+		}
+		personQueueEntryDao.deleteAllForJob(job.getId());
+		return d;
+	}
+
 	private void serializeWorkflowStatusDescriptionOnto(JobWorkflowStatusDescription d, Job job) {
 		try {
 			job.setWorkflowStatusDesc(d == null ? null : JSON_MAPPER.writeValueAsString(d));
@@ -274,6 +429,12 @@ public class JobServiceImpl implements JobService, ApplicationContextAware, Bean
 		if ( job == null ) {
 			throw new ObjectNotFoundException(jobId, Job.class.getName());
 		}
+		// renewal also locks the row, so nobody can reclaim the job between here and commit
+		if ( !(dao.renewLease(jobId, getProcessIdentifier(), newLeaseExpiresDate())) ) {
+			LOGGER.warn("Job {} was reclaimed by process {} before it could start executing here", jobId,
+					job.getScheduledByProcess());
+			return null;
+		}
 		job.setWorkflowStatus(WorkflowStatus.EXECUTING);
 		job.setExecutionStartedDate(new Date());
 		return dao.save(job);
@@ -286,6 +447,13 @@ public class JobServiceImpl implements JobService, ApplicationContextAware, Bean
 		if ( job == null ) {
 			throw new ObjectNotFoundException(jobId, Job.class.getName());
 		}
+		dao.refreshForUpdate(job);
+		if ( !(isClaimedByThisProcess(job)) || job.getWorkflowStoppedDate() != null ) {
+			// our lease lapsed and another process owns the job's workflow now
+			LOGGER.warn("Not recording termination of job {} with status {} because it is now claimed by process {}",
+					new Object[] { jobId, result.getStatus(), job.getScheduledByProcess() });
+			return job;
+		}
 		switch ( result.getStatus() ) {
 			case PARTIAL:
 			case FAILED_PARTIAL:
@@ -340,6 +508,41 @@ public class JobServiceImpl implements JobService, ApplicationContextAware, Bean
 		return dao.save(job);
 	}
 
+	@Override
+	@Transactional
+	public Job refreshForUpdate(Job job) {
+		return dao.refreshForUpdate(job);
+	}
+
+	@Override
+	@Transactional
+	public boolean renewLease(UUID jobId) {
+		return dao.renewLease(jobId, getProcessIdentifier(), newLeaseExpiresDate());
+	}
+
+	@Override
+	@Transactional
+	public void addPersonQueueEntries(UUID jobId, int jobPartition, JobPersonQueueType queueType,
+									  List<ImmutablePersonIdentifiersTO> personIds) {
+		final Job job = dao.load(jobId);
+		for ( ImmutablePersonIdentifiersTO personId : personIds ) {
+			personQueueEntryDao.save(new JobPersonQueueEntry(job, jobPartition, queueType, personId.getId(),
+					personId.getSchoolId()));
+		}
+	}
+
+	@Override
+	@Transactional
+	public JobPersonQueueEntry getFirstPersonQueueEntry(UUID jobId, int jobPartition, JobPersonQueueType queueType) {
+		return personQueueEntryDao.getFirst(jobId, jobPartition, queueType);
+	}
+
+	@Override
+	@Transactional
+	public boolean removePersonQueueEntry(UUID entryId) {
+		return personQueueEntryDao.deleteById(entryId);
+	}
+
 	private String getProcessIdentifier() {
 		return systemId+"-"+startupTime+"."+systemId;
 	}
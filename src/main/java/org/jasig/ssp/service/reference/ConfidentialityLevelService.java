@@ -20,6 +20,7 @@ package org.jasig.ssp.service.reference;
 
 import java.util.Collection;
 import java.util.List;
+import java.util.UUID;
 
 import org.jasig.ssp.model.reference.ConfidentialityLevel;
 import org.jasig.ssp.security.SspUser;
@@ -50,6 +51,20 @@ public interface ConfidentialityLevelService extends
 	Collection<ConfidentialityLevel> filterConfidentialityLevelsFromGrantedAuthorities(
 			Collection<GrantedAuthority> authorities);
 
+	/**
+	 * Ids of the active {@link ConfidentialityLevel}s granted by the given
+	 * authorities. The same as
+	 * {@link #filterConfidentialityLevelsFromGrantedAuthorities(Collection)},
+	 * but the answer is cached per distinct set of authorities until a level
+	 * is created, changed or deleted, so repeat callers need no query.
+	 * 
+	 * @param authorities
+	 *            Authorities of the user in question
+	 * @return Ids of the levels granted, possibly empty, never null
+	 */
+	Collection<UUID> confidentialityLevelIdsFromGrantedAuthorities(
+			Collection<GrantedAuthority> authorities);
+
 	Collection<ConfidentialityLevel> confidentialityLevelsForSspUser(
 			SspUser user);
 
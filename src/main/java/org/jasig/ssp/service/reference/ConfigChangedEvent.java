@@ -0,0 +1,46 @@
+/**
+ * Licensed to Apereo under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work
+ * for additional information regarding copyright ownership.
+ * Apereo licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License.  You may obtain a
+ * copy of the License at the following location:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jasig.ssp.service.reference;
+
+import org.springframework.context.ApplicationEvent;
+
+/**
+ * Published by {@link ConfigService} once a changed Config value has been
+ * committed, so components holding on to derived state (e.g. task
+ * schedules) can pick the change up right away rather than on their next
+ * poll.
+ * <p>
+ * Only raised on the node where the change was saved. Other nodes in a
+ * cluster still have to poll for it.
+ */
+public class ConfigChangedEvent extends ApplicationEvent {
+
+	private static final long serialVersionUID = 5571342394781466018L;
+
+	private final String configName;
+
+	public ConfigChangedEvent(final Object source, final String configName) {
+		super(source);
+		this.configName = configName;
+	}
+
+	public String getConfigName() {
+		return configName;
+	}
+}
@@ -83,6 +83,13 @@ public interface MessageTemplateService extends
 
     SubjectAndBody createMyGPSWelcomeMessage();
 
+	/**
+	 * Digest of several held messages bound for one recipient. Expects
+	 * {@code messages} (MessageTOs, oldest first), {@code recipient} (may be
+	 * null) and {@code recipientEmailAddress}.
+	 */
+	SubjectAndBody createMessageDigestMessage(Map<String, Object> messageParams);
+
 	
 	public <TOO extends AbstractPlanOutputTO<T, TO>, T extends AbstractPlan,TO extends AbstractPlanTO<T>> SubjectAndBody createMapPlanMatrixOutput(
 			AbstractMessageTemplateMapPrintParamsTO<TOO, T, TO> params, Map<String,Object> additionalParams);
@@ -0,0 +1,49 @@
+/**
+ * Licensed to Apereo under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work
+ * for additional information regarding copyright ownership.
+ * Apereo licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License.  You may obtain a
+ * copy of the License at the following location:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jasig.ssp.service.reference;
+
+import org.jasig.ssp.model.reference.ReferenceDataVersion;
+
+/**
+ * Versions reference data so the reference API can answer conditional GETs
+ * without loading it.
+ */
+public interface ReferenceDataVersionService {
+
+	/**
+	 * @param persistentClasses
+	 *            Entity classes the data being versioned is read from
+	 */
+	ReferenceDataVersion getVersion(Class<?>... persistentClasses);
+
+	/**
+	 * Records that reference data was changed on this node, once right away
+	 * and once more when the current transaction completes, so a version
+	 * read in between isn't mistaken for current.
+	 */
+	void invalidate();
+
+	/**
+	 * @return How many times {@link #invalidate()} has counted a change on
+	 *         this node. A version cached along with this count can be
+	 *         reused for as long as it stays the same, apart from changes
+	 *         made on other nodes.
+	 */
+	long getInvalidationCount();
+}
@@ -26,7 +26,9 @@ import org.jasig.ssp.model.Auditable;
 import org.jasig.ssp.service.AbstractAuditableCrudService;
 import org.jasig.ssp.service.ObjectNotFoundException;
 import org.jasig.ssp.service.ReferenceService;
+import org.jasig.ssp.service.reference.ReferenceDataVersionService;
 import org.jasig.ssp.web.api.validation.ValidationException;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.transaction.annotation.Transactional;
 
 /**
@@ -40,19 +42,52 @@ public abstract class AbstractReferenceService<T extends Auditable>
 		extends AbstractAuditableCrudService<T>
 		implements ReferenceService<T> {
 
+	@Autowired
+	private transient ReferenceDataVersionService referenceDataVersionService;
+
 	@Override
 	protected abstract AbstractReferenceAuditableCrudDao<T> getDao();
 
+	protected void setReferenceDataVersionService(
+			final ReferenceDataVersionService referenceDataVersionService) {
+		this.referenceDataVersionService = referenceDataVersionService;
+	}
+
+	@Override
+	public T create(final T obj) throws ObjectNotFoundException,
+			ValidationException {
+		final T created = super.create(obj);
+		referenceDataChanged();
+		return created;
+	}
+
+	/**
+	 * Also covers {@link #delete(java.util.UUID)}, which saves the object as
+	 * inactive.
+	 */
 	@Override
 	public T save(final T obj) throws ObjectNotFoundException,
 			ValidationException {
 		try {
-			return getDao().save(obj);
+			final T saved = getDao().save(obj);
+			referenceDataChanged();
+			return saved;
 		} catch (final ConstraintViolationException exc) {
 			throw new ValidationException("Invalid data.", exc);
 		}
 	}
 
+	/**
+	 * Lets cached reference data versions, e.g. the reference bundle's, know
+	 * they may be out of date.
+	 */
+	protected void referenceDataChanged() {
+		// not wired when a test builds the service by hand
+		if (referenceDataVersionService != null) {
+			referenceDataVersionService.invalidate();
+		}
+	}
+
 	@Override
 	public T getByName(@NotNull final String name) {
 		return getDao().getByName(name);
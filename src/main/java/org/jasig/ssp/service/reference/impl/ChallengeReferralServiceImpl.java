@@ -26,12 +26,14 @@ import org.jasig.ssp.model.Person;
 import org.jasig.ssp.model.reference.Challenge;
 import org.jasig.ssp.model.reference.ChallengeReferral;
 import org.jasig.ssp.model.reference.ChallengeReferralSearchResult;
+import org.jasig.ssp.service.ObjectNotFoundException;
 import org.jasig.ssp.service.SecurityService;
 import org.jasig.ssp.service.TaskService;
 import org.jasig.ssp.service.reference.ChallengeReferralService;
 import org.jasig.ssp.transferobject.reference.ChallengeReferralSearchFormTO;
 import org.jasig.ssp.util.sort.PagingWrapper;
 import org.jasig.ssp.util.sort.SortingAndPaging;
+import org.jasig.ssp.web.api.validation.ValidationException;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -51,6 +53,26 @@ public class ChallengeReferralServiceImpl extends
 	@Autowired
 	private transient SecurityService securityService;
 
+	@Autowired
+	private transient ChallengeSearchIndex challengeSearchIndex;
+
+	@Override
+	public ChallengeReferral create(final ChallengeReferral obj)
+			throws ObjectNotFoundException, ValidationException {
+		final ChallengeReferral created = super.create(obj);
+		// referral text and status are indexed with each associated challenge
+		challengeSearchIndex.invalidate();
+		return created;
+	}
+
+	@Override
+	public ChallengeReferral save(final ChallengeReferral obj)
+			throws ObjectNotFoundException, ValidationException {
+		final ChallengeReferral saved = super.save(obj);
+		challengeSearchIndex.invalidate();
+		return saved;
+	}
+
 	@Override
 	public List<ChallengeReferral> getChallengeReferralsByChallengeId(
 			final Challenge challenge) {
@@ -135,6 +157,10 @@ public class ChallengeReferralServiceImpl extends
 	protected void setDao(final ChallengeReferralDao dao) {
 		this.dao = dao;
 	}
+
+	protected void setChallengeSearchIndex(final ChallengeSearchIndex challengeSearchIndex) {
+		this.challengeSearchIndex = challengeSearchIndex;
+	}
 	
 	public PagingWrapper<ChallengeReferralSearchResult>  summarySearch(ChallengeReferralSearchFormTO searchForm){
 	    return getDao().summarySearch(searchForm);
@@ -0,0 +1,447 @@
+/**
+ * Licensed to Apereo under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work
+ * for additional information regarding copyright ownership.
+ * Apereo licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License.  You may obtain a
+ * copy of the License at the following location:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jasig.ssp.service.reference.impl;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+import org.apache.commons.lang.StringUtils;
+import org.jasig.ssp.model.ObjectStatus;
+import org.jasig.ssp.model.reference.Challenge;
+import org.jasig.ssp.model.reference.ChallengeChallengeReferral;
+import org.jasig.ssp.model.reference.ChallengeReferral;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * In-memory inverted index over {@link Challenge} and associated
+ * {@link ChallengeReferral} text, used for self-help search in place of a
+ * multi-column {@code LIKE} scan.
+ *
+ * <p>Only scalar snapshots of the indexed entities are retained, so the index
+ * never holds on to Hibernate-managed objects. Callers are responsible for
+ * feeding it: {@link #rebuildIfStale(Callable)} replaces the entire index,
+ * {@link #reindex(Challenge)} replaces a single entry, and
+ * {@link #invalidate()} flags the index for a full rebuild on next use (e.g.
+ * when a {@link ChallengeReferral} changes and the set of affected
+ * {@link Challenge}s isn't conveniently known). Inside a transaction, the
+ * latter two take effect again once it completes, so a rebuild that read
+ * rows before the edit committed can't leave the index current but wrong.
+ * {@link #isStale()} also
+ * reports {@code true} once the index is older than
+ * {@code challenge_search_index_max_age_millis}, which bounds how long a node
+ * in a clustered deployment can serve results that don't reflect edits made
+ * on another node.</p>
+ *
+ * <p>Query terms are matched as prefixes of indexed tokens and all terms
+ * must match for a {@link Challenge} to be returned. Results are ranked by
+ * weighted term frequency (name over tags over question/description over
+ * referral text), with exact token matches scored above prefix matches, and
+ * ties broken by {@link Challenge} name.</p>
+ */
+@Component
+public class ChallengeSearchIndex {
+
+	private static final Logger LOGGER = LoggerFactory
+			.getLogger(ChallengeSearchIndex.class);
+
+	public static final long DEFAULT_MAX_AGE_MILLIS = 5 * 60 * 1000;
+
+	private static final Pattern TOKEN_DELIMITER = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+	private static final int NAME_WEIGHT = 8;
+	private static final int TAGS_WEIGHT = 4;
+	private static final int QUESTION_WEIGHT = 2;
+	private static final int DESCRIPTION_WEIGHT = 2;
+	private static final int REFERRAL_NAME_WEIGHT = 2;
+	private static final int REFERRAL_DESCRIPTION_WEIGHT = 1;
+	private static final int EXACT_MATCH_MULTIPLIER = 2;
+
+	@Value("#{configProperties.challenge_search_index_max_age_millis}")
+	private long maxAgeMillis = DEFAULT_MAX_AGE_MILLIS;
+
+	private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+	/** token -> (challenge id -> weighted frequency) */
+	private final NavigableMap<String, Map<UUID, Integer>> postings =
+			new TreeMap<String, Map<UUID, Integer>>();
+
+	/** challenge id -> indexed snapshot, incl. forward token list for removal */
+	private final Map<UUID, IndexedChallenge> entries =
+			new HashMap<UUID, IndexedChallenge>();
+
+	private volatile boolean stale = true;
+
+	/**
+	 * Bumped by every invalidation and reindex. A rebuild that sees it move
+	 * while loading leaves the index stale.
+	 */
+	private final AtomicLong changes = new AtomicLong();
+
+	/** Only one thread rebuilds a stale index, the others wait for it */
+	private final Object rebuildMonitor = new Object();
+
+	private volatile long lastBuiltMillis;
+
+	/**
+	 * Snapshot of the {@link Challenge} fields which determine search
+	 * eligibility, plus the tokens it contributed to {@link #postings}.
+	 */
+	static class IndexedChallenge {
+		private final UUID id;
+		private final String name;
+		private final boolean searchable;
+		private final boolean hasActiveReferral;
+		private final boolean hasActiveSelfHelpGuideReferral;
+		private final Map<String, Integer> tokenWeights;
+
+		IndexedChallenge(final Challenge challenge) {
+			id = challenge.getId();
+			name = challenge.getName() == null ? "" : challenge.getName();
+			searchable = ObjectStatus.ACTIVE.equals(challenge.getObjectStatus())
+					&& challenge.isShowInSelfHelpSearch();
+			tokenWeights = new HashMap<String, Integer>();
+			addTokens(tokenWeights, challenge.getName(), NAME_WEIGHT);
+			addTokens(tokenWeights, challenge.getTags(), TAGS_WEIGHT);
+			addTokens(tokenWeights, challenge.getSelfHelpGuideQuestion(), QUESTION_WEIGHT);
+			addTokens(tokenWeights, challenge.getSelfHelpGuideDescription(), DESCRIPTION_WEIGHT);
+
+			boolean activeReferral = false;
+			boolean activeSelfHelpGuideReferral = false;
+			if ( challenge.getChallengeChallengeReferrals() != null ) {
+				for ( ChallengeChallengeReferral ccr : challenge.getChallengeChallengeReferrals() ) {
+					final ChallengeReferral referral = ccr.getChallengeReferral();
+					if ( referral == null
+							|| !(ObjectStatus.ACTIVE.equals(referral.getObjectStatus())) ) {
+						continue;
+					}
+					activeReferral = true;
+					if ( Boolean.TRUE.equals(referral.getShowInSelfHelpGuide()) ) {
+						activeSelfHelpGuideReferral = true;
+					}
+					addTokens(tokenWeights, referral.getName(), REFERRAL_NAME_WEIGHT);
+					addTokens(tokenWeights, referral.getPublicDescription(), REFERRAL_DESCRIPTION_WEIGHT);
+				}
+			}
+			hasActiveReferral = activeReferral;
+			hasActiveSelfHelpGuideReferral = activeSelfHelpGuideReferral;
+		}
+
+		boolean isEligible(final boolean selfHelpGuide) {
+			return searchable && (selfHelpGuide
+					? hasActiveSelfHelpGuideReferral : hasActiveReferral);
+		}
+
+		UUID getId() {
+			return id;
+		}
+
+		String getName() {
+			return name;
+		}
+	}
+
+	/**
+	 * Rebuilds the index from the given loader if it {@link #isStale()}.
+	 * Concurrent callers wait for a single rebuild rather than each loading
+	 * every {@link Challenge}.
+	 *
+	 * @param loader returns all challenges, regardless of status, see
+	 *   {@link #rebuild(Collection)}
+	 */
+	public void rebuildIfStale(final Callable<? extends Collection<Challenge>> loader) {
+		if ( !(isStale()) ) {
+			return;
+		}
+		synchronized ( rebuildMonitor ) {
+			if ( !(isStale()) ) {
+				return;
+			}
+			final long changesBefore = changes.get();
+			final Collection<Challenge> challenges;
+			try {
+				challenges = loader.call();
+			} catch ( RuntimeException e ) {
+				throw e;
+			} catch ( Exception e ) {
+				throw new RuntimeException("Could not load challenges for search index", e);
+			}
+			rebuild(challenges, changesBefore);
+		}
+	}
+
+	/**
+	 * Replaces the entire index content with the given {@link Challenge}s,
+	 * which are expected to have their {@code challengeChallengeReferrals}
+	 * and associated {@link ChallengeReferral}s initialized or initializable.
+	 *
+	 * @param challenges all challenges, regardless of status
+	 */
+	public void rebuild(final Collection<Challenge> challenges) {
+		rebuild(challenges, changes.get());
+	}
+
+	private void rebuild(final Collection<Challenge> challenges, final long changesBefore) {
+		final long started = System.currentTimeMillis();
+		final int indexed;
+		lock.writeLock().lock();
+		try {
+			postings.clear();
+			entries.clear();
+			if ( challenges != null ) {
+				for ( Challenge challenge : challenges ) {
+					add(new IndexedChallenge(challenge));
+				}
+			}
+			indexed = entries.size();
+			lastBuiltMillis = System.currentTimeMillis();
+			// challenges may have been read before a change that landed since
+			stale = changes.get() != changesBefore;
+		} finally {
+			lock.writeLock().unlock();
+		}
+		LOGGER.debug("Rebuilt challenge search index with [{}] challenges in [{}] ms",
+				indexed, System.currentTimeMillis() - started);
+	}
+
+	/**
+	 * Replaces the index entry for a single {@link Challenge}. Inside a
+	 * transaction the entry is replaced once it commits, and not at all if
+	 * it rolls back. Has no effect on a stale index, since the next search
+	 * will rebuild it anyway.
+	 *
+	 * @param challenge the created or updated challenge
+	 */
+	public void reindex(final Challenge challenge) {
+		if ( challenge == null || challenge.getId() == null ) {
+			return;
+		}
+		// snapshot now, while the challenge's referrals can still be loaded
+		final IndexedChallenge indexed = new IndexedChallenge(challenge);
+		if ( TransactionSynchronizationManager.isSynchronizationActive() ) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+				@Override
+				public void afterCommit() {
+					replace(indexed);
+				}
+			});
+		} else {
+			replace(indexed);
+		}
+	}
+
+	private void replace(final IndexedChallenge indexed) {
+		lock.writeLock().lock();
+		try {
+			changes.incrementAndGet();
+			if ( isStale() ) {
+				return;
+			}
+			remove(indexed.getId());
+			add(indexed);
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Flags the index for a full {@link #rebuild(Collection)} before
+	 * its next use, and again once the current transaction, if any,
+	 * completes.
+	 */
+	public void invalidate() {
+		markStale();
+		if ( TransactionSynchronizationManager.isSynchronizationActive() ) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+				@Override
+				public void afterCompletion(int status) {
+					markStale();
+				}
+			});
+		}
+	}
+
+	private void markStale() {
+		changes.incrementAndGet();
+		stale = true;
+	}
+
+	public boolean isStale() {
+		return stale || (maxAgeMillis >= 0
+				&& System.currentTimeMillis() - lastBuiltMillis > maxAgeMillis);
+	}
+
+	/**
+	 * Look up {@link Challenge} ids matching all terms in the given query,
+	 * best match first. A blank query matches every eligible
+	 * {@link Challenge}, ordered by name.
+	 *
+	 * @param query free text query
+	 * @param selfHelpGuide if {@code true}, only match {@link Challenge}s
+	 *   having at least one active {@link ChallengeReferral} marked to be
+	 *   shown in the self help guide
+	 * @return ranked challenge ids; never null
+	 */
+	public List<UUID> search(final String query, final boolean selfHelpGuide) {
+		final List<String> terms = tokenize(query);
+		final Map<UUID, Integer> scores = new HashMap<UUID, Integer>();
+		final List<IndexedChallenge> matches = new ArrayList<IndexedChallenge>();
+
+		lock.readLock().lock();
+		try {
+			if ( StringUtils.isBlank(query) ) {
+				for ( IndexedChallenge entry : entries.values() ) {
+					if ( entry.isEligible(selfHelpGuide) ) {
+						matches.add(entry);
+						scores.put(entry.getId(), 0);
+					}
+				}
+			} else if ( !(terms.isEmpty()) ) {
+				collectMatches(terms, selfHelpGuide, scores, matches);
+			}
+		} finally {
+			lock.readLock().unlock();
+		}
+
+		Collections.sort(matches, new Comparator<IndexedChallenge>() {
+			@Override
+			public int compare(final IndexedChallenge o1, final IndexedChallenge o2) {
+				final int byScore = scores.get(o2.getId()).compareTo(scores.get(o1.getId()));
+				return byScore != 0 ? byScore
+						: o1.getName().compareToIgnoreCase(o2.getName());
+			}
+		});
+
+		final List<UUID> ids = new ArrayList<UUID>(matches.size());
+		for ( IndexedChallenge match : matches ) {
+			ids.add(match.getId());
+		}
+		return ids;
+	}
+
+	private void collectMatches(final List<String> terms, final boolean selfHelpGuide,
+			final Map<UUID, Integer> scores, final List<IndexedChallenge> matches) {
+		Map<UUID, Integer> accumulated = null;
+		for ( String term : terms ) {
+			final Map<UUID, Integer> termScores = new HashMap<UUID, Integer>();
+			for ( Map.Entry<String, Map<UUID, Integer>> posting :
+					postings.subMap(term, true, term + Character.MAX_VALUE, false).entrySet() ) {
+				final int multiplier = posting.getKey().equals(term) ? EXACT_MATCH_MULTIPLIER : 1;
+				for ( Map.Entry<UUID, Integer> hit : posting.getValue().entrySet() ) {
+					if ( accumulated != null && !(accumulated.containsKey(hit.getKey())) ) {
+						continue;
+					}
+					final Integer prior = termScores.get(hit.getKey());
+					termScores.put(hit.getKey(), (prior == null ? 0 : prior)
+							+ hit.getValue() * multiplier);
+				}
+			}
+			if ( accumulated != null ) {
+				for ( Map.Entry<UUID, Integer> termScore : termScores.entrySet() ) {
+					termScore.setValue(termScore.getValue()
+							+ accumulated.get(termScore.getKey()));
+				}
+			}
+			accumulated = termScores;
+			if ( accumulated.isEmpty() ) {
+				return;
+			}
+		}
+
+		for ( Map.Entry<UUID, Integer> candidate : accumulated.entrySet() ) {
+			final IndexedChallenge entry = entries.get(candidate.getKey());
+			if ( entry != null && entry.isEligible(selfHelpGuide) ) {
+				matches.add(entry);
+				scores.put(entry.getId(), candidate.getValue());
+			}
+		}
+	}
+
+	private void add(final IndexedChallenge indexed) {
+		entries.put(indexed.getId(), indexed);
+		for ( Map.Entry<String, Integer> tokenWeight : indexed.tokenWeights.entrySet() ) {
+			Map<UUID, Integer> posting = postings.get(tokenWeight.getKey());
+			if ( posting == null ) {
+				posting = new HashMap<UUID, Integer>();
+				postings.put(tokenWeight.getKey(), posting);
+			}
+			posting.put(indexed.getId(), tokenWeight.getValue());
+		}
+	}
+
+	private void remove(final UUID challengeId) {
+		final IndexedChallenge existing = entries.remove(challengeId);
+		if ( existing == null ) {
+			return;
+		}
+		for ( String token : existing.tokenWeights.keySet() ) {
+			final Map<UUID, Integer> posting = postings.get(token);
+			if ( posting == null ) {
+				continue;
+			}
+			posting.remove(challengeId);
+			if ( posting.isEmpty() ) {
+				postings.remove(token);
+			}
+		}
+	}
+
+	static List<String> tokenize(final String text) {
+		final List<String> tokens = new ArrayList<String>();
+		if ( StringUtils.isBlank(text) ) {
+			return tokens;
+		}
+		for ( String token : TOKEN_DELIMITER.split(text.toLowerCase(Locale.getDefault())) ) {
+			if ( token.length() > 0 ) {
+				tokens.add(token);
+			}
+		}
+		return tokens;
+	}
+
+	private static void addTokens(final Map<String, Integer> into,
+			final String text, final int weight) {
+		for ( String token : tokenize(text) ) {
+			final Integer prior = into.get(token);
+			into.put(token, (prior == null ? 0 : prior) + weight);
+		}
+	}
+
+	public void setMaxAgeMillis(final long maxAgeMillis) {
+		this.maxAgeMillis = maxAgeMillis;
+	}
+}
@@ -19,6 +19,9 @@
 package org.jasig.ssp.service.reference.impl;
 
 import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Callable;
 
 import org.jasig.ssp.dao.reference.ChallengeChallengeReferralDao;
 import org.jasig.ssp.dao.reference.ChallengeDao;
@@ -30,6 +33,7 @@ import org.jasig.ssp.model.reference.Category;
 import org.jasig.ssp.model.reference.Challenge;
 import org.jasig.ssp.model.reference.ChallengeChallengeReferral;
 import org.jasig.ssp.model.reference.ChallengeReferral;
+import org.jasig.ssp.service.ObjectNotFoundException;
 import org.jasig.ssp.service.SecurityService;
 import org.jasig.ssp.service.reference.ChallengeReferralService;
 import org.jasig.ssp.service.reference.ChallengeService;
@@ -37,6 +41,7 @@ import org.jasig.ssp.transferobject.reference.ChallengeTO;
 import org.jasig.ssp.util.sort.PagingWrapper;
 import org.jasig.ssp.util.sort.SortingAndPaging;
 import org.jasig.ssp.web.api.reference.ChallengeController;
+import org.jasig.ssp.web.api.validation.ValidationException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -44,6 +49,7 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 
 @Service
 @Transactional
@@ -68,12 +74,15 @@ public class ChallengeServiceImpl extends AbstractReferenceService<Challenge>
 	@Autowired
 	private transient ChallengeTOFactory challengeTOFactory;
 
+	@Autowired
+	private transient ChallengeSearchIndex challengeSearchIndex;
+
 	private static final Logger LOGGER = LoggerFactory
 			.getLogger(ChallengeServiceImpl.class);
 	
 	@Override
 	public List<Challenge> challengeSearch(final String query, boolean selfHelpGuide) {
-		final List<Challenge> challenges = dao.searchByQuery(query,selfHelpGuide); 
+		final List<Challenge> challenges = searchIndex(query, selfHelpGuide);
 		final List<Challenge> results = Lists.newArrayList();
 
 		if (challenges != null) { 
@@ -91,6 +100,55 @@ public class ChallengeServiceImpl extends AbstractReferenceService<Challenge>
 		return results;
 	}
 
+	/**
+	 * Resolves the given query against {@link ChallengeSearchIndex},
+	 * (re)building the index first if necessary, and loads the matching
+	 * {@link Challenge}s in rank order.
+	 */
+	protected List<Challenge> searchIndex(final String query, boolean selfHelpGuide) {
+		challengeSearchIndex.rebuildIfStale(new Callable<List<Challenge>>() {
+			@Override
+			public List<Challenge> call() {
+				return dao.getAllForSearchIndex();
+			}
+		});
+		final List<UUID> ids = challengeSearchIndex.search(query, selfHelpGuide);
+		if ( ids.isEmpty() ) {
+			return Lists.newArrayList();
+		}
+
+		final Map<UUID, Challenge> byId = Maps.newHashMap();
+		for ( Challenge challenge : dao.get(ids,
+				new SortingAndPaging(ObjectStatus.ALL)).getRows() ) {
+			byId.put(challenge.getId(), challenge);
+		}
+		final List<Challenge> ranked = Lists.newArrayListWithCapacity(ids.size());
+		for ( UUID id : ids ) {
+			final Challenge challenge = byId.get(id);
+			// would only be missing if hard deleted since the index was built
+			if ( challenge != null ) {
+				ranked.add(challenge);
+			}
+		}
+		return ranked;
+	}
+
+	@Override
+	public Challenge create(final Challenge obj) throws ObjectNotFoundException,
+			ValidationException {
+		final Challenge created = super.create(obj);
+		challengeSearchIndex.reindex(created);
+		return created;
+	}
+
+	@Override
+	public Challenge save(final Challenge obj) throws ObjectNotFoundException,
+			ValidationException {
+		final Challenge saved = super.save(obj);
+		challengeSearchIndex.reindex(saved);
+		return saved;
+	}
+
 	@Override
 	public PagingWrapper<Challenge> getAllForCategory(
 			final Category category,
@@ -119,6 +177,10 @@ public class ChallengeServiceImpl extends AbstractReferenceService<Challenge>
 		this.dao = dao;
 	}
 
+	protected void setChallengeSearchIndex(final ChallengeSearchIndex challengeSearchIndex) {
+		this.challengeSearchIndex = challengeSearchIndex;
+	}
+
 	@Override
 	public ChallengeChallengeReferral addChallengeReferralToChallenge(
 			final ChallengeReferral referral, final Challenge challenge) {
@@ -138,6 +200,7 @@ public class ChallengeServiceImpl extends AbstractReferenceService<Challenge>
 
 			challengeReferral = challengeChallengeReferralDao
 					.save(challengeReferral);
+			challengeSearchIndex.invalidate();
 		}
 
 		return challengeReferral;
@@ -162,6 +225,7 @@ public class ChallengeServiceImpl extends AbstractReferenceService<Challenge>
 				// we'll just return the last one
 				challengeReferral = challengeChallengeReferralDao.save(item);
 			}
+			challengeSearchIndex.invalidate();
 		}
 
 		return challengeReferral;
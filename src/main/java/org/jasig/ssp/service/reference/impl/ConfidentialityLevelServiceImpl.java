@@ -21,7 +21,13 @@ package org.jasig.ssp.service.reference.impl;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.apache.commons.collections.ListUtils;
 import org.jasig.ssp.dao.reference.ConfidentialityLevelDao;
@@ -35,9 +41,12 @@ import org.jasig.ssp.util.sort.PagingWrapper;
 import org.jasig.ssp.util.sort.SortingAndPaging;
 import org.jasig.ssp.web.api.validation.ValidationException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import com.google.common.collect.Lists;
 
@@ -47,13 +56,74 @@ public class ConfidentialityLevelServiceImpl extends
 		AbstractReferenceService<ConfidentialityLevel>
 		implements ConfidentialityLevelService {
 
+	public static final long DEFAULT_CACHE_MAX_AGE_MILLIS = 5 * 60 * 1000;
+
 	@Autowired
 	transient private ConfidentialityLevelDao dao;
 
+	/**
+	 * Bounds how long levels edited on another node in a cluster can go
+	 * unnoticed here. Edits made on this node clear the cache right away.
+	 */
+	@Value("#{configProperties.confidentiality_level_cache_max_age_millis}")
+	private long cacheMaxAgeMillis = DEFAULT_CACHE_MAX_AGE_MILLIS;
+
+	/**
+	 * Granted level ids keyed by authority names. Replaced wholesale rather
+	 * than cleared so a lookup already holding the old map can't repopulate
+	 * the new one. A lookup that starts after the swap but before the edit
+	 * commits can still cache what it read, so the map is swapped again
+	 * once the editing transaction completes.
+	 */
+	private volatile ConcurrentMap<Set<String>, Collection<UUID>> levelIdsByAuthorities =
+			new ConcurrentHashMap<Set<String>, Collection<UUID>>();
+
+	private volatile long levelIdsCachedSince = System.currentTimeMillis();
+
 	protected void setDao(final ConfidentialityLevelDao dao) {
 		this.dao = dao;
 	}
 
+	protected void setCacheMaxAgeMillis(final long cacheMaxAgeMillis) {
+		this.cacheMaxAgeMillis = cacheMaxAgeMillis;
+	}
+
+	@Override
+	public ConfidentialityLevel create(final ConfidentialityLevel obj)
+			throws ObjectNotFoundException, ValidationException {
+		final ConfidentialityLevel created = super.create(obj);
+		invalidateLevelIds();
+		return created;
+	}
+
+	/**
+	 * Also covers {@link #delete(UUID)}, which saves the level as inactive.
+	 */
+	@Override
+	public ConfidentialityLevel save(final ConfidentialityLevel obj)
+			throws ObjectNotFoundException, ValidationException {
+		final ConfidentialityLevel saved = super.save(obj);
+		invalidateLevelIds();
+		return saved;
+	}
+
+	private void invalidateLevelIds() {
+		resetLevelIds();
+		if ( TransactionSynchronizationManager.isSynchronizationActive() ) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+				@Override
+				public void afterCompletion(int status) {
+					resetLevelIds();
+				}
+			});
+		}
+	}
+
+	private void resetLevelIds() {
+		levelIdsCachedSince = System.currentTimeMillis();
+		levelIdsByAuthorities = new ConcurrentHashMap<Set<String>, Collection<UUID>>();
+	}
+
 	@Override
 	protected ConfidentialityLevelDao getDao() {
 		return dao;
@@ -144,6 +214,32 @@ public class ConfidentialityLevelServiceImpl extends
 		return filtered;
 	}
 
+	@Override
+	public Collection<UUID> confidentialityLevelIdsFromGrantedAuthorities(
+			final Collection<GrantedAuthority> authorities) {
+		if (cacheMaxAgeMillis >= 0 && System.currentTimeMillis()
+				- levelIdsCachedSince > cacheMaxAgeMillis) {
+			resetLevelIds();
+		}
+		final ConcurrentMap<Set<String>, Collection<UUID>> cache = levelIdsByAuthorities;
+
+		final Set<String> key = new HashSet<String>();
+		for (final GrantedAuthority auth : authorities) {
+			key.add(auth.getAuthority());
+		}
+
+		Collection<UUID> ids = cache.get(key);
+		if (ids == null) {
+			final List<UUID> granted = Lists.newArrayList();
+			for (final ConfidentialityLevel level : filterConfidentialityLevelsFromGrantedAuthorities(authorities)) {
+				granted.add(level.getId());
+			}
+			ids = Collections.unmodifiableList(granted);
+			cache.put(key, ids);
+		}
+		return ids;
+	}
+
 	@Override
 	public Collection<ConfidentialityLevel> confidentialityLevelsForSspUser(
 			final SspUser user) {
@@ -26,14 +26,20 @@ import org.codehaus.plexus.util.StringUtils;
 import org.jasig.ssp.dao.reference.ConfigDao;
 import org.jasig.ssp.model.reference.Config;
 import org.jasig.ssp.service.ObjectNotFoundException;
+import org.jasig.ssp.service.reference.ConfigChangedEvent;
 import org.jasig.ssp.service.reference.ConfigException;
 import org.jasig.ssp.service.reference.ConfigService;
+import org.jasig.ssp.web.api.validation.ValidationException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.ApplicationEventPublisherAware;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 /**
  * Configuration (Config) service implementation
@@ -44,7 +50,7 @@ import org.springframework.transaction.annotation.Transactional;
 @Transactional
 public class ConfigServiceImpl extends
 		AbstractReferenceService<Config>
-		implements ConfigService {
+		implements ConfigService, ApplicationEventPublisherAware {
 
 	@Autowired
 	transient private ConfigDao dao;
@@ -54,6 +60,8 @@ public class ConfigServiceImpl extends
 
 	private ObjectMapper objectMapper = new ObjectMapper();
 
+	private transient ApplicationEventPublisher eventPublisher;
+
 	private static final Logger LOGGER = LoggerFactory
 			.getLogger(ConfigServiceImpl.class);
 
@@ -72,6 +80,36 @@ public class ConfigServiceImpl extends
 		return dao;
 	}
 
+	@Override
+	public void setApplicationEventPublisher(
+			final ApplicationEventPublisher eventPublisher) {
+		this.eventPublisher = eventPublisher;
+	}
+
+	@Override
+	public Config save(final Config obj) throws ObjectNotFoundException,
+			ValidationException {
+		final Config saved = super.save(obj);
+		publishChangeAfterCommit(saved.getName());
+		return saved;
+	}
+
+	private void publishChangeAfterCommit(final String name) {
+		final ConfigChangedEvent event = new ConfigChangedEvent(this, name);
+		if ( TransactionSynchronizationManager.isSynchronizationActive() ) {
+			// listeners will want to read the new value, which they can't
+			// do from another transaction until ours commits
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+				@Override
+				public void afterCommit() {
+					eventPublisher.publishEvent(event);
+				}
+			});
+		} else {
+			eventPublisher.publishEvent(event);
+		}
+	}
+
 	@Override
 	public String getDatabaseConcatOperator() {
 		if (dialect.toLowerCase(Locale.getDefault()).contains("sqlserver")) {
@@ -27,6 +27,8 @@ import java.util.Map;
 import java.util.UUID;
 
 import org.apache.commons.lang.StringUtils;
+import org.apache.velocity.VelocityContext;
+import org.apache.velocity.context.Context;
 import org.jasig.ssp.dao.reference.MessageTemplateDao;
 import org.jasig.ssp.model.AbstractPlan;
 import org.jasig.ssp.model.EarlyAlert;
@@ -48,6 +50,8 @@ import org.jasig.ssp.transferobject.TaskTO;
 import org.jasig.ssp.transferobject.messagetemplate.TaskMessageTemplateTO;
 import org.jasig.ssp.transferobject.reference.AbstractMessageTemplateMapPrintParamsTO;
 import org.jasig.ssp.transferobject.reports.MapStatusReportSummary;
+import org.jasig.ssp.util.collections.Pair;
+import org.jasig.ssp.web.api.validation.ValidationException;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -82,11 +86,29 @@ public class MessageTemplateServiceImpl extends
 		return dao;
 	}
 
+	protected void setVelocityTemplateService(
+			final VelocityTemplateService velocityTemplateService) {
+		this.velocityTemplateService = velocityTemplateService;
+	}
+
+	@Override
+	public MessageTemplate save(final MessageTemplate obj)
+			throws ObjectNotFoundException, ValidationException {
+		final MessageTemplate saved = super.save(obj);
+		// cached parses of earlier versions will never be hit again
+		velocityTemplateService.evict(saved.getId().toString());
+		return saved;
+	}
+
 	@Autowired
 	private transient ConfigService configService;
 
 	private static final String STUDENTUIPATH = "MyGPS";
 
+	private static final long INSTITUTION_CONTEXT_MAX_AGE_MILLIS = 60 * 1000;
+
+	private transient volatile Pair<Long, Context> institutionContext;
+
 	private String getServerExternalPath() {
 		return configService.getByNameNull("serverExternalPath");
 	}
@@ -109,23 +131,42 @@ public class MessageTemplateServiceImpl extends
 		messageParams.put("applicationTitle", getAppTitle());
 		messageParams.put("linkToSSP", getServerExternalPath());
 	}
+
+	/**
+	 * Institution values shared by every template render, looked up at most
+	 * once per {@link #INSTITUTION_CONTEXT_MAX_AGE_MILLIS} rather than once
+	 * per message.
+	 */
+	private Context getInstitutionContext() {
+		final long now = System.currentTimeMillis();
+		Pair<Long, Context> current = institutionContext;
+		if (current == null
+				|| now - current.getFirst() > INSTITUTION_CONTEXT_MAX_AGE_MILLIS) {
+			final Map<String, Object> institutionValues = new HashMap<String, Object>();
+			setInstitutionValues(institutionValues);
+			current = new Pair<Long, Context>(now, new VelocityContext(
+					institutionValues));
+			institutionContext = current;
+		}
+		return current.getSecond();
+	}
 	
 	private SubjectAndBody populateFromTemplate(
 			final UUID messageTemplateId,
 			final Map<String, Object> templateParameters) {
 		try {
-			setInstitutionValues(templateParameters);
+			final Context institutionContext = getInstitutionContext();
 			final MessageTemplate messageTemplate = dao.get(messageTemplateId);
 
 			final String subject = velocityTemplateService
 					.generateContentFromTemplate(messageTemplate.getSubject(),
 							messageTemplate.subjectTemplateId(),
-							templateParameters);
+							templateParameters, institutionContext);
 
 			final String body = velocityTemplateService
 					.generateContentFromTemplate(messageTemplate.getBody(),
 							messageTemplate.bodyTemplateId(),
-							templateParameters);
+							templateParameters, institutionContext);
 
 			return new SubjectAndBody(subject, body);
 		} catch (final ObjectNotFoundException e) {
@@ -407,10 +448,17 @@ public class MessageTemplateServiceImpl extends
 					messageParams);
 	}
 
+	@Override
+	public SubjectAndBody createMessageDigestMessage(
+			final Map<String, Object> messageParams) {
+		return populateFromTemplate(MessageTemplate.MESSAGE_DIGEST_ID,
+				messageParams);
+	}
+
     @Override
     public SubjectAndBody createMyGPSWelcomeMessage () {
+        // institution values come from the shared context
         final Map<String, Object> messageParams = new HashMap<String, Object>();
-        setInstitutionValues(messageParams);
         return populateFromTemplate(MessageTemplate.MYGPS_WELCOME_MESSAGE_ID, messageParams);
     }
 }
\ No newline at end of file
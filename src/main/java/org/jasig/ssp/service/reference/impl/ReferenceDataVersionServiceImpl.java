@@ -0,0 +1,65 @@
+/**
+ * Licensed to Apereo under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work
+ * for additional information regarding copyright ownership.
+ * Apereo licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License.  You may obtain a
+ * copy of the License at the following location:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jasig.ssp.service.reference.impl;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.jasig.ssp.dao.reference.ReferenceDataVersionDao;
+import org.jasig.ssp.model.reference.ReferenceDataVersion;
+import org.jasig.ssp.service.reference.ReferenceDataVersionService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+@Service
+@Transactional(readOnly = true)
+public class ReferenceDataVersionServiceImpl implements
+		ReferenceDataVersionService {
+
+	@Autowired
+	private transient ReferenceDataVersionDao dao;
+
+	private final AtomicLong invalidations = new AtomicLong();
+
+	@Override
+	public ReferenceDataVersion getVersion(final Class<?>... persistentClasses) {
+		return dao.getVersion(persistentClasses);
+	}
+
+	@Override
+	public void invalidate() {
+		invalidations.incrementAndGet();
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager
+					.registerSynchronization(new TransactionSynchronizationAdapter() {
+						@Override
+						public void afterCompletion(final int status) {
+							invalidations.incrementAndGet();
+						}
+					});
+		}
+	}
+
+	@Override
+	public long getInvalidationCount() {
+		return invalidations.get();
+	}
+}
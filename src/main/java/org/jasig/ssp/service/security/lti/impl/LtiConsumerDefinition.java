@@ -0,0 +1,76 @@
+/**
+ * Licensed to Apereo under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work
+ * for additional information regarding copyright ownership.
+ * Apereo licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License.  You may obtain a
+ * copy of the License at the following location:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jasig.ssp.service.security.lti.impl;
+
+import org.jasig.ssp.model.ObjectStatus;
+import org.jasig.ssp.model.security.lti.LtiConsumer;
+
+/**
+ * Immutable copy of the parts of an {@link LtiConsumer} that launch
+ * validation and processing need. Safe to share between threads and to hold
+ * past the Hibernate session the consumer was loaded in, which the entity
+ * itself is not.
+ */
+final class LtiConsumerDefinition {
+
+	private final String consumerKey;
+
+	private final String secret;
+
+	private final ObjectStatus objectStatus;
+
+	private final String ltiUserIdField;
+
+	private final String sspUserIdField;
+
+	private final String ltiSectionCodeField;
+
+	LtiConsumerDefinition(final LtiConsumer consumer) {
+		consumerKey = consumer.getConsumerKey();
+		secret = consumer.getSecret();
+		objectStatus = consumer.getObjectStatus();
+		ltiUserIdField = consumer.getLtiUserIdField();
+		sspUserIdField = consumer.getSspUserIdField();
+		ltiSectionCodeField = consumer.getLtiSectionCodeField();
+	}
+
+	String getConsumerKey() {
+		return consumerKey;
+	}
+
+	String getSecret() {
+		return secret;
+	}
+
+	ObjectStatus getObjectStatus() {
+		return objectStatus;
+	}
+
+	String getLtiUserIdField() {
+		return ltiUserIdField;
+	}
+
+	String getSspUserIdField() {
+		return sspUserIdField;
+	}
+
+	String getLtiSectionCodeField() {
+		return ltiSectionCodeField;
+	}
+}
@@ -44,6 +44,7 @@ import org.jasig.ssp.service.security.lti.ConsumerDetailsDisabledException;
 import org.jasig.ssp.service.security.lti.ConsumerDetailsNotFoundException;
 import org.jasig.ssp.service.security.lti.LtiConsumerService;
 import org.jasig.ssp.transferobject.LtiConsumerTO;
+import org.jasig.ssp.util.transaction.WithTransaction;
 import org.jasig.ssp.web.api.validation.ValidationException;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
@@ -55,13 +56,24 @@ import org.springframework.security.oauth.provider.BaseConsumerDetails;
 import org.springframework.security.oauth.provider.ConsumerDetails;
 import org.springframework.security.oauth.provider.ConsumerDetailsService;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.google.common.collect.MapMaker;
 
 import java.io.UnsupportedEncodingException;
 import java.net.MalformedURLException;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.PostConstruct;
 
 @Service("ltiConsumerService")
 @Transactional
@@ -71,6 +83,10 @@ public class LtiConsumerServiceImpl extends
 
 	private static final String DEFAULT_TARGET = "default";
 
+	private static final int DEFAULT_CACHE_SECONDS = 300;
+
+	private static final int CACHE_MAX_ENTRIES = 1000;
+
 	@Autowired
 	private LtiConsumerTOFactory factory;
 
@@ -86,16 +102,57 @@ public class LtiConsumerServiceImpl extends
 	@Autowired
 	private PersonAttributesService personAttributesService;
 
+	@Autowired
+	private WithTransaction withTransaction;
+
 	@Value("#{configProperties.ssp_platform_sso_ticket_service_shared_secret}")
 	private String sharedSsoSecret;
 
+	@Value("#{configProperties.lti_consumer_cache_seconds}")
+	private int cacheSeconds = DEFAULT_CACHE_SECONDS;
+
+	/**
+	 * Consumers by consumer key, so that validating an LTI launch doesn't cost
+	 * a database read. Edits made through this service clear it; edits made on
+	 * another node in a cluster reach this one after at most
+	 * {@code lti_consumer_cache_seconds}. Null when caching is turned off.
+	 */
+	private ConcurrentMap<String, LtiConsumerDefinition> definitions;
+
+	private final AtomicLong invalidations = new AtomicLong();
+
 	private static String SSP_ROSTER_CLASS_IDENTIFIER = "sectionCode";
 
+	@PostConstruct
+	public void init() {
+		definitions = cacheSeconds > 0
+				? new MapMaker().maximumSize(CACHE_MAX_ENTRIES)
+						.expireAfterWrite(cacheSeconds, TimeUnit.SECONDS)
+						.<String, LtiConsumerDefinition> makeMap()
+				: null;
+	}
+
 	@Override
 	protected LtiConsumerDao getDao() {
 		return ltiConsumerDao;
 	}
 
+	protected void setDao(final LtiConsumerDao ltiConsumerDao) {
+		this.ltiConsumerDao = ltiConsumerDao;
+	}
+
+	protected void setFactory(final LtiConsumerTOFactory factory) {
+		this.factory = factory;
+	}
+
+	protected void setWithTransaction(final WithTransaction withTransaction) {
+		this.withTransaction = withTransaction;
+	}
+
+	protected void setCacheSeconds(final int cacheSeconds) {
+		this.cacheSeconds = cacheSeconds;
+	}
+
 	/**
 	 * Overridden to throw an {@link UnsupportedOperationException}. Use
 	 * {@link #create(org.jasig.ssp.transferobject.LtiConsumerTO)} so the
@@ -132,21 +189,31 @@ public class LtiConsumerServiceImpl extends
 	public LtiConsumer create(LtiConsumerTO obj)
 			throws ObjectNotFoundException, ValidationException {
 		final LtiConsumer model = factory.from(obj);
-		return super.create(model);
+		final LtiConsumer created = super.create(model);
+		invalidateDefinitions();
+		return created;
 	}
 
 	@Override
 	public LtiConsumer save(LtiConsumerTO obj) throws ObjectNotFoundException {
-		return getDao().save(factory.from(obj));
+		final LtiConsumer saved = getDao().save(factory.from(obj));
+		// the consumer key itself may have changed, so forget every key
+		invalidateDefinitions();
+		return saved;
 	}
 
+	/**
+	 * Runs on every launch, so serves from the definition cache and only
+	 * opens a transaction when it has to go to the database.
+	 */
 	@Override
+	@Transactional(propagation = Propagation.SUPPORTS)
 	public ConsumerDetails loadConsumerByConsumerKey(String consumerKey) throws OAuthException {
 		// ConsumerDetailsService contract requires that this method must
 		// not return null. All failures must be represented by OAuthException.
-		final LtiConsumer consumer;
+		final LtiConsumerDefinition consumer;
 		try {
-			consumer = findByConsumerKey(consumerKey);
+			consumer = findDefinitionByConsumerKey(consumerKey);
 			if ( consumer == null ) {
 				throw new ObjectNotFoundException(consumerKey, LtiConsumer.class.getName());
 			}
@@ -190,8 +257,52 @@ public class LtiConsumerServiceImpl extends
 
 	}
 
-	private LtiConsumer findByConsumerKey(String consumerKey) {
-		return getDao().findByConsumerKey(consumerKey);
+	private LtiConsumerDefinition findDefinitionByConsumerKey(final String consumerKey) {
+		if ( definitions == null || StringUtils.isBlank(consumerKey) ) {
+			return loadDefinition(consumerKey);
+		}
+		final LtiConsumerDefinition cached = definitions.get(consumerKey);
+		if ( cached != null ) {
+			return cached;
+		}
+		final long invalidationsBefore = invalidations.get();
+		final LtiConsumerDefinition loaded = loadDefinition(consumerKey);
+		// unknown keys aren't remembered, so a consumer created on another
+		// node is usable here right away
+		if ( loaded != null && invalidations.get() == invalidationsBefore ) {
+			definitions.put(consumerKey, loaded);
+		}
+		return loaded;
+	}
+
+	private LtiConsumerDefinition loadDefinition(final String consumerKey) {
+		return withTransaction.withTransactionAndUncheckedExceptions(
+				new Callable<LtiConsumerDefinition>() {
+			@Override
+			public LtiConsumerDefinition call() throws Exception {
+				final LtiConsumer consumer = getDao().findByConsumerKey(consumerKey);
+				return consumer == null ? null : new LtiConsumerDefinition(consumer);
+			}
+		});
+	}
+
+	private void invalidateDefinitions() {
+		if ( definitions == null ) {
+			return;
+		}
+		invalidations.incrementAndGet();
+		definitions.clear();
+		if ( TransactionSynchronizationManager.isSynchronizationActive() ) {
+			// a launch racing with the edit can still read and cache the old
+			// row until our transaction commits, so clear again once it has
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+				@Override
+				public void afterCompletion(int status) {
+					invalidations.incrementAndGet();
+					definitions.clear();
+				}
+			});
+		}
 	}
 
 	@Override
@@ -205,9 +316,9 @@ public class LtiConsumerServiceImpl extends
 		}
 
 		final String authenticatedUsername = sspUser.getUsername();
-		final LtiConsumer client;
+		final LtiConsumerDefinition client;
 		try {
-			client = findByConsumerKey(authenticatedUsername);
+			client = findDefinitionByConsumerKey(authenticatedUsername);
 			if ( client == null ) {
 				throw new ObjectNotFoundException(authenticatedUsername, LtiConsumer.class.getName());
 			}
@@ -237,7 +348,7 @@ public class LtiConsumerServiceImpl extends
 		return launchResponse;
 	}
 
-	private String findUser(LtiLaunchRequest launchRequest, LtiConsumer client)
+	private String findUser(LtiLaunchRequest launchRequest, LtiConsumerDefinition client)
 			throws UserNotEnabledException, PersonAttributesSearchException {
 
 		final String userId = launchRequest.getParameters().get(
@@ -338,7 +449,7 @@ public class LtiConsumerServiceImpl extends
 		return url;
 	}
 
-	private Map<String, String> getParametersConversions(LtiConsumer client) {
+	private Map<String, String> getParametersConversions(LtiConsumerDefinition client) {
 		Map<String, String> conversions = new HashMap<String, String>();
 		conversions.put(client.getLtiUserIdField(), client.getSspUserIdField());
 		conversions.put(client.getLtiSectionCodeField(),
@@ -0,0 +1,95 @@
+/**
+ * Licensed to Apereo under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work
+ * for additional information regarding copyright ownership.
+ * Apereo licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License.  You may obtain a
+ * copy of the License at the following location:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jasig.ssp.service.security.oauth.impl;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * In-memory record of the consumer key + timestamp + nonce triples seen
+ * within the accepted timestamp window, bucketed by timestamp second. Since
+ * a nonce only has to be remembered for as long as its timestamp is
+ * acceptable, expiring a whole second's worth of nonces is just dropping
+ * the oldest bucket.
+ */
+class OAuth1NonceWindow {
+
+	private final ConcurrentNavigableMap<Long, Set<String>> buckets =
+			new ConcurrentSkipListMap<Long, Set<String>>();
+
+	/**
+	 * @return false if the triple had already been recorded, i.e. this is a
+	 *         replay
+	 */
+	boolean add(final String consumerKey, final long timestamp,
+			final String nonce) {
+		Set<String> bucket = buckets.get(timestamp);
+		if (bucket == null) {
+			final Set<String> created = Collections
+					.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+			bucket = buckets.putIfAbsent(timestamp, created);
+			if (bucket == null) {
+				bucket = created;
+			}
+		}
+		return bucket.add(key(consumerKey, nonce));
+	}
+
+	void remove(final String consumerKey, final long timestamp,
+			final String nonce) {
+		final Set<String> bucket = buckets.get(timestamp);
+		if (bucket != null) {
+			bucket.remove(key(consumerKey, nonce));
+		}
+	}
+
+	/**
+	 * Drops every bucket for timestamps before the given one.
+	 * 
+	 * @return how many nonces were dropped
+	 */
+	int removeEarlierThan(final long cutoff) {
+		int removed = 0;
+		Map.Entry<Long, Set<String>> oldest;
+		while ((oldest = buckets.firstEntry()) != null
+				&& oldest.getKey() < cutoff) {
+			if (buckets.remove(oldest.getKey(), oldest.getValue())) {
+				removed += oldest.getValue().size();
+			}
+		}
+		return removed;
+	}
+
+	int size() {
+		int size = 0;
+		for (final Set<String> bucket : buckets.values()) {
+			size += bucket.size();
+		}
+		return size;
+	}
+
+	private String key(final String consumerKey, final String nonce) {
+		// length prefix so no key/nonce split can collide with another
+		return consumerKey.length() + ":" + consumerKey + nonce;
+	}
+}
@@ -18,15 +18,19 @@
  */
 package org.jasig.ssp.service.security.oauth.impl;
 
+import java.util.concurrent.Callable;
+
+import org.apache.commons.lang.StringUtils;
 import org.hibernate.exception.ConstraintViolationException;
 import org.jasig.ssp.dao.security.oauth.OAuth1NonceDao;
 import org.jasig.ssp.model.security.oauth.OAuth1Nonce;
 import org.jasig.ssp.service.reference.ConfigService;
 import org.jasig.ssp.service.security.oauth.OAuth1NonceServiceMaintenance;
+import org.jasig.ssp.util.transaction.WithTransaction;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.authentication.AuthenticationServiceException;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.InternalAuthenticationServiceException;
 import org.springframework.security.core.AuthenticationException;
 import org.springframework.security.oauth.common.OAuthException;
@@ -37,8 +41,16 @@ import org.springframework.security.oauth.provider.verifier.VerificationFailedEx
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+/**
+ * Nonces are checked against an in-memory {@link OAuth1NonceWindow} covering
+ * the accepted timestamp window. The {@code oauth_nonce} table is written as
+ * well only when {@code oauth1_nonce_persistent_backstop} is on, which it
+ * needs to be when several nodes share the same consumers: its primary key
+ * is what catches a replay sent to a different node. Either way nothing is
+ * read from it, and a replay seen by this node is refused without touching
+ * the database.
+ */
 @Service("oAuth1PersistentNonceService")
-@Transactional
 public class OAuth1PersistentNonceServiceImpl extends ExpiringTimestampNonceServices
 		implements OAuth1NonceServiceMaintenance {
 
@@ -47,94 +59,142 @@ public class OAuth1PersistentNonceServiceImpl extends ExpiringTimestampNonceServ
 
 	private static final String TIMESTAMP_EXPIRY_CONFIG = "lti_oauth_timestamp_expiry_seconds";
 
+	private static final long CONFIG_REFRESH_MILLIS = 60 * 1000;
+
 	@Autowired
 	private ConfigService configService;
 
 	@Autowired
 	private OAuth1NonceDao oAuth1NonceDao;
 
+	@Autowired
+	private WithTransaction withTransaction;
+
+	@Value("#{configProperties.oauth1_nonce_persistent_backstop}")
+	private boolean persistentBackstop = true;
+
+	private final OAuth1NonceWindow nonceWindow = new OAuth1NonceWindow();
+
+	private volatile long configuredAtMillis;
+
 	@Override
 	public void validateNonce(ConsumerDetails consumerDetails, long timestamp, String nonce)
 			throws AuthenticationException {
 		// public entry points to this service have to make sure to grab
-		// the latest config
-		configureTimestampExpiry();
+		// reasonably fresh config, but not at the cost of a config query
+		// per signed request
+		if ( System.currentTimeMillis() - configuredAtMillis > CONFIG_REFRESH_MILLIS ) {
+			configureTimestampExpiry();
+		}
 		// this actually only validates the timestamp, not the nonce
 		super.validateNonce(consumerDetails, timestamp, nonce);
 		// the actual nonce validation
-		validatePersistentNonce(consumerDetails, timestamp, nonce);
+		validateWindowedNonce(consumerDetails, timestamp, nonce);
 	}
 
-	private void validatePersistentNonce(final ConsumerDetails consumerDetails, final long timestamp,
-										 final String nonce) throws OAuthException {
+	private void validateWindowedNonce(final ConsumerDetails consumerDetails, final long timestamp,
+									   final String nonce) throws OAuthException {
 
 		// NB the OAuth1 spec says that a nonce can be reused within the expiry window, it's just
 		// that a nonce cannot be reused for the same consumer+timestamp pair. So yes, we could
 		// techincally receive the same nonce for the same consumer several times and that's not
 		// considered a replay attack.
-		final OAuth1Nonce existingNonce;
+		final String consumerKey = consumerDetails.getConsumerKey();
+		if ( StringUtils.isBlank(nonce) || StringUtils.isBlank(consumerKey) ) {
+			throw new VerificationFailedException(nonceDescription(new StringBuilder("Invalid nonce content: "),
+					consumerDetails, timestamp, nonce).toString());
+		}
+
+		final long now = System.currentTimeMillis() / 1000;
+		nonceWindow.removeEarlierThan(now - getValidityWindowSeconds());
+
+		if ( timestamp > now + getValidityWindowSeconds() ) {
+			// Timestamps aren't checked for being in the future, and holding one this far ahead
+			// in memory until it expires isn't worth it for what should be a rare clock problem
+			savePersistentNonce(consumerDetails, timestamp, nonce);
+			return;
+		}
+
+		if ( !(nonceWindow.add(consumerKey, timestamp, nonce)) ) {
+			// consumerkey+timestamp+nonce is being reused. At this point in the code path, it
+			// doesn't matter whether timestamp is within or without the expiry window: the OAuth1 spec
+			// does not allow consumerkey+timestamp+nonce reuse, period. You just get a special exemption
+			// from tracking infinitely many nonce records so long as you enforce timestamp expiry, which
+			// in our case should have already happened in super.validateNonce().
+			throw new NonceAlreadyUsedException(nonceAlreadyUsedMessageStr(consumerDetails, timestamp, nonce));
+		}
+
+		if ( !(persistentBackstop) ) {
+			return;
+		}
+
 		try {
-			existingNonce = oAuth1NonceDao.get(consumerDetails.getConsumerKey(), timestamp, nonce);
-		} catch ( AuthenticationException e ) {
+			savePersistentNonce(consumerDetails, timestamp, nonce);
+		} catch ( NonceAlreadyUsedException e ) {
+			// used on another node, so still used as far as this one is concerned
 			throw e;
 		} catch ( RuntimeException e ) {
-			// System failure. But representing it as an AuthenticationExcepiton subclass ensures
-			// our SpringSecurity exception handling is triggered.
-			final String message = nonceDescription(new StringBuilder("Nonce lookup failed: "),
-					consumerDetails, timestamp, nonce).toString();
-			throw new AuthenticationServiceException(message, e);
+			// not rejected as a replay, so a retry of the same request should get another chance
+			nonceWindow.remove(consumerKey, timestamp, nonce);
+			throw e;
 		}
+	}
 
-		if ( existingNonce == null ) {
-
-			// We have a PK on consumer key + timestamp + nonce that prevents strictly-defined replays
-			try {
-				oAuth1NonceDao.save(new OAuth1Nonce(consumerDetails.getConsumerKey(), timestamp, nonce));
-			} catch ( ConstraintViolationException e ) {
-				if ( e.getConstraintName().equalsIgnoreCase("pk_oauth_nonce") ) {
-					final String message = nonceAlreadyUsedMessageStr(consumerDetails, timestamp, nonce);
-					// Log original exception here *and* rethrow since NonceAlreadyUsedException doesn't
-					// allow nesting. Only 'info' b/c this isn't actually a system error...
-					// this is a business rule issue that's being handled.
-					LOGGER.info(message, e);
-					throw new NonceAlreadyUsedException(message);
-				} else {
-					// Probably a length/nullity volation or similar. No need to be too detailed,
-					// but it's not an "already used" problem.
-					final String message = nonceDescription(new StringBuilder("Invalid nonce content: "),
-							consumerDetails, timestamp, nonce).toString();
-					// Log original exception here *and* rethrow since VerificationFailedException doesn't
-					// allow nesting. Only 'info' b/c this isn't actually a system error...
-					// this is a business rule issue that's being handled.
-					LOGGER.info(message, e);
-					throw new VerificationFailedException(message);
-				}
-			} catch ( AuthenticationException e ) {
-				throw e;
-			} catch ( RuntimeException e ) {
-				final String message = nonceDescription(new StringBuilder("Nonce storage failed: "),
-						consumerDetails, timestamp, nonce).toString();
-				throw new InternalAuthenticationServiceException(message, e);
+	private void savePersistentNonce(final ConsumerDetails consumerDetails, final long timestamp,
+									 final String nonce) throws OAuthException {
+		withTransaction.withTransactionAndUncheckedExceptions(new Callable<Void>() {
+			@Override
+			public Void call() throws Exception {
+				doSavePersistentNonce(consumerDetails, timestamp, nonce);
+				return null;
 			}
+		});
+	}
 
-			return;
-		}
-
-		// Otherwise consumerkey+timestamp+nonce is being reused. At this point in the code path, it
-		// doesn't matter whether timestamp is within or without the expiry window: the OAuth1 spec
-		// does not allow consumerkey+timestamp+nonce reuse, period. You just get a special exemption
-		// from tracking infinitely many nonce records so long as you enforce timestamp expiry, which
-		// in our case should have already happened in super.validateNonce().
-		throw new NonceAlreadyUsedException(nonceAlreadyUsedMessageStr(consumerDetails, timestamp, nonce));
+	private void doSavePersistentNonce(final ConsumerDetails consumerDetails, final long timestamp,
+									   final String nonce) throws OAuthException {
 
+		// We have a PK on consumer key + timestamp + nonce that prevents strictly-defined replays,
+		// including ones sent to other nodes. No need to look first: the insert fails for those.
+		try {
+			oAuth1NonceDao.save(new OAuth1Nonce(consumerDetails.getConsumerKey(), timestamp, nonce));
+		} catch ( ConstraintViolationException e ) {
+			if ( e.getConstraintName().equalsIgnoreCase("pk_oauth_nonce") ) {
+				final String message = nonceAlreadyUsedMessageStr(consumerDetails, timestamp, nonce);
+				// Log original exception here *and* rethrow since NonceAlreadyUsedException doesn't
+				// allow nesting. Only 'info' b/c this isn't actually a system error...
+				// this is a business rule issue that's being handled.
+				LOGGER.info(message, e);
+				throw new NonceAlreadyUsedException(message);
+			} else {
+				// Probably a length/nullity volation or similar. No need to be too detailed,
+				// but it's not an "already used" problem.
+				final String message = nonceDescription(new StringBuilder("Invalid nonce content: "),
+						consumerDetails, timestamp, nonce).toString();
+				// Log original exception here *and* rethrow since VerificationFailedException doesn't
+				// allow nesting. Only 'info' b/c this isn't actually a system error...
+				// this is a business rule issue that's being handled.
+				LOGGER.info(message, e);
+				throw new VerificationFailedException(message);
+			}
+		} catch ( AuthenticationException e ) {
+			throw e;
+		} catch ( RuntimeException e ) {
+			final String message = nonceDescription(new StringBuilder("Nonce storage failed: "),
+					consumerDetails, timestamp, nonce).toString();
+			throw new InternalAuthenticationServiceException(message, e);
+		}
 	}
 
 	@Override
+	@Transactional
 	public void removeExpired () {
 		// public entry points to this service have to make sure to grab
 		// the latest config
 		configureTimestampExpiry();
 		LOGGER.info("Removing expired OAuth nonces.");
+		final int windowedCnt = nonceWindow.removeEarlierThan(getExpiryCutoff());
+		LOGGER.info("Removed {} expired OAuth nonces from memory.", windowedCnt);
 		final int deletedCnt = oAuth1NonceDao.deleteWithTimestampEarlierThan(getExpiryCutoff());
 		LOGGER.info("Removed {} expired OAuth nonces.", deletedCnt);
 	}
@@ -145,6 +205,7 @@ public class OAuth1PersistentNonceServiceImpl extends ExpiringTimestampNonceServ
 		// private calls
 		setValidityWindowSeconds(configService.
 				getByNameExceptionOrDefaultAsInt(TIMESTAMP_EXPIRY_CONFIG));
+		configuredAtMillis = System.currentTimeMillis();
 	}
 
 	private long getExpiryCutoff() {
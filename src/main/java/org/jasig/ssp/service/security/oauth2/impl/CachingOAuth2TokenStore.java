@@ -0,0 +1,252 @@
+/**
+ * Licensed to Apereo under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work
+ * for additional information regarding copyright ownership.
+ * Apereo licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License.  You may obtain a
+ * copy of the License at the following location:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jasig.ssp.service.security.oauth2.impl;
+
+import java.util.Collection;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.PostConstruct;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.oauth2.common.OAuth2AccessToken;
+import org.springframework.security.oauth2.common.OAuth2RefreshToken;
+import org.springframework.security.oauth2.common.util.SerializationUtils;
+import org.springframework.security.oauth2.provider.OAuth2Authentication;
+import org.springframework.security.oauth2.provider.token.TokenStore;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.google.common.collect.MapMaker;
+
+/**
+ * Read-through cache of access tokens and their authentications in front of
+ * {@link TransactionalOAuth2TokenStore}, so that validating the token on
+ * every API call an OAuth2 client makes doesn't cost a transaction and two
+ * token table reads. Deliberately not transactional itself: a cache hit
+ * never touches the database.
+ *
+ * <p>Entries are dropped when their token is stored again or removed (which
+ * is how revocation and expiry clean-up reach the store), both before and
+ * after the write is committed, and served tokens
+ * are checked for expiry so the caller sees and removes them as before.
+ * Removals only reach this node's cache, so a token revoked on another node
+ * in a cluster can stay usable here for up to
+ * {@code oauth2_token_cache_seconds}.</p>
+ *
+ * <p>Values are held in serialized form, the same way the physical store
+ * holds them, so each caller gets its own copy to work with.</p>
+ */
+@Service
+public class CachingOAuth2TokenStore implements TokenStore {
+
+	public static final int DEFAULT_CACHE_SECONDS = 60;
+
+	public static final int DEFAULT_CACHE_MAX_ENTRIES = 10000;
+
+	@Autowired
+	@Qualifier("transactionalOAuth2TokenStore")
+	private TokenStore delegateTokenStore;
+
+	@Value("#{configProperties.oauth2_token_cache_seconds}")
+	private int cacheSeconds = DEFAULT_CACHE_SECONDS;
+
+	@Value("#{configProperties.oauth2_token_cache_max_entries}")
+	private int cacheMaxEntries = DEFAULT_CACHE_MAX_ENTRIES;
+
+	private ConcurrentMap<String, CachedToken> cache;
+
+	/**
+	 * Bumped by every eviction, before and after the write, so a read that
+	 * raced a removal doesn't put back what it read before it committed.
+	 */
+	private final AtomicLong removals = new AtomicLong();
+
+	private static class CachedToken {
+		private final byte[] token;
+		private volatile byte[] authentication;
+
+		CachedToken(final OAuth2AccessToken token) {
+			this.token = SerializationUtils.serialize(token);
+		}
+	}
+
+	@PostConstruct
+	public void init() {
+		cache = cacheSeconds > 0 && cacheMaxEntries > 0
+				? new MapMaker().maximumSize(cacheMaxEntries)
+						.expireAfterWrite(cacheSeconds, TimeUnit.SECONDS)
+						.<String, CachedToken> makeMap()
+				: null;
+	}
+
+	@Override
+	public OAuth2AccessToken readAccessToken(String tokenValue) {
+		if (cache == null) {
+			return delegateTokenStore.readAccessToken(tokenValue);
+		}
+		final CachedToken cached = cache.get(tokenValue);
+		if (cached != null) {
+			final OAuth2AccessToken token = SerializationUtils
+					.deserialize(cached.token);
+			if (token.isExpired()) {
+				// caller is expected to remove it, which goes to the delegate
+				cache.remove(tokenValue);
+			}
+			return token;
+		}
+		final long removalsBefore = removals.get();
+		final OAuth2AccessToken token = delegateTokenStore
+				.readAccessToken(tokenValue);
+		if (token != null && !(token.isExpired())
+				&& removals.get() == removalsBefore) {
+			cache.put(tokenValue, new CachedToken(token));
+		}
+		return token;
+	}
+
+	@Override
+	public OAuth2Authentication readAuthentication(OAuth2AccessToken token) {
+		return readAuthentication(token.getValue());
+	}
+
+	@Override
+	public OAuth2Authentication readAuthentication(String token) {
+		if (cache == null) {
+			return delegateTokenStore.readAuthentication(token);
+		}
+		final CachedToken cached = cache.get(token);
+		if (cached != null && cached.authentication != null) {
+			return SerializationUtils.deserialize(cached.authentication);
+		}
+		final long removalsBefore = removals.get();
+		final OAuth2Authentication authentication = delegateTokenStore
+				.readAuthentication(token);
+		// only kept alongside a cached token, so dropping that drops both
+		if (cached != null && authentication != null
+				&& removals.get() == removalsBefore) {
+			cached.authentication = SerializationUtils
+					.serialize(authentication);
+		}
+		return authentication;
+	}
+
+	@Override
+	public void storeAccessToken(OAuth2AccessToken token, OAuth2Authentication authentication) {
+		evict(token.getValue());
+		delegateTokenStore.storeAccessToken(token, authentication);
+		evictOnceWritten(token.getValue());
+	}
+
+	@Override
+	public void removeAccessToken(OAuth2AccessToken token) {
+		evict(token.getValue());
+		delegateTokenStore.removeAccessToken(token);
+		evictOnceWritten(token.getValue());
+	}
+
+	@Override
+	public void removeAccessTokenUsingRefreshToken(OAuth2RefreshToken refreshToken) {
+		// which access token that is isn't known without asking the delegate
+		evict(null);
+		delegateTokenStore.removeAccessTokenUsingRefreshToken(refreshToken);
+		evictOnceWritten(null);
+	}
+
+	/**
+	 * Drops the given token, or every token if {@code null}, and makes any
+	 * read already in flight skip caching what it read.
+	 */
+	private void evict(String tokenValue) {
+		removals.incrementAndGet();
+		if (cache == null) {
+			return;
+		}
+		if (tokenValue == null) {
+			cache.clear();
+		} else {
+			cache.remove(tokenValue);
+		}
+	}
+
+	/**
+	 * A read starting between the first {@link #evict(String)} and the
+	 * delegate's commit still sees the old row and may cache it, so evict
+	 * again once the write is visible: right away if the delegate committed
+	 * on its own, or when the caller's transaction completes.
+	 */
+	private void evictOnceWritten(final String tokenValue) {
+		evict(tokenValue);
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+				@Override
+				public void afterCompletion(int status) {
+					evict(tokenValue);
+				}
+			});
+		}
+	}
+
+	@Override
+	public void storeRefreshToken(OAuth2RefreshToken refreshToken, OAuth2Authentication authentication) {
+		delegateTokenStore.storeRefreshToken(refreshToken, authentication);
+	}
+
+	@Override
+	public OAuth2RefreshToken readRefreshToken(String tokenValue) {
+		return delegateTokenStore.readRefreshToken(tokenValue);
+	}
+
+	@Override
+	public OAuth2Authentication readAuthenticationForRefreshToken(OAuth2RefreshToken token) {
+		return delegateTokenStore.readAuthenticationForRefreshToken(token);
+	}
+
+	@Override
+	public void removeRefreshToken(OAuth2RefreshToken token) {
+		delegateTokenStore.removeRefreshToken(token);
+	}
+
+	@Override
+	public OAuth2AccessToken getAccessToken(OAuth2Authentication authentication) {
+		return delegateTokenStore.getAccessToken(authentication);
+	}
+
+	@Override
+	public Collection<OAuth2AccessToken> findTokensByUserName(String userName) {
+		return delegateTokenStore.findTokensByUserName(userName);
+	}
+
+	@Override
+	public Collection<OAuth2AccessToken> findTokensByClientId(String clientId) {
+		return delegateTokenStore.findTokensByClientId(clientId);
+	}
+
+	protected void setDelegateTokenStore(final TokenStore delegateTokenStore) {
+		this.delegateTokenStore = delegateTokenStore;
+	}
+
+	protected void setCacheSeconds(final int cacheSeconds) {
+		this.cacheSeconds = cacheSeconds;
+	}
+}
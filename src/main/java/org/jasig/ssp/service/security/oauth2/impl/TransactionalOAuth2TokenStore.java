@@ -40,6 +40,8 @@ import org.springframework.transaction.annotation.Transactional;
  * {@code OAuth2Client} field, but that's <em>probably</em> OK as long as the
  * "core" SpSec OAuth2 call paths, which should be separate stacks from our
  * service calls, get the proper isolation.
+ *
+ * <p>Normally reached through {@link CachingOAuth2TokenStore}.</p>
  */
 @Service
 @Transactional(isolation = Isolation.REPEATABLE_READ)
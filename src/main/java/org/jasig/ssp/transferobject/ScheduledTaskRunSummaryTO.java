@@ -0,0 +1,195 @@
+/**
+ * Licensed to Apereo under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work
+ * for additional information regarding copyright ownership.
+ * Apereo licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License.  You may obtain a
+ * copy of the License at the following location:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jasig.ssp.transferobject;
+
+import java.io.Serializable;
+import java.util.Date;
+
+/**
+ * Aggregate view of a scheduled task's most recent runs. Durations are in
+ * milliseconds; percentiles use the nearest-rank method.
+ */
+public class ScheduledTaskRunSummaryTO implements Serializable {
+
+	private static final long serialVersionUID = 4388513815651093391L;
+
+	private String taskName;
+
+	private int runs;
+
+	private int completed;
+
+	private int failed;
+
+	private int interrupted;
+
+	private Date lastStartDate;
+
+	private long lastDurationMillis;
+
+	private long meanDurationMillis;
+
+	private long p50DurationMillis;
+
+	private long p90DurationMillis;
+
+	private long p99DurationMillis;
+
+	private long maxDurationMillis;
+
+	private long itemsProcessed;
+
+	private long failures;
+
+	/**
+	 * Items per second over the sampled runs that reported items, null if
+	 * none did.
+	 */
+	private Double itemsPerSecond;
+
+	public ScheduledTaskRunSummaryTO() {
+		super();
+	}
+
+	public ScheduledTaskRunSummaryTO(final String taskName) {
+		super();
+		this.taskName = taskName;
+	}
+
+	public String getTaskName() {
+		return taskName;
+	}
+
+	public void setTaskName(final String taskName) {
+		this.taskName = taskName;
+	}
+
+	public int getRuns() {
+		return runs;
+	}
+
+	public void setRuns(final int runs) {
+		this.runs = runs;
+	}
+
+	public int getCompleted() {
+		return completed;
+	}
+
+	public void setCompleted(final int completed) {
+		this.completed = completed;
+	}
+
+	public int getFailed() {
+		return failed;
+	}
+
+	public void setFailed(final int failed) {
+		this.failed = failed;
+	}
+
+	public int getInterrupted() {
+		return interrupted;
+	}
+
+	public void setInterrupted(final int interrupted) {
+		this.interrupted = interrupted;
+	}
+
+	public Date getLastStartDate() {
+		return lastStartDate == null ? null : new Date(lastStartDate.getTime());
+	}
+
+	public void setLastStartDate(final Date lastStartDate) {
+		this.lastStartDate = lastStartDate == null ? null : new Date(
+				lastStartDate.getTime());
+	}
+
+	public long getLastDurationMillis() {
+		return lastDurationMillis;
+	}
+
+	public void setLastDurationMillis(final long lastDurationMillis) {
+		this.lastDurationMillis = lastDurationMillis;
+	}
+
+	public long getMeanDurationMillis() {
+		return meanDurationMillis;
+	}
+
+	public void setMeanDurationMillis(final long meanDurationMillis) {
+		this.meanDurationMillis = meanDurationMillis;
+	}
+
+	public long getP50DurationMillis() {
+		return p50DurationMillis;
+	}
+
+	public void setP50DurationMillis(final long p50DurationMillis) {
+		this.p50DurationMillis = p50DurationMillis;
+	}
+
+	public long getP90DurationMillis() {
+		return p90DurationMillis;
+	}
+
+	public void setP90DurationMillis(final long p90DurationMillis) {
+		this.p90DurationMillis = p90DurationMillis;
+	}
+
+	public long getP99DurationMillis() {
+		return p99DurationMillis;
+	}
+
+	public void setP99DurationMillis(final long p99DurationMillis) {
+		this.p99DurationMillis = p99DurationMillis;
+	}
+
+	public long getMaxDurationMillis() {
+		return maxDurationMillis;
+	}
+
+	public void setMaxDurationMillis(final long maxDurationMillis) {
+		this.maxDurationMillis = maxDurationMillis;
+	}
+
+	public long getItemsProcessed() {
+		return itemsProcessed;
+	}
+
+	public void setItemsProcessed(final long itemsProcessed) {
+		this.itemsProcessed = itemsProcessed;
+	}
+
+	public long getFailures() {
+		return failures;
+	}
+
+	public void setFailures(final long failures) {
+		this.failures = failures;
+	}
+
+	public Double getItemsPerSecond() {
+		return itemsPerSecond;
+	}
+
+	public void setItemsPerSecond(final Double itemsPerSecond) {
+		this.itemsPerSecond = itemsPerSecond;
+	}
+}
@@ -0,0 +1,160 @@
+/**
+ * Licensed to Apereo under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work
+ * for additional information regarding copyright ownership.
+ * Apereo licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License.  You may obtain a
+ * copy of the License at the following location:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jasig.ssp.transferobject;
+
+import java.io.Serializable;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+
+import org.jasig.ssp.model.ScheduledTaskRun;
+import org.jasig.ssp.model.ScheduledTaskStatus;
+
+import com.google.common.collect.Lists;
+
+public class ScheduledTaskRunTO implements TransferObject<ScheduledTaskRun>,
+		Serializable {
+
+	private static final long serialVersionUID = -2870566270949870473L;
+
+	private UUID id;
+
+	private String taskName;
+
+	private String node;
+
+	private Date startDate;
+
+	private Date endDate;
+
+	private long durationMillis;
+
+	private Long itemsProcessed;
+
+	private long failures;
+
+	private ScheduledTaskStatus outcome;
+
+	public ScheduledTaskRunTO() {
+		super();
+	}
+
+	public ScheduledTaskRunTO(final ScheduledTaskRun model) {
+		super();
+		from(model);
+	}
+
+	@Override
+	public final void from(final ScheduledTaskRun model) {
+		id = model.getId();
+		taskName = model.getTaskName();
+		node = model.getNode();
+		startDate = model.getStartDate();
+		endDate = model.getEndDate();
+		durationMillis = model.getDurationMillis();
+		itemsProcessed = model.getItemsProcessed();
+		failures = model.getFailures();
+		outcome = model.getOutcome();
+	}
+
+	public static List<ScheduledTaskRunTO> toTOList(
+			final Collection<ScheduledTaskRun> models) {
+		final List<ScheduledTaskRunTO> tObjects = Lists.newArrayList();
+		if (null != models) {
+			for (final ScheduledTaskRun model : models) {
+				tObjects.add(new ScheduledTaskRunTO(model)); // NOPMD
+			}
+		}
+		return tObjects;
+	}
+
+	public UUID getId() {
+		return id;
+	}
+
+	public void setId(final UUID id) {
+		this.id = id;
+	}
+
+	public String getTaskName() {
+		return taskName;
+	}
+
+	public void setTaskName(final String taskName) {
+		this.taskName = taskName;
+	}
+
+	public String getNode() {
+		return node;
+	}
+
+	public void setNode(final String node) {
+		this.node = node;
+	}
+
+	public Date getStartDate() {
+		return startDate == null ? null : new Date(startDate.getTime());
+	}
+
+	public void setStartDate(final Date startDate) {
+		this.startDate = startDate == null ? null : new Date(
+				startDate.getTime());
+	}
+
+	public Date getEndDate() {
+		return endDate == null ? null : new Date(endDate.getTime());
+	}
+
+	public void setEndDate(final Date endDate) {
+		this.endDate = endDate == null ? null : new Date(endDate.getTime());
+	}
+
+	public long getDurationMillis() {
+		return durationMillis;
+	}
+
+	public void setDurationMillis(final long durationMillis) {
+		this.durationMillis = durationMillis;
+	}
+
+	public Long getItemsProcessed() {
+		return itemsProcessed;
+	}
+
+	public void setItemsProcessed(final Long itemsProcessed) {
+		this.itemsProcessed = itemsProcessed;
+	}
+
+	public long getFailures() {
+		return failures;
+	}
+
+	public void setFailures(final long failures) {
+		this.failures = failures;
+	}
+
+	public ScheduledTaskStatus getOutcome() {
+		return outcome;
+	}
+
+	public void setOutcome(final ScheduledTaskStatus outcome) {
+		this.outcome = outcome;
+	}
+}
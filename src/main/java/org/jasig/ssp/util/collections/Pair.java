@@ -115,6 +115,12 @@ public class Pair<T, U>
 						.equals(other.second));
 	}
 
+	@Override
+	public String toString()
+	{
+		return "(" + first + ", " + second + ")";
+	}
+
 	public Map<T,U> toMap() {
 		Map<T,U> map = Maps.newHashMapWithExpectedSize(1);
 		map.put(first, second);
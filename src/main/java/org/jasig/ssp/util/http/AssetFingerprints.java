@@ -0,0 +1,207 @@
+/**
+ * Licensed to Apereo under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work
+ * for additional information regarding copyright ownership.
+ * Apereo licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License.  You may obtain a
+ * copy of the License at the following location:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jasig.ssp.util.http;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.zip.GZIPOutputStream;
+
+import javax.servlet.ServletContext;
+import javax.servlet.jsp.PageContext;
+
+import org.apache.commons.codec.binary.Hex;
+import org.apache.commons.io.IOUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Content hashes of the webapp's static assets, for building URLs that
+ * change whenever an asset does and so can be cached indefinitely. See
+ * {@link FingerprintedAssetFilter} for the serving side.
+ *
+ * <p>Each asset is read and hashed on first use. The hash is reused for as
+ * long as the asset's file is unmodified, so assets edited in place, e.g. in
+ * an exploded WAR while developing, get a new URL. Assets in a packed WAR
+ * have no file to check and can't change without a redeploy anyway. Gzipped
+ * copies are cached the same way for assets that have no current
+ * pre-compressed <code>.gz</code> variant in the webapp.</p>
+ */
+public class AssetFingerprints {
+
+	private static final Logger LOGGER = LoggerFactory
+			.getLogger(AssetFingerprints.class);
+
+	public static final String PREFIX = "/versioned/";
+
+	private static final String ATTRIBUTE = AssetFingerprints.class.getName();
+
+	private static final int FINGERPRINT_LENGTH = 12;
+
+	private static final String NONE = "";
+
+	private final ServletContext servletContext;
+
+	private final ConcurrentMap<String, Cached<String>> fingerprints = new ConcurrentHashMap<String, Cached<String>>();
+
+	private final ConcurrentMap<String, Cached<byte[]>> gzipped = new ConcurrentHashMap<String, Cached<byte[]>>();
+
+	AssetFingerprints(final ServletContext servletContext) {
+		this.servletContext = servletContext;
+	}
+
+	/**
+	 * The instance for the given webapp, created on first use.
+	 */
+	public static AssetFingerprints get(final ServletContext servletContext) {
+		synchronized (servletContext) {
+			AssetFingerprints instance = (AssetFingerprints) servletContext
+					.getAttribute(ATTRIBUTE);
+			if (instance == null) {
+				instance = new AssetFingerprints(servletContext);
+				servletContext.setAttribute(ATTRIBUTE, instance);
+			}
+			return instance;
+		}
+	}
+
+	/**
+	 * JSP function, see <code>WEB-INF/ssp.tld</code>.
+	 * 
+	 * @return <code>path</code> prefixed with its fingerprint, e.g.
+	 *         <code>/versioned/0123456789ab/app-all.js</code>, or
+	 *         <code>path</code> unchanged if there's no such asset
+	 */
+	public static String versionedPath(final PageContext pageContext,
+			final String path) {
+		return get(pageContext.getServletContext()).versionedPath(path);
+	}
+
+	public String versionedPath(final String path) {
+		final String fingerprint = getFingerprint(path);
+		return fingerprint == null ? path : PREFIX + fingerprint + path;
+	}
+
+	/**
+	 * @return Hex content hash of the asset at <code>path</code>, null if
+	 *         there isn't one
+	 */
+	public String getFingerprint(final String path) {
+		final long lastModified = lastModified(path);
+		final Cached<String> cached = fingerprints.get(path);
+		final String fingerprint;
+		if (cached != null && cached.lastModified == lastModified) {
+			fingerprint = cached.value;
+		} else {
+			fingerprint = computeFingerprint(path);
+			fingerprints.put(path, new Cached<String>(lastModified,
+					fingerprint));
+		}
+		return fingerprint.isEmpty() ? null : fingerprint;
+	}
+
+	/**
+	 * @return false if the pre-compressed <code>.gz</code> variant of the
+	 *         asset at <code>path</code> is older than the asset itself, and
+	 *         so shouldn't be served in its place
+	 */
+	public boolean isPrecompressedCurrent(final String path) {
+		return lastModified(path + ".gz") >= lastModified(path);
+	}
+
+	/**
+	 * @return Gzipped content of the asset at <code>path</code>, null if
+	 *         there isn't one
+	 */
+	public byte[] getGzipped(final String path) throws IOException {
+		final long lastModified = lastModified(path);
+		final Cached<byte[]> cached = gzipped.get(path);
+		byte[] bytes = cached == null || cached.lastModified != lastModified ? null
+				: cached.value;
+		if (bytes == null) {
+			final byte[] content = read(path);
+			if (content == null) {
+				return null;
+			}
+			final ByteArrayOutputStream out = new ByteArrayOutputStream(
+					content.length / 3);
+			final GZIPOutputStream gzip = new GZIPOutputStream(out);
+			gzip.write(content);
+			gzip.close();
+			bytes = out.toByteArray();
+			gzipped.put(path, new Cached<byte[]>(lastModified, bytes));
+		}
+		return bytes;
+	}
+
+	private String computeFingerprint(final String path) {
+		try {
+			final byte[] content = read(path);
+			if (content == null) {
+				return NONE;
+			}
+			final MessageDigest md5 = MessageDigest.getInstance("MD5");
+			return new String(Hex.encodeHex(md5.digest(content))).substring(0,
+					FINGERPRINT_LENGTH);
+		} catch (final IOException e) {
+			LOGGER.warn("Could not read {} to fingerprint it", path, e);
+			return NONE;
+		} catch (final NoSuchAlgorithmException e) {
+			throw new IllegalStateException("MD5 not available", e);
+		}
+	}
+
+	/**
+	 * @return When the asset's file was last modified, 0 if there's no such
+	 *         file, e.g. because the webapp is served from a packed WAR
+	 */
+	private long lastModified(final String path) {
+		final String realPath = servletContext.getRealPath(path);
+		return realPath == null ? 0 : new File(realPath).lastModified();
+	}
+
+	private byte[] read(final String path) throws IOException {
+		final InputStream in = servletContext.getResourceAsStream(path);
+		if (in == null) {
+			return null;
+		}
+		try {
+			return IOUtils.toByteArray(in);
+		} finally {
+			in.close();
+		}
+	}
+
+	private static class Cached<T> {
+
+		private final long lastModified;
+
+		private final T value;
+
+		Cached(final long lastModified, final T value) {
+			this.lastModified = lastModified;
+			this.value = value;
+		}
+	}
+}
@@ -0,0 +1,152 @@
+/**
+ * Licensed to Apereo under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work
+ * for additional information regarding copyright ownership.
+ * Apereo licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License.  You may obtain a
+ * copy of the License at the following location:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jasig.ssp.util.http;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import javax.servlet.Filter;
+import javax.servlet.FilterChain;
+import javax.servlet.FilterConfig;
+import javax.servlet.ServletContext;
+import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.apache.commons.io.IOUtils;
+
+/**
+ * Serves <code>/versioned/{fingerprint}/{path}</code> URLs built by
+ * {@link AssetFingerprints} with a year-long, immutable cache lifetime, and
+ * gzipped when the client accepts it. A pre-compressed
+ * <code>{path}.gz</code> in the webapp is used if the build produced one and
+ * the asset hasn't been edited since.
+ *
+ * <p>Anything else, including versioned URLs whose fingerprint doesn't match
+ * the asset's current content, goes on down the chain to be served as
+ * before (the <code>UrlRewriteFilter</code> strips older build-date
+ * versioned prefixes) without long-lived caching.</p>
+ */
+public class FingerprintedAssetFilter implements Filter {
+
+	private static final Pattern VERSIONED = Pattern
+			.compile("^/versioned/([0-9a-f]+)(/.+)$");
+
+	private static final Pattern COMPRESSIBLE = Pattern
+			.compile(".*\\.(js|css|html|json|svg|txt)$");
+
+	private static final long ONE_YEAR_IN_SECONDS = 365L * 24 * 60 * 60;
+
+	private static final String CACHE_CONTROL = "public, max-age="
+			+ ONE_YEAR_IN_SECONDS + ", immutable";
+
+	private ServletContext servletContext;
+
+	private AssetFingerprints fingerprints;
+
+	@Override
+	public void init(final FilterConfig filterConfig) throws ServletException {
+		servletContext = filterConfig.getServletContext();
+		fingerprints = AssetFingerprints.get(servletContext);
+	}
+
+	@Override
+	public void doFilter(final ServletRequest req, final ServletResponse res,
+			final FilterChain chain) throws IOException, ServletException {
+		final HttpServletRequest request = (HttpServletRequest) req;
+		final HttpServletResponse response = (HttpServletResponse) res;
+		final String uri = request.getRequestURI().substring(
+				request.getContextPath().length());
+		final Matcher matcher = VERSIONED.matcher(uri);
+		if (!"GET".equals(request.getMethod()) || !matcher.matches()) {
+			chain.doFilter(request, response);
+			return;
+		}
+
+		final String path = matcher.group(2);
+		if (!isServable(path)
+				|| !matcher.group(1).equals(fingerprints.getFingerprint(path))) {
+			chain.doFilter(request, response);
+			return;
+		}
+
+		response.setHeader("Cache-Control", CACHE_CONTROL);
+		response.setDateHeader("Expires", System.currentTimeMillis()
+				+ ONE_YEAR_IN_SECONDS * 1000);
+		// the fingerprint is the validator, anyone holding this URL already
+		// has the only content it will ever have
+		if (request.getHeader("If-None-Match") != null
+				|| request.getHeader("If-Modified-Since") != null) {
+			response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+			return;
+		}
+
+		final String mimeType = servletContext.getMimeType(path);
+		if (mimeType != null) {
+			response.setContentType(mimeType);
+		}
+		if (!COMPRESSIBLE.matcher(path).matches()) {
+			write(path, response);
+			return;
+		}
+
+		response.setHeader("Vary", "Accept-Encoding");
+		final String acceptEncoding = request.getHeader("Accept-Encoding");
+		if (acceptEncoding == null || !acceptEncoding.contains("gzip")) {
+			write(path, response);
+			return;
+		}
+		response.setHeader("Content-Encoding", "gzip");
+		if (!fingerprints.isPrecompressedCurrent(path)
+				|| !write(path + ".gz", response)) {
+			final byte[] gzipped = fingerprints.getGzipped(path);
+			response.setContentLength(gzipped.length);
+			response.getOutputStream().write(gzipped);
+		}
+	}
+
+	private boolean isServable(final String path) {
+		final String upper = path.toUpperCase();
+		return !path.contains("..") && !upper.startsWith("/WEB-INF")
+				&& !upper.startsWith("/META-INF") && !path.endsWith(".jsp");
+	}
+
+	private boolean write(final String path, final HttpServletResponse response)
+			throws IOException {
+		final InputStream in = servletContext.getResourceAsStream(path);
+		if (in == null) {
+			return false;
+		}
+		try {
+			IOUtils.copy(in, response.getOutputStream());
+		} finally {
+			in.close();
+		}
+		return true;
+	}
+
+	@Override
+	public void destroy() {
+		// Nothing to do
+	}
+}
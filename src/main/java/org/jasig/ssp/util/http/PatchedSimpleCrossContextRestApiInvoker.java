@@ -22,6 +22,7 @@ import org.jasig.portlet.utils.rest.CrossContextRestApiInvoker;
 import org.jasig.portlet.utils.rest.RestResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.web.context.ServletContextAware;
 import org.springframework.web.util.UriUtils;
 
 import javax.servlet.RequestDispatcher;
@@ -40,6 +41,10 @@ import java.net.URLEncoder;
 import java.util.Collections;
 import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Addresses <a href="https://issues.jasig.org/browse/SSP-2451">SSP-2451</a>.
@@ -48,10 +53,33 @@ import java.util.Map;
  * except for fixes to URI path component encoding in {@link #parseUriTuple(String, java.util.Map)}. No other way to
  * work around that problem since those methods are private.
  */
-public class PatchedSimpleCrossContextRestApiInvoker implements CrossContextRestApiInvoker {
+public class PatchedSimpleCrossContextRestApiInvoker implements CrossContextRestApiInvoker,
+		ServletContextAware {
 
 	private final Logger log = LoggerFactory.getLogger(getClass());
 
+	private static final Logger TIMING_LOGGER = LoggerFactory
+			.getLogger("timing." + PatchedSimpleCrossContextRestApiInvoker.class.getName());
+
+	/**
+	 * SSP's own context. If set, used to find the target context instead of
+	 * going through the request's session, which would create a session for
+	 * requests that don't otherwise have one.
+	 */
+	private volatile ServletContext servletContext;
+
+	/** Target contexts by name, looked up once */
+	private final ConcurrentMap<String, ServletContext> targetContexts =
+			new ConcurrentHashMap<String, ServletContext>();
+
+	/**
+	 * Bounds how many threads can be inside the target context at once. Null
+	 * means no bound.
+	 */
+	private volatile Semaphore invocationPermits;
+
+	private long permitWaitMillis = 10000;
+
 	@Override
 	public RestResponse invoke(HttpServletRequest req, HttpServletResponse res, String uri) {
 		final Map<String, String[]> params = Collections.emptyMap();
@@ -170,21 +198,91 @@ public class PatchedSimpleCrossContextRestApiInvoker implements CrossContextRest
 
 	private RestResponse doInvoke(HttpServletRequest req, HttpServletResponse res, UriTuple tuple) {
 
+		final long start = System.currentTimeMillis();
+		final Semaphore permits = invocationPermits;
+		boolean permitted = false;
+		boolean succeeded = false;
 		try {
-			ServletContext ctx = req.getSession().getServletContext()
-					.getContext(tuple.getContextName());
+			if ( permits != null ) {
+				permitted = permits.tryAcquire(permitWaitMillis, TimeUnit.MILLISECONDS);
+				if ( !(permitted) ) {
+					throw new IllegalStateException("Waited more than " + permitWaitMillis
+							+ " ms to invoke REST API at " + tuple.getContextName() + tuple.getUri());
+				}
+			}
+			ServletContext ctx = targetContext(req, tuple.getContextName());
 			RequestDispatcher rd = ctx.getRequestDispatcher(tuple.getUri());
 			HttpServletResponseWrapperImpl responseWrapper = new HttpServletResponseWrapperImpl(res);
 			rd.include(req, responseWrapper);
 			RestResponse rslt = new RestResponse(
 					responseWrapper.getOutputAsString(),
 					responseWrapper.getContentType());
+			succeeded = true;
 			return rslt;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RuntimeException(e);
+		} catch (RuntimeException e) {
+			throw e;
 		} catch (Exception e) {
 			throw new RuntimeException(e);
+		} finally {
+			if ( permitted ) {
+				permits.release();
+			}
+			if ( !(succeeded) ) {
+				// looked up again next time in case e.g. the portal was redeployed
+				targetContexts.remove(tuple.getContextName());
+			}
+			TIMING_LOGGER.info("Invoked REST API at {}{} in {} ms ({})",
+					new Object[] { tuple.getContextName(), tuple.getUri(),
+							System.currentTimeMillis() - start,
+							succeeded ? "succeeded" : "failed" });
 		}
 	}
 
+	private ServletContext targetContext(HttpServletRequest req, String contextName) {
+		ServletContext target = targetContexts.get(contextName);
+		if ( target == null ) {
+			final ServletContext local = servletContext != null
+					? servletContext
+					: req.getSession().getServletContext();
+			target = local.getContext(contextName);
+			if ( target == null ) {
+				throw new IllegalStateException("No access to context " + contextName
+						+ ". Is crossContext enabled?");
+			}
+			targetContexts.put(contextName, target);
+		}
+		return target;
+	}
+
+	@Override
+	public void setServletContext(ServletContext servletContext) {
+		this.servletContext = servletContext;
+	}
+
+	/**
+	 * @param maxConcurrentInvocations
+	 *            How many invocations may be in progress at once. Zero or
+	 *            less means no limit.
+	 */
+	public void setMaxConcurrentInvocations(int maxConcurrentInvocations) {
+		this.invocationPermits = maxConcurrentInvocations > 0
+				? new Semaphore(maxConcurrentInvocations, true)
+				: null;
+	}
+
+	/**
+	 * @param permitWaitMillis
+	 *            How long an invocation waits for one of the
+	 *            {@link #setMaxConcurrentInvocations(int)} slots before
+	 *            failing
+	 */
+	public void setPermitWaitMillis(long permitWaitMillis) {
+		this.permitWaitMillis = permitWaitMillis;
+	}
+
 	/*
 	 * Nested Types
 	 */
@@ -19,11 +19,13 @@
 package org.jasig.ssp.util.spring;
 
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.ApplicationContext;
 import org.springframework.context.ApplicationListener;
@@ -32,7 +34,7 @@ import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
 import org.springframework.stereotype.Component;
 
 /**
- * Ensures the task scheduler and executor are shutdown prior to
+ * Ensures the task schedulers and executor are shutdown prior to
  * "normal" app context cleanup. We need this because a race
  * condition exists where a currently executing job on a background
  * thread can request a bean dependency (e.g. when a
@@ -69,6 +71,10 @@ public class ScheduledTaskCleanup implements ApplicationListener<ContextClosedEv
 	@Autowired(required = false)
 	private ThreadPoolTaskScheduler scheduler;
 
+	@Autowired(required = false)
+	@Qualifier("sspBatchScheduledExecutor")
+	private ScheduledExecutorService batchExecutor;
+
 	@Autowired
 	private ApplicationContext owningContext;
 
@@ -77,12 +83,15 @@ public class ScheduledTaskCleanup implements ApplicationListener<ContextClosedEv
 
 	@Override
 	public void onApplicationEvent(ContextClosedEvent event) {
-		if ( scheduler == null ) {
+		if ( !(owningContext.getId().equals(event.getApplicationContext().getId())) ) {
 			return;
 		}
-		if ( owningContext.getId().equals(event.getApplicationContext().getId()) ) {
+		if ( scheduler != null ) {
 			shutdownAndAwaitTermination(scheduler.getScheduledExecutor());
 		}
+		if ( batchExecutor != null ) {
+			shutdownAndAwaitTermination(batchExecutor);
+		}
 	}
 
 	/**
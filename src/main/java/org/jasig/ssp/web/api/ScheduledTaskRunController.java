@@ -0,0 +1,114 @@
+/**
+ * Licensed to Apereo under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work
+ * for additional information regarding copyright ownership.
+ * Apereo licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License.  You may obtain a
+ * copy of the License at the following location:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jasig.ssp.web.api;
+
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+import org.apache.commons.lang.StringUtils;
+import org.jasig.ssp.security.permissions.Permission;
+import org.jasig.ssp.service.ScheduledTaskRunService;
+import org.jasig.ssp.transferobject.PagedResponse;
+import org.jasig.ssp.transferobject.ScheduledTaskRunSummaryTO;
+import org.jasig.ssp.transferobject.ScheduledTaskRunTO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.format.annotation.DateTimeFormat.ISO;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseBody;
+
+/**
+ * Run history of scheduled tasks, see {@link ScheduledTaskRunService}.
+ */
+@Controller
+@RequestMapping("/1/scheduledtaskrun")
+public class ScheduledTaskRunController extends AbstractBaseController {
+
+	private static final Logger LOGGER = LoggerFactory
+			.getLogger(ScheduledTaskRunController.class);
+
+	private static final int DEFAULT_LIMIT = 100;
+
+	@Override
+	protected Logger getLogger() {
+		return LOGGER;
+	}
+
+	@Autowired
+	private ScheduledTaskRunService service;
+
+	/**
+	 * Recorded runs, most recent first.
+	 * 
+	 * @param name
+	 *            Task name, e.g. {@code sync-external-persons}. All tasks if
+	 *            omitted.
+	 * @param since
+	 *            ISO-8601 date-time; only runs started at or after it
+	 * @param limit
+	 *            Maximum number of runs to return, default 100
+	 */
+	@RequestMapping(method = RequestMethod.GET)
+	@PreAuthorize(Permission.SECURITY_REFERENCE_READ)
+	public @ResponseBody
+	PagedResponse<ScheduledTaskRunTO> getHistory(
+			final @RequestParam(required = false) String name,
+			final @RequestParam(required = false) @DateTimeFormat(iso = ISO.DATE_TIME) Date since,
+			final @RequestParam(required = false) Integer limit) {
+		final List<ScheduledTaskRunTO> runs = ScheduledTaskRunTO.toTOList(
+				service.getHistory(StringUtils.trimToNull(name), since,
+						limitOrDefault(limit)));
+		return new PagedResponse<ScheduledTaskRunTO>(true,
+				(long) runs.size(), runs);
+	}
+
+	/**
+	 * Duration percentiles, outcome counts and throughput per task.
+	 * 
+	 * @param name
+	 *            Task name. Every task with recorded runs if omitted.
+	 * @param limit
+	 *            How many of each task's most recent runs to summarize,
+	 *            default 100
+	 */
+	@RequestMapping(value = "/summary", method = RequestMethod.GET)
+	@PreAuthorize(Permission.SECURITY_REFERENCE_READ)
+	public @ResponseBody
+	PagedResponse<ScheduledTaskRunSummaryTO> getSummary(
+			final @RequestParam(required = false) String name,
+			final @RequestParam(required = false) Integer limit) {
+		final List<ScheduledTaskRunSummaryTO> summaries = StringUtils.isBlank(name)
+				? service.summarizeAll(limitOrDefault(limit))
+				: Collections.singletonList(service.summarize(name.trim(),
+						limitOrDefault(limit)));
+		return new PagedResponse<ScheduledTaskRunSummaryTO>(true,
+				(long) summaries.size(), summaries);
+	}
+
+	private int limitOrDefault(final Integer limit) {
+		return limit == null || limit <= 0 ? DEFAULT_LIMIT : limit;
+	}
+}
@@ -18,16 +18,21 @@
  */
 package org.jasig.ssp.web.api.reference;
 
+import java.util.Date;
 import java.util.UUID;
 
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
 
 import org.jasig.ssp.factory.TOFactory;
 import org.jasig.ssp.model.ObjectStatus;
 import org.jasig.ssp.model.reference.AbstractReference;
+import org.jasig.ssp.model.reference.ReferenceDataVersion;
 import org.jasig.ssp.security.permissions.Permission;
 import org.jasig.ssp.service.AuditableCrudService;
 import org.jasig.ssp.service.ObjectNotFoundException;
+import org.jasig.ssp.service.reference.ReferenceDataVersionService;
 import org.jasig.ssp.transferobject.PagedResponse;
 import org.jasig.ssp.transferobject.ServiceResponse;
 import org.jasig.ssp.transferobject.reference.AbstractReferenceTO;
@@ -37,6 +42,7 @@ import org.jasig.ssp.web.api.AbstractBaseController;
 import org.jasig.ssp.web.api.validation.ValidationException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestBody;
@@ -44,6 +50,9 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
 
 /**
  * Basic REST command implementation to responds with standard transfer objects
@@ -77,6 +86,9 @@ public abstract class AbstractAuditableReferenceController<T extends AbstractRef
 	 */
 	protected abstract TOFactory<TO, T> getFactory();
 
+	@Autowired
+	protected transient ReferenceDataVersionService referenceDataVersionService;
+
 	/**
 	 * Model class type
 	 */
@@ -140,6 +152,10 @@ public abstract class AbstractAuditableReferenceController<T extends AbstractRef
 			final @RequestParam(required = false) String sort,
 			final @RequestParam(required = false) String sortDirection) {
 
+		if (isNotModified()) {
+			return null;
+		}
+
 		// Run getAll
 		final PagingWrapper<T> data = getService().getAll(
 				SortingAndPaging.createForSingleSortWithPaging(
@@ -170,6 +186,10 @@ public abstract class AbstractAuditableReferenceController<T extends AbstractRef
 	public @ResponseBody
 	TO get(final @PathVariable UUID id) throws ObjectNotFoundException,
 			ValidationException {
+		if (isNotModified()) {
+			return null;
+		}
+
 		final T model = getService().get(id);
 		if (model == null) {
 			return null;
@@ -265,6 +285,90 @@ public abstract class AbstractAuditableReferenceController<T extends AbstractRef
 		return new ServiceResponse(true);
 	}
 
+	/**
+	 * Entity classes whose rows make up this controller's GET responses, used
+	 * to version those responses for conditional requests. Override when the
+	 * response includes associated reference data, or return null when it
+	 * depends on more than the data itself (e.g. the caller's permissions)
+	 * and so must never be answered with a 304.
+	 */
+	protected Class<?>[] getVersionedClasses() {
+		return new Class<?>[] { persistentClass };
+	}
+
+	/**
+	 * Sets ETag and Last-Modified on the current response from the version of
+	 * {@link #getVersionedClasses()}, and answers 304 Not Modified if the
+	 * request's If-None-Match or If-Modified-Since validators still match it.
+	 * Call from GET handlers only, after authorization has been applied. Does
+	 * nothing unless {@link ConditionalGetInterceptor} is registered.
+	 * 
+	 * @return true if a 304 has been set and the handler should return
+	 *         without a body
+	 */
+	protected boolean isNotModified() {
+		final Class<?>[] versionedClasses = getVersionedClasses();
+		final RequestAttributes attributes = RequestContextHolder
+				.getRequestAttributes();
+		if (versionedClasses == null
+				|| !(attributes instanceof ServletRequestAttributes)) {
+			return false;
+		}
+		final HttpServletRequest request = ((ServletRequestAttributes) attributes)
+				.getRequest();
+		final HttpServletResponse response = (HttpServletResponse) request
+				.getAttribute(ConditionalGetInterceptor.RESPONSE_ATTRIBUTE);
+		if (response == null) {
+			return false;
+		}
+
+		final ReferenceDataVersion version = referenceDataVersionService
+				.getVersion(versionedClasses);
+		// the version covers the data, not the query string, so fold that in
+		final String etag = "\"" + version.getTag()
+				+ Integer.toHexString(String.valueOf(request.getQueryString())
+						.hashCode()) + "\"";
+		final Date lastModified = version.getLastModified();
+
+		// replaces the no-store the web content interceptor puts on every
+		// response; clients may keep a copy but must revalidate it
+		response.setHeader("Cache-Control", "private, no-cache");
+		response.setHeader("ETag", etag);
+		if (lastModified != null) {
+			response.setDateHeader("Last-Modified", lastModified.getTime());
+		}
+
+		if (matches(request, etag, lastModified)) {
+			response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+			return true;
+		}
+		return false;
+	}
+
+	private boolean matches(final HttpServletRequest request,
+			final String etag, final Date lastModified) {
+		final String ifNoneMatch = request.getHeader("If-None-Match");
+		if (ifNoneMatch != null) {
+			// If-None-Match takes precedence over If-Modified-Since
+			return "*".equals(ifNoneMatch.trim())
+					|| ifNoneMatch.contains(etag);
+		}
+
+		if (lastModified == null) {
+			return false;
+		}
+		try {
+			final long ifModifiedSince = request
+					.getDateHeader("If-Modified-Since");
+			// header dates only have second precision
+			return ifModifiedSince >= 0
+					&& ifModifiedSince / 1000 >= lastModified.getTime() / 1000;
+		} catch (final IllegalArgumentException e) {
+			LOGGER.debug("Ignoring unparseable If-Modified-Since header", e);
+			return false;
+		}
+	}
+
 	protected TO instantiateTO(final T model) throws ValidationException {
 		TO out;
 		try {
@@ -27,7 +27,9 @@ import org.jasig.ssp.factory.reference.ChallengeReferralTOFactory;
 import org.jasig.ssp.factory.reference.ChallengeTOFactory;
 import org.jasig.ssp.model.ObjectStatus;
 import org.jasig.ssp.model.reference.Challenge;
+import org.jasig.ssp.model.reference.ChallengeChallengeReferral;
 import org.jasig.ssp.model.reference.ChallengeReferral;
+import org.jasig.ssp.model.reference.SelfHelpGuideQuestion;
 import org.jasig.ssp.security.permissions.Permission;
 import org.jasig.ssp.service.AuditableCrudService;
 import org.jasig.ssp.service.ObjectNotFoundException;
@@ -79,6 +81,13 @@ public class ChallengeController
 		return factory;
 	}
 
+	@Override
+	protected Class<?>[] getVersionedClasses() {
+		// ChallengeTO carries the associated questions and referrals
+		return new Class<?>[] { Challenge.class, SelfHelpGuideQuestion.class,
+				ChallengeChallengeReferral.class, ChallengeReferral.class };
+	}
+
 	protected ChallengeController() {
 		super(Challenge.class, ChallengeTO.class);
 	}
@@ -0,0 +1,55 @@
+/**
+ * Licensed to Apereo under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work
+ * for additional information regarding copyright ownership.
+ * Apereo licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License.  You may obtain a
+ * copy of the License at the following location:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jasig.ssp.web.api.reference;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.web.servlet.handler.HandlerInterceptorAdapter;
+
+/**
+ * Exposes the current response to reference controllers so their GET
+ * handlers can set validators and answer conditional requests without
+ * every handler signature (and every override and caller of it) having to
+ * take the response as an argument.
+ *
+ * @see AbstractAuditableReferenceController#isNotModified()
+ */
+public class ConditionalGetInterceptor extends HandlerInterceptorAdapter {
+
+	static final String RESPONSE_ATTRIBUTE = ConditionalGetInterceptor.class
+			.getName() + ".response";
+
+	@Override
+	public boolean preHandle(final HttpServletRequest request,
+			final HttpServletResponse response, final Object handler)
+			throws Exception {
+		if ("GET".equals(request.getMethod())) {
+			request.setAttribute(RESPONSE_ATTRIBUTE, response);
+		}
+		return true;
+	}
+
+	@Override
+	public void afterCompletion(final HttpServletRequest request,
+			final HttpServletResponse response, final Object handler,
+			final Exception ex) throws Exception {
+		request.removeAttribute(RESPONSE_ATTRIBUTE);
+	}
+}
@@ -82,6 +82,10 @@ public class EnrollmentStatusController
 			final @RequestParam(required = false) String sort,
 			final @RequestParam(required = false) String sortDirection) {
 
+		if (isNotModified()) {
+			return null;
+		}
+
 		final PagingWrapper<EnrollmentStatus> data = getService().getAll(
 				SortingAndPaging.createForSingleSortWithPaging(
 						status == null ? ObjectStatus.ALL : status, start,
@@ -0,0 +1,268 @@
+/**
+ * Licensed to Apereo under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work
+ * for additional information regarding copyright ownership.
+ * Apereo licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License.  You may obtain a
+ * copy of the License at the following location:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jasig.ssp.web.api.reference;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.apache.commons.io.IOUtils;
+import org.codehaus.jackson.map.ObjectMapper;
+import org.jasig.ssp.model.ObjectStatus;
+import org.jasig.ssp.model.reference.AbstractReference;
+import org.jasig.ssp.security.permissions.Permission;
+import org.jasig.ssp.service.reference.ReferenceDataVersionService;
+import org.jasig.ssp.transferobject.reference.AbstractReferenceTO;
+import org.jasig.ssp.util.sort.PagingWrapper;
+import org.jasig.ssp.util.sort.SortingAndPaging;
+import org.jasig.ssp.web.api.AbstractBaseController;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.AnnotationUtils;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.stereotype.Controller;
+import org.springframework.util.ClassUtils;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+
+/**
+ * Every active reference list in one response, so the client can fill its
+ * lookup stores at login with a single request instead of one per list.
+ *
+ * <p>The bundle is built from the same services and transfer object
+ * factories as each list's own endpoint, serialized and gzipped once, and
+ * then served as-is until the version of the underlying tables changes.
+ * That version is only read again once reference data has been edited on
+ * this node, or once it is older than
+ * {@code reference_bundle_version_max_age_millis}, which bounds how long
+ * edits made on other nodes in a cluster take to show up. Lists are keyed by their endpoint path relative to the API root, e.g.
+ * {@code reference/ethnicity}.</p>
+ */
+@Controller
+@RequestMapping("/1/reference/bundle")
+public class ReferenceBundleController extends AbstractBaseController {
+
+	private static final Logger LOGGER = LoggerFactory
+			.getLogger(ReferenceBundleController.class);
+
+	private static final String API_ROOT = "/1/";
+
+	private static final String REFERENCE_ROOT = API_ROOT + "reference/";
+
+	public static final long DEFAULT_VERSION_MAX_AGE_MILLIS = 5 * 60 * 1000;
+
+	@Autowired
+	private transient List<AbstractAuditableReferenceController<?, ?>> controllers;
+
+	@Autowired
+	private transient ReferenceDataVersionService referenceDataVersionService;
+
+	@Value("#{configProperties.reference_bundle_version_max_age_millis}")
+	private long versionMaxAgeMillis = DEFAULT_VERSION_MAX_AGE_MILLIS;
+
+	private final ObjectMapper objectMapper = new ObjectMapper();
+
+	private volatile Bundle bundle;
+
+	@Override
+	protected Logger getLogger() {
+		return LOGGER;
+	}
+
+	/**
+	 * Writes the bundle, gzipped if the client accepts it, or a 304 if the
+	 * client's copy is still current.
+	 */
+	@RequestMapping(method = RequestMethod.GET)
+	@PreAuthorize(Permission.SECURITY_REFERENCE_READ)
+	public void get(final HttpServletRequest request,
+			final HttpServletResponse response) throws IOException {
+		final Bundle current = getBundle();
+		final String etag = "\"" + current.tag + "\"";
+
+		response.setHeader("Cache-Control", "private, no-cache");
+		response.setHeader("ETag", etag);
+		response.setHeader("Vary", "Accept-Encoding");
+		final String ifNoneMatch = request.getHeader("If-None-Match");
+		if (ifNoneMatch != null && ifNoneMatch.contains(etag)) {
+			response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+			return;
+		}
+
+		response.setContentType("application/json;charset=UTF-8");
+		final String acceptEncoding = request.getHeader("Accept-Encoding");
+		final OutputStream out = response.getOutputStream();
+		if (acceptEncoding != null && acceptEncoding.contains("gzip")) {
+			response.setHeader("Content-Encoding", "gzip");
+			response.setContentLength(current.gzipped.length);
+			out.write(current.gzipped);
+		} else {
+			final InputStream in = new GZIPInputStream(
+					new ByteArrayInputStream(current.gzipped));
+			try {
+				IOUtils.copy(in, out);
+			} finally {
+				in.close();
+			}
+		}
+		out.flush();
+	}
+
+	protected void setVersionMaxAgeMillis(final long versionMaxAgeMillis) {
+		this.versionMaxAgeMillis = versionMaxAgeMillis;
+	}
+
+	/**
+	 * Current bundle. If reference data may have changed since its version
+	 * was last checked, checks again and rebuilds it first if any of the
+	 * tables behind it have changed.
+	 */
+	Bundle getBundle() throws IOException {
+		// read before the version, so a change committed while checking
+		// gets the bundle checked again next time
+		final long invalidations = referenceDataVersionService
+				.getInvalidationCount();
+		Bundle current = bundle;
+		if (current != null && current.invalidations == invalidations
+				&& (versionMaxAgeMillis < 0 || System.currentTimeMillis()
+						- current.checkedAt <= versionMaxAgeMillis)) {
+			return current;
+		}
+		final String tag = referenceDataVersionService.getVersion(
+				getVersionedClasses()).getTag();
+		synchronized (this) {
+			current = bundle;
+			current = new Bundle(tag, current == null
+					|| !current.tag.equals(tag) ? build(tag)
+					: current.gzipped, invalidations);
+			bundle = current;
+		}
+		return current;
+	}
+
+	private byte[] build(final String tag) throws IOException {
+		final long start = System.currentTimeMillis();
+		final Map<String, List<?>> lists = new LinkedHashMap<String, List<?>>();
+		for (final AbstractAuditableReferenceController<?, ?> controller : getBundledControllers()) {
+			final String key = getPath(controller).substring(API_ROOT.length());
+			try {
+				lists.put(key, getActive(controller));
+			} catch (final RuntimeException e) {
+				// leave it out; the client falls back to the list's own endpoint
+				LOGGER.warn("Leaving {} out of the reference bundle", key, e);
+			}
+		}
+
+		final Map<String, Object> body = new LinkedHashMap<String, Object>();
+		body.put("success", true);
+		body.put("version", tag);
+		body.put("lists", lists);
+
+		final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		final GZIPOutputStream gzip = new GZIPOutputStream(bytes);
+		objectMapper.writeValue(gzip, body);
+		gzip.close();
+
+		LOGGER.info("Built reference bundle of {} lists, {} bytes gzipped, in {}ms",
+				new Object[] { lists.size(), bytes.size(),
+						System.currentTimeMillis() - start });
+		return bytes.toByteArray();
+	}
+
+	private <T extends AbstractReference, TO extends AbstractReferenceTO<T>> List<TO> getActive(
+			final AbstractAuditableReferenceController<T, TO> controller) {
+		final PagingWrapper<T> data = controller.getService().getAll(
+				SortingAndPaging.createForSingleSortWithPaging(
+						ObjectStatus.ACTIVE, null, -1, null, null,
+						controller.getDefaultSortColumn()));
+		return new ArrayList<TO>(controller.getFactory().asTOList(
+				data.getRows()));
+	}
+
+	private Class<?>[] getVersionedClasses() {
+		final Set<Class<?>> classes = new LinkedHashSet<Class<?>>();
+		for (final AbstractAuditableReferenceController<?, ?> controller : getBundledControllers()) {
+			for (final Class<?> versionedClass : controller
+					.getVersionedClasses()) {
+				classes.add(versionedClass);
+			}
+		}
+		return classes.toArray(new Class<?>[classes.size()]);
+	}
+
+	/**
+	 * Controllers under the reference API whose lists don't depend on who's
+	 * asking, i.e. the ones that allow conditional GETs.
+	 */
+	private List<AbstractAuditableReferenceController<?, ?>> getBundledControllers() {
+		final List<AbstractAuditableReferenceController<?, ?>> bundled = new ArrayList<AbstractAuditableReferenceController<?, ?>>();
+		for (final AbstractAuditableReferenceController<?, ?> controller : controllers) {
+			final String path = getPath(controller);
+			if (path != null && path.startsWith(REFERENCE_ROOT)
+					&& controller.getVersionedClasses() != null) {
+				bundled.add(controller);
+			}
+		}
+		return bundled;
+	}
+
+	private String getPath(final Object controller) {
+		final RequestMapping mapping = AnnotationUtils.findAnnotation(
+				ClassUtils.getUserClass(controller), RequestMapping.class);
+		return mapping == null || mapping.value().length == 0 ? null
+				: mapping.value()[0];
+	}
+
+	static class Bundle {
+
+		private final String tag;
+
+		private final byte[] gzipped;
+
+		/**
+		 * {@link ReferenceDataVersionService#getInvalidationCount()} as of
+		 * when {@link #tag} was read
+		 */
+		private final long invalidations;
+
+		private final long checkedAt = System.currentTimeMillis();
+
+		Bundle(final String tag, final byte[] gzipped,
+				final long invalidations) {
+			this.tag = tag;
+			this.gzipped = gzipped;
+			this.invalidations = invalidations;
+		}
+	}
+}
@@ -23,6 +23,7 @@ import java.util.ArrayList;
 import org.jasig.ssp.factory.TOFactory;
 import org.jasig.ssp.factory.reference.SelfHelpGuideQuestionTOFactory;
 import org.jasig.ssp.model.ObjectStatus;
+import org.jasig.ssp.model.reference.Challenge;
 import org.jasig.ssp.model.reference.SelfHelpGuideQuestion;
 import org.jasig.ssp.security.permissions.Permission;
 import org.jasig.ssp.service.AuditableCrudService;
@@ -74,6 +75,13 @@ public class SelfHelpGuideQuestionController
 	protected Logger getLogger() {
 		return LOGGER;
 	}
+
+	@Override
+	protected Class<?>[] getVersionedClasses() {
+		// SelfHelpGuideQuestionTO carries the associated challenge's name
+		return new Class<?>[] { SelfHelpGuideQuestion.class, Challenge.class };
+	}
+
 	@PreAuthorize(Permission.SECURITY_REFERENCE_WRITE)
 	@RequestMapping(method = RequestMethod.GET)
 	public @ResponseBody
@@ -111,6 +111,10 @@ public class TagController
 			final @RequestParam(required = false) String sort,
 			final @RequestParam(required = false) String sortDirection) {
 
+		if (isNotModified()) {
+			return null;
+		}
+
 		final PagingWrapper<Tag> data = getService().getAll(
 				SortingAndPaging.createForSingleSortWithPaging(
 						status == null ? ObjectStatus.ALL : status, start,
@@ -26,5 +26,6 @@
 <%@ taglib prefix="spring" uri="http://www.springframework.org/tags" %>
 <%@ taglib prefix="portlet" uri="http://java.sun.com/portlet_2_0" %>
 <%@ taglib prefix="rs" uri="http://www.jasig.org/resource-server" %>
+<%@ taglib prefix="ssp" uri="http://www.jasig.org/ssp" %>
 
 <portlet:defineObjects/>
\ No newline at end of file
@@ -22,51 +22,50 @@
 
 <c:set var="n"><portlet:namespace/></c:set>
 
-<c:set var="version" scope="request" value="${model.cachebust}"/>
 
  
 <!-- FontAwesome -->
-<link rel="stylesheet" type="text/css" href="<c:url value="${version}/resources/css/font-awesome.min.css" />" />
+<link rel="stylesheet" type="text/css" href="<c:url value="${ssp:versioned(pageContext, '/resources/css/font-awesome.min.css')}" />" />
 
 <!-- ExtJS Styles -->
-<link rel="stylesheet" type="text/css" href="<c:url value="/js/libs/ext-4.1/resources/css/ext-all.css" />">
-<link rel="stylesheet" type="text/css" href="<c:url value="/js/libs/ext-4.1/src/ux/css/CheckHeader.css" />">
-<link rel="stylesheet" type="text/css" href="<c:url value="/js/libs/ext-4.1/src/ux/css/ItemSelector.css" />">
-<link rel="stylesheet" type="text/css" href="<c:url value="/js/libs/ext-4.1/src/ux/grid/css/GridFilters.css" />">
-<link rel="stylesheet" type="text/css" href="<c:url value="/js/libs/ext-4.1/src/ux/grid/css/RangeMenu.css" />">
+<link rel="stylesheet" type="text/css" href="<c:url value="${ssp:versioned(pageContext, '/js/libs/ext-4.1/resources/css/ext-all.css')}" />">
+<link rel="stylesheet" type="text/css" href="<c:url value="${ssp:versioned(pageContext, '/js/libs/ext-4.1/src/ux/css/CheckHeader.css')}" />">
+<link rel="stylesheet" type="text/css" href="<c:url value="${ssp:versioned(pageContext, '/js/libs/ext-4.1/src/ux/css/ItemSelector.css')}" />">
+<link rel="stylesheet" type="text/css" href="<c:url value="${ssp:versioned(pageContext, '/js/libs/ext-4.1/src/ux/grid/css/GridFilters.css')}" />">
+<link rel="stylesheet" type="text/css" href="<c:url value="${ssp:versioned(pageContext, '/js/libs/ext-4.1/src/ux/grid/css/RangeMenu.css')}" />">
 
 <!-- SSP Theme -->
-<link href="<c:url value="${version}/resources/css/tabs.css" />" rel="stylesheet" type="text/css" />
-<link href="<c:url value="${version}/resources/css/ssp-ext-theme.css" />" rel="stylesheet" type="text/css" />
+<link href="<c:url value="${ssp:versioned(pageContext, '/resources/css/tabs.css')}" />" rel="stylesheet" type="text/css" />
+<link href="<c:url value="${ssp:versioned(pageContext, '/resources/css/ssp-ext-theme.css')}" />" rel="stylesheet" type="text/css" />
 
 <!-- ExtJS Lib -->
 <c:choose>
     <c:when test="${model.useMinified}">
-        <script type="text/javascript" src="<c:url value="/js/libs/ext-4.1/ext-all.js" />"></script>
+        <script type="text/javascript" src="<c:url value="${ssp:versioned(pageContext, '/js/libs/ext-4.1/ext-all.js')}" />"></script>
     </c:when>
     <c:otherwise>
-        <script type="text/javascript" src="<c:url value="/js/libs/ext-4.1/ext.js" />"></script>
+        <script type="text/javascript" src="<c:url value="${ssp:versioned(pageContext, '/js/libs/ext-4.1/ext.js')}" />"></script>
     </c:otherwise>
 </c:choose>
 
 
 
-<script type="text/javascript" src="<c:url value="/js/libs/ext-4.1/src/ux/CheckColumn.js" />"></script>
-<script type="text/javascript" src="<c:url value="/js/libs/ext-4.1/src/ux/form/MultiSelect.js" />"></script>
-<script type="text/javascript" src="<c:url value="/js/libs/ext-4.1/src/ux/form/ItemSelector.js" />"></script>   
-<script type="text/javascript" src="<c:url value="/js/libs/ext-4.1/src/ux/grid/FiltersFeature.js" />"></script>  
-<script type="text/javascript" src="<c:url value="/js/libs/ext-4.1/src/ux/grid/TransformGrid.js" />"></script>   
-<script type="text/javascript" src="<c:url value="/js/libs/ext-4.1/src/ux/grid/filter/Filter.js" />"></script>   
-<script type="text/javascript" src="<c:url value="/js/libs/ext-4.1/src/ux/grid/filter/StringFilter.js" />"></script>   
-<script type="text/javascript" src="<c:url value="/js/libs/ext-4.1/src/ux/grid/filter/DateFilter.js" />"></script>   
-<script type="text/javascript" src="<c:url value="/js/libs/ext-4.1/src/ux/grid/filter/ListFilter.js" />"></script>   
-<script type="text/javascript" src="<c:url value="/js/libs/ext-4.1/src/ux/grid/filter/NumericFilter.js" />"></script>   
-<script type="text/javascript" src="<c:url value="/js/libs/ext-4.1/src/ux/grid/filter/BooleanFilter.js" />"></script>  
-<script type="text/javascript" src="<c:url value="/js/libs/ext-4.1/src/ux/grid/menu/RangeMenu.js" />"></script>   
-<script type="text/javascript" src="<c:url value="/js/libs/ext-4.1/src/ux/grid/menu/ListMenu.js" />"></script>   
+<script type="text/javascript" src="<c:url value="${ssp:versioned(pageContext, '/js/libs/ext-4.1/src/ux/CheckColumn.js')}" />"></script>
+<script type="text/javascript" src="<c:url value="${ssp:versioned(pageContext, '/js/libs/ext-4.1/src/ux/form/MultiSelect.js')}" />"></script>
+<script type="text/javascript" src="<c:url value="${ssp:versioned(pageContext, '/js/libs/ext-4.1/src/ux/form/ItemSelector.js')}" />"></script>   
+<script type="text/javascript" src="<c:url value="${ssp:versioned(pageContext, '/js/libs/ext-4.1/src/ux/grid/FiltersFeature.js')}" />"></script>  
+<script type="text/javascript" src="<c:url value="${ssp:versioned(pageContext, '/js/libs/ext-4.1/src/ux/grid/TransformGrid.js')}" />"></script>   
+<script type="text/javascript" src="<c:url value="${ssp:versioned(pageContext, '/js/libs/ext-4.1/src/ux/grid/filter/Filter.js')}" />"></script>   
+<script type="text/javascript" src="<c:url value="${ssp:versioned(pageContext, '/js/libs/ext-4.1/src/ux/grid/filter/StringFilter.js')}" />"></script>   
+<script type="text/javascript" src="<c:url value="${ssp:versioned(pageContext, '/js/libs/ext-4.1/src/ux/grid/filter/DateFilter.js')}" />"></script>   
+<script type="text/javascript" src="<c:url value="${ssp:versioned(pageContext, '/js/libs/ext-4.1/src/ux/grid/filter/ListFilter.js')}" />"></script>   
+<script type="text/javascript" src="<c:url value="${ssp:versioned(pageContext, '/js/libs/ext-4.1/src/ux/grid/filter/NumericFilter.js')}" />"></script>   
+<script type="text/javascript" src="<c:url value="${ssp:versioned(pageContext, '/js/libs/ext-4.1/src/ux/grid/filter/BooleanFilter.js')}" />"></script>  
+<script type="text/javascript" src="<c:url value="${ssp:versioned(pageContext, '/js/libs/ext-4.1/src/ux/grid/menu/RangeMenu.js')}" />"></script>   
+<script type="text/javascript" src="<c:url value="${ssp:versioned(pageContext, '/js/libs/ext-4.1/src/ux/grid/menu/ListMenu.js')}" />"></script>   
 
 <!-- DEFT Lib -->
-<script type="text/javascript" src="<c:url value="/js/libs/deft/deft-0.6.8pre.js" />"></script>
+<script type="text/javascript" src="<c:url value="${ssp:versioned(pageContext, '/js/libs/deft/deft-0.6.8pre.js')}" />"></script>
 
 <script type="text/javascript">
     // setting renderSSPFullScreen to true will render the app 
@@ -85,10 +84,10 @@
 <!-- SSP Application -->
 <c:choose>
     <c:when test="${model.useMinified}">
-        <script type="text/javascript" src="<c:url value="${version}/app-all.js" />"></script>
+        <script type="text/javascript" src="<c:url value="${ssp:versioned(pageContext, '/app-all.js')}" />"></script>
     </c:when>
     <c:otherwise>
-        <script type="text/javascript" src="<c:url value="${version}/app.js" />"></script>
+        <script type="text/javascript" src="<c:url value="${ssp:versioned(pageContext, '/app.js')}" />"></script>
     </c:otherwise>
 </c:choose>
 <div class="sspOuter">
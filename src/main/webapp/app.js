@@ -474,6 +474,7 @@ Ext.require([
     'Ssp.service.CaseloadFilterProgramStatusService',
     'Ssp.service.ProgramStatusService',
     'Ssp.service.ReferralSourceService',
+    'Ssp.service.ReferenceBundleService',
     'Ssp.service.SearchService',
     'Ssp.service.ExportService',
 	'Ssp.service.SearchChallengeReferralService',
@@ -606,6 +607,7 @@ var apiUrls = [
   {name: 'programStatus', url: 'reference/programStatus'},
   {name: 'programStatusChangeReason', url: 'reference/programStatusChangeReason'},
   {name: 'referralSource', url: 'reference/referralSource'},
+  {name: 'referenceBundle', url: 'reference/bundle'},
   {name: 'serviceReason', url: 'reference/serviceReason'},
   {name: 'session', url: 'session'},
   {name: 'server', url: 'server'},
@@ -2051,6 +2053,7 @@ Ext.onReady(function(){
 			        caseloadProgramStatusService: 'Ssp.service.CaseloadProgramStatusService',
 			        caseloadFilterProgramStatusService: 'Ssp.service.CaseloadFilterProgramStatusService',
 			        referralSourceService: 'Ssp.service.ReferralSourceService',
+			        referenceBundleService: 'Ssp.service.ReferenceBundleService',
 			        searchService: 'Ssp.service.SearchService',
 			        exportService: 'Ssp.service.ExportService',
 					searchChallengeReferralService: 'Ssp.service.SearchChallengeReferralService',
@@ -25,7 +25,8 @@ Ext.define('Ssp.controller.MainViewController', {
 		personService: 'personService',
 		authenticatedPerson: 'authenticatedPerson',
 		contactPersonStore: 'contactPersonStore',
-        configStore: 'configStore'
+        configStore: 'configStore',
+        referenceBundleService: 'referenceBundleService'
 
     },
     config: {
@@ -44,6 +45,7 @@ Ext.define('Ssp.controller.MainViewController', {
 	init: function() {
 		var me=this;
 		me.configStore.load();
+		me.referenceBundleService.load();
 		me.appEventsController.assignEvent({eventName: 'displayStudentRecordView', callBackFunc: this.onDisplayStudentRecordView, scope: this});
 		me.displayStudentRecordView();
 		me.appEventsController.assignEvent({eventName: 'doAdminNav', callBackFunc: me.displayAdminView, scope: me});	
@@ -0,0 +1,120 @@
+/*
+ * Licensed to Apereo under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work
+ * for additional information regarding copyright ownership.
+ * Apereo licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License.  You may obtain a
+ * copy of the License at the following location:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+/**
+ * Fills the common lookup stores from the server's reference bundle, one
+ * request at login instead of one per store as each view first needs it.
+ * Stores are matched to bundled lists by their proxy url, so a store that
+ * isn't in the bundle (or carries extra params) is simply left to load
+ * itself as before.
+ */
+Ext.define('Ssp.service.ReferenceBundleService', {  
+    extend: 'Ssp.service.AbstractService',   		
+    mixins: [ 'Deft.mixin.Injectable'],
+    inject: {
+    	apiProperties: 'apiProperties'
+    },
+    config: {
+    	storeNames: [
+    		'campusesStore',
+    		'challengesStore',
+    		'challengeReferralsStore',
+    		'childCareArrangementsStore',
+    		'citizenshipsStore',
+    		'confidentialityLevelsStore',
+    		'disabilityAgenciesStore',
+    		'disabilityStatusesStore',
+    		'disabilityTypesStore',
+    		'earlyAlertOutcomesStore',
+    		'earlyAlertOutreachesStore',
+    		'earlyAlertReasonsStore',
+    		'earlyAlertReferralsStore',
+    		'earlyAlertSuggestionsStore',
+    		'educationGoalsStore',
+    		'educationLevelsStore',
+    		'ethnicitiesStore',
+    		'fundingSourcesStore',
+    		'journalSourcesStore',
+    		'journalTracksStore',
+    		'maritalStatusesStore',
+    		'militaryAffiliationsStore',
+    		'programStatusesStore',
+    		'studentStatusesStore',
+    		'studentTypesStore',
+    		'veteranStatusesStore'
+    	]
+    },
+    initComponent: function() {
+		return this.callParent( arguments );
+    },
+    
+    getBaseUrl: function(){
+		var me=this;
+		return me.apiProperties.createUrl( me.apiProperties.getItemUrl('referenceBundle') );
+    },
+
+    load: function( callbacks ){
+    	var me=this;
+    	var success = function( response, view ){
+    		var r = Ext.decode(response.responseText);
+    		if (r != null && r.lists != null)
+    		{
+    			me.loadStores( r.lists );
+    		}
+	    	if (callbacks != null)
+	    	{
+	    		callbacks.success( r, callbacks.scope );
+	    	}	
+	    };
+
+	    var failure = function( response ){
+	    	// not fatal, every store can still load itself
+	    	if (callbacks != null)
+	    	{
+	    		callbacks.failure( response, callbacks.scope );
+	    	}
+	    };
+	    	    
+		me.apiProperties.makeRequest({
+			url: me.getBaseUrl(),
+			method: 'GET',
+			successFunc: success,
+			failureFunc: failure,
+			scope: me
+		});
+    },
+
+    loadStores: function( lists ){
+    	var me=this;
+    	var apiContext = me.apiProperties.getAPIContext();
+    	Ext.Array.each( me.getStoreNames(), function( storeName ){
+    		var store = Deft.Injector.resolve( storeName );
+    		var proxy = store.getProxy();
+    		if ( !Ext.Object.isEmpty( proxy.extraParams ) || store.getCount() > 0 )
+    		{
+    			return;
+    		}
+    		var rows = lists[ proxy.url.replace( apiContext, '' ) ];
+    		if (rows != null)
+    		{
+    			store.loadData( rows );
+    			// so the usual "getTotalCount() == 0" checks skip the reload
+    			store.totalCount = rows.length;
+    		}
+    	});
+    }
+});
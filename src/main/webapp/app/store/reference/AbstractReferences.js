@@ -26,8 +26,12 @@ Ext.define('Ssp.store.reference.AbstractReferences', {
     remoteSort: true,
 	constructor: function(){
 		var me=this;
+		var proxy = me.apiProperties.getProxy('');
+		// reference GETs are answered with ETags, so let the browser
+		// revalidate its copy instead of busting it with a _dc param
+		proxy.noCache = false;
 		Ext.apply(me, { 
-						    proxy: me.apiProperties.getProxy(''), 
+						    proxy: proxy, 
 							autoLoad: false,
 							autoSync: false,
 						    pageSize: me.apiProperties.getPagingSize(),
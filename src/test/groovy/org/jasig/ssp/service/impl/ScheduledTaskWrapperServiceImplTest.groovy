@@ -18,6 +18,8 @@
  */
 package org.jasig.ssp.service.impl
 
+import org.jasig.ssp.service.ScheduledTaskLeaseService
+import org.jasig.ssp.service.reference.ConfigChangedEvent
 import org.jasig.ssp.service.reference.ConfigService
 import org.springframework.scheduling.TaskScheduler
 import org.springframework.scheduling.Trigger
@@ -60,7 +62,7 @@ class ScheduledTaskWrapperServiceImplTest extends Specification {
 
 		then: "the second task is scheduled with default periodic trigger"
 		1 * configService.getByNameNullOrDefaultValue("task_scheduler_config_poll_trigger") >> null
-		1 * taskScheduler.schedule(_ as Runnable, new PeriodicTrigger(15 * 60 * 1000) ) >> ([:] as ScheduledFuture)
+		1 * taskScheduler.schedule(_ as Runnable, new PeriodicTrigger(60 * 60 * 1000) ) >> ([:] as ScheduledFuture)
 	}
 
 	def "schedules tasks with configured triggers"() {
@@ -122,7 +124,7 @@ class ScheduledTaskWrapperServiceImplTest extends Specification {
 
 		then: "the second task also falls back to being scheduled with the default trigger"
 		1 * configService.getByNameNullOrDefaultValue("task_scheduler_config_poll_trigger") >> "bar"
-		1 * taskScheduler.schedule(_ as Runnable, new PeriodicTrigger(15 * 60 * 1000) ) >> ([:] as ScheduledFuture)
+		1 * taskScheduler.schedule(_ as Runnable, new PeriodicTrigger(60 * 60 * 1000) ) >> ([:] as ScheduledFuture)
 	}
 
 	def "ignores bad config when rescheduling"() {
@@ -195,7 +197,7 @@ class ScheduledTaskWrapperServiceImplTest extends Specification {
 
 		then: "the second task is unaffected and gets the default trigger"
 		1 * configService.getByNameNullOrDefaultValue("task_scheduler_config_poll_trigger") >> null
-		1 * taskScheduler.schedule(_ as Runnable, new PeriodicTrigger(15 * 60 * 1000) ) >> ([:] as ScheduledFuture)
+		1 * taskScheduler.schedule(_ as Runnable, new PeriodicTrigger(60 * 60 * 1000) ) >> ([:] as ScheduledFuture)
 	}
 
 	def "ignores unmodified config when rescheduling"() {
@@ -265,4 +267,137 @@ class ScheduledTaskWrapperServiceImplTest extends Specification {
 		matcher.matches() && matcher.group(1) == "111" && matcher.group(2) == "222"
 	}
 
+	def "skips a task leased by another node"() {
+		given: "a scheduled task wrapper whose lease service refuses the lease"
+		def leaseService = Mock(ScheduledTaskLeaseService)
+		scheduledTaskWrapper.leaseService = leaseService
+		def ran = false
+		def work = { ran = true } as Runnable
+
+		when: "a leased task fires"
+		scheduledTaskWrapper.runLeased("some-task", work, null)
+
+		then: "the work does not run and the lease is not released"
+		1 * leaseService.tryAcquire("some-task", null) >> false
+		0 * leaseService.release(_, _)
+		!ran
+	}
+
+	def "runs and releases a task whose lease was acquired"() {
+		given: "a scheduled task wrapper whose lease service grants the lease"
+		def leaseService = Mock(ScheduledTaskLeaseService)
+		scheduledTaskWrapper.leaseService = leaseService
+		leaseService.getLeaseDurationMillis() >> 60000L
+		def ran = false
+		def work = { ran = true } as Runnable
+
+		when: "a leased task fires"
+		scheduledTaskWrapper.runLeased("some-task", work, null)
+
+		then: "the work runs and the lease is released as completed"
+		1 * leaseService.tryAcquire("some-task", null) >> true
+		1 * leaseService.release("some-task", true)
+		ran
+	}
+
+	def "checks back to take over an unfinished cron run"() {
+		given: "another node holds the lease on an unfinished cron run"
+		def leaseService = Mock(ScheduledTaskLeaseService)
+		scheduledTaskWrapper.leaseService = leaseService
+		def scheduledFor = new Date(0)
+		def expires = new Date(60000)
+
+		when: "the task fires on this node"
+		scheduledTaskWrapper.runLeased("some-task", {} as Runnable, scheduledFor)
+
+		then: "a takeover check is scheduled for after the other node's lease expires"
+		1 * leaseService.tryAcquire("some-task", scheduledFor) >> false
+		1 * leaseService.takeoverTime("some-task", scheduledFor) >> expires
+		1 * taskScheduler.schedule(_ as Runnable, { it.after(expires) } as Date)
+	}
+
+	def "leases periodic runs by period slot"() {
+		given: "another node already ran the task in the current period"
+		def leaseService = Mock(ScheduledTaskLeaseService)
+		scheduledTaskWrapper.leaseService = leaseService
+		def ran = false
+		def work = { ran = true } as Runnable
+
+		when: "the periodic task fires on this node"
+		scheduledTaskWrapper.withPeriodicLease("some-task", work, 60000L).run()
+
+		then: "it asks for the run keyed by the start of the period, skips it and doesn't wait to take it over"
+		1 * leaseService.tryAcquire("some-task", { it.time % 60000L == 0 && System.currentTimeMillis() - it.time < 60000L } as Date) >> false
+		0 * leaseService.takeoverTime(_, _)
+		0 * taskScheduler.schedule(_ as Runnable, _ as Date)
+		!ran
+	}
+
+	def "schedules batch tasks on the batch scheduler"() {
+		given: "a scheduled task wrapper with separate mocked main and batch schedulers"
+		def batchTaskScheduler = Mock(TaskScheduler)
+		scheduledTaskWrapper.batchTaskScheduler = batchTaskScheduler
+
+		when: "the scheduled task wrapper is initialized"
+		scheduledTaskWrapper.afterPropertiesSet()
+
+		then: "the external person sync goes to the batch scheduler"
+		1 * batchTaskScheduler.schedule(_ as Runnable, new CronTrigger("0 0 1 * * *")) >> ([:] as ScheduledFuture)
+		0 * taskScheduler.schedule(_ as Runnable, new CronTrigger("0 0 1 * * *"))
+
+		and: "config polling and bulk job dispatch stay on the main scheduler"
+		1 * taskScheduler.schedule(_ as Runnable, new PeriodicTrigger(60 * 60 * 1000)) >> ([:] as ScheduledFuture)
+		1 * taskScheduler.schedule(_ as Runnable, { it instanceof PeriodicTrigger && it.period == 15000 }) >> ([:] as ScheduledFuture)
+	}
+
+	def "finds the cron fire time a delayed execution belongs to"() {
+		given: "a daily cron expression whose fire time was a few hours ago"
+		def leaseService = Mock(ScheduledTaskLeaseService)
+		scheduledTaskWrapper.leaseService = leaseService
+		leaseService.getLeaseDurationMillis() >> 60000L
+		def calendar = Calendar.getInstance()
+		calendar.add(Calendar.HOUR_OF_DAY, -3)
+		def expression = "0 0 " + calendar.get(Calendar.HOUR_OF_DAY) + " * * *"
+
+		when: "the fire time is looked up"
+		def now = new Date()
+		def fireTime = scheduledTaskWrapper.cronFireTime(expression)
+
+		then: "it is the latest matching time at or before now"
+		fireTime != null
+		!fireTime.after(now)
+		now.time - fireTime.time < 4 * 60 * 60 * 1000L
+		now.time - fireTime.time > 2 * 60 * 60 * 1000L
+	}
+
+	def "reschedules a task as soon as its trigger config is saved"() {
+		def externalPersonSync = Mock(ScheduledFuture)
+		def reschedule = null
+
+		given: "an initialized scheduled task wrapper"
+		taskScheduler.schedule(_ as Runnable, new CronTrigger("0 0 1 * * *")) >> externalPersonSync
+		scheduledTaskWrapper.afterPropertiesSet()
+
+		when: "a config value unrelated to scheduling is saved"
+		scheduledTaskWrapper.onApplicationEvent(new ConfigChangedEvent(this, "app_title"))
+
+		then: "nothing is rescheduled"
+		0 * taskScheduler.schedule(_ as Runnable, _ as Date)
+
+		when: "the external person sync trigger config is saved"
+		scheduledTaskWrapper.onApplicationEvent(new ConfigChangedEvent(this, "task_external_person_sync_trigger"))
+
+		then: "a reschedule is handed off to the scheduler right away"
+		1 * taskScheduler.schedule(_ as Runnable, _ as Date) >> { Runnable r, Date d -> reschedule = r; null }
+
+		when: "the hand off runs"
+		reschedule.run()
+
+		then: "only that task's config is re-read and it is rescheduled with the new trigger"
+		1 * configService.getByNameNullOrDefaultValue("task_external_person_sync_trigger") >> "2 2 2 2 2 2"
+		0 * configService.getByNameNullOrDefaultValue(_)
+		1 * externalPersonSync.cancel(true)
+		1 * taskScheduler.schedule(_ as Runnable, new CronTrigger("2 2 2 2 2 2")) >> ([:] as ScheduledFuture)
+	}
+
 }
@@ -0,0 +1,319 @@
+/**
+ * Licensed to Apereo under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work
+ * for additional information regarding copyright ownership.
+ * Apereo licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License.  You may obtain a
+ * copy of the License at the following location:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jasig.ssp.config;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.jasig.ssp.service.ComponentException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Minimal in-process SMTP server for exercising the outbound mail path.
+ * <p>
+ * Unlike dumbster's {@code SimpleSmtpServer} it doesn't keep the messages it
+ * receives, but it can slow down and refuse deliveries so tests can see how
+ * the message queue behaves against a sluggish or flaky relay:
+ * <ul>
+ * <li>{@link #setLatencyMillis(long)} delays the reply to every DATA
+ * command, which is where a real relay spends its time;</li>
+ * <li>{@link #setFailEvery(int)} answers every n-th DATA with
+ * {@link #setFailureReply(String) a failure reply} (a transient 451 by
+ * default) instead of accepting it.</li>
+ * </ul>
+ * Both can be changed while the server is running.
+ */
+public class FakeSmtpServer {
+
+	private static final Logger LOGGER = LoggerFactory
+			.getLogger(FakeSmtpServer.class);
+
+	private static final String DEFAULT_FAILURE_REPLY =
+			"451 4.3.0 Injected transient failure";
+
+	private final ServerSocket serverSocket;
+
+	private final Set<Socket> connections = Collections
+			.synchronizedSet(new HashSet<Socket>());
+
+	private final AtomicInteger dataCount = new AtomicInteger();
+
+	private final AtomicInteger acceptedCount = new AtomicInteger();
+
+	private final AtomicInteger rejectedCount = new AtomicInteger();
+
+	private final AtomicInteger connectionCount = new AtomicInteger();
+
+	private volatile long latencyMillis;
+
+	private volatile int failEvery;
+
+	private volatile String failureReply = DEFAULT_FAILURE_REPLY;
+
+	private volatile boolean stopped;
+
+	private FakeSmtpServer(final ServerSocket serverSocket) {
+		this.serverSocket = serverSocket;
+	}
+
+	/**
+	 * Starts a server listening on the loopback interface.
+	 * 
+	 * @param port
+	 *            Port to listen on, or 0 to pick any free port
+	 * @return The running server
+	 */
+	public static FakeSmtpServer start(final int port) {
+		final ServerSocket serverSocket;
+		try {
+			serverSocket = new ServerSocket(port, 50,
+					InetAddress.getByName("localhost"));
+		} catch (final IOException e) {
+			throw new ComponentException("Fake SMTP server unable to bind to port "
+					+ port, e);
+		}
+
+		final FakeSmtpServer server = new FakeSmtpServer(serverSocket);
+		final Thread acceptor = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				server.acceptConnections();
+			}
+		}, "fake-smtp-" + serverSocket.getLocalPort());
+		acceptor.setDaemon(true);
+		acceptor.start();
+		return server;
+	}
+
+	/**
+	 * Closes the listening socket and any open client connections.
+	 */
+	public void stop() {
+		stopped = true;
+		closeQuietly(serverSocket);
+		synchronized (connections) {
+			for (final Socket socket : connections) {
+				closeQuietly(socket);
+			}
+			connections.clear();
+		}
+	}
+
+	public boolean isStopped() {
+		return stopped;
+	}
+
+	public int getPort() {
+		return serverSocket.getLocalPort();
+	}
+
+	public long getLatencyMillis() {
+		return latencyMillis;
+	}
+
+	public void setLatencyMillis(final long latencyMillis) {
+		this.latencyMillis = latencyMillis;
+	}
+
+	public int getFailEvery() {
+		return failEvery;
+	}
+
+	/**
+	 * @param failEvery
+	 *            Refuse every n-th message; 0 or less to accept everything
+	 */
+	public void setFailEvery(final int failEvery) {
+		this.failEvery = failEvery;
+	}
+
+	/**
+	 * @param failureReply
+	 *            Complete reply line, code included, sent for refused
+	 *            messages, e.g. {@code 550 5.1.1 User unknown}
+	 */
+	public void setFailureReply(final String failureReply) {
+		this.failureReply = failureReply == null ? DEFAULT_FAILURE_REPLY
+				: failureReply;
+	}
+
+	/**
+	 * @return Messages that reached the end of DATA, accepted or not
+	 */
+	public int getReceivedCount() {
+		return dataCount.get();
+	}
+
+	public int getAcceptedCount() {
+		return acceptedCount.get();
+	}
+
+	public int getRejectedCount() {
+		return rejectedCount.get();
+	}
+
+	public int getConnectionCount() {
+		return connectionCount.get();
+	}
+
+	/**
+	 * Zeroes all counters; latency and failure settings are kept.
+	 */
+	public void resetCounts() {
+		dataCount.set(0);
+		acceptedCount.set(0);
+		rejectedCount.set(0);
+		connectionCount.set(0);
+	}
+
+	private void acceptConnections() {
+		while (!stopped) {
+			final Socket socket;
+			try {
+				socket = serverSocket.accept();
+			} catch (final IOException e) {
+				if (!stopped) {
+					LOGGER.warn("Fake SMTP server stopped accepting connections",
+							e);
+				}
+				return;
+			}
+
+			connectionCount.incrementAndGet();
+			connections.add(socket);
+			final Thread handler = new Thread(new Runnable() {
+				@Override
+				public void run() {
+					try {
+						converse(socket);
+					} catch (final SocketException e) {
+						// client hung up or server stopped
+					} catch (final IOException e) {
+						LOGGER.debug("Fake SMTP conversation ended abruptly", e);
+					} finally {
+						connections.remove(socket);
+						closeQuietly(socket);
+					}
+				}
+			}, "fake-smtp-session");
+			handler.setDaemon(true);
+			handler.start();
+		}
+	}
+
+	private void converse(final Socket socket) throws IOException {
+		final BufferedReader in = new BufferedReader(new InputStreamReader(
+				socket.getInputStream(), "US-ASCII"));
+		final Writer out = new OutputStreamWriter(socket.getOutputStream(),
+				"US-ASCII");
+
+		reply(out, "220 localhost Fake SMTP ready");
+
+		String line;
+		while ((line = in.readLine()) != null) {
+			final String command = line.length() < 4 ? line.toUpperCase()
+					: line.substring(0, 4).toUpperCase();
+
+			if ("EHLO".equals(command) || "HELO".equals(command)) {
+				reply(out, "250 localhost");
+			} else if ("MAIL".equals(command) || "RCPT".equals(command)
+					|| "RSET".equals(command) || "NOOP".equals(command)) {
+				reply(out, "250 OK");
+			} else if ("DATA".equals(command)) {
+				reply(out, "354 End data with <CR><LF>.<CR><LF>");
+				if (!readData(in)) {
+					return;
+				}
+				reply(out, deliver());
+			} else if ("QUIT".equals(command)) {
+				reply(out, "221 Bye");
+				return;
+			} else {
+				reply(out, "502 Command not implemented");
+			}
+		}
+	}
+
+	private boolean readData(final BufferedReader in) throws IOException {
+		String line;
+		while ((line = in.readLine()) != null) {
+			if (".".equals(line)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private String deliver() {
+		final int count = dataCount.incrementAndGet();
+
+		final long latency = latencyMillis;
+		if (latency > 0) {
+			try {
+				Thread.sleep(latency);
+			} catch (final InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+
+		final int every = failEvery;
+		if (every > 0 && count % every == 0) {
+			rejectedCount.incrementAndGet();
+			return failureReply;
+		}
+
+		acceptedCount.incrementAndGet();
+		return "250 OK queued as " + count;
+	}
+
+	private void reply(final Writer out, final String reply)
+			throws IOException {
+		out.write(reply);
+		out.write("\r\n");
+		out.flush();
+	}
+
+	private static void closeQuietly(final ServerSocket socket) {
+		try {
+			socket.close();
+		} catch (final IOException e) {
+			// nothing to do
+		}
+	}
+
+	private static void closeQuietly(final Socket socket) {
+		try {
+			socket.close();
+		} catch (final IOException e) {
+			// nothing to do
+		}
+	}
+}
@@ -0,0 +1,128 @@
+/**
+ * Licensed to Apereo under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work
+ * for additional information regarding copyright ownership.
+ * Apereo licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License.  You may obtain a
+ * copy of the License at the following location:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jasig.ssp.config;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Properties;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+
+/**
+ * Tests for {@link FakeSmtpServer}, driven through the same
+ * {@link JavaMailSenderImpl} the application uses.
+ */
+public class FakeSmtpServerTest {
+
+	private transient FakeSmtpServer server;
+
+	private transient JavaMailSenderImpl sender;
+
+	@Before
+	public void setUp() {
+		server = FakeSmtpServer.start(0);
+
+		sender = new JavaMailSenderImpl();
+		sender.setHost("localhost");
+		sender.setPort(server.getPort());
+		final Properties props = new Properties();
+		props.setProperty("mail.smtp.timeout", "10000");
+		sender.setJavaMailProperties(props);
+	}
+
+	@After
+	public void tearDown() {
+		server.stop();
+	}
+
+	private SimpleMailMessage message(final int i) {
+		final SimpleMailMessage message = new SimpleMailMessage();
+		message.setFrom("sender@example.com");
+		message.setTo("recipient" + i + "@example.com");
+		message.setSubject("Subject " + i);
+		message.setText("Line one\r\n.leading dot\r\nLine three");
+		return message;
+	}
+
+	@Test
+	public void acceptsMessages() {
+		for (int i = 0; i < 3; i++) {
+			sender.send(message(i));
+		}
+
+		assertEquals("Received count", 3, server.getReceivedCount());
+		assertEquals("Accepted count", 3, server.getAcceptedCount());
+		assertEquals("Rejected count", 0, server.getRejectedCount());
+		assertEquals("Connection count", 3, server.getConnectionCount());
+	}
+
+	@Test
+	public void refusesEveryNthMessage() {
+		server.setFailEvery(2);
+
+		sender.send(message(1));
+		try {
+			sender.send(message(2));
+			fail("Second message should have been refused");
+		} catch (final MailSendException e) {
+			// expected
+		}
+		sender.send(message(3));
+
+		assertEquals("Accepted count", 2, server.getAcceptedCount());
+		assertEquals("Rejected count", 1, server.getRejectedCount());
+	}
+
+	@Test
+	public void delaysReplyToData() {
+		server.setLatencyMillis(200);
+
+		final long start = System.currentTimeMillis();
+		sender.send(message(1));
+		final long elapsed = System.currentTimeMillis() - start;
+
+		assertTrue("Send returned after " + elapsed
+				+ "ms, before the configured latency", elapsed >= 200);
+		assertEquals("Accepted count", 1, server.getAcceptedCount());
+	}
+
+	@Test
+	public void resetCountsKeepsSettings() {
+		server.setFailEvery(1);
+		try {
+			sender.send(message(1));
+			fail("Message should have been refused");
+		} catch (final MailSendException e) {
+			// expected
+		}
+
+		server.resetCounts();
+
+		assertEquals("Received count", 0, server.getReceivedCount());
+		assertEquals("Rejected count", 0, server.getRejectedCount());
+		assertEquals("Fail every", 1, server.getFailEvery());
+	}
+}
@@ -54,13 +54,18 @@ public class MockMailService implements JavaMailSender {
 
 	private transient SimpleSmtpServer smtpServer;
 
+	private transient FakeSmtpServer fakeSmtpServer;
+
 	@PostConstruct
 	public void startup() {
 		internal = new JavaMailSenderImpl();
 		internal.setPort(getPort());
+		setReadTimeout("5");
+	}
 
+	private void setReadTimeout(final String millis) {
 		final Properties props = new Properties();
-		props.setProperty("mail.smtp.timeout", "5");
+		props.setProperty("mail.smtp.timeout", millis);
 		internal.setJavaMailProperties(props);
 	}
 
@@ -69,9 +74,16 @@ public class MockMailService implements JavaMailSender {
 	 */
 	@PreDestroy
 	public void close() {
+		stopServers();
+	}
+
+	private void stopServers() {
 		if ((smtpServer != null) && !smtpServer.isStopped()) {
 			smtpServer.stop();
 		}
+		if ((fakeSmtpServer != null) && !fakeSmtpServer.isStopped()) {
+			fakeSmtpServer.stop();
+		}
 	}
 
 	private int getPort() {
@@ -88,9 +100,8 @@ public class MockMailService implements JavaMailSender {
 	 */
 	public SimpleSmtpServer getSmtpServer() {
 
-		if ((smtpServer != null) && !smtpServer.isStopped()) {
-			smtpServer.stop();
-		}
+		stopServers();
+		setReadTimeout("5");
 
 		smtpServer = SimpleSmtpServer.start(getPort());
 
@@ -102,6 +113,23 @@ public class MockMailService implements JavaMailSender {
 		return smtpServer;
 	}
 
+	/**
+	 * Like {@link #getSmtpServer()}, but starts a {@link FakeSmtpServer} on
+	 * the same port instead, for tests that need to slow down or refuse
+	 * deliveries. The client read timeout is relaxed accordingly, so keep the
+	 * configured latency well under 30 seconds.
+	 * 
+	 * @return An instance of the fake SMTP server for testing.
+	 */
+	public FakeSmtpServer getFakeSmtpServer() {
+
+		stopServers();
+		setReadTimeout("30000");
+
+		fakeSmtpServer = FakeSmtpServer.start(getPort());
+		return fakeSmtpServer;
+	}
+
 	//
 	// EVERYTHING following is for delegation to the JavaMailSenderImpl
 	//
@@ -23,6 +23,7 @@ import org.jasig.ssp.model.ObjectStatus;
 import org.jasig.ssp.model.Person;
 import org.jasig.ssp.service.ObjectNotFoundException;
 import org.jasig.ssp.service.impl.SecurityServiceInTestEnvironment;
+import org.jasig.ssp.util.collections.Pair;
 import org.jasig.ssp.util.sort.PagingWrapper;
 import org.jasig.ssp.util.sort.SortingAndPaging;
 import org.junit.Before;
@@ -37,8 +38,10 @@ import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
 import org.springframework.test.context.transaction.TransactionConfiguration;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Date;
+import java.util.List;
 import java.util.UUID;
 
 import static org.junit.Assert.assertEquals;
@@ -202,6 +205,72 @@ public class MessageDaoTest {
 		}
 	}
 
+	@Test
+	@Rollback
+	public void queuedAfterResumesFromLastKey() throws InterruptedException {
+		for ( int i = 0; i < 15; i++ ) {
+			final Message msg = new Message("Subject " + i, "Body " + i,
+					personDao.fromUsername("ken"),
+					personDao.fromUsername("dmr"),
+					"a@b.com");
+			if ( i == 5 ) {
+				// should skip this one in the 1st batch
+				msg.setSentDate(new Date());
+			} else if ( i == 12 ) {
+				// should skip this one in the second batch
+				msg.setObjectStatus(ObjectStatus.INACTIVE);
+			}
+			dao.save(msg);
+			Thread.sleep(100); // make sure date sorting works predictably
+		}
+
+		final List<Message> batch1 = dao.queuedAfter(null, null, null, 10);
+		assertEquals("Unexpected initial batch size", 10, batch1.size());
+		assertEquals("Unexpected message sorted to head of first batch",
+				"Subject 0", batch1.get(0).getSubject());
+		assertEquals("Unexpected message sorted to end of first batch",
+				"Subject 10", batch1.get(9).getSubject());
+
+		final Message last = batch1.get(9);
+		final List<Message> batch2 = dao.queuedAfter(last.getCreatedDate(), last.getId(), null, 10);
+		assertEquals("Unexpected second batch size", 3, batch2.size());
+		assertEquals("Unexpected message sorted to head of second batch",
+				"Subject 11", batch2.get(0).getSubject());
+		assertEquals("Unexpected message sorted to end of second batch",
+				"Subject 14", batch2.get(2).getSubject());
+	}
+
+	@Test
+	@Rollback
+	public void archivableAfterChunksOldMessagesByKey() throws InterruptedException {
+		final Date start = new Date(System.currentTimeMillis() - 1000);
+		final List<UUID> created = new ArrayList<UUID>();
+		for ( int i = 0; i < 5; i++ ) {
+			created.add(dao.save(createTestMessage()).getId());
+			Thread.sleep(100); // make sure date sorting works predictably
+		}
+		final Date cutoff = new Date(System.currentTimeMillis() + 1000);
+
+		// start just ahead of our own messages so seed data doesn't interfere
+		final List<Pair<Date,UUID>> chunk1 = dao.archivableAfter(cutoff, start, UUID.randomUUID(), 3);
+		assertEquals("Unexpected first chunk size", 3, chunk1.size());
+		assertEquals("Unexpected message at head of first chunk", created.get(0), chunk1.get(0).getSecond());
+
+		final Pair<Date,UUID> last = chunk1.get(2);
+		final List<Pair<Date,UUID>> chunk2 = dao.archivableAfter(cutoff, last.getFirst(), last.getSecond(), 3);
+		assertEquals("Unexpected second chunk size", 2, chunk2.size());
+		assertEquals("Unexpected message at end of second chunk", created.get(4), chunk2.get(1).getSecond());
+
+		final List<UUID> ids = new ArrayList<UUID>();
+		for ( Pair<Date,UUID> key : chunk1 ) {
+			ids.add(key.getSecond());
+		}
+		assertEquals("Unexpected archived count", 3, dao.archiveAndPruneMessages(ids));
+		final List<Pair<Date,UUID>> remaining = dao.archivableAfter(cutoff, start, UUID.randomUUID(), 10);
+		assertEquals("Archived messages should have been pruned", 2, remaining.size());
+		assertEquals("Unexpected message left at head after pruning", created.get(3), remaining.get(0).getSecond());
+	}
+
 	/**
 	 * Create a new sample message to use for testing.
 	 * 
@@ -0,0 +1,136 @@
+/**
+ * Licensed to Apereo under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work
+ * for additional information regarding copyright ownership.
+ * Apereo licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License.  You may obtain a
+ * copy of the License at the following location:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jasig.ssp.dao;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.util.Date;
+
+import org.hibernate.SessionFactory;
+import org.jasig.ssp.model.ScheduledTaskLease;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.test.context.transaction.TransactionConfiguration;
+import org.springframework.transaction.annotation.Transactional;
+
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration("dao-testConfig.xml")
+@TransactionConfiguration()
+@Transactional
+public class ScheduledTaskLeaseDaoTest {
+
+	private static final String TASK = "lease-test-task";
+
+	private static final String NODE_A = "node-a";
+
+	private static final String NODE_B = "node-b";
+
+	private static final long MINUTE = 60 * 1000L;
+
+	@Autowired
+	private transient ScheduledTaskLeaseDao dao;
+
+	@Autowired
+	private transient SessionFactory sessionFactory;
+
+	private ScheduledTaskLease reload() {
+		// bulk updates bypass the session, so don't trust what it cached
+		sessionFactory.getCurrentSession().clear();
+		return dao.get(TASK);
+	}
+
+	@Test
+	public void onlyOneNodeAcquiresAnUnexpiredLease() {
+		dao.create(TASK);
+		final Date now = new Date();
+
+		assertEquals("First node should get the lease", 1,
+				dao.acquire(TASK, NODE_A, now, new Date(now.getTime() + MINUTE), null));
+		assertEquals("Second node should not get a held lease", 0,
+				dao.acquire(TASK, NODE_B, now, new Date(now.getTime() + MINUTE), null));
+		assertEquals("Holder", NODE_A, reload().getLeaseHolder());
+	}
+
+	@Test
+	public void expiredLeaseCanBeTakenOver() {
+		dao.create(TASK);
+		final Date then = new Date(System.currentTimeMillis() - 2 * MINUTE);
+		dao.acquire(TASK, NODE_A, then, new Date(then.getTime() + MINUTE), null);
+
+		final Date now = new Date();
+		assertEquals("Expired lease should be taken over", 1,
+				dao.acquire(TASK, NODE_B, now, new Date(now.getTime() + MINUTE), null));
+		assertEquals("Dead holder can no longer renew", 0,
+				dao.renew(TASK, NODE_A, now, new Date(now.getTime() + MINUTE)));
+		assertEquals("Holder", NODE_B, reload().getLeaseHolder());
+	}
+
+	@Test
+	public void completedCronRunIsNotRepeated() {
+		dao.create(TASK);
+		final Date scheduledFor = new Date((System.currentTimeMillis() / MINUTE) * MINUTE);
+		final Date now = new Date();
+
+		dao.acquire(TASK, NODE_A, now, new Date(now.getTime() + MINUTE), scheduledFor);
+		assertEquals("Holder should release", 1, dao.release(TASK, NODE_A, now));
+		assertEquals("Completed run should not be taken again", 0,
+				dao.acquire(TASK, NODE_B, now, new Date(now.getTime() + MINUTE), scheduledFor));
+		assertEquals("Next run should be taken", 1,
+				dao.acquire(TASK, NODE_B, now, new Date(now.getTime() + MINUTE),
+						new Date(scheduledFor.getTime() + MINUTE)));
+	}
+
+	@Test
+	public void interruptedCronRunCanBePickedUp() {
+		dao.create(TASK);
+		final Date scheduledFor = new Date((System.currentTimeMillis() / MINUTE) * MINUTE);
+		final Date now = new Date();
+
+		dao.acquire(TASK, NODE_A, now, new Date(now.getTime() + MINUTE), scheduledFor);
+		dao.release(TASK, NODE_A, null);
+
+		assertEquals("Unfinished run should be taken over", 1,
+				dao.acquire(TASK, NODE_B, now, new Date(now.getTime() + MINUTE), scheduledFor));
+		final ScheduledTaskLease lease = reload();
+		assertEquals("Holder", NODE_B, lease.getLeaseHolder());
+		assertEquals("Scheduled for", scheduledFor, lease.getScheduledFor());
+		assertNull("Completed date", lease.getCompletedDate());
+	}
+
+	@Test
+	public void releaseClearsHolder() {
+		dao.create(TASK);
+		final Date now = new Date();
+		dao.acquire(TASK, NODE_A, now, new Date(now.getTime() + MINUTE), null);
+
+		assertEquals("Non-holder release should do nothing", 0,
+				dao.release(TASK, NODE_B, now));
+		assertEquals("Holder release", 1, dao.release(TASK, NODE_A, now));
+
+		final ScheduledTaskLease lease = reload();
+		assertNull("Holder", lease.getLeaseHolder());
+		assertNull("Expires", lease.getLeaseExpires());
+		assertNotNull("Completed date", lease.getCompletedDate());
+	}
+}
@@ -0,0 +1,101 @@
+/**
+ * Licensed to Apereo under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work
+ * for additional information regarding copyright ownership.
+ * Apereo licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License.  You may obtain a
+ * copy of the License at the following location:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jasig.ssp.dao;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+import org.jasig.ssp.model.ScheduledTaskRun;
+import org.jasig.ssp.model.ScheduledTaskStatus;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.test.context.transaction.TransactionConfiguration;
+import org.springframework.transaction.annotation.Transactional;
+
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration("dao-testConfig.xml")
+@TransactionConfiguration()
+@Transactional
+public class ScheduledTaskRunDaoTest {
+
+	private static final String TASK = "run-history-test-task";
+
+	private static final String OTHER_TASK = "run-history-other-test-task";
+
+	private static final long HOUR = 60 * 60 * 1000L;
+
+	@Autowired
+	private transient ScheduledTaskRunDao dao;
+
+	private ScheduledTaskRun run(final String taskName, final Date start,
+			final long durationMillis) {
+		final ScheduledTaskRun run = new ScheduledTaskRun();
+		run.setTaskName(taskName);
+		run.setNode("node-a");
+		run.setStartDate(start);
+		run.setEndDate(new Date(start.getTime() + durationMillis));
+		run.setDurationMillis(durationMillis);
+		run.setItemsProcessed(10L);
+		run.setOutcome(ScheduledTaskStatus.COMPLETED);
+		return dao.create(run);
+	}
+
+	@Test
+	public void recentRunsAreNewestFirstAndFilteredByTask() {
+		final long now = System.currentTimeMillis();
+		run(TASK, new Date(now - 3 * HOUR), 100);
+		run(TASK, new Date(now - HOUR), 200);
+		run(TASK, new Date(now - 2 * HOUR), 300);
+		run(OTHER_TASK, new Date(now), 400);
+
+		final List<ScheduledTaskRun> runs = dao.getRecent(TASK, null, 10);
+		assertEquals("Run count", 3, runs.size());
+		assertNotNull("Id", runs.get(0).getId());
+		assertEquals("Newest first", 200, runs.get(0).getDurationMillis());
+		assertEquals("Oldest last", 100, runs.get(2).getDurationMillis());
+
+		assertEquals("Limited", 2, dao.getRecent(TASK, null, 2).size());
+		assertEquals("Since", 2, dao.getRecent(TASK,
+				new Date(now - 2 * HOUR - 1), 10).size());
+		assertTrue("All tasks", dao.getRecent(null, null, 10).size() >= 4);
+		assertTrue("Task names", dao.getTaskNames().containsAll(
+				Arrays.asList(TASK, OTHER_TASK)));
+	}
+
+	@Test
+	public void deletesRunsStartedBeforeCutoff() {
+		final long now = System.currentTimeMillis();
+		run(TASK, new Date(now - 48 * HOUR), 100);
+		run(TASK, new Date(now - HOUR), 200);
+
+		assertTrue("Deleted old run",
+				dao.deleteStartedBefore(new Date(now - 24 * HOUR)) >= 1);
+		final List<ScheduledTaskRun> runs = dao.getRecent(TASK, null, 10);
+		assertEquals("Run count", 1, runs.size());
+		assertEquals("Kept recent run", 200, runs.get(0).getDurationMillis());
+	}
+}
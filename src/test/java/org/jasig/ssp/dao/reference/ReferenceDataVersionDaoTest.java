@@ -0,0 +1,117 @@
+/**
+ * Licensed to Apereo under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work
+ * for additional information regarding copyright ownership.
+ * Apereo licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License.  You may obtain a
+ * copy of the License at the following location:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jasig.ssp.dao.reference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+
+import org.hibernate.SessionFactory;
+import org.jasig.ssp.model.ObjectStatus;
+import org.jasig.ssp.model.Person;
+import org.jasig.ssp.model.reference.Citizenship;
+import org.jasig.ssp.model.reference.ReferenceDataVersion;
+import org.jasig.ssp.model.reference.VeteranStatus;
+import org.jasig.ssp.service.impl.SecurityServiceInTestEnvironment;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.test.context.transaction.TransactionConfiguration;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Tests for {@link ReferenceDataVersionDao}.
+ */
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration("../dao-testConfig.xml")
+@TransactionConfiguration
+@Transactional
+public class ReferenceDataVersionDaoTest {
+
+	@Autowired
+	protected transient SessionFactory sessionFactory;
+
+	@Autowired
+	private transient ReferenceDataVersionDao dao;
+
+	@Autowired
+	private transient CitizenshipDao citizenshipDao;
+
+	@Autowired
+	private transient SecurityServiceInTestEnvironment securityService;
+
+	@Before
+	public void setUp() {
+		securityService.setCurrent(new Person(Person.SYSTEM_ADMINISTRATOR_ID));
+	}
+
+	@Test
+	public void testVersionIsStableWhileDataIsUnchanged() {
+		final ReferenceDataVersion first = dao.getVersion(Citizenship.class);
+		final ReferenceDataVersion second = dao.getVersion(Citizenship.class);
+
+		assertNotNull("Tag should not have been null.", first.getTag());
+		assertEquals("Tag should not have changed.", first.getTag(),
+				second.getTag());
+		assertEquals("Last modified should not have changed.",
+				first.getLastModified(), second.getLastModified());
+	}
+
+	@Test
+	public void testVersionChangesOnCreateAndDelete() {
+		final ReferenceDataVersion before = dao.getVersion(Citizenship.class);
+
+		Citizenship obj = new Citizenship();
+		obj.setName("new name");
+		obj.setObjectStatus(ObjectStatus.ACTIVE);
+		obj = citizenshipDao.save(obj);
+		sessionFactory.getCurrentSession().flush();
+
+		final ReferenceDataVersion created = dao.getVersion(Citizenship.class);
+		assertFalse("Tag should have changed after a create.", before
+				.getTag().equals(created.getTag()));
+
+		citizenshipDao.delete(obj);
+		sessionFactory.getCurrentSession().flush();
+
+		final ReferenceDataVersion deleted = dao.getVersion(Citizenship.class);
+		assertFalse("Tag should have changed after a delete.", created
+				.getTag().equals(deleted.getTag()));
+	}
+
+	@Test
+	public void testVersionCoversEveryClass() {
+		final ReferenceDataVersion before = dao.getVersion(VeteranStatus.class,
+				Citizenship.class);
+
+		final Citizenship obj = new Citizenship();
+		obj.setName("new name");
+		obj.setObjectStatus(ObjectStatus.ACTIVE);
+		citizenshipDao.save(obj);
+		sessionFactory.getCurrentSession().flush();
+
+		final ReferenceDataVersion after = dao.getVersion(VeteranStatus.class,
+				Citizenship.class);
+		assertFalse("Tag should have changed with the second class's data.",
+				before.getTag().equals(after.getTag()));
+	}
+}
@@ -0,0 +1,80 @@
+/**
+ * Licensed to Apereo under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work
+ * for additional information regarding copyright ownership.
+ * Apereo licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License.  You may obtain a
+ * copy of the License at the following location:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jasig.ssp.security;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.UUID;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class PersonSnapshotInvalidatorTest {
+
+	private transient PersonSnapshotInvalidator invalidator;
+
+	@Before
+	public void setUp() {
+		invalidator = new PersonSnapshotInvalidator();
+		invalidator.setSnapshotSeconds(60);
+	}
+
+	@Test
+	public void testFreshSnapshotIsValid() {
+		assertTrue("Fresh snapshot should be valid.", invalidator.isValid(
+				UUID.randomUUID(), System.currentTimeMillis()));
+	}
+
+	@Test
+	public void testExpiredSnapshotIsInvalid() {
+		assertFalse("Expired snapshot should not be valid.",
+				invalidator.isValid(UUID.randomUUID(),
+						System.currentTimeMillis() - 61000L));
+	}
+
+	@Test
+	public void testMissingIdIsInvalid() {
+		assertFalse("Snapshot without a person should not be valid.",
+				invalidator.isValid(null, System.currentTimeMillis()));
+	}
+
+	@Test
+	public void testInvalidateOnlyAffectsEarlierSnapshotsOfThatPerson() {
+		final UUID changed = UUID.randomUUID();
+		final UUID other = UUID.randomUUID();
+		final long before = System.currentTimeMillis() - 1000L;
+
+		invalidator.invalidate(changed);
+
+		assertFalse("Snapshot taken before the change should not be valid.",
+				invalidator.isValid(changed, before));
+		assertTrue("Snapshot of another person should still be valid.",
+				invalidator.isValid(other, before));
+		assertTrue("Snapshot taken after the change should be valid.",
+				invalidator.isValid(changed, System.currentTimeMillis() + 1));
+	}
+
+	@Test
+	public void testZeroSecondsDisablesSnapshots() {
+		invalidator.setSnapshotSeconds(0);
+		assertFalse("Snapshots should be disabled.", invalidator.isValid(
+				UUID.randomUUID(), System.currentTimeMillis()));
+	}
+}
@@ -0,0 +1,110 @@
+/**
+ * Licensed to Apereo under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work
+ * for additional information regarding copyright ownership.
+ * Apereo licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License.  You may obtain a
+ * copy of the License at the following location:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jasig.ssp.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+
+import org.apache.velocity.VelocityContext;
+import org.apache.velocity.app.VelocityEngine;
+import org.apache.velocity.runtime.resource.loader.StringResourceLoader;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * VelocityTemplateService tests
+ */
+public class VelocityTemplateServiceTest {
+
+	private transient VelocityTemplateService service;
+
+	@Before
+	public void setUp() {
+		final Properties props = new Properties();
+		props.setProperty("resource.loader", "string");
+		props.setProperty("string.resource.loader.class",
+				StringResourceLoader.class.getName());
+		final VelocityEngine engine = new VelocityEngine(props);
+		engine.init();
+
+		service = new VelocityTemplateService();
+		service.setVelocityEngine(engine);
+		service.setTemplateCacheSize(2);
+	}
+
+	@Test
+	public void testParsedTemplateIsReused() {
+		assertSame("Template should have been parsed once and cached",
+				service.getTemplate("t1", "Hello $name"),
+				service.getTemplate("t1", "Hello $name"));
+	}
+
+	@Test
+	public void testChangedTextIsReparsed() {
+		assertEquals("Hello Ken", render("t1", "Hello $name"));
+		assertEquals("Bye Ken", render("t1", "Bye $name"));
+	}
+
+	@Test
+	public void testEvictDropsAllVersions() {
+		final Object v1 = service.getTemplate("abc-b-1", "One");
+		service.getTemplate("abc-s-1", "Two");
+		service.evict("abc");
+		assertNotSame("Evicted template should have been reparsed", v1,
+				service.getTemplate("abc-b-1", "One"));
+	}
+
+	@Test
+	public void testLeastRecentlyUsedIsDropped() {
+		final Object t1 = service.getTemplate("t1", "One");
+		service.getTemplate("t2", "Two");
+		service.getTemplate("t1", "One");
+		final Object t2Again = service.getTemplate("t2", "Two");
+		service.getTemplate("t3", "Three");
+		assertSame("Recently used template should have stayed cached", t2Again,
+				service.getTemplate("t2", "Two"));
+		assertNotSame("Least recently used template should have been dropped",
+				t1, service.getTemplate("t1", "One"));
+	}
+
+	@Test
+	public void testSharedContextFillsInMissingParameters() {
+		final Map<String, Object> shared = new HashMap<String, Object>();
+		shared.put("inst", "Sinclair");
+		shared.put("name", "Nobody");
+		final Map<String, Object> params = new HashMap<String, Object>();
+		params.put("name", "Ken");
+		final VelocityContext sharedContext = new VelocityContext(shared);
+		assertEquals("Ken at Sinclair", service.generateContentFromTemplate(
+				"$name at $inst", "t1", params, sharedContext));
+		assertEquals("Shared context should not have been written to",
+				"Nobody", sharedContext.get("name"));
+	}
+
+	private String render(final String templateId, final String text) {
+		final Map<String, Object> params = new HashMap<String, Object>();
+		params.put("name", "Ken");
+		return service.generateContentFromTemplate(text, templateId, params);
+	}
+}
@@ -0,0 +1,185 @@
+/**
+ * Licensed to Apereo under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work
+ * for additional information regarding copyright ownership.
+ * Apereo licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License.  You may obtain a
+ * copy of the License at the following location:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jasig.ssp.service.impl;
+
+import static org.easymock.EasyMock.createMock;
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.replay;
+import static org.easymock.EasyMock.verify;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.fail;
+
+import java.util.Map;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.jasig.portlet.utils.rest.CrossContextRestApiInvoker;
+import org.jasig.portlet.utils.rest.RestResponse;
+import org.jasig.ssp.security.PersonAttributesResult;
+import org.jasig.ssp.security.uportal.RequestAndResponseAccessFilter;
+import org.jasig.ssp.service.ObjectNotFoundException;
+import org.jasig.ssp.service.PersonAttributesService;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.mock.web.MockServletContext;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+
+public class CachingPersonAttributesServiceTest {
+
+	private static final String PERSON_URI = "/ssp-platform/api/people/{username}.json";
+
+	private transient PersonAttributesService delegate;
+
+	private transient CachingPersonAttributesService service;
+
+	@Before
+	public void setUp() {
+		delegate = createMock(PersonAttributesService.class);
+		service = new CachingPersonAttributesService(delegate);
+		service.init();
+	}
+
+	private static PersonAttributesResult attributes(final String schoolId) {
+		return new PersonAttributesResult(schoolId, "First", "Last",
+				"first@example.com", null);
+	}
+
+	@Test
+	public void testFoundIsCached() throws ObjectNotFoundException {
+		expect(delegate.getAttributes("jdoe")).andReturn(attributes("123"));
+		replay(delegate);
+
+		assertEquals("123", service.getAttributes("jdoe").getSchoolId());
+		// callers get their own copy
+		service.getAttributes("jdoe").setSchoolId("changed");
+		assertEquals("123", service.getAttributes("jdoe").getSchoolId());
+		verify(delegate);
+	}
+
+	@Test
+	public void testNotFoundIsCached() throws ObjectNotFoundException {
+		expect(delegate.getAttributes("nobody")).andThrow(
+				new ObjectNotFoundException("unrecognized", "nobody"));
+		expect(delegate.getAttributes("ldapnobody")).andReturn(null);
+		replay(delegate);
+
+		for (int i = 0; i < 2; i++) {
+			assertNotFound("nobody");
+			assertNotFound("ldapnobody");
+		}
+		verify(delegate);
+	}
+
+	@Test
+	public void testDisabledCacheAlwaysDelegates()
+			throws ObjectNotFoundException {
+		service.setCacheSeconds(0);
+		service.setNegativeCacheSeconds(0);
+		service.init();
+		expect(delegate.getAttributes("jdoe")).andReturn(attributes("123"))
+				.times(2);
+		replay(delegate);
+
+		service.getAttributes("jdoe");
+		service.getAttributes("jdoe");
+		verify(delegate);
+	}
+
+	@Test
+	public void testBatchOnlyAsksForUncached() throws ObjectNotFoundException {
+		expect(delegate.getAttributes("cached")).andReturn(attributes("1"));
+		expect(delegate.getAttributesForUsernames(
+				Lists.newArrayList("new", "missing"))).andReturn(
+				ImmutableMap.of("new", attributes("2")));
+		replay(delegate);
+
+		service.getAttributes("cached");
+		final Map<String, PersonAttributesResult> rslt = service
+				.getAttributesForUsernames(Lists.newArrayList("cached", "new",
+						"missing"));
+		assertEquals(2, rslt.size());
+		assertEquals("1", rslt.get("cached").getSchoolId());
+		assertEquals("2", rslt.get("new").getSchoolId());
+		assertFalse(rslt.containsKey("missing"));
+
+		// everything is now cached, found or not
+		assertEquals(2, service.getAttributesForUsernames(
+				Lists.newArrayList("cached", "new", "missing")).size());
+		assertNotFound("missing");
+		verify(delegate);
+	}
+
+	@Test
+	public void testUPortalLookupWithStubInvoker()
+			throws ObjectNotFoundException {
+		final int[] invocations = { 0 };
+		final UPortalPersonAttributesService uPortal = new UPortalPersonAttributesService();
+		uPortal.setServletContext(new MockServletContext());
+		uPortal.setRequestAndResponseAccessFilter(new RequestAndResponseAccessFilter());
+		uPortal.setRestApiInvoker(new CrossContextRestApiInvoker() {
+			@Override
+			public RestResponse invoke(final HttpServletRequest req,
+					final HttpServletResponse res, final String uri) {
+				throw new UnsupportedOperationException();
+			}
+
+			@Override
+			public RestResponse invoke(final HttpServletRequest req,
+					final HttpServletResponse res, final String uri,
+					final Map<String, String[]> params) {
+				invocations[0]++;
+				assertEquals(PERSON_URI, uri);
+				if ("nobody".equals(params.get("username")[0])) {
+					return new RestResponse("{}", "application/json");
+				}
+				return new RestResponse("{\"person\":{\"attributes\":{"
+						+ "\"schoolId\":[\"123\"],\"firstName\":[\"Jane\"]}}}",
+						"application/json");
+			}
+		});
+		final CachingPersonAttributesService caching = new CachingPersonAttributesService(uPortal);
+		caching.init();
+
+		final Map<String, PersonAttributesResult> rslt = caching
+				.getAttributesForUsernames(Lists.newArrayList("jdoe", "nobody"));
+		assertEquals("Jane", rslt.get("jdoe").getFirstName());
+		assertEquals(1, rslt.size());
+		assertEquals("123", caching.getAttributes("jdoe").getSchoolId());
+		try {
+			caching.getAttributes("nobody");
+			fail("Expected ObjectNotFoundException");
+		} catch (final ObjectNotFoundException e) {
+			// expected
+		}
+		assertEquals("One portal request per person.", 2, invocations[0]);
+	}
+
+	private void assertNotFound(final String username) {
+		try {
+			service.getAttributes(username);
+			fail("Expected ObjectNotFoundException for " + username);
+		} catch (final ObjectNotFoundException e) {
+			// expected
+		}
+	}
+}
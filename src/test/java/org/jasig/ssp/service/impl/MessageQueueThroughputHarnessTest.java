@@ -0,0 +1,258 @@
+/**
+ * Licensed to Apereo under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work
+ * for additional information regarding copyright ownership.
+ * Apereo licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License.  You may obtain a
+ * copy of the License at the following location:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jasig.ssp.service.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+import java.util.concurrent.Callable;
+
+import org.hibernate.SessionFactory;
+import org.jasig.ssp.config.FakeSmtpServer;
+import org.jasig.ssp.config.MockMailService;
+import org.jasig.ssp.model.SubjectAndBody;
+import org.jasig.ssp.model.reference.Config;
+import org.jasig.ssp.service.MessageService;
+import org.jasig.ssp.service.reference.ConfigService;
+import org.jasig.ssp.util.transaction.WithTransaction;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.aop.framework.Advised;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+
+/**
+ * Throughput harness for the outbound message pipeline: seeds a batch of
+ * queued messages, drains the queue against a {@link FakeSmtpServer} with
+ * injected latency and failures, then archives the sent messages, logging
+ * drain rate, retries and archive time.
+ * <p>
+ * Unlike the other service tests this one is deliberately <em>not</em>
+ * transactional: the queue and the archiver each commit in their own
+ * transactions and need to see the seeded rows. Everything the harness
+ * creates is deleted again afterwards. Archiving runs with a zero day age
+ * limit, so any other unreferenced messages already in the test database get
+ * archived too. That's why the harness only runs when the
+ * {@code ssp.messageHarness.enabled} system property is set, e.g.
+ * {@code mvn test -Dtest=MessageQueueThroughputHarnessTest
+ * -Dssp.messageHarness.enabled=true}, and is skipped in the normal suite.
+ * <p>
+ * Sizes can be adjusted with the {@code ssp.messageHarness.messages},
+ * {@code ssp.messageHarness.latencyMillis} and
+ * {@code ssp.messageHarness.failEvery} system properties. The defaults keep
+ * a run down to a few seconds.
+ */
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration("../service-testConfig.xml")
+public class MessageQueueThroughputHarnessTest {
+
+	private static final Logger LOGGER = LoggerFactory
+			.getLogger(MessageQueueThroughputHarnessTest.class);
+
+	private static final String SUBJECT_PREFIX = "Throughput harness message ";
+
+	private static final int MESSAGE_COUNT = Integer.getInteger(
+			"ssp.messageHarness.messages", 200);
+
+	private static final long LATENCY_MILLIS = Long.getLong(
+			"ssp.messageHarness.latencyMillis", 5L);
+
+	private static final int FAIL_EVERY = Integer.getInteger(
+			"ssp.messageHarness.failEvery", 25);
+
+	private static final int MAX_DRAIN_PASSES = 1000;
+
+	private static final long DEFAULT_SEND_RETRY_WAIT_MILLIS = 20 * 1000L;
+
+	@Autowired
+	private transient MessageService service;
+
+	@Autowired
+	private transient MockMailService mockMailService;
+
+	@Autowired
+	private transient ConfigService configService;
+
+	@Autowired
+	private transient SessionFactory sessionFactory;
+
+	@Autowired
+	private transient WithTransaction withTransaction;
+
+	private transient FakeSmtpServer smtpServer;
+
+	private transient String originalMailAgeLimit;
+
+	@BeforeClass
+	public static void onlyWhenEnabled() {
+		assumeTrue(Boolean.getBoolean("ssp.messageHarness.enabled"));
+	}
+
+	@Before
+	public void setUp() throws Exception {
+		smtpServer = mockMailService.getFakeSmtpServer();
+		smtpServer.setLatencyMillis(LATENCY_MILLIS);
+		smtpServer.setFailEvery(FAIL_EVERY);
+
+		// injected failures are transient, so the immediate resend is what
+		// we're measuring, not the wait in front of it
+		getServiceImpl().setSendRetryWaitMillis(0);
+
+		originalMailAgeLimit = configService
+				.getByNameEmpty("mail_age_in_days_limit");
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		smtpServer.stop();
+		getServiceImpl().setSendRetryWaitMillis(DEFAULT_SEND_RETRY_WAIT_MILLIS);
+		setConfig("mail_age_in_days_limit", originalMailAgeLimit);
+		deleteHarnessMessages();
+	}
+
+	@Test
+	public void drainAndArchiveQueuedMessages() throws Exception {
+		final long seedStart = System.currentTimeMillis();
+		for (int i = 0; i < MESSAGE_COUNT; i++) {
+			service.createMessage("harness" + i + "@example.com", null,
+					new SubjectAndBody(SUBJECT_PREFIX + i,
+							"<html><body>Message " + i + "</body></html>"));
+		}
+		final long seedMillis = System.currentTimeMillis() - seedStart;
+
+		final int retryLimit = configService
+				.getByNameExceptionOrDefaultAsInt("mail_delivery_retry_limit");
+		final long drainStart = System.currentTimeMillis();
+		int passes = 0;
+		while (countHarnessMessages("Message", "sentDate is null "
+				+ "and (retryCount is null or retryCount < " + retryLimit
+				+ ")") > 0
+				&& passes < MAX_DRAIN_PASSES) {
+			service.sendQueuedMessages(null);
+			passes++;
+		}
+		final long drainMillis = System.currentTimeMillis() - drainStart;
+
+		final long sent = countHarnessMessages("Message",
+				"sentDate is not null");
+		final long retried = countHarnessMessages("Message",
+				"retryCount > 0");
+
+		// anything created before now is old enough to archive
+		setConfig("mail_age_in_days_limit", "0");
+		Thread.sleep(10);
+		final long archiveStart = System.currentTimeMillis();
+		final int archived = service.archiveAndPruneMessages();
+		final long archiveMillis = System.currentTimeMillis() - archiveStart;
+
+		LOGGER.info("Message pipeline harness: seeded {} messages in {}ms",
+				MESSAGE_COUNT, seedMillis);
+		LOGGER.info("Message pipeline harness: drained {} messages in {}ms over"
+				+ " {} sendQueuedMessages passes ({} msgs/sec) with {}ms SMTP"
+				+ " latency", new Object[] { sent, drainMillis, passes,
+				ratePerSecond(sent, drainMillis), LATENCY_MILLIS });
+		LOGGER.info("Message pipeline harness: SMTP server refused {} of {}"
+				+ " deliveries over {} connections; {} messages left with a"
+				+ " retry count", new Object[] { smtpServer.getRejectedCount(),
+				smtpServer.getReceivedCount(),
+				smtpServer.getConnectionCount(), retried });
+		LOGGER.info("Message pipeline harness: archived {} messages in {}ms"
+				+ " ({} msgs/sec)", new Object[] { archived, archiveMillis,
+				ratePerSecond(archived, archiveMillis) });
+
+		assertEquals("Every seeded message should have been sent",
+				MESSAGE_COUNT, sent);
+		assertEquals("Every seeded message should have been delivered",
+				MESSAGE_COUNT, smtpServer.getAcceptedCount());
+		assertEquals("Every sent message should have been archived", 0,
+				countHarnessMessages("Message", null));
+		assertTrue("Archived count should cover the seeded messages",
+				archived >= MESSAGE_COUNT);
+	}
+
+	private static long ratePerSecond(final long count, final long millis) {
+		return millis == 0 ? count * 1000L : count * 1000L / millis;
+	}
+
+	private MessageServiceImpl getServiceImpl() throws Exception {
+		Object target = service;
+		while (AopUtils.isAopProxy(target)) {
+			target = ((Advised) target).getTargetSource().getTarget();
+		}
+		return (MessageServiceImpl) target;
+	}
+
+	private long countHarnessMessages(final String entity,
+			final String condition) {
+		return withTransaction.withNewTransactionAndUncheckedExceptionsReadOnly(
+				new Callable<Long>() {
+					@Override
+					public Long call() throws Exception {
+						return (Long) sessionFactory
+								.getCurrentSession()
+								.createQuery(
+										"select count(*) from " + entity
+												+ " where subject like :subject"
+												+ (condition == null ? ""
+														: " and " + condition))
+								.setString("subject", SUBJECT_PREFIX + "%")
+								.uniqueResult();
+					}
+				});
+	}
+
+	private void deleteHarnessMessages() {
+		withTransaction.withNewTransactionAndUncheckedExceptions(
+				new Callable<Void>() {
+					@Override
+					public Void call() throws Exception {
+						for (final String entity : new String[] {
+								"ArchivedMessage", "Message" }) {
+							sessionFactory
+									.getCurrentSession()
+									.createQuery(
+											"delete from " + entity
+													+ " where subject like :subject")
+									.setString("subject", SUBJECT_PREFIX + "%")
+									.executeUpdate();
+						}
+						return null;
+					}
+				});
+	}
+
+	private void setConfig(final String name, final String value)
+			throws Exception {
+		for (final Config config : configService.getAll(null)) {
+			if (config.getName().equalsIgnoreCase(name)) {
+				config.setValue(value);
+				configService.save(config);
+				return;
+			}
+		}
+	}
+}
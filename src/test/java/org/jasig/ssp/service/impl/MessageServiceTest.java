@@ -24,9 +24,11 @@ package org.jasig.ssp.service.impl;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
 import java.io.UnsupportedEncodingException;
+import java.util.UUID;
 
 import com.dumbster.smtp.SimpleSmtpServer;
 import com.dumbster.smtp.SmtpMessage;
@@ -34,13 +36,16 @@ import com.dumbster.smtp.SmtpMessage;
 import org.jasig.ssp.config.MockMailService;
 import org.jasig.ssp.dao.MessageDao;
 import org.jasig.ssp.model.Message;
+import org.jasig.ssp.model.MessageDigestCategory;
 import org.jasig.ssp.model.Person;
 import org.jasig.ssp.model.SubjectAndBody;
 import org.jasig.ssp.model.reference.Config;
 import org.jasig.ssp.service.MessageService;
 import org.jasig.ssp.service.ObjectNotFoundException;
+import org.jasig.ssp.service.PersonService;
 import org.jasig.ssp.service.reference.ConfigService;
 import org.jasig.ssp.util.sort.PagingWrapper;
+import org.jasig.ssp.util.service.stub.Stubs;
 import org.jasig.ssp.util.sort.SortingAndPaging;
 import org.jasig.ssp.web.api.validation.ValidationException;
 import org.junit.Before;
@@ -76,6 +81,9 @@ public class MessageServiceTest {
 	@Autowired
 	private transient ConfigService configService;
 
+	@Autowired
+	private transient PersonService personService;
+
 	@Autowired
 	private transient SecurityServiceInTestEnvironment securityService;
 
@@ -98,6 +106,28 @@ public class MessageServiceTest {
 				service.shouldSendMail());
 	}
 
+	@Test
+	public void sharedContentIsStoredOnce() throws ObjectNotFoundException,
+			SendFailedException, UnsupportedEncodingException {
+		final String body = "Bulk body " + UUID.randomUUID();
+		final Message first = service.createMessageWithSharedContent(
+				"one@email.com", null, new SubjectAndBody("Subject", body));
+		final Message second = service.createMessageWithSharedContent(
+				"two@email.com", null, new SubjectAndBody("Subject", body));
+
+		assertNotNull("Message content not shared", first.getContent());
+		assertEquals("Identical bodies should share content",
+				first.getContent().getId(), second.getContent().getId());
+		assertEquals("Unexpected body read through shared content", body,
+				messageDao.get(second.getId()).getBody());
+
+		final SimpleSmtpServer smtpServer = mockMailService.getSmtpServer();
+		final int receivedBefore = smtpServer.getReceivedEmailSize();
+		service.sendMessage(second);
+		assertEquals("Message wasn't actually sent.", receivedBefore + 1,
+				smtpServer.getReceivedEmailSize());
+	}
+
 	@Test
 	public void sendsMessageWithInvalidCc() throws ObjectNotFoundException,
 			SendFailedException, UnsupportedEncodingException {
@@ -205,4 +235,102 @@ public class MessageServiceTest {
 				"Unexpected sent message. Subject was wrong.", "Subject 25", // 0-based naming
 				receivedMessage.getHeaderValue("Subject"));
 	}
-}
\ No newline at end of file
+
+	@Test
+	public void sendQueuedMessagesCoalescesHeldMessagesIntoDigest()
+			throws ObjectNotFoundException {
+		setConfig("mail_digest_categories", MessageDigestCategory.TASK_REMINDER.name());
+		setConfig("mail_digest_window_minutes", "0");
+
+		final SimpleSmtpServer smtpServer = mockMailService.getSmtpServer();
+		final int receivedBefore = smtpServer.getReceivedEmailSize();
+
+		final Message held1 = service.createMessage("coach@email.com", null,
+				new SubjectAndBody("Reminder 1", "<html><body>Task 1</body></html>"),
+				MessageDigestCategory.TASK_REMINDER);
+		final Message held2 = service.createMessage("coach@email.com", null,
+				new SubjectAndBody("Reminder 2", "<html><body>Task 2</body></html>"),
+				MessageDigestCategory.TASK_REMINDER);
+		final Message notHeld = service.createMessage("coach@email.com", null,
+				new SubjectAndBody("Not a reminder", "Message"));
+
+		service.sendQueuedMessages(null);
+
+		assertNotNull("Held message not flagged as sent",
+				messageDao.get(held1.getId()).getSentDate());
+		assertNotNull("Held message not flagged as sent",
+				messageDao.get(held2.getId()).getSentDate());
+		assertNotNull("Message outside digest categories not sent",
+				messageDao.get(notHeld.getId()).getSentDate());
+		assertEquals("Held messages should have gone out as a single digest",
+				receivedBefore + 2, smtpServer.getReceivedEmailSize());
+	}
+
+	@Test
+	public void sendQueuedMessagesCoalescesHeldPersonAddressedMessages()
+			throws ObjectNotFoundException, ValidationException,
+			SendFailedException {
+		setConfig("mail_digest_categories", MessageDigestCategory.TASK_REMINDER.name());
+		setConfig("mail_digest_window_minutes", "0");
+
+		final SimpleSmtpServer smtpServer = mockMailService.getSmtpServer();
+		final int receivedBefore = smtpServer.getReceivedEmailSize();
+
+		final Person coach = personService.get(Stubs.PersonFixture.COACH_1.id());
+		final Message held1 = service.createMessage(coach, null,
+				new SubjectAndBody("Reminder 1", "<html><body>Task 1</body></html>"),
+				MessageDigestCategory.TASK_REMINDER);
+		final Message held2 = service.createMessage(coach, null,
+				new SubjectAndBody("Reminder 2", "<html><body>Task 2</body></html>"),
+				MessageDigestCategory.TASK_REMINDER);
+
+		service.sendQueuedMessages(null);
+
+		assertNotNull("Held message not flagged as sent",
+				messageDao.get(held1.getId()).getSentDate());
+		assertNotNull("Held message not flagged as sent",
+				messageDao.get(held2.getId()).getSentDate());
+		assertEquals("Held messages should have gone out as a single digest",
+				receivedBefore + 1, smtpServer.getReceivedEmailSize());
+	}
+
+	@Test
+	public void failedDigestLeavesHeldMessagesQueued()
+			throws ObjectNotFoundException {
+		setConfig("mail_digest_categories", MessageDigestCategory.TASK_REMINDER.name());
+		setConfig("mail_digest_window_minutes", "0");
+
+		final Message held1 = service.createMessage("to@invalid domain", null,
+				new SubjectAndBody("Reminder 1", "Task 1"),
+				MessageDigestCategory.TASK_REMINDER);
+		final Message held2 = service.createMessage("to@invalid domain", null,
+				new SubjectAndBody("Reminder 2", "Task 2"),
+				MessageDigestCategory.TASK_REMINDER);
+
+		service.sendQueuedMessages(null);
+
+		for ( Message held : new Message[] { held1, held2 } ) {
+			final Message reloaded = messageDao.get(held.getId());
+			assertNull("Held message flagged as sent though its digest wasn't",
+					reloaded.getSentDate());
+			assertEquals("Failed digest should count against the held message's retry limit",
+					Integer.valueOf(1), reloaded.getRetryCount());
+		}
+	}
+
+	private void setConfig(final String name, final String value) {
+		for ( Config config : configService.getAll(null) ) {
+			if ( config.getName().equalsIgnoreCase(name)) {
+				config.setValue(value);
+				try {
+					configService.save(config);
+				} catch ( ValidationException e ) {
+					throw new RuntimeException(e);
+				} catch ( ObjectNotFoundException e ) {
+					throw new RuntimeException(e);
+				}
+				return;
+			}
+		}
+	}
+}
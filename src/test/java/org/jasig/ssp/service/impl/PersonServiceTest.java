@@ -36,6 +36,7 @@ import org.easymock.EasyMock;
 import org.jasig.ssp.dao.PersonDao;
 import org.jasig.ssp.model.ObjectStatus;
 import org.jasig.ssp.model.Person;
+import org.jasig.ssp.security.PersonSnapshotInvalidator;
 import org.jasig.ssp.service.EarlyAlertService;
 import org.jasig.ssp.service.ObjectNotFoundException;
 import org.jasig.ssp.service.external.RegistrationStatusByTermService;
@@ -70,6 +71,7 @@ public class PersonServiceTest {
 		service = new PersonServiceImpl();
 		dao = createMock(PersonDao.class);
 		service.setDao(dao);
+		service.setPersonSnapshotInvalidator(new PersonSnapshotInvalidator());
 		registrationStatusByTermService = createMock(RegistrationStatusByTermService.class);
 		earlyAlertService =  createMock(EarlyAlertService.class);
 	}
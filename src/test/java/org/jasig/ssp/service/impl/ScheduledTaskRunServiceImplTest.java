@@ -0,0 +1,111 @@
+/**
+ * Licensed to Apereo under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work
+ * for additional information regarding copyright ownership.
+ * Apereo licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License.  You may obtain a
+ * copy of the License at the following location:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jasig.ssp.service.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+import org.jasig.ssp.model.ScheduledTaskRun;
+import org.jasig.ssp.model.ScheduledTaskStatus;
+import org.jasig.ssp.transferobject.ScheduledTaskRunSummaryTO;
+import org.junit.Test;
+
+import com.google.common.collect.Lists;
+
+public class ScheduledTaskRunServiceImplTest {
+
+	private static ScheduledTaskRun run(final long durationMillis,
+			final Long itemsProcessed, final ScheduledTaskStatus outcome) {
+		final ScheduledTaskRun run = new ScheduledTaskRun();
+		run.setTaskName("some-task");
+		run.setStartDate(new Date());
+		run.setDurationMillis(durationMillis);
+		run.setItemsProcessed(itemsProcessed);
+		run.setOutcome(outcome);
+		return run;
+	}
+
+	@Test
+	public void percentilesUseNearestRank() {
+		final long[] sorted = new long[100];
+		for (int i = 0; i < sorted.length; i++) {
+			sorted[i] = i + 1;
+		}
+		assertEquals("p50", 50, ScheduledTaskRunServiceImpl.percentile(sorted, 50));
+		assertEquals("p90", 90, ScheduledTaskRunServiceImpl.percentile(sorted, 90));
+		assertEquals("p99", 99, ScheduledTaskRunServiceImpl.percentile(sorted, 99));
+		assertEquals("p100", 100, ScheduledTaskRunServiceImpl.percentile(sorted, 100));
+		assertEquals("p0", 1, ScheduledTaskRunServiceImpl.percentile(sorted, 0));
+
+		final long[] single = { 7 };
+		assertEquals("Single value p50", 7, ScheduledTaskRunServiceImpl.percentile(single, 50));
+		assertEquals("Single value p99", 7, ScheduledTaskRunServiceImpl.percentile(single, 99));
+	}
+
+	@Test
+	public void summarizesOutcomesDurationsAndThroughput() {
+		final List<ScheduledTaskRun> runs = Lists.newArrayList(
+				run(4000, 40L, ScheduledTaskStatus.COMPLETED),
+				run(1000, null, ScheduledTaskStatus.FAILED),
+				run(2000, 20L, ScheduledTaskStatus.INTERRUPTED),
+				run(3000, null, ScheduledTaskStatus.COMPLETED));
+		runs.get(1).setFailures(3);
+
+		final ScheduledTaskRunSummaryTO summary =
+				ScheduledTaskRunServiceImpl.summarize("some-task", runs);
+
+		assertEquals("Runs", 4, summary.getRuns());
+		assertEquals("Completed", 2, summary.getCompleted());
+		assertEquals("Failed", 1, summary.getFailed());
+		assertEquals("Interrupted", 1, summary.getInterrupted());
+		assertEquals("Last duration is the first (newest) run's", 4000,
+				summary.getLastDurationMillis());
+		assertEquals("Mean", 2500, summary.getMeanDurationMillis());
+		assertEquals("p50", 2000, summary.getP50DurationMillis());
+		assertEquals("p90", 4000, summary.getP90DurationMillis());
+		assertEquals("Max", 4000, summary.getMaxDurationMillis());
+		assertEquals("Items", 60, summary.getItemsProcessed());
+		assertEquals("Failures", 3, summary.getFailures());
+		// only runs that reported items count towards throughput
+		assertEquals("Items per second", 10.0d, summary.getItemsPerSecond(), 0.0001d);
+	}
+
+	@Test
+	public void idleQuietRunsAreNotSaved() {
+		final ScheduledTaskRunServiceImpl service = new ScheduledTaskRunServiceImpl();
+		service.beginQuietRun("some-poll");
+		service.itemsProcessed(0);
+		assertNull("Idle quiet run should not be saved",
+				service.endRun(ScheduledTaskStatus.COMPLETED));
+	}
+
+	@Test
+	public void summarizesNoRuns() {
+		final ScheduledTaskRunSummaryTO summary = ScheduledTaskRunServiceImpl
+				.summarize("some-task", Collections.<ScheduledTaskRun> emptyList());
+		assertEquals("Task name", "some-task", summary.getTaskName());
+		assertEquals("Runs", 0, summary.getRuns());
+		assertNull("Items per second", summary.getItemsPerSecond());
+		assertNull("Last start", summary.getLastStartDate());
+	}
+}
@@ -35,6 +35,7 @@ import org.jasig.ssp.config.EarlyAlertResponseReminderRecipientsConfig;
 import org.jasig.ssp.dao.EarlyAlertDao;
 import org.jasig.ssp.model.AuditPerson;
 import org.jasig.ssp.model.EarlyAlert;
+import org.jasig.ssp.model.MessageDigestCategory;
 import org.jasig.ssp.model.Person;
 import org.jasig.ssp.model.SubjectAndBody;
 import org.jasig.ssp.model.reference.Campus;
@@ -168,15 +169,18 @@ public abstract class SendAllEarlyAlertReminderNotificationsTestBase {
 	}
 
 	protected void verifyNoMessagesSent() throws Exception {
-		verify(this.messageService, never()).createMessage(any(Person.class), eq((String)null), eq(this.subjectAndBody));
+		verify(this.messageService, never()).createMessage(any(Person.class), eq((String)null), eq(this.subjectAndBody),
+				eq(MessageDigestCategory.EARLY_ALERT_RESPONSE_DUE_REMINDER));
 	}
 
 	protected void verifyMessageSentToPerson(final Person person) throws Exception {
-		verify(this.messageService).createMessage(person,  null, this.subjectAndBody);
+		verify(this.messageService).createMessage(person,  null, this.subjectAndBody,
+				MessageDigestCategory.EARLY_ALERT_RESPONSE_DUE_REMINDER);
 	}
 
 	protected void verifyNoMessageSentToPerson(final Person person) throws Exception {
-		verify(this.messageService, never()).createMessage(person,  null, this.subjectAndBody);
+		verify(this.messageService, never()).createMessage(person,  null, this.subjectAndBody,
+				MessageDigestCategory.EARLY_ALERT_RESPONSE_DUE_REMINDER);
 	}
 
 	// service call
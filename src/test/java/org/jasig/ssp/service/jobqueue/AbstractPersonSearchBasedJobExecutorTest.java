@@ -0,0 +1,350 @@
+/**
+ * Licensed to Apereo under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work
+ * for additional information regarding copyright ownership.
+ * Apereo licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License.  You may obtain a
+ * copy of the License at the following location:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jasig.ssp.service.jobqueue;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyListOf;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import org.codehaus.jackson.map.ObjectMapper;
+import org.jasig.ssp.factory.PersonSearchRequestTOFactory;
+import org.jasig.ssp.model.ObjectStatus;
+import org.jasig.ssp.model.PersonSearchRequest;
+import org.jasig.ssp.model.PersonSearchResult2;
+import org.jasig.ssp.model.jobqueue.Job;
+import org.jasig.ssp.model.jobqueue.JobPersonQueueEntry;
+import org.jasig.ssp.model.jobqueue.JobPersonQueueType;
+import org.jasig.ssp.service.PersonSearchService;
+import org.jasig.ssp.service.reference.ConfigService;
+import org.jasig.ssp.transferobject.ImmutablePersonIdentifiersTO;
+import org.jasig.ssp.transferobject.PersonSearchRequestTO;
+import org.jasig.ssp.transferobject.form.HasPersonSearchRequest;
+import org.jasig.ssp.transferobject.form.HasPersonSearchRequestCoreSpec;
+import org.jasig.ssp.util.sort.PagingWrapper;
+import org.jasig.ssp.util.sort.SortingAndPaging;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * JUnit test class for the partitioning and retry queue behavior of {@link AbstractPersonSearchBasedJobExecutor}.
+ */
+public class AbstractPersonSearchBasedJobExecutorTest {
+
+	private static final String PAGE_SIZE_CONFIG_NAME = "test_page_size";
+	private static final String DLQ_SIZE_CONFIG_NAME = "test_max_dlq_size";
+	private static final String FAIL_ON_DLQ_OVERFLOW_CONFIG_NAME = "test_fail_on_dlq_overflow";
+	private static final String PARTITION_COUNT_CONFIG_NAME = "test_partition_count";
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(AbstractPersonSearchBasedJobExecutorTest.class);
+
+	public static class TestJobExecutionState extends BasePersonSearchBasedJobExecutionState {
+		public int touchedCount;
+	}
+
+	public static class TestJobSpec implements HasPersonSearchRequestCoreSpec<HasPersonSearchRequest> {
+		@Override
+		public HasPersonSearchRequest getCoreSpec() {
+			return new HasPersonSearchRequest() {
+				@Override
+				public PersonSearchRequestTO getCriteria() {
+					return new PersonSearchRequestTO();
+				}
+			};
+		}
+	}
+
+	@Mock private ConfigService configService;
+	@Mock private JobService jobService;
+	@Mock private PersonSearchService personSearchService;
+	@Mock private PersonSearchRequestTOFactory personSearchRequestFactory;
+
+	private final ObjectMapper objectMapper = new ObjectMapper();
+	private final List<Integer> requestedOffsets = Lists.newArrayList();
+	private TestExecutor executor;
+
+	@Before
+	public void setUp() throws Exception {
+		MockitoAnnotations.initMocks(this);
+		given(configService.getByNameExceptionOrDefaultAsInt(PAGE_SIZE_CONFIG_NAME)).willReturn(2);
+		given(configService.getByNameExceptionOrDefaultAsInt(DLQ_SIZE_CONFIG_NAME)).willReturn(10);
+		given(configService.getByNameNullOrDefaultValue(FAIL_ON_DLQ_OVERFLOW_CONFIG_NAME)).willReturn("false");
+		given(configService.getByNameExceptionOrDefaultAsInt(PARTITION_COUNT_CONFIG_NAME)).willReturn(3);
+		given(personSearchRequestFactory.from(any(PersonSearchRequestTO.class))).willAnswer(new Answer<PersonSearchRequest>() {
+			@Override
+			public PersonSearchRequest answer(InvocationOnMock invocation) throws Throwable {
+				final PersonSearchRequest request = new PersonSearchRequest();
+				request.setSortAndPage(new SortingAndPaging(ObjectStatus.ACTIVE));
+				return request;
+			}
+		});
+		executor = new TestExecutor();
+	}
+
+	@Test
+	public void testNewStateIsSplitIntoPartitions() {
+		final TestJobExecutionState state = executor.configureNewExecutionState(new TestJobExecutionState());
+
+		assertEquals(3, state.partitions.size());
+		for ( int i = 0; i < 3; i++ ) {
+			final BasePersonSearchBasedJobExecutionState partition = state.partitions.get(i);
+			assertTrue(partition instanceof TestJobExecutionState);
+			assertEquals(Integer.valueOf(i), partition.partition);
+			assertEquals(3, partition.partitionCount);
+			assertEquals(2, partition.pageSize);
+			assertEquals("DLQ allowance should be split across partitions", 4, partition.maxDlqLength);
+		}
+	}
+
+	@Test
+	public void testUnpartitionedWhenConfiguredForSinglePartition() {
+		given(configService.getByNameExceptionOrDefaultAsInt(PARTITION_COUNT_CONFIG_NAME)).willReturn(1);
+
+		final TestJobExecutionState state = executor.configureNewExecutionState(new TestJobExecutionState());
+
+		assertNull(state.partitions);
+		assertEquals(1, state.partitionCount);
+	}
+
+	@Test
+	public void testPartitionProcessesEveryNthPage() {
+		givenSearchResultsOfSize(10);
+		final TestJobExecutionState state = executor.configureNewExecutionState(new TestJobExecutionState());
+		final TestJobExecutionState partition = (TestJobExecutionState) state.partitions.get(1);
+		final UUID jobId = UUID.randomUUID();
+
+		JobExecutionResult<TestJobExecutionState> result;
+		do {
+			result = executor.executeJobDeserialized(new TestJobSpec(), partition, jobId);
+			assertSame(partition, result.getDetail());
+		} while ( result.getStatus() == JobExecutionStatus.PARTIAL );
+
+		assertEquals(JobExecutionStatus.DONE, result.getStatus());
+		// pages 2 and 5 of 5, at 2 persons per page
+		assertEquals(Lists.newArrayList(2, 8), requestedOffsets);
+		assertEquals(4, partition.personsSucceededCount);
+		assertEquals(4, partition.touchedCount);
+	}
+
+	@Test
+	public void testMergeFoldsPartitionIntoStoredState() throws Exception {
+		final TestJobExecutionState stored = executor.configureNewExecutionState(new TestJobExecutionState());
+		final TestJobExecutionState otherPartition = (TestJobExecutionState) stored.partitions.get(0);
+		otherPartition.personsSucceededCount = 5;
+		otherPartition.touchedCount = 5;
+		otherPartition.allPagesProcessed = true;
+		final Job job = new Job();
+		job.setExecutionState(objectMapper.writeValueAsString(stored));
+		given(jobService.refreshForUpdate(job)).willReturn(job);
+
+		final TestJobExecutionState partition = new TestJobExecutionState();
+		partition.partition = 2;
+		partition.partitionCount = 3;
+		partition.personsSucceededCount = 2;
+		partition.personsFailedCount = 1;
+		partition.touchedCount = 3;
+		partition.allPagesProcessed = true;
+		final ImmutablePersonIdentifiersTO deadPerson = new ImmutablePersonIdentifiersTO(UUID.randomUUID(), "dead");
+		partition.addToDlq(deadPerson);
+
+		final TestJobExecutionState merged = executor.mergeJobState(job, partition);
+
+		assertEquals(3, merged.partitions.size());
+		assertTrue(merged.partitions.get(0) instanceof TestJobExecutionState);
+		assertEquals(5, ((TestJobExecutionState) merged.partitions.get(0)).touchedCount);
+		assertSame(partition, merged.partitions.get(2));
+		assertEquals(7, merged.personsSucceededCount);
+		assertEquals(1, merged.personsFailedCount);
+		assertEquals(8, merged.touchedCount);
+		assertEquals(1, merged.dlqSize);
+		verify(jobService, times(1)).addPersonQueueEntries(null, 2, JobPersonQueueType.DEAD_LETTER,
+				Lists.newArrayList(deadPerson));
+		assertEquals("Partition 1 still has pages to process", false, merged.allPagesProcessed);
+
+		// merging again must not double count
+		final TestJobExecutionState remerged = executor.mergeJobState(job, partition);
+		assertEquals(7, remerged.personsSucceededCount);
+		assertEquals(8, remerged.touchedCount);
+		assertEquals(1, remerged.dlqSize);
+		verify(jobService, times(1)).addPersonQueueEntries(any(UUID.class), anyInt(),
+				any(JobPersonQueueType.class), anyListOf(ImmutablePersonIdentifiersTO.class));
+	}
+
+	@Test
+	public void testRetryIsTakenFromQueueTable() throws Exception {
+		final UUID jobId = UUID.randomUUID();
+		final TestJobExecutionState state = new TestJobExecutionState();
+		state.allPagesProcessed = true;
+		state.retryQueueSize = 1;
+		final JobPersonQueueEntry retry = new JobPersonQueueEntry(null, 0, JobPersonQueueType.RETRY,
+				UUID.randomUUID(), "retry");
+		retry.setId(UUID.randomUUID());
+		given(jobService.getFirstPersonQueueEntry(jobId, 0, JobPersonQueueType.RETRY)).willReturn(retry);
+
+		final JobExecutionResult<TestJobExecutionState> result =
+				executor.executeJobDeserialized(new TestJobSpec(), state, jobId);
+
+		assertEquals(JobExecutionStatus.PARTIAL, result.getStatus());
+		assertEquals(1, state.touchedCount);
+		assertEquals(0, state.retryQueueSize);
+		assertTrue(executor.isComplete(state));
+
+		final Job job = new Job();
+		job.setId(jobId);
+		executor.mergeJobState(job, state);
+		verify(jobService, times(1)).removePersonQueueEntry(retry.getId());
+	}
+
+	@Test
+	@SuppressWarnings("deprecation")
+	public void testLegacyQueuesAreMovedOutOfState() throws Exception {
+		final UUID jobId = UUID.randomUUID();
+		final TestJobExecutionState state = new TestJobExecutionState();
+		state.retryQueue = Lists.newArrayList(new ImmutablePersonIdentifiersTO(UUID.randomUUID(), "retry1"),
+				new ImmutablePersonIdentifiersTO(UUID.randomUUID(), "retry2"));
+		state.dlq = Lists.newArrayList(new ImmutablePersonIdentifiersTO(UUID.randomUUID(), "dead"));
+
+		final JobExecutionResult<TestJobExecutionState> result =
+				executor.executeJobDeserialized(new TestJobSpec(), state, jobId);
+
+		assertEquals(JobExecutionStatus.PARTIAL, result.getStatus());
+		assertEquals(0, state.touchedCount);
+		assertEquals(2, state.retryQueueSize);
+		assertEquals(1, state.dlqSize);
+		assertNull(state.retryQueue);
+		assertNull(state.dlq);
+
+		final Job job = new Job();
+		job.setId(jobId);
+		executor.mergeJobState(job, state);
+		verify(jobService, times(1)).addPersonQueueEntries(eq(jobId), eq(0), eq(JobPersonQueueType.RETRY),
+				anyListOf(ImmutablePersonIdentifiersTO.class));
+		verify(jobService, times(1)).addPersonQueueEntries(eq(jobId), eq(0), eq(JobPersonQueueType.DEAD_LETTER),
+				anyListOf(ImmutablePersonIdentifiersTO.class));
+
+		final String serialized = objectMapper.writeValueAsString(state);
+		assertFalse(serialized, serialized.contains("retryQueue\""));
+		assertFalse(serialized, serialized.contains("pending"));
+	}
+
+	private void givenSearchResultsOfSize(final int total) {
+		given(personSearchService.searchPersonDirectory(any(PersonSearchRequest.class))).willAnswer(new Answer<PagingWrapper<PersonSearchResult2>>() {
+			@Override
+			public PagingWrapper<PersonSearchResult2> answer(InvocationOnMock invocation) throws Throwable {
+				final SortingAndPaging sAndP = ((PersonSearchRequest) invocation.getArguments()[0]).getSortAndPage();
+				requestedOffsets.add(sAndP.getFirstResult());
+				final List<PersonSearchResult2> rows = Lists.newArrayList();
+				for ( int i = sAndP.getFirstResult(); i < Math.min(total, sAndP.getFirstResult() + sAndP.getMaxResults()); i++ ) {
+					final PersonSearchResult2 row = new PersonSearchResult2();
+					row.setId(UUID.randomUUID());
+					row.setSchoolId("student" + i);
+					rows.add(row);
+				}
+				return rows.isEmpty() ? null : new PagingWrapper<PersonSearchResult2>(total, rows);
+			}
+		});
+	}
+
+	private class TestExecutor extends AbstractPersonSearchBasedJobExecutor<TestJobSpec, TestJobExecutionState> {
+
+		TestExecutor() {
+			super("test-executor", jobService, null, objectMapper, personSearchService,
+					personSearchRequestFactory, configService);
+		}
+
+		@Override
+		protected Map<String, ?> executeForSinglePerson(ImmutablePersonIdentifiersTO personIds, TestJobSpec executionSpec,
+														TestJobExecutionState executionState, UUID jobId) {
+			executionState.touchedCount++;
+			return Maps.newHashMap();
+		}
+
+		@Override
+		protected void clearAggregate(TestJobExecutionState executionState) {
+			super.clearAggregate(executionState);
+			executionState.touchedCount = 0;
+		}
+
+		@Override
+		protected void accumulatePartitionState(TestJobExecutionState aggregate, TestJobExecutionState partitionState) {
+			super.accumulatePartitionState(aggregate, partitionState);
+			aggregate.touchedCount += partitionState.touchedCount;
+		}
+
+		@Override
+		protected TestJobExecutionState newJobExecutionState() {
+			return new TestJobExecutionState();
+		}
+
+		@Override
+		protected TestJobSpec deserializeJobSpecWithCheckedExceptions(String jobSpecStr) throws Exception {
+			return getObjectMapper().readValue(jobSpecStr, TestJobSpec.class);
+		}
+
+		@Override
+		protected TestJobExecutionState deserializeJobStateWithCheckedExceptions(String jobStateStr) throws Exception {
+			return getObjectMapper().readValue(jobStateStr, TestJobExecutionState.class);
+		}
+
+		@Override
+		protected Logger getCurrentLogger() {
+			return LOGGER;
+		}
+
+		@Override
+		protected String getPageSizeConfigName() {
+			return PAGE_SIZE_CONFIG_NAME;
+		}
+
+		@Override
+		protected String getDlqSizeConfigName() {
+			return DLQ_SIZE_CONFIG_NAME;
+		}
+
+		@Override
+		protected String getFailOnSlqOverflowConfigName() {
+			return FAIL_ON_DLQ_OVERFLOW_CONFIG_NAME;
+		}
+
+		@Override
+		protected String getPartitionCountConfigName() {
+			return PARTITION_COUNT_CONFIG_NAME;
+		}
+	}
+}
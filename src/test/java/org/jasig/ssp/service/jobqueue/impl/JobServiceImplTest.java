@@ -0,0 +1,237 @@
+/**
+ * Licensed to Apereo under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work
+ * for additional information regarding copyright ownership.
+ * Apereo licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License.  You may obtain a
+ * copy of the License at the following location:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jasig.ssp.service.jobqueue.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ThreadPoolExecutor;
+
+import com.google.common.collect.Lists;
+import org.codehaus.jackson.map.ObjectMapper;
+import org.jasig.ssp.dao.jobqueue.JobDao;
+import org.jasig.ssp.dao.jobqueue.JobPersonQueueEntryDao;
+import org.jasig.ssp.model.jobqueue.Job;
+import org.jasig.ssp.model.jobqueue.JobPersonQueueEntry;
+import org.jasig.ssp.model.jobqueue.JobPersonQueueType;
+import org.jasig.ssp.model.jobqueue.WorkflowStatus;
+import org.jasig.ssp.service.ScheduledTaskRunService;
+import org.jasig.ssp.service.ScheduledTaskWrapperService;
+import org.jasig.ssp.service.impl.ScheduledTaskWrapperServiceImpl;
+import org.jasig.ssp.service.jobqueue.JobExecutionResult;
+import org.jasig.ssp.service.jobqueue.JobExecutionStatus;
+import org.jasig.ssp.service.jobqueue.JobService;
+import org.jasig.ssp.service.jobqueue.JobWorkflowStatusDescription;
+import org.jasig.ssp.transferobject.ImmutablePersonIdentifiersTO;
+import org.jasig.ssp.util.transaction.WithTransaction;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.springframework.context.ApplicationContext;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/**
+ * JUnit test class for the dispatch and lease behavior of {@link JobServiceImpl}.
+ */
+public class JobServiceImplTest {
+
+	@Mock private JobDao dao;
+	@Mock private JobPersonQueueEntryDao personQueueEntryDao;
+	@Mock private WithTransaction withTransaction;
+	@Mock private ThreadPoolTaskExecutor taskExecutor;
+	@Mock private ThreadPoolExecutor threadPool;
+	@Mock private BlockingQueue<Runnable> threadPoolQueue;
+	@Mock private TaskScheduler taskScheduler;
+	@Mock private ScheduledTaskWrapperServiceImpl scheduledTaskWrapperService;
+	@Mock private ScheduledTaskRunService taskRunService;
+	@Mock private ApplicationContext applicationContext;
+
+	@InjectMocks private JobServiceImpl service;
+
+	@Before
+	public void setUp() throws Exception {
+		MockitoAnnotations.initMocks(this);
+		service.setApplicationContext(applicationContext);
+		service.setBeanName("jobService");
+		given(applicationContext.getBean("jobService", JobService.class)).willReturn(service);
+		given(withTransaction.withTransactionAndUncheckedExceptions(any(Callable.class))).willAnswer(new Answer<Object>() {
+			@Override
+			public Object answer(InvocationOnMock invocation) throws Throwable {
+				return ((Callable<?>) invocation.getArguments()[0]).call();
+			}
+		});
+		given(taskExecutor.getThreadPoolExecutor()).willReturn(threadPool);
+		given(threadPool.getQueue()).willReturn(threadPoolQueue);
+	}
+
+	@Test
+	public void testClaimsOnlyFreeCapacity() {
+		givenPool(4, 1, 1);
+		given(dao.getNextQueuedJobsForExecution(eq(2), anyString())).willReturn(jobs(1));
+
+		service.scheduleQueuedJobs();
+
+		verify(dao, times(1)).getNextQueuedJobsForExecution(eq(2), anyString());
+		verify(taskExecutor, times(1)).execute(any(Runnable.class));
+		verify(taskRunService, times(1)).itemsProcessed(1L);
+	}
+
+	@Test
+	public void testNoClaimWithoutFreeCapacity() {
+		givenPool(2, 2, 3);
+
+		service.scheduleQueuedJobs();
+
+		verify(dao, never()).getNextQueuedJobsForExecution(anyInt(), anyString());
+	}
+
+	@Test
+	public void testFullClaimIsFollowedByAnotherPass() {
+		given(threadPool.getCorePoolSize()).willReturn(3);
+		given(threadPool.getActiveCount()).willReturn(1, 3);
+		given(threadPoolQueue.size()).willReturn(0);
+		given(dao.getNextQueuedJobsForExecution(eq(2), anyString())).willReturn(jobs(2));
+
+		service.scheduleQueuedJobs();
+
+		// second pass found no capacity left so never hit the db
+		verify(dao, times(1)).getNextQueuedJobsForExecution(anyInt(), anyString());
+		verify(taskExecutor, times(2)).execute(any(Runnable.class));
+	}
+
+	@Test
+	public void testRequestDispatchSchedulesImmediatePass() {
+		service.requestDispatch();
+
+		verify(taskScheduler, times(1)).schedule(any(Runnable.class), any(Date.class));
+	}
+
+	@Test
+	public void testClaimedJobsAreLeased() {
+		givenPool(4, 0, 0);
+		final List<Job> claimed = jobs(2);
+		given(dao.getNextQueuedJobsForExecution(eq(4), anyString())).willReturn(claimed);
+
+		service.scheduleQueuedJobs();
+
+		for ( Job job : claimed ) {
+			assertEquals(WorkflowStatus.SCHEDULING, job.getWorkflowStatus());
+			verify(dao, times(1)).setLeaseExpiresDate(eq(job.getId()), any(Date.class));
+		}
+	}
+
+	@Test
+	public void testMarkExecutingSkipsReclaimedJob() throws Exception {
+		final Job job = jobs(1).get(0);
+		job.setWorkflowStatus(WorkflowStatus.SCHEDULING);
+		job.setScheduledByProcess("other-node");
+		given(dao.get(job.getId())).willReturn(job);
+		given(dao.renewLease(eq(job.getId()), anyString(), any(Date.class))).willReturn(false);
+
+		assertNull("Should not have executed a job claimed by another process", service.markExecuting(job.getId()));
+		assertEquals(WorkflowStatus.SCHEDULING, job.getWorkflowStatus());
+		verify(dao, never()).save(job);
+	}
+
+	@Test
+	public void testMarkTerminatedLeavesReclaimedJobAlone() throws Exception {
+		final Job job = jobs(1).get(0);
+		job.setWorkflowStatus(WorkflowStatus.EXECUTING);
+		job.setScheduledByProcess("other-node");
+		given(dao.get(job.getId())).willReturn(job);
+
+		service.markTerminated(job.getId(), new JobExecutionResult<JobWorkflowStatusDescription>(
+				JobExecutionStatus.DONE, null));
+
+		assertEquals(WorkflowStatus.EXECUTING, job.getWorkflowStatus());
+		assertNull(job.getWorkflowStoppedDate());
+		verify(dao, never()).save(job);
+	}
+
+	@Test
+	public void testMarkTerminatedReportsDeadLettersAndDeletesQueues() throws Exception {
+		givenPool(4, 0, 0);
+		final Job job = jobs(1).get(0);
+		given(dao.getNextQueuedJobsForExecution(eq(4), anyString())).willReturn(Lists.newArrayList(job));
+		service.scheduleQueuedJobs(); // claims the job for this process
+		given(dao.get(job.getId())).willReturn(job);
+		final UUID personId = UUID.randomUUID();
+		given(personQueueEntryDao.getAllForJob(job.getId(), JobPersonQueueType.DEAD_LETTER)).willReturn(
+				Lists.newArrayList(new JobPersonQueueEntry(job, 0, JobPersonQueueType.DEAD_LETTER, personId, "school1")));
+
+		service.markTerminated(job.getId(), new JobExecutionResult<JobWorkflowStatusDescription>(
+				JobExecutionStatus.DONE, new JobWorkflowStatusDescription("done", null)));
+
+		assertEquals(WorkflowStatus.COMPLETED, job.getWorkflowStatus());
+		final JobWorkflowStatusDescription expected = new JobWorkflowStatusDescription("done", null);
+		expected.setDeadLetteredPersons(Lists.newArrayList(new ImmutablePersonIdentifiersTO(personId, "school1")));
+		assertEquals(expected, new ObjectMapper().readValue(job.getWorkflowStatusDesc(),
+				JobWorkflowStatusDescription.class));
+		verify(personQueueEntryDao, times(1)).deleteAllForJob(job.getId());
+	}
+
+	@Test
+	public void testMarkTerminatedKeepsQueuesOfInterruptedJob() throws Exception {
+		givenPool(4, 0, 0);
+		final Job job = jobs(1).get(0);
+		given(dao.getNextQueuedJobsForExecution(eq(4), anyString())).willReturn(Lists.newArrayList(job));
+		service.scheduleQueuedJobs();
+		given(dao.get(job.getId())).willReturn(job);
+
+		service.markTerminated(job.getId(), new JobExecutionResult<JobWorkflowStatusDescription>(
+				JobExecutionStatus.INTERRUPTED, null));
+
+		assertEquals(WorkflowStatus.QUEUED, job.getWorkflowStatus());
+		verify(personQueueEntryDao, never()).deleteAllForJob(any(UUID.class));
+	}
+
+	private void givenPool(int coreSize, int active, int queued) {
+		given(threadPool.getCorePoolSize()).willReturn(coreSize);
+		given(threadPool.getActiveCount()).willReturn(active);
+		given(threadPoolQueue.size()).willReturn(queued);
+	}
+
+	private List<Job> jobs(int count) {
+		final List<Job> jobs = Lists.newArrayList();
+		for ( int i = 0; i < count; i++ ) {
+			final Job job = new Job();
+			job.setId(UUID.randomUUID());
+			jobs.add(job);
+		}
+		return jobs;
+	}
+}
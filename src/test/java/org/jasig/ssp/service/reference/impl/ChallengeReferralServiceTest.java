@@ -60,6 +60,7 @@ public class ChallengeReferralServiceTest {
 		dao = createMock(ChallengeReferralDao.class);
 
 		service.setDao(dao);
+		service.setChallengeSearchIndex(new ChallengeSearchIndex());
 	}
 
 	/**
@@ -0,0 +1,181 @@
+/**
+ * Licensed to Apereo under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work
+ * for additional information regarding copyright ownership.
+ * Apereo licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License.  You may obtain a
+ * copy of the License at the following location:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jasig.ssp.service.reference.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+
+import org.jasig.ssp.model.ObjectStatus;
+import org.jasig.ssp.model.reference.Challenge;
+import org.jasig.ssp.model.reference.ChallengeChallengeReferral;
+import org.jasig.ssp.model.reference.ChallengeReferral;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.google.common.collect.Lists;
+
+/**
+ * {@link ChallengeSearchIndex} tests
+ */
+public class ChallengeSearchIndexTest {
+
+	private transient ChallengeSearchIndex index;
+
+	private transient Challenge money;
+
+	private transient Challenge childCare;
+
+	private transient Challenge transportation;
+
+	@Before
+	public void setUp() {
+		index = new ChallengeSearchIndex();
+		money = challenge("Money Issues", "financial aid, budget",
+				"Do you have trouble paying for school?", true);
+		childCare = challenge("Child Care", "family",
+				"Do you need help finding child care while in class?", false);
+		transportation = challenge("Transportation", "bus",
+				"Can you reliably get to campus?", true);
+		index.rebuild(Lists.newArrayList(money, childCare, transportation));
+	}
+
+	@Test
+	public void testRebuildClearsStaleness() {
+		assertFalse("Index should not be stale after rebuild.", index.isStale());
+		index.invalidate();
+		assertTrue("Index should be stale after invalidation.", index.isStale());
+	}
+
+	@Test
+	public void testPrefixAndAllTermsMatch() {
+		assertEquals(Lists.newArrayList(money.getId()),
+				index.search("financ", false));
+		assertEquals(Lists.newArrayList(childCare.getId()),
+				index.search("child class", false));
+		assertTrue("All terms should have to match.",
+				index.search("child bus", false).isEmpty());
+	}
+
+	@Test
+	public void testRanking() {
+		// "care" is in childCare's name but only in money's referral text
+		money.getChallengeChallengeReferrals().iterator().next()
+				.getChallengeReferral().setPublicDescription("Career services");
+		index.reindex(money);
+		assertEquals(Lists.newArrayList(childCare.getId(), money.getId()),
+				index.search("care", false));
+	}
+
+	@Test
+	public void testReferralTextIsIndexed() {
+		assertEquals(Lists.newArrayList(transportation.getId()),
+				index.search("transportation referral", false));
+	}
+
+	@Test
+	public void testEligibility() {
+		assertEquals("Blank query should return all eligible by name.",
+				Lists.newArrayList(childCare.getId(), money.getId(),
+						transportation.getId()),
+				index.search("", false));
+		assertEquals("Self help guide search requires a self help guide referral.",
+				Lists.newArrayList(money.getId(), transportation.getId()),
+				index.search(" ", true));
+
+		money.setObjectStatus(ObjectStatus.INACTIVE);
+		index.reindex(money);
+		assertTrue("Inactive challenges should not be found.",
+				index.search("money", false).isEmpty());
+	}
+
+	@Test
+	public void testChangeDuringRebuildLeavesIndexStale() {
+		index.invalidate();
+		index.rebuildIfStale(new Callable<List<Challenge>>() {
+			@Override
+			public List<Challenge> call() {
+				final List<Challenge> read = Lists.newArrayList(money, childCare,
+						transportation);
+				// an edit lands after the rows were read
+				index.invalidate();
+				return read;
+			}
+		});
+		assertTrue("Rebuild from rows read before a change should stay stale.",
+				index.isStale());
+	}
+
+	@Test
+	public void testRebuildIfStaleSkipsFreshIndex() {
+		index.rebuildIfStale(new Callable<List<Challenge>>() {
+			@Override
+			public List<Challenge> call() {
+				fail("Fresh index should not be rebuilt.");
+				return null;
+			}
+		});
+	}
+
+	@Test
+	public void testReindexInTransactionWaitsForCommit() {
+		money.setObjectStatus(ObjectStatus.INACTIVE);
+		TransactionSynchronizationManager.initSynchronization();
+		try {
+			index.reindex(money);
+			assertEquals("Uncommitted change should not be searchable yet.",
+					Lists.newArrayList(money.getId()), index.search("money", false));
+			for ( TransactionSynchronization synchronization :
+					TransactionSynchronizationManager.getSynchronizations() ) {
+				synchronization.afterCommit();
+			}
+		} finally {
+			TransactionSynchronizationManager.clearSynchronization();
+		}
+		assertTrue("Committed change should be searchable.",
+				index.search("money", false).isEmpty());
+	}
+
+	private static Challenge challenge(final String name, final String tags,
+			final String question, final boolean referralInSelfHelpGuide) {
+		final Challenge challenge = new Challenge(UUID.randomUUID(), name);
+		challenge.setObjectStatus(ObjectStatus.ACTIVE);
+		challenge.setShowInSelfHelpSearch(true);
+		challenge.setTags(tags);
+		challenge.setSelfHelpGuideQuestion(question);
+
+		final ChallengeReferral referral = new ChallengeReferral(
+				UUID.randomUUID(), name + " Referral");
+		referral.setObjectStatus(ObjectStatus.ACTIVE);
+		referral.setShowInSelfHelpGuide(referralInSelfHelpGuide);
+
+		final ChallengeChallengeReferral ccr = new ChallengeChallengeReferral();
+		ccr.setChallenge(challenge);
+		ccr.setChallengeReferral(referral);
+		challenge.getChallengeChallengeReferrals().add(ccr);
+		return challenge;
+	}
+}
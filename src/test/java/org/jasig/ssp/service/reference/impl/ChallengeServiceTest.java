@@ -58,6 +58,7 @@ public class ChallengeServiceTest {
 		dao = createMock(ChallengeDao.class);
 
 		service.setDao(dao);
+		service.setChallengeSearchIndex(new ChallengeSearchIndex());
 	}
 
 	/**
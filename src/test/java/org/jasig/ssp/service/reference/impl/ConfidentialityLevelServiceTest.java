@@ -43,6 +43,10 @@ import org.jasig.ssp.util.sort.SortingAndPaging;
 import org.jasig.ssp.web.api.validation.ValidationException;
 import org.junit.Before;
 import org.junit.Test;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import com.google.common.collect.Lists;
 
@@ -148,4 +152,90 @@ public class ConfidentialityLevelServiceTest {
 		verify(dao);
 	}
 
+	@Test
+	public void testLevelIdsAreCachedPerAuthoritySet() {
+		final ConfidentialityLevel disability = new ConfidentialityLevel(
+				UUID.randomUUID(), "TEST 1", "T1",
+				DataPermissions.DATA_DISABILITY);
+		final List<ConfidentialityLevel> daoAll = new ArrayList<ConfidentialityLevel>();
+		daoAll.add(disability);
+		daoAll.add(new ConfidentialityLevel(UUID.randomUUID(), "TEST 2", "T2",
+				DataPermissions.DATA_COUNSELING_SERVICES));
+
+		// once per distinct authority set, not once per call
+		expect(dao.getAll(isA(SortingAndPaging.class))).andReturn(
+				new PagingWrapper<ConfidentialityLevel>(daoAll)).times(2);
+
+		replay(dao);
+
+		final Collection<GrantedAuthority> authorities = Lists.newArrayList();
+		authorities.add(new SimpleGrantedAuthority("ROLE_DATA_DISABILITY"));
+
+		assertEquals(Lists.newArrayList(disability.getId()),
+				service.confidentialityLevelIdsFromGrantedAuthorities(authorities));
+		assertEquals(Lists.newArrayList(disability.getId()),
+				service.confidentialityLevelIdsFromGrantedAuthorities(
+						Lists.newArrayList(authorities)));
+		assertTrue(service.confidentialityLevelIdsFromGrantedAuthorities(
+				new ArrayList<GrantedAuthority>()).isEmpty());
+		verify(dao);
+	}
+
+	@Test
+	public void testSaveInvalidatesCachedLevelIds()
+			throws ObjectNotFoundException, ValidationException {
+		final ConfidentialityLevel level = new ConfidentialityLevel(
+				UUID.randomUUID(), "TEST 1", "T1",
+				DataPermissions.DATA_DISABILITY);
+		final List<ConfidentialityLevel> daoAll = new ArrayList<ConfidentialityLevel>();
+		daoAll.add(level);
+
+		expect(dao.getAll(isA(SortingAndPaging.class))).andReturn(
+				new PagingWrapper<ConfidentialityLevel>(daoAll)).times(2);
+		expect(dao.save(level)).andReturn(level);
+
+		replay(dao);
+
+		final Collection<GrantedAuthority> authorities = Lists.newArrayList();
+		authorities.add(new SimpleGrantedAuthority("ROLE_DATA_DISABILITY"));
+
+		service.confidentialityLevelIdsFromGrantedAuthorities(authorities);
+		service.save(level);
+		service.confidentialityLevelIdsFromGrantedAuthorities(authorities);
+		verify(dao);
+	}
+
+	@Test
+	public void testCompletedSaveInvalidatesLevelIdsCachedBeforeCommit()
+			throws ObjectNotFoundException, ValidationException {
+		final ConfidentialityLevel level = new ConfidentialityLevel(
+				UUID.randomUUID(), "TEST 1", "T1",
+				DataPermissions.DATA_DISABILITY);
+		final List<ConfidentialityLevel> daoAll = new ArrayList<ConfidentialityLevel>();
+		daoAll.add(level);
+
+		expect(dao.getAll(isA(SortingAndPaging.class))).andReturn(
+				new PagingWrapper<ConfidentialityLevel>(daoAll)).times(2);
+		expect(dao.save(level)).andReturn(level);
+
+		replay(dao);
+
+		final Collection<GrantedAuthority> authorities = Lists.newArrayList();
+		authorities.add(new SimpleGrantedAuthority("ROLE_DATA_DISABILITY"));
+
+		TransactionSynchronizationManager.initSynchronization();
+		try {
+			service.save(level);
+			// a lookup before commit still sees, and caches, the old grants
+			service.confidentialityLevelIdsFromGrantedAuthorities(authorities);
+			for (final TransactionSynchronization synchronization : TransactionSynchronizationManager
+					.getSynchronizations()) {
+				synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED);
+			}
+		} finally {
+			TransactionSynchronizationManager.clearSynchronization();
+		}
+		service.confidentialityLevelIdsFromGrantedAuthorities(authorities);
+		verify(dao);
+	}
 }
@@ -19,6 +19,7 @@
 package org.jasig.ssp.service.reference.impl;
 
 import static org.easymock.EasyMock.createMock;
+import static org.easymock.EasyMock.createNiceMock;
 import static org.easymock.EasyMock.expect;
 import static org.easymock.EasyMock.isA;
 import static org.easymock.EasyMock.replay;
@@ -40,12 +41,14 @@ import org.jasig.ssp.dao.reference.ConfigDao;
 import org.jasig.ssp.model.ObjectStatus;
 import org.jasig.ssp.model.reference.Config;
 import org.jasig.ssp.service.ObjectNotFoundException;
+import org.jasig.ssp.service.reference.ConfigChangedEvent;
 import org.jasig.ssp.service.reference.ConfigException;
 import org.jasig.ssp.util.sort.PagingWrapper;
 import org.jasig.ssp.util.sort.SortingAndPaging;
 import org.jasig.ssp.web.api.validation.ValidationException;
 import org.junit.Before;
 import org.junit.Test;
+import org.springframework.context.ApplicationEventPublisher;
 
 import com.google.common.collect.Maps;
 
@@ -60,6 +63,8 @@ public class ConfigServiceTest {
 
 	private transient ConfigDao dao;
 
+	private transient ApplicationEventPublisher eventPublisher;
+
 	/**
 	 * Test setup
 	 */
@@ -67,8 +72,10 @@ public class ConfigServiceTest {
 	public void setUp() {
 		service = new ConfigServiceImpl();
 		dao = createMock(ConfigDao.class);
+		eventPublisher = createNiceMock(ApplicationEventPublisher.class);
 
 		service.setDao(dao);
+		service.setApplicationEventPublisher(eventPublisher);
 	}
 
 	/**
@@ -124,14 +131,18 @@ public class ConfigServiceTest {
 	public void testSave() throws ObjectNotFoundException, ValidationException {
 		final UUID id = UUID.randomUUID();
 		final Config daoOne = new Config(id);
+		daoOne.setName("task_external_person_sync_trigger");
 
 		expect(dao.save(daoOne)).andReturn(daoOne);
+		eventPublisher.publishEvent(isA(ConfigChangedEvent.class));
 
 		replay(dao);
+		replay(eventPublisher);
 
 		assertNotNull("Save method return model should not have been null.",
 				service.save(daoOne));
 		verify(dao);
+		verify(eventPublisher);
 	}
 
 	/**
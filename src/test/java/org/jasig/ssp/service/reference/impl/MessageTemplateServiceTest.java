@@ -35,6 +35,7 @@ import org.jasig.ssp.dao.reference.MessageTemplateDao;
 import org.jasig.ssp.model.ObjectStatus;
 import org.jasig.ssp.model.reference.MessageTemplate;
 import org.jasig.ssp.service.ObjectNotFoundException;
+import org.jasig.ssp.service.VelocityTemplateService;
 import org.jasig.ssp.util.sort.PagingWrapper;
 import org.jasig.ssp.util.sort.SortingAndPaging;
 import org.jasig.ssp.web.api.validation.ValidationException;
@@ -56,6 +57,7 @@ public class MessageTemplateServiceTest {
 		dao = createMock(MessageTemplateDao.class);
 
 		service.setDao(dao);
+		service.setVelocityTemplateService(new VelocityTemplateService());
 	}
 
 	@Test
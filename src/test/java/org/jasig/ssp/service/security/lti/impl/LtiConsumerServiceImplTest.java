@@ -0,0 +1,164 @@
+/**
+ * Licensed to Apereo under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work
+ * for additional information regarding copyright ownership.
+ * Apereo licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License.  You may obtain a
+ * copy of the License at the following location:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jasig.ssp.service.security.lti.impl;
+
+import static org.easymock.EasyMock.createMock;
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.replay;
+import static org.easymock.EasyMock.reset;
+import static org.easymock.EasyMock.verify;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import org.jasig.ssp.dao.security.lti.LtiConsumerDao;
+import org.jasig.ssp.factory.LtiConsumerTOFactory;
+import org.jasig.ssp.model.ObjectStatus;
+import org.jasig.ssp.model.security.lti.LtiConsumer;
+import org.jasig.ssp.service.ObjectNotFoundException;
+import org.jasig.ssp.service.security.lti.ConsumerDetailsDisabledException;
+import org.jasig.ssp.service.security.lti.ConsumerDetailsNotFoundException;
+import org.jasig.ssp.transferobject.LtiConsumerTO;
+import org.jasig.ssp.util.transaction.WithTransactionImpl;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.security.oauth.common.signature.SharedConsumerSecret;
+import org.springframework.security.oauth.provider.ConsumerDetails;
+
+public class LtiConsumerServiceImplTest {
+
+	private static final String CONSUMER_KEY = "lms";
+
+	private transient LtiConsumerServiceImpl service;
+
+	private transient LtiConsumerDao dao;
+
+	private transient LtiConsumerTOFactory factory;
+
+	@Before
+	public void setUp() {
+		dao = createMock(LtiConsumerDao.class);
+		factory = createMock(LtiConsumerTOFactory.class);
+		service = new LtiConsumerServiceImpl();
+		service.setDao(dao);
+		service.setFactory(factory);
+		service.setWithTransaction(new WithTransactionImpl());
+		service.init();
+	}
+
+	private LtiConsumer consumer(final String secret,
+			final ObjectStatus objectStatus) {
+		final LtiConsumer consumer = new LtiConsumer();
+		consumer.setConsumerKey(CONSUMER_KEY);
+		consumer.setSecret(secret);
+		consumer.setObjectStatus(objectStatus);
+		return consumer;
+	}
+
+	private static String secretOf(final ConsumerDetails details) {
+		return ((SharedConsumerSecret) details.getSignatureSecret())
+				.getConsumerSecret();
+	}
+
+	@Test
+	public void testRepeatedLoadsReadTheDatabaseOnce() {
+		expect(dao.findByConsumerKey(CONSUMER_KEY)).andReturn(
+				consumer("secret", ObjectStatus.ACTIVE)).once();
+		replay(dao);
+
+		assertEquals("secret",
+				secretOf(service.loadConsumerByConsumerKey(CONSUMER_KEY)));
+		assertEquals("secret",
+				secretOf(service.loadConsumerByConsumerKey(CONSUMER_KEY)));
+
+		verify(dao);
+	}
+
+	@Test
+	public void testSaveInvalidatesCachedDefinitions()
+			throws ObjectNotFoundException {
+		expect(dao.findByConsumerKey(CONSUMER_KEY)).andReturn(
+				consumer("secret", ObjectStatus.ACTIVE));
+		replay(dao);
+		service.loadConsumerByConsumerKey(CONSUMER_KEY);
+		verify(dao);
+
+		reset(dao);
+		final LtiConsumerTO edit = new LtiConsumerTO();
+		final LtiConsumer rotated = consumer("rotated", ObjectStatus.ACTIVE);
+		expect(factory.from(edit)).andReturn(rotated);
+		expect(dao.save(rotated)).andReturn(rotated);
+		expect(dao.findByConsumerKey(CONSUMER_KEY)).andReturn(rotated);
+		replay(dao, factory);
+
+		service.save(edit);
+		assertEquals("rotated",
+				secretOf(service.loadConsumerByConsumerKey(CONSUMER_KEY)));
+
+		verify(dao, factory);
+	}
+
+	@Test
+	public void testUnknownConsumerIsNotCached() {
+		expect(dao.findByConsumerKey(CONSUMER_KEY)).andReturn(null).times(2);
+		replay(dao);
+
+		for (int i = 0; i < 2; i++) {
+			try {
+				service.loadConsumerByConsumerKey(CONSUMER_KEY);
+				fail("Expected ConsumerDetailsNotFoundException");
+			} catch (final ConsumerDetailsNotFoundException e) {
+				// expected
+			}
+		}
+
+		verify(dao);
+	}
+
+	@Test
+	public void testCachedDisabledConsumerIsStillRejected() {
+		expect(dao.findByConsumerKey(CONSUMER_KEY)).andReturn(
+				consumer("secret", ObjectStatus.INACTIVE)).once();
+		replay(dao);
+
+		for (int i = 0; i < 2; i++) {
+			try {
+				service.loadConsumerByConsumerKey(CONSUMER_KEY);
+				fail("Expected ConsumerDetailsDisabledException");
+			} catch (final ConsumerDetailsDisabledException e) {
+				// expected
+			}
+		}
+
+		verify(dao);
+	}
+
+	@Test
+	public void testZeroSecondsDisablesCache() {
+		service.setCacheSeconds(0);
+		service.init();
+		expect(dao.findByConsumerKey(CONSUMER_KEY)).andReturn(
+				consumer("secret", ObjectStatus.ACTIVE)).times(2);
+		replay(dao);
+
+		service.loadConsumerByConsumerKey(CONSUMER_KEY);
+		service.loadConsumerByConsumerKey(CONSUMER_KEY);
+
+		verify(dao);
+	}
+}
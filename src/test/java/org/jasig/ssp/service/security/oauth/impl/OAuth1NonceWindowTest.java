@@ -0,0 +1,73 @@
+/**
+ * Licensed to Apereo under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work
+ * for additional information regarding copyright ownership.
+ * Apereo licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License.  You may obtain a
+ * copy of the License at the following location:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jasig.ssp.service.security.oauth.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class OAuth1NonceWindowTest {
+
+	private transient OAuth1NonceWindow window;
+
+	@Before
+	public void setUp() {
+		window = new OAuth1NonceWindow();
+	}
+
+	@Test
+	public void testReplayIsRejected() {
+		assertTrue(window.add("consumer", 100L, "nonce"));
+		assertFalse("Same consumer, timestamp and nonce is a replay.",
+				window.add("consumer", 100L, "nonce"));
+	}
+
+	@Test
+	public void testNonceMayRepeatForOtherTimestampOrConsumer() {
+		assertTrue(window.add("consumer", 100L, "nonce"));
+		assertTrue(window.add("consumer", 101L, "nonce"));
+		assertTrue(window.add("other", 100L, "nonce"));
+		// key/nonce boundary must not be ambiguous
+		assertTrue(window.add("consume", 100L, "rnonce"));
+	}
+
+	@Test
+	public void testRemoveEarlierThanDropsWholeBuckets() {
+		window.add("consumer", 100L, "a");
+		window.add("consumer", 100L, "b");
+		window.add("consumer", 101L, "a");
+		window.add("consumer", 102L, "a");
+
+		assertEquals(3, window.removeEarlierThan(102L));
+		assertEquals(1, window.size());
+		assertTrue("Expired nonce is forgotten.",
+				window.add("consumer", 100L, "a"));
+		assertFalse(window.add("consumer", 102L, "a"));
+	}
+
+	@Test
+	public void testRemovedNonceCanBeAddedAgain() {
+		window.add("consumer", 100L, "nonce");
+		window.remove("consumer", 100L, "nonce");
+		assertTrue(window.add("consumer", 100L, "nonce"));
+	}
+}
@@ -0,0 +1,148 @@
+/**
+ * Licensed to Apereo under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work
+ * for additional information regarding copyright ownership.
+ * Apereo licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License.  You may obtain a
+ * copy of the License at the following location:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jasig.ssp.service.security.oauth2.impl;
+
+import static org.easymock.EasyMock.createMock;
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.expectLastCall;
+import static org.easymock.EasyMock.replay;
+import static org.easymock.EasyMock.verify;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Date;
+
+import org.easymock.IAnswer;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.security.oauth2.common.DefaultOAuth2AccessToken;
+import org.springframework.security.oauth2.common.OAuth2AccessToken;
+import org.springframework.security.oauth2.provider.AuthorizationRequest;
+import org.springframework.security.oauth2.provider.DefaultAuthorizationRequest;
+import org.springframework.security.oauth2.provider.OAuth2Authentication;
+import org.springframework.security.oauth2.provider.token.TokenStore;
+
+public class CachingOAuth2TokenStoreTest {
+
+	private static final String TOKEN_VALUE = "abc123";
+
+	private transient CachingOAuth2TokenStore store;
+
+	private transient TokenStore delegate;
+
+	@Before
+	public void setUp() {
+		delegate = createMock(TokenStore.class);
+		store = new CachingOAuth2TokenStore();
+		store.setDelegateTokenStore(delegate);
+		store.init();
+	}
+
+	private DefaultOAuth2AccessToken token(final long expiresInMillis) {
+		final DefaultOAuth2AccessToken token = new DefaultOAuth2AccessToken(
+				TOKEN_VALUE);
+		token.setExpiration(new Date(System.currentTimeMillis()
+				+ expiresInMillis));
+		return token;
+	}
+
+	private OAuth2Authentication authentication() {
+		final AuthorizationRequest request = new DefaultAuthorizationRequest(
+				"client", null);
+		return new OAuth2Authentication(request, null);
+	}
+
+	@Test
+	public void testWarmReadsSkipDelegate() {
+		expect(delegate.readAccessToken(TOKEN_VALUE)).andReturn(token(60000));
+		expect(delegate.readAuthentication(TOKEN_VALUE)).andReturn(
+				authentication());
+		replay(delegate);
+
+		for (int i = 0; i < 3; i++) {
+			assertEquals(TOKEN_VALUE, store.readAccessToken(TOKEN_VALUE)
+					.getValue());
+			assertEquals("client", store.readAuthentication(TOKEN_VALUE)
+					.getAuthorizationRequest().getClientId());
+		}
+		verify(delegate);
+	}
+
+	@Test
+	public void testRemoveEvicts() {
+		final OAuth2AccessToken token = token(60000);
+		expect(delegate.readAccessToken(TOKEN_VALUE)).andReturn(token);
+		delegate.removeAccessToken(token);
+		expect(delegate.readAccessToken(TOKEN_VALUE)).andReturn(null);
+		replay(delegate);
+
+		store.readAccessToken(TOKEN_VALUE);
+		store.removeAccessToken(token);
+		assertNull("Removed token should not be served from cache.",
+				store.readAccessToken(TOKEN_VALUE));
+		verify(delegate);
+	}
+
+	@Test
+	public void testReadBeforeRemovalCommitsIsNotServedAfterwards() {
+		final OAuth2AccessToken token = token(60000);
+		// the row is still there until the delegate's removal commits
+		expect(delegate.readAccessToken(TOKEN_VALUE)).andReturn(token);
+		delegate.removeAccessToken(token);
+		expectLastCall().andAnswer(new IAnswer<Void>() {
+			@Override
+			public Void answer() {
+				store.readAccessToken(TOKEN_VALUE);
+				return null;
+			}
+		});
+		expect(delegate.readAccessToken(TOKEN_VALUE)).andReturn(null);
+		replay(delegate);
+
+		store.removeAccessToken(token);
+		assertNull("Token read while its removal was in flight should not be cached.",
+				store.readAccessToken(TOKEN_VALUE));
+		verify(delegate);
+	}
+
+	@Test
+	public void testExpiredTokensAreNotCached() {
+		expect(delegate.readAccessToken(TOKEN_VALUE)).andReturn(token(-1000))
+				.times(2);
+		replay(delegate);
+
+		assertTrue(store.readAccessToken(TOKEN_VALUE).isExpired());
+		assertTrue(store.readAccessToken(TOKEN_VALUE).isExpired());
+		verify(delegate);
+	}
+
+	@Test
+	public void testDisabledCacheAlwaysDelegates() {
+		store.setCacheSeconds(0);
+		store.init();
+		expect(delegate.readAccessToken(TOKEN_VALUE)).andReturn(token(60000))
+				.times(2);
+		replay(delegate);
+
+		store.readAccessToken(TOKEN_VALUE);
+		store.readAccessToken(TOKEN_VALUE);
+		verify(delegate);
+	}
+}
@@ -0,0 +1,174 @@
+/**
+ * Licensed to Apereo under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work
+ * for additional information regarding copyright ownership.
+ * Apereo licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License.  You may obtain a
+ * copy of the License at the following location:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jasig.ssp.util.http;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.zip.GZIPInputStream;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletResponse;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.core.io.FileSystemResourceLoader;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockFilterConfig;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.mock.web.MockServletContext;
+
+public class FingerprintedAssetFilterTest {
+
+	private static final String CONTENT = "Ext.define('Ssp.Test', {});";
+
+	private File webapp;
+
+	private MockServletContext servletContext;
+
+	private FingerprintedAssetFilter filter;
+
+	@Before
+	public void setUp() throws IOException, ServletException {
+		webapp = File.createTempFile("webapp", "");
+		webapp.delete();
+		FileUtils.writeStringToFile(new File(webapp, "app-all.js"), CONTENT,
+				"UTF-8");
+		servletContext = new MockServletContext(webapp.toURI().toString(),
+				new FileSystemResourceLoader());
+		filter = new FingerprintedAssetFilter();
+		filter.init(new MockFilterConfig(servletContext));
+	}
+
+	@After
+	public void tearDown() throws IOException {
+		FileUtils.deleteDirectory(webapp);
+	}
+
+	@Test
+	public void testVersionedPath() {
+		final String path = AssetFingerprints.get(servletContext)
+				.versionedPath("/app-all.js");
+		assertTrue(path, path.matches("/versioned/[0-9a-f]{12}/app-all.js"));
+		assertEquals("/missing.js", AssetFingerprints.get(servletContext)
+				.versionedPath("/missing.js"));
+	}
+
+	@Test
+	public void testServesCurrentFingerprintImmutably() throws Exception {
+		final MockHttpServletResponse response = get(versioned("/app-all.js"),
+				null);
+
+		assertEquals(CONTENT, response.getContentAsString());
+		assertTrue(response.getHeader("Cache-Control").toString(), response
+				.getHeader("Cache-Control").toString().contains("immutable"));
+	}
+
+	@Test
+	public void testServesGzipped() throws Exception {
+		final MockHttpServletResponse response = get(versioned("/app-all.js"),
+				"gzip, deflate");
+
+		assertEquals("gzip", response.getHeader("Content-Encoding"));
+		assertEquals(CONTENT, IOUtils.toString(new GZIPInputStream(
+				new ByteArrayInputStream(response.getContentAsByteArray())),
+				"UTF-8"));
+	}
+
+	@Test
+	public void testRevalidationIsNotModified() throws Exception {
+		final MockHttpServletRequest request = request(versioned("/app-all.js"));
+		request.addHeader("If-None-Match", "\"whatever\"");
+		final MockHttpServletResponse response = new MockHttpServletResponse();
+		filter.doFilter(request, response, new MockFilterChain());
+
+		assertEquals(HttpServletResponse.SC_NOT_MODIFIED, response.getStatus());
+	}
+
+	@Test
+	public void testStaleFingerprintGoesDownTheChain() throws Exception {
+		final MockFilterChain chain = new MockFilterChain();
+		final MockHttpServletResponse response = new MockHttpServletResponse();
+		filter.doFilter(request("/versioned/000000000000/app-all.js"),
+				response, chain);
+
+		assertEquals(response, chain.getResponse());
+		assertNull(response.getHeader("Cache-Control"));
+	}
+
+	@Test
+	public void testEditedAssetGetsNewFingerprint() throws Exception {
+		final String before = versioned("/app-all.js");
+		final File asset = new File(webapp, "app-all.js");
+		FileUtils.writeStringToFile(asset, CONTENT + "\n", "UTF-8");
+		// don't depend on the file system's timestamp granularity
+		asset.setLastModified(asset.lastModified() + 2000);
+
+		final String after = versioned("/app-all.js");
+		assertFalse(after, before.equals(after));
+		assertEquals(CONTENT + "\n", get(after, null).getContentAsString());
+		assertNull(get(before, null).getHeader("Cache-Control"));
+	}
+
+	@Test
+	public void testStalePrecompressedAssetIsNotServed() throws Exception {
+		final File asset = new File(webapp, "app-all.js");
+		final File precompressed = new File(webapp, "app-all.js.gz");
+		FileUtils.writeStringToFile(precompressed, "stale", "UTF-8");
+		precompressed.setLastModified(asset.lastModified() - 2000);
+
+		final MockHttpServletResponse response = get(versioned("/app-all.js"),
+				"gzip");
+
+		assertEquals(CONTENT, IOUtils.toString(new GZIPInputStream(
+				new ByteArrayInputStream(response.getContentAsByteArray())),
+				"UTF-8"));
+	}
+
+	private String versioned(final String path) {
+		return AssetFingerprints.get(servletContext).versionedPath(path);
+	}
+
+	private MockHttpServletRequest request(final String uri) {
+		final MockHttpServletRequest request = new MockHttpServletRequest(
+				servletContext, "GET", "/ssp" + uri);
+		request.setContextPath("/ssp");
+		return request;
+	}
+
+	private MockHttpServletResponse get(final String uri,
+			final String acceptEncoding) throws Exception {
+		final MockHttpServletRequest request = request(uri);
+		if (acceptEncoding != null) {
+			request.addHeader("Accept-Encoding", acceptEncoding);
+		}
+		final MockHttpServletResponse response = new MockHttpServletResponse();
+		filter.doFilter(request, response, new MockFilterChain());
+		return response;
+	}
+}
@@ -0,0 +1,139 @@
+/**
+ * Licensed to Apereo under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work
+ * for additional information regarding copyright ownership.
+ * Apereo licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License.  You may obtain a
+ * copy of the License at the following location:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jasig.ssp.util.http;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+
+import javax.servlet.RequestDispatcher;
+import javax.servlet.ServletContext;
+import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+
+import org.jasig.portlet.utils.rest.RestResponse;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.mock.web.MockServletContext;
+
+public class PatchedSimpleCrossContextRestApiInvokerTest {
+
+	private static final String URI = "/ssp-platform/api/people/{username}.json";
+
+	private transient MockServletContext sspContext;
+
+	private transient PatchedSimpleCrossContextRestApiInvoker invoker;
+
+	private transient int lookups;
+
+	private transient CountDownLatch release;
+
+	@Before
+	public void setUp() {
+		sspContext = new MockServletContext() {
+			@Override
+			public ServletContext getContext(final String contextPath) {
+				lookups++;
+				return super.getContext(contextPath);
+			}
+		};
+		sspContext.registerContext("/ssp-platform", new MockServletContext() {
+			@Override
+			public RequestDispatcher getRequestDispatcher(final String path) {
+				return new RequestDispatcher() {
+					@Override
+					public void include(final ServletRequest req,
+							final ServletResponse res) throws ServletException,
+							IOException {
+						if (release != null) {
+							try {
+								release.await();
+							} catch (final InterruptedException e) {
+								Thread.currentThread().interrupt();
+							}
+						}
+						res.getWriter().write("{\"path\":\"" + path + "\"}");
+					}
+
+					@Override
+					public void forward(final ServletRequest req,
+							final ServletResponse res) {
+						throw new UnsupportedOperationException();
+					}
+				};
+			}
+		});
+		invoker = new PatchedSimpleCrossContextRestApiInvoker();
+		invoker.setServletContext(sspContext);
+	}
+
+	private RestResponse invoke(final String username) {
+		return invoker.invoke(new MockHttpServletRequest(), new MockHttpServletResponse(),
+				URI, Collections.singletonMap("username", new String[] { username }));
+	}
+
+	@Test
+	public void testInvokeWithoutSession() {
+		final MockHttpServletRequest req = new MockHttpServletRequest();
+		final RestResponse rr = invoker.invoke(req, new MockHttpServletResponse(),
+				URI, Collections.singletonMap("username", new String[] { "jdoe" }));
+		assertEquals("{\"path\":\"/api/people/jdoe.json\"}", rr.getWriterOutput());
+		assertNull("Invoking shouldn't create a session.", req.getSession(false));
+	}
+
+	@Test
+	public void testTargetContextLookedUpOnce() {
+		invoke("a");
+		invoke("b");
+		assertEquals(1, lookups);
+	}
+
+	@Test
+	public void testConcurrencyLimit() throws InterruptedException {
+		invoker.setMaxConcurrentInvocations(1);
+		invoker.setPermitWaitMillis(50);
+		release = new CountDownLatch(1);
+		final Thread busy = new Thread() {
+			@Override
+			public void run() {
+				invoke("busy");
+			}
+		};
+		busy.start();
+		Thread.sleep(100);
+		try {
+			invoke("waiting");
+			fail("Expected to give up waiting for a permit");
+		} catch (final IllegalStateException e) {
+			// expected
+		} finally {
+			release.countDown();
+			busy.join();
+		}
+		release = null;
+		assertEquals("{\"path\":\"/api/people/ok.json\"}", invoke("ok").getWriterOutput());
+	}
+}
@@ -45,6 +45,11 @@ public class StubPersonAttributesService implements PersonAttributesService {
 		throw new UnsupportedOperationException("Not needed yet, so not implemented yet");
 	}
 
+	@Override
+	public Map<String, PersonAttributesResult> getAttributesForUsernames(Collection<String> usernames) {
+		throw new UnsupportedOperationException("Not needed yet, so not implemented yet");
+	}
+
 	@Override
 	public List<Map<String, Object>> searchForUsers(Map<String, String> query) {
 		throw new UnsupportedOperationException("Not needed yet, so not implemented yet");
@@ -0,0 +1,150 @@
+/**
+ * Licensed to Apereo under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work
+ * for additional information regarding copyright ownership.
+ * Apereo licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License.  You may obtain a
+ * copy of the License at the following location:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jasig.ssp.web.api.reference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+import javax.servlet.http.HttpServletResponse;
+
+import org.codehaus.jackson.map.ObjectMapper;
+import org.jasig.ssp.model.ObjectStatus;
+import org.jasig.ssp.model.Person;
+import org.jasig.ssp.model.reference.Ethnicity;
+import org.jasig.ssp.service.impl.SecurityServiceInTestEnvironment;
+import org.jasig.ssp.service.reference.EthnicityService;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.test.context.transaction.TransactionConfiguration;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * {@link ReferenceBundleController} tests
+ */
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration("../../ControllerIntegrationTests-context.xml")
+@TransactionConfiguration
+@Transactional
+public class ReferenceBundleControllerIntegrationTest {
+
+	@Autowired
+	private transient ReferenceBundleController controller;
+
+	@Autowired
+	private transient SecurityServiceInTestEnvironment securityService;
+
+	@Autowired
+	private transient EthnicityService ethnicityService;
+
+	@Before
+	public void setUp() {
+		securityService.setCurrent(new Person(Person.SYSTEM_ADMINISTRATOR_ID));
+	}
+
+	@SuppressWarnings("unchecked")
+	@Test
+	public void testGetGzipped() throws Exception {
+		final MockHttpServletRequest request = new MockHttpServletRequest(
+				"GET", "/1/reference/bundle");
+		request.addHeader("Accept-Encoding", "gzip, deflate");
+		final MockHttpServletResponse response = new MockHttpServletResponse();
+
+		controller.get(request, response);
+
+		assertEquals("Response should have been gzipped.", "gzip",
+				response.getHeader("Content-Encoding"));
+		assertNotNull("Response should have had an ETag.",
+				response.getHeader("ETag"));
+
+		final Map<String, Object> body = new ObjectMapper().readValue(
+				new GZIPInputStream(new ByteArrayInputStream(response
+						.getContentAsByteArray())), Map.class);
+		final Map<String, List<?>> lists = (Map<String, List<?>>) body
+				.get("lists");
+		assertTrue("Bundle should have included ethnicities.",
+				lists.containsKey("reference/ethnicity"));
+		assertFalse("Bundle should not have included permission-filtered config.",
+				lists.containsKey("reference/config"));
+		assertFalse("Bundle should not have included itself.",
+				lists.containsKey("reference/bundle"));
+	}
+
+	@Test
+	public void testGetNotModified() throws Exception {
+		final MockHttpServletResponse first = new MockHttpServletResponse();
+		controller.get(new MockHttpServletRequest("GET", "/1/reference/bundle"),
+				first);
+		assertTrue("Uncompressed response should not have been empty.",
+				first.getContentAsByteArray().length > 0);
+
+		final MockHttpServletRequest request = new MockHttpServletRequest(
+				"GET", "/1/reference/bundle");
+		request.addHeader("If-None-Match", first.getHeader("ETag"));
+		final MockHttpServletResponse second = new MockHttpServletResponse();
+		controller.get(request, second);
+
+		assertEquals("Unchanged bundle should have been a 304.",
+				HttpServletResponse.SC_NOT_MODIFIED, second.getStatus());
+		assertEquals("304 should not have had a body.", 0,
+				second.getContentAsByteArray().length);
+	}
+
+	@Test
+	public void testUnchangedBundleIsNotRechecked() throws Exception {
+		assertSame("Bundle should have been reused without checking its version again.",
+				controller.getBundle(), controller.getBundle());
+	}
+
+	@Test
+	public void testChangeOnThisNodeRebuildsBundle() throws Exception {
+		final MockHttpServletResponse first = new MockHttpServletResponse();
+		controller.get(new MockHttpServletRequest("GET", "/1/reference/bundle"),
+				first);
+
+		final Ethnicity ethnicity = new Ethnicity();
+		ethnicity.setName("bundle test ethnicity");
+		ethnicity.setObjectStatus(ObjectStatus.ACTIVE);
+		ethnicityService.create(ethnicity);
+
+		final MockHttpServletRequest request = new MockHttpServletRequest(
+				"GET", "/1/reference/bundle");
+		request.addHeader("If-None-Match", first.getHeader("ETag"));
+		final MockHttpServletResponse second = new MockHttpServletResponse();
+		controller.get(request, second);
+
+		assertEquals("Changed bundle should have been sent again.",
+				HttpServletResponse.SC_OK, second.getStatus());
+		assertFalse("Changed bundle should have had a new ETag.",
+				first.getHeader("ETag").equals(second.getHeader("ETag")));
+	}
+}